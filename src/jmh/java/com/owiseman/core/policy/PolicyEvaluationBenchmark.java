@@ -0,0 +1,62 @@
+package com.owiseman.core.policy;
+
+import java.time.Clock;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of evaluating a policy expression on the request path.
+ * <p>
+ * {@code parsePerCall} compiles the expression on every evaluation, the cost
+ * of interpreting it from source; {@code compiled} evaluates the cached
+ * {@link CompiledPolicy} that {@link PolicyEngine} hands out.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec -Djmh.includes=PolicyEvaluationBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PolicyEvaluationBenchmark {
+
+    private static final String EXPRESSION =
+        "user.department == 'IT' && time.now < '18:00' && ('admin' in user.roles || user.level >= 3)";
+
+    private CompiledPolicy policy;
+    private PolicyContext context;
+
+    @Setup
+    public void setUp() {
+        policy = PolicyCompiler.compile(EXPRESSION);
+        context = PolicyContext.of(Map.of(
+            "user.department", "IT",
+            "user.roles", List.of("developer", "admin"),
+            "user.level", 2,
+            PolicyContext.TIME_NOW, LocalTime.of(9, 30)), Clock.systemDefaultZone());
+    }
+
+    @Benchmark
+    public boolean parsePerCall() {
+        return PolicyCompiler.compile(EXPRESSION).evaluate(context);
+    }
+
+    @Benchmark
+    public boolean compiled() {
+        return policy.evaluate(context);
+    }
+}
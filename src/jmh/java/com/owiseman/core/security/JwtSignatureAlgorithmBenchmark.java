@@ -0,0 +1,103 @@
+package com.owiseman.core.security;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.owiseman.core.domain.TokenClaims;
+
+/**
+ * Single-core token issuance and verification throughput per signature
+ * algorithm and claim payload size, through {@link JwtTokenProvider} as the
+ * login and request paths use it.
+ * <p>
+ * Payloads are self-contained tokens: {@code minimal} carries no roles or
+ * permissions, {@code typical} a handful of roles and a few dozen permissions,
+ * {@code large} an administrator-sized grant list.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec -Djmh.includes=JwtSignatureAlgorithmBenchmark};
+ * narrow the matrix with e.g. {@code -Djmh.includes="JwtSignatureAlgorithmBenchmark -p algorithm=ES256,EdDSA"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(1)
+@Fork(1)
+public class JwtSignatureAlgorithmBenchmark {
+
+    /** 64 bytes, long enough for HS512. */
+    private static final String SECRET = "mySecretKeyForJWTTokenGenerationMustBeAtLeast512BitsLongForHS512";
+
+    @Param({"HS256", "HS384", "HS512", "RS256", "ES256", "EdDSA"})
+    public String algorithm;
+
+    @Param({"minimal", "typical", "large"})
+    public String payload;
+
+    private JwtTokenProvider provider;
+    private TokenClaims claims;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        provider = new JwtTokenProvider(new SigningKeyManager(SECRET, algorithm, 3_600_000L), 3_600_000L, true);
+        claims = claims(payload);
+        token = provider.generateToken(claims);
+    }
+
+    @Benchmark
+    public String issue() {
+        return provider.generateToken(claims);
+    }
+
+    @Benchmark
+    public TokenVerification verify() {
+        return provider.verifyToken(token);
+    }
+
+    private static TokenClaims claims(String payload) {
+        TokenClaims claims = new TokenClaims();
+        claims.setUserId(UUID.randomUUID());
+        claims.setRealmId(UUID.randomUUID());
+        claims.setUsername("benchmark-user@example.com");
+        claims.setAuthoritiesVersion(System.currentTimeMillis());
+        switch (payload) {
+            case "minimal" -> {
+                claims.setRoles(List.of());
+                claims.setPermissions(List.of());
+            }
+            case "typical" -> {
+                claims.setRoles(names("role", 5));
+                claims.setPermissions(names("resource", 30));
+            }
+            case "large" -> {
+                claims.setRoles(names("role", 40));
+                claims.setPermissions(names("resource", 300));
+            }
+            default -> throw new IllegalArgumentException("Unknown payload: " + payload);
+        }
+        return claims;
+    }
+
+    private static List<String> names(String prefix, int count) {
+        return IntStream.range(0, count)
+            .mapToObj(i -> prefix + "-" + i + ":" + (i % 2 == 0 ? "read" : "write"))
+            .toList();
+    }
+}
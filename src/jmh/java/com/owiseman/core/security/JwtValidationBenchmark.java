@@ -0,0 +1,73 @@
+package com.owiseman.core.security;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.SecretKey;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * Per-request JWT validation cost as seen by {@link JwtAuthenticationFilter}.
+ * <p>
+ * {@code rebuildPerCall} reproduces the original behaviour (key derivation and
+ * parser construction on every call), {@code cachedPipeline} the cached parser
+ * with separate validate/extract calls, and {@code verifyOnce} the single-pass
+ * verification the filter uses now.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec -Djmh.includes=JwtValidationBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtValidationBenchmark {
+
+    private static final String SECRET = "mySecretKeyForJWTTokenGenerationMustBeAtLeast256BitsLong";
+
+    private JwtTokenProvider provider;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        provider = new JwtTokenProvider(new SigningKeyManager(SECRET, "", 3_600_000L), 3_600_000L, false);
+        token = provider.generateToken("benchmark-user");
+    }
+
+    @Benchmark
+    public String rebuildPerCall() {
+        Jwts.parser().verifyWith(deriveKey()).build().parseSignedClaims(token);
+        Claims claims = Jwts.parser().verifyWith(deriveKey()).build().parseSignedClaims(token).getPayload();
+        return claims.getSubject();
+    }
+
+    @Benchmark
+    public String cachedPipeline() {
+        provider.validateToken(token);
+        return provider.getUsernameFromToken(token);
+    }
+
+    @Benchmark
+    public String verifyOnce() {
+        return provider.verifyToken(token).getClaims().getSubject();
+    }
+
+    private static SecretKey deriveKey() {
+        return Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,66 @@
+package com.owiseman.core.audit;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.owiseman.core.jooq.repository.AuditLogRepository;
+
+/**
+ * Keeps the audit log's time partitions ahead of the clock and applies retention.
+ * <p>
+ * Every {@code app.audit.maintenance-interval}, starting at startup, storage is
+ * prepared for entries created up to {@code app.audit.partition-lead-time} from
+ * now, and entries older than {@code app.audit.retention} are purged. A zero
+ * retention keeps entries forever. Failures are logged and retried on the
+ * next run; the lead time should cover several runs.
+ */
+@Component
+public class AuditLogRetention {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditLogRetention.class);
+
+    private final AuditLogRepository auditLogRepository;
+    private final Duration leadTime;
+    private final Duration retention;
+    private final Clock clock;
+
+    @Autowired
+    public AuditLogRetention(AuditLogRepository auditLogRepository,
+                             @Value("${app.audit.partition-lead-time:7d}") Duration leadTime,
+                             @Value("${app.audit.retention:400d}") Duration retention) {
+        this(auditLogRepository, leadTime, retention, Clock.systemDefaultZone());
+    }
+
+    AuditLogRetention(AuditLogRepository auditLogRepository, Duration leadTime, Duration retention, Clock clock) {
+        this.auditLogRepository = auditLogRepository;
+        this.leadTime = leadTime;
+        this.retention = retention;
+        this.clock = clock;
+    }
+
+    @Scheduled(fixedDelayString = "${app.audit.maintenance-interval:PT1H}")
+    public void maintain() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        try {
+            auditLogRepository.prepareUntil(now.plus(leadTime));
+        } catch (RuntimeException ex) {
+            logger.error("Cannot prepare audit log storage: {}", ex.getMessage());
+        }
+        if (retention.isZero() || retention.isNegative()) {
+            return;
+        }
+        try {
+            auditLogRepository.purgeBefore(now.minus(retention));
+        } catch (RuntimeException ex) {
+            logger.error("Cannot apply audit log retention: {}", ex.getMessage());
+        }
+    }
+}
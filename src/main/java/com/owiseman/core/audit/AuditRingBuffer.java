@@ -0,0 +1,107 @@
+package com.owiseman.core.audit;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded, lock-free multi-producer single-consumer ring buffer.
+ * <p>
+ * Each slot carries a sequence number that tells producers and the consumer
+ * whose turn it is: a slot at position {@code p} is free for the producer
+ * claiming {@code p} when its sequence is {@code p}, and holds an element for
+ * the consumer when it is {@code p + 1}. Producers claim positions with a CAS
+ * on the tail and never wait; {@link #offer} fails instead when the buffer is
+ * full. Only one thread may call {@link #drainTo} at a time.
+ *
+ * @param <E> the element type
+ */
+final class AuditRingBuffer<E> {
+
+    private final Object[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    /** Written by the consumer only; atomic so {@link #size} can be read from any thread. */
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * @param capacity the number of slots, rounded up to a power of two
+     */
+    AuditRingBuffer(int capacity) {
+        if (capacity < 1 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("capacity must be between 1 and 2^30: " + capacity);
+        }
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * Append an element unless the buffer is full.
+     *
+     * @return {@code false} if the buffer was full and the element was not added
+     */
+    boolean offer(E element) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long gap = sequences.get(index) - position;
+            if (gap == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots[index] = element;
+                    // Publishes the element to the consumer
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (gap < 0) {
+                // The consumer has not freed the slot a full lap ago
+                return false;
+            } else {
+                // Another producer claimed this position first
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Move up to {@code max} elements into {@code sink}, oldest first.
+     *
+     * @return the number of elements moved
+     */
+    @SuppressWarnings("unchecked")
+    int drainTo(List<? super E> sink, int max) {
+        long position = head.get();
+        int drained = 0;
+        while (drained < max) {
+            int index = (int) (position & mask);
+            if (sequences.get(index) != position + 1) {
+                // Empty, or the producer of this position has not published yet
+                break;
+            }
+            sink.add((E) slots[index]);
+            slots[index] = null;
+            sequences.set(index, position + slots.length);
+            position++;
+            drained++;
+        }
+        head.set(position);
+        return drained;
+    }
+
+    /**
+     * The number of claimed positions not yet drained; approximate under concurrent access.
+     */
+    int size() {
+        return (int) Math.max(0L, tail.get() - head.get());
+    }
+}
@@ -0,0 +1,375 @@
+package com.owiseman.core.audit;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.CRC32C;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import com.owiseman.core.domain.AuditLog;
+
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Durable local spool the audit writer falls back to while the database is
+ * unavailable.
+ * <p>
+ * Entries are appended to memory-mapped segment files of
+ * {@code app.audit.spool.segment-size} bytes in {@code app.audit.spool.directory}.
+ * An append is a sequential copy into the mapping; each appended batch is
+ * forced to disk once, so the cost of fsync is shared by the whole batch.
+ * Segments are never appended to after they are sealed, including across
+ * restarts: a restarted node starts a new segment and replays the old ones.
+ * <p>
+ * Segment layout: a header of a magic number and the segment's random UUID,
+ * then records of {@code length, sequence, CRC32C, payload}, where the payload
+ * is the entry as JSON and sequences count up from 0 within the segment. A
+ * zero length or a checksum mismatch marks the end of the segment, so a record
+ * torn by a crash is discarded. The (segment UUID, sequence) pair identifies
+ * an entry for exactly-once replay, see {@link #replay}.
+ * <p>
+ * A segment that cannot be decoded, or that the repository keeps rejecting
+ * (see {@link #strike}), is moved to the {@code quarantine} subdirectory so
+ * that it does not hold up the segments behind it. Quarantined segments keep
+ * their format and can be moved back once the cause is fixed.
+ */
+@Component
+public class AuditSpool {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditSpool.class);
+
+    private static final long MAGIC = 0x494d415355444954L;
+    private static final int HEADER_SIZE = Long.BYTES * 3;
+    private static final int RECORD_HEADER_SIZE = Integer.BYTES + Long.BYTES + Integer.BYTES;
+    private static final String SUFFIX = ".seg";
+    private static final String QUARANTINE = "quarantine";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final ObjectMapper objectMapper;
+
+    /** Sealed segments waiting to be replayed, oldest first. Guarded by this. */
+    private final Deque<Path> pending = new ArrayDeque<>();
+    private long nextSegmentNumber;
+    private long quarantined;
+
+    /** The segment the last failed replay stopped at and how often in a row it was struck. Guarded by this. */
+    private Path failedSegment;
+    private Path struckSegment;
+    private int strikes;
+
+    // The active segment, or null before the first append. Guarded by this.
+    private Path activePath;
+    private FileChannel activeChannel;
+    private MappedByteBuffer active;
+    private long nextSequence;
+    private int forcedPosition;
+
+    @Autowired
+    public AuditSpool(@Value("${app.audit.spool.directory:data/audit-spool}") Path directory,
+                      @Value("${app.audit.spool.segment-size:64MB}") DataSize segmentSize,
+                      ObjectMapper objectMapper) {
+        this(directory, (int) Math.min(Integer.MAX_VALUE, segmentSize.toBytes()), objectMapper);
+    }
+
+    AuditSpool(Path directory, int segmentSize, ObjectMapper objectMapper) {
+        if (segmentSize <= HEADER_SIZE + RECORD_HEADER_SIZE) {
+            throw new IllegalArgumentException("segmentSize is too small: " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.objectMapper = objectMapper;
+        scan();
+    }
+
+    /**
+     * Append a batch and force it to disk.
+     *
+     * @throws IllegalArgumentException if an entry does not fit into an empty segment
+     * @throws UncheckedIOException if the spool cannot be written
+     */
+    public synchronized void append(List<AuditLog> entries) {
+        try {
+            for (AuditLog entry : entries) {
+                byte[] payload = objectMapper.writeValueAsBytes(entry);
+                int recordSize = RECORD_HEADER_SIZE + payload.length;
+                if (HEADER_SIZE + recordSize > segmentSize) {
+                    throw new IllegalArgumentException("Audit entry of " + payload.length + " bytes exceeds the spool segment size");
+                }
+                if (active == null || active.remaining() < recordSize) {
+                    rollOver();
+                }
+                CRC32C crc = new CRC32C();
+                crc.update(payload);
+                active.putInt(payload.length);
+                active.putLong(nextSequence++);
+                active.putInt((int) crc.getValue());
+                active.put(payload);
+            }
+            force();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot write audit spool in " + directory, ex);
+        }
+    }
+
+    /**
+     * Whether any spooled entries wait to be replayed.
+     */
+    public synchronized boolean hasPending() {
+        return !pending.isEmpty() || (active != null && nextSequence > 0);
+    }
+
+    /**
+     * The number of segments waiting to be replayed, including the active one.
+     */
+    public synchronized int pendingSegments() {
+        return pending.size() + (active != null && nextSequence > 0 ? 1 : 0);
+    }
+
+    /**
+     * The number of segments quarantined since startup.
+     */
+    public synchronized long quarantinedSegments() {
+        return quarantined;
+    }
+
+    /**
+     * Hand every spooled entry to {@code target}, oldest segment first, in
+     * batches of up to {@code batchSize} decoded as the segment is read,
+     * deleting each segment once all its batches were accepted. A segment that
+     * cannot be decoded is quarantined and replay goes on with the next one.
+     * If {@code target} throws, the segment is kept and replayed from its start
+     * next time; {@code target} must skip entries it has already saved for
+     * exactly-once delivery.
+     *
+     * @return the number of entries handed over
+     */
+    public synchronized long replay(Target target, int batchSize) {
+        if (active != null && nextSequence > 0) {
+            seal();
+        }
+        long replayed = 0;
+        while (!pending.isEmpty()) {
+            Path path = pending.peekFirst();
+            try {
+                replayed += replay(path, target, batchSize);
+            } catch (CorruptSegmentException ex) {
+                quarantineHead(ex.getMessage());
+                continue;
+            } catch (RuntimeException ex) {
+                failedSegment = path;
+                throw ex;
+            }
+            delete(path);
+            pending.removeFirst();
+        }
+        failedSegment = null;
+        return replayed;
+    }
+
+    /**
+     * Count a strike against the segment the last replay failed on, for a
+     * failure that was not caused by the repository being unavailable. Once a
+     * segment has been struck {@code maxStrikes} times in a row it is quarantined.
+     *
+     * @return {@code true} if the segment was quarantined
+     */
+    public synchronized boolean strike(int maxStrikes) {
+        if (failedSegment == null || !failedSegment.equals(pending.peekFirst())) {
+            return false;
+        }
+        if (!failedSegment.equals(struckSegment)) {
+            struckSegment = failedSegment;
+            strikes = 0;
+        }
+        if (++strikes < maxStrikes) {
+            return false;
+        }
+        quarantineHead("rejected by the repository " + strikes + " times");
+        return true;
+    }
+
+    /**
+     * Receives replayed entries.
+     */
+    @FunctionalInterface
+    public interface Target {
+
+        /**
+         * @param firstSequence the sequence number of the first entry; the following are numbered consecutively
+         */
+        void save(UUID segment, long firstSequence, List<AuditLog> entries);
+    }
+
+    private void scan() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        List<Path> found = new ArrayList<>();
+        try (DirectoryStream<Path> segments = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            segments.forEach(found::add);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot read audit spool in " + directory, ex);
+        }
+        found.sort(null);
+        for (Path path : found) {
+            pending.addLast(path);
+            nextSegmentNumber = Math.max(nextSegmentNumber, segmentNumber(path) + 1);
+        }
+    }
+
+    private void rollOver() throws IOException {
+        if (active != null) {
+            seal();
+        }
+        Files.createDirectories(directory);
+        UUID id = UUID.randomUUID();
+        activePath = directory.resolve(String.format("%020d%s", nextSegmentNumber++, SUFFIX));
+        activeChannel = FileChannel.open(activePath, StandardOpenOption.CREATE_NEW,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        active = activeChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        active.putLong(MAGIC);
+        active.putLong(id.getMostSignificantBits());
+        active.putLong(id.getLeastSignificantBits());
+        nextSequence = 0;
+        forcedPosition = 0;
+    }
+
+    private void seal() {
+        force();
+        try {
+            activeChannel.close();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot close audit spool segment " + activePath, ex);
+        }
+        pending.addLast(activePath);
+        activePath = null;
+        activeChannel = null;
+        active = null;
+    }
+
+    private void force() {
+        if (active != null && active.position() > forcedPosition) {
+            active.force(forcedPosition, active.position() - forcedPosition);
+            forcedPosition = active.position();
+        }
+    }
+
+    /**
+     * Decode a segment and hand it to {@code target} batch by batch.
+     *
+     * @throws CorruptSegmentException if the segment cannot be decoded
+     */
+    private long replay(Path path, Target target, int batchSize) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                return 0;
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getLong() != MAGIC) {
+                throw new CorruptSegmentException("not an audit spool segment");
+            }
+            UUID id = new UUID(buffer.getLong(), buffer.getLong());
+            List<AuditLog> batch = new ArrayList<>(batchSize);
+            long firstSequence = 0;
+            long expected = 0;
+            while (buffer.remaining() >= RECORD_HEADER_SIZE) {
+                int length = buffer.getInt();
+                long sequence = buffer.getLong();
+                int checksum = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining() || sequence != expected) {
+                    break;
+                }
+                byte[] payload = new byte[length];
+                buffer.get(payload);
+                CRC32C crc = new CRC32C();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                batch.add(decode(payload, sequence));
+                expected++;
+                if (batch.size() == batchSize) {
+                    target.save(id, firstSequence, batch);
+                    batch = new ArrayList<>(batchSize);
+                    firstSequence = expected;
+                }
+            }
+            if (!batch.isEmpty()) {
+                target.save(id, firstSequence, batch);
+            }
+            return expected;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot read audit spool segment " + path, ex);
+        }
+    }
+
+    private AuditLog decode(byte[] payload, long sequence) {
+        try {
+            return objectMapper.readValue(payload, AuditLog.class);
+        } catch (JacksonException ex) {
+            throw new CorruptSegmentException("cannot decode entry " + sequence + ": " + ex.getOriginalMessage());
+        }
+    }
+
+    /** Move the oldest pending segment out of the way of the ones behind it. */
+    private void quarantineHead(String reason) {
+        Path path = pending.removeFirst();
+        failedSegment = null;
+        struckSegment = null;
+        strikes = 0;
+        try {
+            Path quarantine = Files.createDirectories(directory.resolve(QUARANTINE));
+            Files.move(path, quarantine.resolve(path.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+            quarantined++;
+            logger.error("Quarantined audit spool segment {}: {}", path.getFileName(), reason);
+        } catch (IOException ex) {
+            // Deleting would lose the entries; skip the segment until the next restart picks it up again
+            logger.error("Cannot quarantine audit spool segment {} ({}): {}", path, reason, ex.getMessage());
+        }
+    }
+
+    private static void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot delete audit spool segment " + path, ex);
+        }
+    }
+
+    private static long segmentNumber(Path path) {
+        String name = path.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+        } catch (NumberFormatException ex) {
+            return -1L;
+        }
+    }
+
+    /** A segment whose contents cannot be decoded; retrying cannot help. */
+    private static final class CorruptSegmentException extends RuntimeException {
+
+        CorruptSegmentException(String message) {
+            super(message);
+        }
+    }
+}
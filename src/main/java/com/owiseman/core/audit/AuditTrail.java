@@ -0,0 +1,337 @@
+package com.owiseman.core.audit;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import com.owiseman.core.domain.AuditEventType;
+import com.owiseman.core.domain.AuditLog;
+import com.owiseman.core.domain.AuditSubjectType;
+import com.owiseman.core.jooq.repository.AuditLogRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Asynchronous, batched audit log.
+ * <p>
+ * {@link #record} puts the entry into a bounded lock-free ring buffer and
+ * returns; it never blocks and never touches the database, so recording an
+ * event adds no round trip to the login path. A background writer drains the
+ * buffer into {@link AuditLogRepository#saveAll} batches of up to
+ * {@code app.audit.batch-size} entries, every {@code app.audit.flush-interval}
+ * or as soon as a full batch is pending. Buffered entries are flushed on shutdown.
+ * <p>
+ * A batch the repository rejects, e.g. because the database is down or the
+ * write timed out, goes to the {@link AuditSpool} instead, and so do further
+ * batches for {@code app.audit.spool.retry-interval}. Once a write succeeds
+ * again the spool is replayed into the repository, exactly once per entry.
+ * A spooled segment the repository rejects while it accepts new batches is
+ * retried every retry interval and quarantined after
+ * {@code app.audit.spool.max-replay-failures} such rejections, so that one
+ * bad segment cannot divert the audit log to the spool for good.
+ * When the writer falls behind and the buffer is full, new entries are dropped
+ * rather than slowing down callers; a batch neither the repository nor the
+ * spool accept is dropped as well.
+ * <p>
+ * Published meters: {@code audit.events} tagged
+ * {@code result=accepted|dropped|written|spooled|replayed|failed}, the
+ * {@code audit.buffer.size} and {@code audit.spool.segments} gauges, the
+ * {@code audit.spool.quarantined} counter of segments and the
+ * {@code audit.flush} timer of batch writes.
+ */
+@Component
+public class AuditTrail implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditTrail.class);
+
+    private final AuditLogRepository auditLogRepository;
+    private final AuditSpool spool;
+    private final AuditRingBuffer<AuditLog> buffer;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long retryIntervalMillis;
+    private final int maxReplayFailures;
+    private final Clock clock;
+
+    private final Counter accepted;
+    private final Counter dropped;
+    private final Counter written;
+    private final Counter spooled;
+    private final Counter replayed;
+    private final Counter failed;
+    private final Timer flushes;
+
+    private volatile boolean running;
+    private volatile Thread writer;
+    /** Until then batches go straight to the spool; only accessed by the writing thread. */
+    private long repositoryRetryAt;
+    private boolean repositoryFailed;
+    /** Until then the spool is not replayed after a failed replay; only accessed by the writing thread. */
+    private long replayRetryAt;
+
+    @Autowired
+    public AuditTrail(AuditLogRepository auditLogRepository,
+                      AuditSpool spool,
+                      MeterRegistry meterRegistry,
+                      @Value("${app.audit.buffer-capacity:65536}") int bufferCapacity,
+                      @Value("${app.audit.batch-size:500}") int batchSize,
+                      @Value("${app.audit.flush-interval:1s}") Duration flushInterval,
+                      @Value("${app.audit.spool.retry-interval:10s}") Duration retryInterval,
+                      @Value("${app.audit.spool.max-replay-failures:5}") int maxReplayFailures) {
+        this(auditLogRepository, spool, meterRegistry, bufferCapacity, batchSize, flushInterval, retryInterval,
+            maxReplayFailures, Clock.systemDefaultZone());
+    }
+
+    /**
+     * @param spool where batches go while the repository fails, or {@code null} to drop them
+     */
+    AuditTrail(AuditLogRepository auditLogRepository,
+               AuditSpool spool,
+               MeterRegistry meterRegistry,
+               int bufferCapacity,
+               int batchSize,
+               Duration flushInterval,
+               Duration retryInterval,
+               int maxReplayFailures,
+               Clock clock) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        this.auditLogRepository = auditLogRepository;
+        this.spool = spool;
+        this.buffer = new AuditRingBuffer<>(bufferCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.retryIntervalMillis = retryInterval.toMillis();
+        this.maxReplayFailures = maxReplayFailures;
+        this.clock = clock;
+
+        this.accepted = events(meterRegistry, "accepted");
+        this.dropped = events(meterRegistry, "dropped");
+        this.written = events(meterRegistry, "written");
+        this.spooled = events(meterRegistry, "spooled");
+        this.replayed = events(meterRegistry, "replayed");
+        this.failed = events(meterRegistry, "failed");
+        this.flushes = Timer.builder("audit.flush")
+            .description("Audit log batch writes")
+            .register(meterRegistry);
+        Gauge.builder("audit.buffer.size", buffer, AuditRingBuffer::size)
+            .description("Audit log entries waiting to be written")
+            .register(meterRegistry);
+        if (spool != null) {
+            Gauge.builder("audit.spool.segments", spool, AuditSpool::pendingSegments)
+                .description("Audit spool segments waiting to be replayed")
+                .register(meterRegistry);
+            FunctionCounter.builder("audit.spool.quarantined", spool, AuditSpool::quarantinedSegments)
+                .description("Audit spool segments moved to quarantine")
+                .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Record an event about a user, or about no subject if {@code userId} is {@code null}.
+     *
+     * @param detail event specific data, e.g. the role assigned; may be {@code null}
+     * @return {@code false} if the entry was dropped because the buffer is full
+     */
+    public boolean record(AuditEventType eventType, UUID realmId, UUID userId, Map<String, Object> detail) {
+        return record(eventType, realmId, userId, null, detail);
+    }
+
+    /**
+     * Record an event about a user caused by a client request.
+     *
+     * @param ipAddress the IP address of the client, or {@code null} if unknown
+     * @param detail event specific data; may be {@code null}
+     * @return {@code false} if the entry was dropped because the buffer is full
+     */
+    public boolean record(AuditEventType eventType, UUID realmId, UUID userId, String ipAddress,
+                          Map<String, Object> detail) {
+        AuditLog entry = new AuditLog();
+        entry.setEventType(eventType);
+        entry.setRealmId(realmId);
+        entry.setSubjectId(userId);
+        entry.setSubjectType(userId != null ? AuditSubjectType.USER : null);
+        entry.setIpAddress(ipAddress);
+        entry.setDetail(detail);
+        return record(entry);
+    }
+
+    /**
+     * Record an entry; its {@code createdAt} defaults to now.
+     *
+     * @return {@code false} if the entry was dropped because the buffer is full
+     */
+    public boolean record(AuditLog entry) {
+        if (entry.getCreatedAt() == null) {
+            entry.setCreatedAt(LocalDateTime.now(clock));
+        }
+        if (!buffer.offer(entry)) {
+            dropped.increment();
+            return false;
+        }
+        accepted.increment();
+        Thread current = writer;
+        if (current != null && buffer.size() >= batchSize) {
+            LockSupport.unpark(current);
+        }
+        return true;
+    }
+
+    /**
+     * Replay the spool if the repository may be available again, then write all
+     * buffered entries. Called by the writer thread; callers other than tests
+     * must not call it while the writer is running.
+     *
+     * @return the number of entries drained from the buffer
+     */
+    int flush() {
+        boolean replayFailed = spool != null && !backingOff() && clock.millis() >= replayRetryAt
+            && spool.hasPending() && !replaySpool();
+        List<AuditLog> batch = new ArrayList<>(batchSize);
+        int total = 0;
+        boolean saved = false;
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            saved |= write(batch);
+            total += batch.size();
+            batch.clear();
+        }
+        // The repository took new entries but not the spooled ones, so the segment is at fault
+        if (replayFailed && saved) {
+            spool.strike(maxReplayFailures);
+        }
+        return total;
+    }
+
+    /**
+     * @return {@code true} if the batch was saved to the repository
+     */
+    private boolean write(List<AuditLog> batch) {
+        long start = System.nanoTime();
+        try {
+            if (backingOff()) {
+                toSpool(batch, null);
+                return false;
+            }
+            try {
+                auditLogRepository.saveAll(batch);
+                repositoryFailed = false;
+                written.increment(batch.size());
+                return true;
+            } catch (RuntimeException ex) {
+                repositoryFailed = true;
+                repositoryRetryAt = clock.millis() + retryIntervalMillis;
+                toSpool(batch, ex);
+                return false;
+            }
+        } finally {
+            flushes.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private boolean backingOff() {
+        return repositoryFailed && clock.millis() < repositoryRetryAt;
+    }
+
+    private void toSpool(List<AuditLog> batch, RuntimeException cause) {
+        if (spool == null) {
+            failed.increment(batch.size());
+            logger.warn("Dropped {} audit log entries: {}", batch.size(), cause != null ? cause.getMessage() : "no spool");
+            return;
+        }
+        try {
+            spool.append(batch);
+            spooled.increment(batch.size());
+            if (cause != null) {
+                logger.warn("Spooled {} audit log entries: {}", batch.size(), cause.getMessage());
+            }
+        } catch (RuntimeException ex) {
+            failed.increment(batch.size());
+            logger.error("Dropped {} audit log entries, spool failed: {}", batch.size(), ex.getMessage());
+        }
+    }
+
+    /**
+     * @return {@code false} if the repository rejected a spooled batch
+     */
+    private boolean replaySpool() {
+        try {
+            long count = spool.replay(auditLogRepository::saveAllOnce, batchSize);
+            replayed.increment(count);
+            if (count > 0) {
+                logger.info("Replayed {} spooled audit log entries", count);
+            }
+            return true;
+        } catch (RuntimeException ex) {
+            // New batches still go to the repository; whether it is down shows when they are written
+            replayRetryAt = clock.millis() + retryIntervalMillis;
+            logger.warn("Audit spool replay interrupted: {}", ex.getMessage());
+            return false;
+        }
+    }
+
+    private void drainUntilStopped() {
+        while (running) {
+            LockSupport.parkNanos(this, flushIntervalNanos);
+            flush();
+        }
+        flush();
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        Thread thread = new Thread(this::drainUntilStopped, "audit-writer");
+        thread.setDaemon(true);
+        writer = thread;
+        thread.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        Thread thread = writer;
+        if (!running || thread == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        writer = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private static Counter events(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("audit.events")
+            .description("Audit log entries by outcome")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+}
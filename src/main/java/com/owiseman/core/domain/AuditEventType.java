@@ -1,8 +1,26 @@
 package com.owiseman.core.domain;
 
+/**
+ * Audit event types; mirrors the {@code audit_event_type} database enum.
+ */
 public enum AuditEventType {
-    LOGIN,
-    LOGOUT,
-    PASSWORD_CHANGE,
-    ROLE_CHANGE
+    USER_LOGIN,
+    USER_LOGIN_FAILED,
+    USER_LOGOUT,
+    USER_CREATED,
+    USER_UPDATED,
+    USER_DELETED,
+    USER_ROLE_ASSIGNED,
+    USER_ROLE_REMOVED,
+    PASSWORD_CHANGED,
+    ROLE_CREATED,
+    ROLE_UPDATED,
+    ROLE_DELETED,
+    PERMISSION_GRANTED,
+    PERMISSION_REVOKED,
+    REALM_CREATED,
+    REALM_UPDATED,
+    REALM_DELETED,
+    REALM_ENABLED,
+    REALM_DISABLED
 }
@@ -0,0 +1,95 @@
+package com.owiseman.core.domain;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Number of audit events of one type in one realm within a time bucket.
+ * <p>
+ * Rollups are maintained alongside the audit log for every {@link Granularity},
+ * so counting events over a time range reads one row per bucket however many
+ * entries the buckets hold. Events of the types in {@link #PER_ADDRESS} are
+ * additionally counted per client IP address; the rollup without an address
+ * is the total over all addresses.
+ *
+ * @param realmId the realm, or {@code null} for events outside any realm
+ * @param ipAddress the client IP address, or {@code null} for the total
+ */
+public record AuditRollup(Granularity granularity, LocalDateTime bucketStart, UUID realmId,
+                          AuditEventType eventType, String ipAddress, long count) {
+
+    /** Event types also counted per client IP address. */
+    public static final Set<AuditEventType> PER_ADDRESS = Set.of(AuditEventType.USER_LOGIN_FAILED);
+
+    private static final Comparator<AuditRollup> KEY_ORDER = Comparator
+        .comparing(AuditRollup::granularity)
+        .thenComparing(AuditRollup::realmId, Comparator.nullsFirst(Comparator.naturalOrder()))
+        .thenComparing(AuditRollup::eventType)
+        .thenComparing(AuditRollup::ipAddress, Comparator.nullsFirst(Comparator.naturalOrder()))
+        .thenComparing(AuditRollup::bucketStart);
+
+    public enum Granularity {
+        MINUTE(ChronoUnit.MINUTES),
+        HOUR(ChronoUnit.HOURS),
+        DAY(ChronoUnit.DAYS);
+
+        private final ChronoUnit unit;
+
+        Granularity(ChronoUnit unit) {
+            this.unit = unit;
+        }
+
+        public ChronoUnit unit() {
+            return unit;
+        }
+
+        /**
+         * The start of the bucket containing {@code time}.
+         */
+        public LocalDateTime bucketOf(LocalDateTime time) {
+            return time.truncatedTo(unit);
+        }
+    }
+
+    /**
+     * Count entries into rollups of every granularity, sorted by key so that
+     * concurrent writers update shared rows in the same order.
+     */
+    public static List<AuditRollup> of(Collection<AuditLog> entries) {
+        Map<AuditRollup, Long> counts = new HashMap<>();
+        for (AuditLog entry : entries) {
+            if (entry.getEventType() == null || entry.getCreatedAt() == null) {
+                continue;
+            }
+            boolean perAddress = entry.getIpAddress() != null && PER_ADDRESS.contains(entry.getEventType());
+            for (Granularity granularity : Granularity.values()) {
+                AuditRollup key = new AuditRollup(granularity, granularity.bucketOf(entry.getCreatedAt()),
+                    entry.getRealmId(), entry.getEventType(), null, 0L);
+                counts.merge(key, 1L, Long::sum);
+                if (perAddress) {
+                    counts.merge(key.withAddress(entry.getIpAddress()), 1L, Long::sum);
+                }
+            }
+        }
+        List<AuditRollup> rollups = new ArrayList<>(counts.size());
+        counts.forEach((key, count) -> rollups.add(key.withCount(count)));
+        rollups.sort(KEY_ORDER);
+        return rollups;
+    }
+
+    public AuditRollup withCount(long count) {
+        return new AuditRollup(granularity, bucketStart, realmId, eventType, ipAddress, count);
+    }
+
+    private AuditRollup withAddress(String ipAddress) {
+        return new AuditRollup(granularity, bucketStart, realmId, eventType, ipAddress, count);
+    }
+}
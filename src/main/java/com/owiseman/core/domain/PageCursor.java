@@ -0,0 +1,67 @@
+package com.owiseman.core.domain;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.UUID;
+
+/**
+ * Seek position in a listing ordered by (createdAt, id).
+ * <p>
+ * A page request carries the cursor of the last row of the previous page and
+ * resumes strictly after it, so fetching a page does not depend on how many
+ * rows precede it. Clients receive the cursor as an opaque string.
+ */
+public record PageCursor(LocalDateTime createdAt, UUID id) implements Comparable<PageCursor> {
+
+    private static final Comparator<PageCursor> ORDER = Comparator
+        .comparing(PageCursor::createdAt, Comparator.nullsFirst(Comparator.naturalOrder()))
+        .thenComparing(PageCursor::id, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    public static PageCursor of(User user) {
+        return new PageCursor(user.getCreatedAt(), user.getId());
+    }
+
+    public static PageCursor of(Role role) {
+        return new PageCursor(role.getCreatedAt(), role.getId());
+    }
+
+    public static PageCursor of(Realm realm) {
+        return new PageCursor(realm.getCreatedAt(), realm.getId());
+    }
+
+    /**
+     * Encode as an opaque, URL-safe token.
+     */
+    public String encode() {
+        String raw = (createdAt != null ? createdAt.toString() : "") + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a token produced by {@link #encode()}.
+     *
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static PageCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid page cursor");
+            }
+            String createdAt = raw.substring(0, separator);
+            return new PageCursor(createdAt.isEmpty() ? null : LocalDateTime.parse(createdAt),
+                UUID.fromString(raw.substring(separator + 1)));
+        } catch (DateTimeParseException ex) {
+            throw new IllegalArgumentException("Invalid page cursor", ex);
+        }
+    }
+
+    @Override
+    public int compareTo(PageCursor other) {
+        return ORDER.compare(this, other);
+    }
+}
@@ -6,10 +6,12 @@ import java.util.UUID;
 public class Policy {
     private UUID id;
     private UUID realmId;
+    private String name;
     private PolicyType type;
     private String expression;
     private String description;
     private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
 
     public Policy() {
     }
@@ -30,6 +32,14 @@ public class Policy {
         this.realmId = realmId;
     }
 
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
     public PolicyType getType() {
         return type;
     }
@@ -61,4 +71,12 @@ public class Policy {
     public void setCreatedAt(LocalDateTime createdAt) {
         this.createdAt = createdAt;
     }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
 }
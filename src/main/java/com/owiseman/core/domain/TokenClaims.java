@@ -17,6 +17,7 @@ public class TokenClaims {
     private Map<String, Object> attributes;
     private Instant issuedAt;
     private Instant expiresAt;
+    private Long authoritiesVersion;
 
     public TokenClaims() {
     }
@@ -108,4 +109,12 @@ public class TokenClaims {
     public void setExpiresAt(Instant expiresAt) {
         this.expiresAt = expiresAt;
     }
+
+    public Long getAuthoritiesVersion() {
+        return authoritiesVersion;
+    }
+
+    public void setAuthoritiesVersion(Long authoritiesVersion) {
+        this.authoritiesVersion = authoritiesVersion;
+    }
 }
@@ -15,6 +15,7 @@ public class User {
     private Boolean enabled;
     private Map<String, Object> attributes;
     private LocalDateTime createdAt;
+    private Long authoritiesVersion;
 
     public User() {
     }
@@ -83,6 +84,10 @@ public class User {
         this.enabled = enabled;
     }
 
+    /**
+     * The user's attributes, or {@code null} if they were not loaded. Repositories
+     * may leave them unloaded on reads; use {@code UserRepository#findAttributes}.
+     */
     public Map<String, Object> getAttributes() {
         return attributes;
     }
@@ -98,4 +103,12 @@ public class User {
     public void setCreatedAt(LocalDateTime createdAt) {
         this.createdAt = createdAt;
     }
+
+    public Long getAuthoritiesVersion() {
+        return authoritiesVersion;
+    }
+
+    public void setAuthoritiesVersion(Long authoritiesVersion) {
+        this.authoritiesVersion = authoritiesVersion;
+    }
 }
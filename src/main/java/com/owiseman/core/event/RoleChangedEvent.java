@@ -0,0 +1,61 @@
+package com.owiseman.core.event;
+
+import java.util.UUID;
+
+/**
+ * Published after a role's permission grants, child roles or name change, or the role is deleted.
+ * Listeners use it to update anything derived from the role's grants.
+ */
+public class RoleChangedEvent {
+
+    public enum Type {
+        PERMISSION_ASSIGNED,
+        PERMISSION_REMOVED,
+        CHILD_ADDED,
+        CHILD_REMOVED,
+        UPDATED,
+        DELETED
+    }
+
+    private final UUID roleId;
+    private final Type type;
+    private final UUID permissionId;
+    private final UUID childRoleId;
+
+    public RoleChangedEvent(UUID roleId, Type type) {
+        this(roleId, type, null, null);
+    }
+
+    public RoleChangedEvent(UUID roleId, Type type, UUID permissionId) {
+        this(roleId, type, permissionId, null);
+    }
+
+    public RoleChangedEvent(UUID roleId, Type type, UUID permissionId, UUID childRoleId) {
+        this.roleId = roleId;
+        this.type = type;
+        this.permissionId = permissionId;
+        this.childRoleId = childRoleId;
+    }
+
+    public UUID getRoleId() {
+        return roleId;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * The permission assigned or removed, for permission changes; {@code null} otherwise.
+     */
+    public UUID getPermissionId() {
+        return permissionId;
+    }
+
+    /**
+     * The child role added or removed, for child role changes; {@code null} otherwise.
+     */
+    public UUID getChildRoleId() {
+        return childRoleId;
+    }
+}
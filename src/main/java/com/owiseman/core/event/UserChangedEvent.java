@@ -0,0 +1,51 @@
+package com.owiseman.core.event;
+
+import java.util.UUID;
+
+/**
+ * Published after a user's account state, role assignments, effective roles or attributes change.
+ * Listeners use it to drop anything derived from the previous state.
+ */
+public class UserChangedEvent {
+
+    public enum Type {
+        UPDATED,
+        ENABLED,
+        DISABLED,
+        DELETED,
+        ROLE_ASSIGNED,
+        ROLE_REMOVED,
+        /** Roles gained or lost through composite roles, or renamed, without a direct assignment change. */
+        EFFECTIVE_ROLES_CHANGED,
+        ATTRIBUTES_UPDATED
+    }
+
+    private final UUID userId;
+    private final Type type;
+    private final UUID roleId;
+
+    public UserChangedEvent(UUID userId, Type type) {
+        this(userId, type, null);
+    }
+
+    public UserChangedEvent(UUID userId, Type type, UUID roleId) {
+        this.userId = userId;
+        this.type = type;
+        this.roleId = roleId;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * The role assigned or removed, for role changes; {@code null} otherwise.
+     */
+    public UUID getRoleId() {
+        return roleId;
+    }
+}
@@ -0,0 +1,21 @@
+package com.owiseman.core.exception;
+
+import java.time.Duration;
+
+/**
+ * Exception thrown when a request is shed because the resource it needs is saturated.
+ * The request did not run and may be retried after {@link #getRetryAfter()}.
+ */
+public class ServiceOverloadedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public ServiceOverloadedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,22 @@
+package com.owiseman.core.exception;
+
+import java.time.Duration;
+
+/**
+ * Exception thrown when a client has made too many failed attempts recently.
+ * The attempt was rejected without being evaluated and may be retried after
+ * {@link #getRetryAfter()}.
+ */
+public class TooManyAttemptsException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public TooManyAttemptsException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
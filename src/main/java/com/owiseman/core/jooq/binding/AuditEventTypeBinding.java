@@ -0,0 +1,80 @@
+package com.owiseman.core.jooq.binding;
+
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Types;
+import java.util.Objects;
+
+import org.jooq.Binding;
+import org.jooq.BindingGetResultSetContext;
+import org.jooq.BindingGetSQLInputContext;
+import org.jooq.BindingGetStatementContext;
+import org.jooq.BindingRegisterContext;
+import org.jooq.BindingSQLContext;
+import org.jooq.BindingSetSQLOutputContext;
+import org.jooq.BindingSetStatementContext;
+import org.jooq.Converter;
+import org.jooq.conf.ParamType;
+import org.jooq.impl.DSL;
+
+import com.owiseman.core.domain.AuditEventType;
+
+/**
+ * Maps the PostgreSQL {@code audit_event_type} enum column to {@link AuditEventType}.
+ * <p>
+ * The jOOQ code generator reads the schema from the migration scripts and does
+ * not know the enum type, so it is attached to {@code ima_audit_log.event_type}
+ * as a forced type in the codegen configuration. Values travel as text and bind
+ * variables are cast to the enum type, which PostgreSQL does not do implicitly.
+ */
+public class AuditEventTypeBinding implements Binding<Object, AuditEventType> {
+
+    private static final String SQL_TYPE = "audit_event_type";
+
+    private static final Converter<Object, AuditEventType> CONVERTER = Converter.ofNullable(Object.class,
+        AuditEventType.class, value -> AuditEventType.valueOf(value.toString()), AuditEventType::name);
+
+    @Override
+    public Converter<Object, AuditEventType> converter() {
+        return CONVERTER;
+    }
+
+    @Override
+    public void sql(BindingSQLContext<AuditEventType> ctx) throws SQLException {
+        if (ctx.render().paramType() == ParamType.INLINED) {
+            ctx.render().visit(DSL.inline(ctx.convert(converter()).value())).sql("::" + SQL_TYPE);
+        } else {
+            ctx.render().sql(ctx.variable()).sql("::" + SQL_TYPE);
+        }
+    }
+
+    @Override
+    public void register(BindingRegisterContext<AuditEventType> ctx) throws SQLException {
+        ctx.statement().registerOutParameter(ctx.index(), Types.VARCHAR);
+    }
+
+    @Override
+    public void set(BindingSetStatementContext<AuditEventType> ctx) throws SQLException {
+        ctx.statement().setString(ctx.index(), Objects.toString(ctx.convert(converter()).value(), null));
+    }
+
+    @Override
+    public void set(BindingSetSQLOutputContext<AuditEventType> ctx) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void get(BindingGetResultSetContext<AuditEventType> ctx) throws SQLException {
+        ctx.convert(converter()).value(ctx.resultSet().getString(ctx.index()));
+    }
+
+    @Override
+    public void get(BindingGetStatementContext<AuditEventType> ctx) throws SQLException {
+        ctx.convert(converter()).value(ctx.statement().getString(ctx.index()));
+    }
+
+    @Override
+    public void get(BindingGetSQLInputContext<AuditEventType> ctx) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+}
@@ -0,0 +1,127 @@
+package com.owiseman.core.jooq.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import com.owiseman.core.domain.AuditEventType;
+import com.owiseman.core.domain.AuditLog;
+import com.owiseman.core.domain.AuditRollup;
+import com.owiseman.core.domain.AuditSubjectType;
+
+/**
+ * Repository interface for the audit log.
+ * Entries are appended in batches by the audit pipeline and never updated;
+ * they are removed only by retention, see {@link #purgeBefore}. Stores may
+ * partition entries by creation time; queries bounded by a time range then
+ * only read the partitions the range overlaps.
+ */
+public interface AuditLogRepository {
+
+    /**
+     * Append a batch of entries in one round trip and count them into the
+     * {@link AuditRollup rollups}, atomically.
+     *
+     * @param entries the entries to append, in order
+     */
+    void saveAll(List<AuditLog> entries);
+
+    /**
+     * Append a batch of entries replayed from a local spool segment, skipping
+     * those already saved, so replaying a segment again has no effect on the
+     * entries or the rollups.
+     *
+     * @param spoolSegment the ID of the spool segment the entries were read from
+     * @param firstSequence the sequence number of the first entry within the segment;
+     *                      the following entries are numbered consecutively
+     * @param entries the entries to append, in order
+     */
+    void saveAllOnce(UUID spoolSegment, long firstSequence, List<AuditLog> entries);
+
+    /**
+     * Find entries of a realm with pagination.
+     *
+     * @param realmId the realm ID scope, or {@code null} for all realms
+     * @param offset number of records to skip (for pagination)
+     * @param limit maximum number of records to return
+     * @return list of entries, newest first
+     */
+    List<AuditLog> findByRealm(UUID realmId, int offset, int limit);
+
+    /**
+     * Find entries of a realm created within a time range with pagination.
+     *
+     * @param realmId the realm ID scope, or {@code null} for all realms
+     * @param from inclusive lower bound of the creation time, or {@code null} for no bound
+     * @param to exclusive upper bound of the creation time, or {@code null} for no bound
+     * @param offset number of records to skip (for pagination)
+     * @param limit maximum number of records to return
+     * @return list of entries, newest first
+     */
+    List<AuditLog> findByRealm(UUID realmId, LocalDateTime from, LocalDateTime to, int offset, int limit);
+
+    /**
+     * Find entries about one subject created within a time range with pagination.
+     *
+     * @param subjectType the type of the subject
+     * @param subjectId the ID of the subject
+     * @param from inclusive lower bound of the creation time, or {@code null} for no bound
+     * @param to exclusive upper bound of the creation time, or {@code null} for no bound
+     * @param offset number of records to skip (for pagination)
+     * @param limit maximum number of records to return
+     * @return list of entries, newest first
+     */
+    List<AuditLog> findBySubject(AuditSubjectType subjectType, UUID subjectId,
+                                 LocalDateTime from, LocalDateTime to, int offset, int limit);
+
+    /**
+     * Stream the entries of a realm created within a time range to {@code sink},
+     * oldest first, without holding more than a bounded number in memory.
+     *
+     * @param realmId the realm ID scope, or {@code null} for all realms
+     * @param from inclusive lower bound of the creation time, or {@code null} for no bound
+     * @param to exclusive upper bound of the creation time, or {@code null} for no bound
+     * @param sink receives each entry; exceptions it throws abort the export
+     */
+    void exportByRealm(UUID realmId, LocalDateTime from, LocalDateTime to, Consumer<AuditLog> sink);
+
+    /**
+     * Find the rollups of a realm within a time range; totals only, not per address.
+     *
+     * @param realmId the realm, or {@code null} for events outside any realm
+     * @param eventType the event type, or {@code null} for all types
+     * @param from inclusive lower bound of the bucket start
+     * @param to exclusive upper bound of the bucket start
+     * @return list of rollups, oldest bucket first
+     */
+    List<AuditRollup> findRollups(AuditRollup.Granularity granularity, UUID realmId, AuditEventType eventType,
+                                  LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Find the per-address rollups of a realm within a time range, e.g. to
+     * spot bursts of failed logins from one address.
+     *
+     * @param realmId the realm, or {@code null} for events outside any realm
+     * @param eventType the event type, or {@code null} for all types counted per address
+     * @param from inclusive lower bound of the bucket start
+     * @param to exclusive upper bound of the bucket start
+     * @param limit maximum number of rollups to return
+     * @return list of rollups, highest count first
+     */
+    List<AuditRollup> findAddressRollups(AuditRollup.Granularity granularity, UUID realmId, AuditEventType eventType,
+                                         LocalDateTime from, LocalDateTime to, int limit);
+
+    /**
+     * Make sure entries created up to {@code until} can be stored, e.g. by
+     * creating time partitions ahead of time. A no-op for unpartitioned stores.
+     */
+    void prepareUntil(LocalDateTime until);
+
+    /**
+     * Remove entries created, and rollup buckets starting, before {@code cutoff}.
+     * Partitioned stores drop whole partitions, so entries of a partition that
+     * only partly precedes the cutoff are kept until it does entirely.
+     */
+    void purgeBefore(LocalDateTime cutoff);
+}
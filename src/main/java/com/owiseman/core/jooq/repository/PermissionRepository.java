@@ -14,6 +14,11 @@ public interface PermissionRepository {
 
     List<Permission> findAll(UUID realmId, int offset, int limit);
 
+    /**
+     * Find permissions sorting after a given permission, ordered by (resource, action, id).
+     */
+    List<Permission> findAll(UUID realmId, Permission after, int limit);
+
     Permission create(Permission permission);
 
     Permission update(Permission permission);
@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import com.owiseman.core.domain.PageCursor;
 import com.owiseman.core.domain.Realm;
 
 /**
@@ -39,6 +40,15 @@ public interface RealmRepository {
      */
     List<Realm> findAll(UUID realmId, int offset, int limit);
 
+    /**
+     * Find realms after a seek position, ordered by (createdAt, id) ascending.
+     *
+     * @param after the position of the last realm of the previous page, or {@code null} for the first page
+     * @param limit maximum number of records to return
+     * @return list of realms
+     */
+    List<Realm> findAll(PageCursor after, int limit);
+
     /**
      * Create a new realm with auto-generated UUID.
      *
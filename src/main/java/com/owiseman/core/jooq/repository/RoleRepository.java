@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import com.owiseman.core.domain.PageCursor;
 import com.owiseman.core.domain.Role;
 
 /**
@@ -39,6 +40,16 @@ public interface RoleRepository {
      */
     List<Role> findAll(UUID realmId, int offset, int limit);
 
+    /**
+     * Find roles after a seek position, ordered by (createdAt, id) ascending.
+     *
+     * @param realmId the realm ID scope, or {@code null} for all realms
+     * @param after the position of the last role of the previous page, or {@code null} for the first page
+     * @param limit maximum number of records to return
+     * @return list of roles
+     */
+    List<Role> findAll(UUID realmId, PageCursor after, int limit);
+
     /**
      * Create a new role with auto-generated UUID.
      *
@@ -86,5 +97,29 @@ public interface RoleRepository {
      */
     void removePermission(UUID roleId, UUID permissionId);
 
+    /**
+     * Find the roles directly included in a composite role.
+     *
+     * @param roleId the parent role ID
+     * @return list of child role IDs
+     */
+    List<String> findChildRoles(UUID roleId);
+
+    /**
+     * Include a role in a composite role. Callers must reject edges that would form a cycle.
+     *
+     * @param roleId the parent role ID
+     * @param childRoleId the child role ID
+     */
+    void addChildRole(UUID roleId, UUID childRoleId);
+
+    /**
+     * Remove a role from a composite role.
+     *
+     * @param roleId the parent role ID
+     * @param childRoleId the child role ID
+     */
+    void removeChildRole(UUID roleId, UUID childRoleId);
+
     long countByRealm(UUID realmId);
 }
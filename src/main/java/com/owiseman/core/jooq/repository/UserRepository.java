@@ -1,9 +1,11 @@
 package com.owiseman.core.jooq.repository;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
+import com.owiseman.core.domain.PageCursor;
 import com.owiseman.core.domain.User;
 
 /**
@@ -48,6 +50,32 @@ public interface UserRepository {
      */
     List<User> findAll(UUID realmId, int offset, int limit);
 
+    /**
+     * Find users after a seek position, ordered by (createdAt, id) ascending.
+     * Unlike offset pagination, the cost of a page does not grow with its depth.
+     *
+     * @param realmId the realm ID scope, or {@code null} for all realms
+     * @param after the position of the last user of the previous page, or {@code null} for the first page
+     * @param limit maximum number of records to return
+     * @return list of users
+     */
+    List<User> findAll(UUID realmId, PageCursor after, int limit);
+
+    /**
+     * Find users whose attribute {@code name} is the string {@code value}, after a
+     * seek position, ordered by (createdAt, id) ascending.
+     * Backed by an index on the attributes, so the cost does not grow with the
+     * number of users lacking the attribute.
+     *
+     * @param realmId the realm ID scope, or {@code null} for all realms
+     * @param name the attribute name (e.g., "region")
+     * @param value the attribute value (e.g., "EU")
+     * @param after the position of the last user of the previous page, or {@code null} for the first page
+     * @param limit maximum number of records to return
+     * @return list of users
+     */
+    List<User> findByAttribute(UUID realmId, String name, String value, PageCursor after, int limit);
+
     /**
      * Create a new user with auto-generated UUID.
      * Password should be hashed before storage (BCrypt).
@@ -74,6 +102,54 @@ public interface UserRepository {
      */
     void delete(UUID id);
 
+    /**
+     * Find the attributes of a user (e.g., department, employee number, region).
+     * The finders do not load attributes; they are fetched separately on demand.
+     *
+     * @param userId the user ID
+     * @return the attributes, empty if the user has none
+     * @throws com.owiseman.core.exception.ResourceNotFoundException if the user does not exist
+     */
+    Map<String, Object> findAttributes(UUID userId);
+
+    /**
+     * Replace the attributes of a user.
+     *
+     * @param userId the user ID
+     * @param attributes the new attributes
+     * @throws com.owiseman.core.exception.ResourceNotFoundException if the user does not exist
+     */
+    void updateAttributes(UUID userId, Map<String, Object> attributes);
+
+    /**
+     * Replace the password hash of a user if it is still {@code expectedHash}.
+     * Used to upgrade a hash to stronger settings without overwriting a
+     * password changed in the meantime.
+     *
+     * @param userId the user ID
+     * @param expectedHash the hash the new one was derived from
+     * @param newHash the new hash
+     * @return {@code true} if the hash was replaced
+     */
+    boolean updatePasswordHash(UUID userId, String expectedHash, String newHash);
+
+    /**
+     * Find the authorities version of a user, which changes whenever the
+     * user's account state or effective roles change.
+     *
+     * @param userId the user ID
+     * @return Optional containing the version if the user exists, empty otherwise
+     */
+    Optional<Long> findAuthoritiesVersion(UUID userId);
+
+    /**
+     * Increment the authorities version of a user.
+     *
+     * @param userId the user ID
+     * @return Optional containing the new version if the user exists, empty otherwise
+     */
+    Optional<Long> incrementAuthoritiesVersion(UUID userId);
+
     /**
      * Find all permission identifiers for a user.
      * Permissions are derived through user -> role -> permission relationship.
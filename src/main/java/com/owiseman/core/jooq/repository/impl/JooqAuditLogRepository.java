@@ -0,0 +1,390 @@
+package com.owiseman.core.jooq.repository.impl;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.jooq.Condition;
+import org.jooq.Cursor;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.JSON;
+import org.jooq.Record;
+import org.jooq.impl.DSL;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import com.owiseman.core.domain.AuditEventType;
+import com.owiseman.core.domain.AuditLog;
+import com.owiseman.core.domain.AuditRollup;
+import com.owiseman.core.domain.AuditSubjectType;
+import com.owiseman.core.jooq.generated.tables.records.ImaAuditRollupRecord;
+import com.owiseman.core.jooq.repository.AuditLogRepository;
+
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.ObjectMapper;
+
+import static com.owiseman.core.jooq.generated.tables.ImaAuditLog.IMA_AUDIT_LOG;
+import static com.owiseman.core.jooq.generated.tables.ImaAuditRollup.IMA_AUDIT_ROLLUP;
+
+/**
+ * jOOQ implementation of AuditLogRepository.
+ * <p>
+ * A batch is appended with a single multi-row INSERT. User subjects are stored
+ * in {@code user_id}, other subjects in {@code resource_type}/{@code resource_id};
+ * {@code detail} is stored in {@code event_data}. Writes time out after
+ * {@code app.audit.write-timeout}, so a stalled database surfaces as a failure
+ * the audit writer can fall back from.
+ * <p>
+ * {@code ima_audit_log} is range-partitioned by {@code timestamp} into UTC days
+ * or months ({@code app.audit.partition-interval}). Partitions are named
+ * {@code ima_audit_log_pYYYYMMDD} after their lower bound; {@link #prepareUntil}
+ * extends them past the highest existing bound and {@link #purgeBefore} drops
+ * those entirely before the cutoff. Range queries pass their bounds on to
+ * {@code timestamp} so the planner prunes the other partitions.
+ * <p>
+ * Each batch is counted into {@code ima_audit_rollup} in the transaction that
+ * appends it; replayed entries that were already present are not counted again.
+ * Exports read through a server-side cursor, {@code app.audit.export.fetch-size}
+ * rows at a time.
+ */
+@Repository
+@Profile("prod")
+public class JooqAuditLogRepository implements AuditLogRepository {
+
+    private static final TypeReference<Map<String, Object>> DETAIL_TYPE = new TypeReference<>() {
+    };
+    private static final List<Field<?>> ENTRY_FIELDS = List.of(IMA_AUDIT_LOG.ID, IMA_AUDIT_LOG.REALM_ID,
+        IMA_AUDIT_LOG.USER_ID, IMA_AUDIT_LOG.EVENT_TYPE, IMA_AUDIT_LOG.EVENT_DATA, IMA_AUDIT_LOG.RESOURCE_TYPE,
+        IMA_AUDIT_LOG.RESOURCE_ID, IMA_AUDIT_LOG.IP_ADDRESS, IMA_AUDIT_LOG.TIMESTAMP);
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter BOUND = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ssxxx");
+
+    /** Rollup key values standing in for "no realm" and "all addresses", which cannot be NULL in a key. */
+    private static final UUID NO_REALM = new UUID(0L, 0L);
+    private static final String ALL_ADDRESSES = "";
+
+    private static final Logger logger = LoggerFactory.getLogger(JooqAuditLogRepository.class);
+
+    private final DSLContext dsl;
+    private final ObjectMapper objectMapper;
+    private final int writeTimeoutSeconds;
+    private final ChronoUnit partitionInterval;
+    private final int exportFetchSize;
+
+    public JooqAuditLogRepository(DSLContext dsl, ObjectMapper objectMapper,
+                                  @Value("${app.audit.write-timeout:5s}") Duration writeTimeout,
+                                  @Value("${app.audit.partition-interval:month}") String partitionInterval,
+                                  @Value("${app.audit.export.fetch-size:1000}") int exportFetchSize) {
+        this.dsl = dsl;
+        this.objectMapper = objectMapper;
+        this.writeTimeoutSeconds = (int) Math.max(1L, writeTimeout.toSeconds());
+        this.exportFetchSize = exportFetchSize;
+        this.partitionInterval = switch (partitionInterval.toLowerCase()) {
+            case "day" -> ChronoUnit.DAYS;
+            case "month" -> ChronoUnit.MONTHS;
+            default -> throw new IllegalArgumentException("app.audit.partition-interval must be day or month: " + partitionInterval);
+        };
+    }
+
+    @Override
+    public void saveAll(List<AuditLog> entries) {
+        insert(entries, null, 0L);
+    }
+
+    @Override
+    public void saveAllOnce(UUID spoolSegment, long firstSequence, List<AuditLog> entries) {
+        insert(entries, spoolSegment, firstSequence);
+    }
+
+    private void insert(List<AuditLog> entries, UUID spoolSegment, long firstSequence) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        dsl.transaction(configuration -> {
+            DSLContext tx = DSL.using(configuration);
+            List<AuditLog> inserted = insert(tx, entries, spoolSegment, firstSequence);
+            upsertRollups(tx, AuditRollup.of(inserted));
+        });
+    }
+
+    /**
+     * @return the entries actually inserted, i.e. without replayed entries that were already present
+     */
+    private List<AuditLog> insert(DSLContext tx, List<AuditLog> entries, UUID spoolSegment, long firstSequence) {
+        var insert = tx.insertInto(IMA_AUDIT_LOG, IMA_AUDIT_LOG.REALM_ID, IMA_AUDIT_LOG.USER_ID, IMA_AUDIT_LOG.EVENT_TYPE,
+            IMA_AUDIT_LOG.EVENT_DATA, IMA_AUDIT_LOG.RESOURCE_TYPE, IMA_AUDIT_LOG.RESOURCE_ID, IMA_AUDIT_LOG.IP_ADDRESS,
+            IMA_AUDIT_LOG.TIMESTAMP, IMA_AUDIT_LOG.SPOOL_SEGMENT, IMA_AUDIT_LOG.SPOOL_SEQUENCE);
+        long sequence = firstSequence;
+        for (AuditLog entry : entries) {
+            boolean userSubject = entry.getSubjectType() == null || entry.getSubjectType() == AuditSubjectType.USER;
+            String resourceId = !userSubject && entry.getSubjectId() != null ? entry.getSubjectId().toString() : null;
+            insert = insert.values(
+                DSL.val(entry.getRealmId(), IMA_AUDIT_LOG.REALM_ID),
+                DSL.val(userSubject ? entry.getSubjectId() : null, IMA_AUDIT_LOG.USER_ID),
+                DSL.val(entry.getEventType(), IMA_AUDIT_LOG.EVENT_TYPE),
+                DSL.field("cast({0} as jsonb)", JSON.class, DSL.val(toJson(entry.getDetail()))),
+                DSL.val(userSubject ? null : entry.getSubjectType().name(), IMA_AUDIT_LOG.RESOURCE_TYPE),
+                DSL.val(resourceId, IMA_AUDIT_LOG.RESOURCE_ID),
+                DSL.val(entry.getIpAddress(), IMA_AUDIT_LOG.IP_ADDRESS),
+                DSL.val(toOffset(entry), IMA_AUDIT_LOG.TIMESTAMP),
+                DSL.val(spoolSegment, IMA_AUDIT_LOG.SPOOL_SEGMENT),
+                DSL.val(spoolSegment != null ? sequence++ : null, IMA_AUDIT_LOG.SPOOL_SEQUENCE));
+        }
+        if (spoolSegment == null) {
+            insert.queryTimeout(writeTimeoutSeconds).execute();
+            return entries;
+        }
+        Set<Long> sequences = new HashSet<>(insert
+            .onConflict(IMA_AUDIT_LOG.SPOOL_SEGMENT, IMA_AUDIT_LOG.SPOOL_SEQUENCE, IMA_AUDIT_LOG.TIMESTAMP)
+            .doNothing()
+            .returningResult(IMA_AUDIT_LOG.SPOOL_SEQUENCE)
+            .queryTimeout(writeTimeoutSeconds)
+            .fetch(IMA_AUDIT_LOG.SPOOL_SEQUENCE));
+        List<AuditLog> inserted = new ArrayList<>(sequences.size());
+        for (int i = 0; i < entries.size(); i++) {
+            if (sequences.contains(firstSequence + i)) {
+                inserted.add(entries.get(i));
+            }
+        }
+        return inserted;
+    }
+
+    /**
+     * Add the counts to the rollup rows, creating missing ones. Rows are
+     * upserted in key order, so concurrent batches do not deadlock.
+     */
+    private void upsertRollups(DSLContext tx, List<AuditRollup> rollups) {
+        if (rollups.isEmpty()) {
+            return;
+        }
+        var upsert = tx.insertInto(IMA_AUDIT_ROLLUP, IMA_AUDIT_ROLLUP.GRANULARITY, IMA_AUDIT_ROLLUP.BUCKET_START,
+            IMA_AUDIT_ROLLUP.REALM_ID, IMA_AUDIT_ROLLUP.EVENT_TYPE, IMA_AUDIT_ROLLUP.IP_ADDRESS, IMA_AUDIT_ROLLUP.EVENT_COUNT);
+        for (AuditRollup rollup : rollups) {
+            upsert = upsert.values(rollup.granularity().name(), toOffset(rollup.bucketStart()),
+                rollup.realmId() != null ? rollup.realmId() : NO_REALM, rollup.eventType().name(),
+                rollup.ipAddress() != null ? rollup.ipAddress() : ALL_ADDRESSES, rollup.count());
+        }
+        upsert.onConflict(IMA_AUDIT_ROLLUP.GRANULARITY, IMA_AUDIT_ROLLUP.REALM_ID, IMA_AUDIT_ROLLUP.EVENT_TYPE,
+                IMA_AUDIT_ROLLUP.IP_ADDRESS, IMA_AUDIT_ROLLUP.BUCKET_START)
+            .doUpdate()
+            .set(IMA_AUDIT_ROLLUP.EVENT_COUNT, IMA_AUDIT_ROLLUP.EVENT_COUNT.plus(DSL.excluded(IMA_AUDIT_ROLLUP.EVENT_COUNT)))
+            .queryTimeout(writeTimeoutSeconds)
+            .execute();
+    }
+
+    @Override
+    public List<AuditLog> findByRealm(UUID realmId, int offset, int limit) {
+        return findByRealm(realmId, null, null, offset, limit);
+    }
+
+    @Override
+    public List<AuditLog> findByRealm(UUID realmId, LocalDateTime from, LocalDateTime to, int offset, int limit) {
+        Condition realm = realmId == null ? DSL.noCondition() : IMA_AUDIT_LOG.REALM_ID.eq(realmId);
+        return find(realm.and(within(from, to)), offset, limit);
+    }
+
+    @Override
+    public List<AuditLog> findBySubject(AuditSubjectType subjectType, UUID subjectId,
+                                        LocalDateTime from, LocalDateTime to, int offset, int limit) {
+        Condition subject = subjectType == AuditSubjectType.USER
+            ? IMA_AUDIT_LOG.USER_ID.eq(subjectId)
+            : IMA_AUDIT_LOG.RESOURCE_TYPE.eq(subjectType.name()).and(IMA_AUDIT_LOG.RESOURCE_ID.eq(subjectId.toString()));
+        return find(subject.and(within(from, to)), offset, limit);
+    }
+
+    @Override
+    public void prepareUntil(LocalDateTime until) {
+        OffsetDateTime limit = toOffset(until).withOffsetSameInstant(ZoneOffset.UTC);
+        OffsetDateTime high = partitions().stream()
+            .map(Partition::upper)
+            .filter(Objects::nonNull)
+            .map(upper -> upper.withOffsetSameInstant(ZoneOffset.UTC))
+            .max(OffsetDateTime::compareTo)
+            .orElse(periodStart(OffsetDateTime.now(ZoneOffset.UTC)));
+        while (high.isBefore(limit)) {
+            OffsetDateTime next = periodStart(high).plus(1, partitionInterval);
+            String name = "ima_audit_log_p" + PARTITION_SUFFIX.format(high);
+            dsl.execute("CREATE TABLE IF NOT EXISTS {0} PARTITION OF {1} FOR VALUES FROM ({2}) TO ({3})",
+                DSL.name(name), IMA_AUDIT_LOG, DSL.inline(BOUND.format(high)), DSL.inline(BOUND.format(next)));
+            logger.info("Created audit log partition {} for [{}, {})", name, high, next);
+            high = next;
+        }
+    }
+
+    @Override
+    public void exportByRealm(UUID realmId, LocalDateTime from, LocalDateTime to, Consumer<AuditLog> sink) {
+        Condition realm = realmId == null ? DSL.noCondition() : IMA_AUDIT_LOG.REALM_ID.eq(realmId);
+        // PostgreSQL only honors the fetch size with auto-commit off; otherwise the driver reads the whole result
+        dsl.transaction(configuration -> {
+            try (Cursor<Record> cursor = DSL.using(configuration).select(ENTRY_FIELDS)
+                    .from(IMA_AUDIT_LOG)
+                    .where(realm.and(within(from, to)))
+                    .orderBy(IMA_AUDIT_LOG.TIMESTAMP, IMA_AUDIT_LOG.ID)
+                    .fetchSize(exportFetchSize)
+                    .fetchLazy()) {
+                for (Record record : cursor) {
+                    sink.accept(mapAuditLog(record));
+                }
+            }
+        });
+    }
+
+    @Override
+    public List<AuditRollup> findRollups(AuditRollup.Granularity granularity, UUID realmId, AuditEventType eventType,
+                                         LocalDateTime from, LocalDateTime to) {
+        return dsl.selectFrom(IMA_AUDIT_ROLLUP)
+            .where(rollupsOf(granularity, realmId, eventType, from, to))
+            .and(IMA_AUDIT_ROLLUP.IP_ADDRESS.eq(ALL_ADDRESSES))
+            .orderBy(IMA_AUDIT_ROLLUP.BUCKET_START, IMA_AUDIT_ROLLUP.EVENT_TYPE)
+            .fetch(this::mapRollup);
+    }
+
+    @Override
+    public List<AuditRollup> findAddressRollups(AuditRollup.Granularity granularity, UUID realmId,
+                                                AuditEventType eventType, LocalDateTime from, LocalDateTime to,
+                                                int limit) {
+        return dsl.selectFrom(IMA_AUDIT_ROLLUP)
+            .where(rollupsOf(granularity, realmId, eventType, from, to))
+            .and(IMA_AUDIT_ROLLUP.IP_ADDRESS.ne(ALL_ADDRESSES))
+            .orderBy(IMA_AUDIT_ROLLUP.EVENT_COUNT.desc(), IMA_AUDIT_ROLLUP.BUCKET_START.desc())
+            .limit(Math.max(0, limit))
+            .fetch(this::mapRollup);
+    }
+
+    @Override
+    public void purgeBefore(LocalDateTime cutoff) {
+        OffsetDateTime limit = toOffset(cutoff);
+        int rollups = dsl.deleteFrom(IMA_AUDIT_ROLLUP).where(IMA_AUDIT_ROLLUP.BUCKET_START.lt(limit)).execute();
+        if (rollups > 0) {
+            logger.info("Deleted {} audit rollups before {}", rollups, limit);
+        }
+        for (Partition partition : partitions()) {
+            if (partition.upper() != null && !partition.upper().isAfter(limit)) {
+                dsl.dropTable(DSL.name(partition.name())).execute();
+                logger.info("Dropped audit log partition {} ending {}", partition.name(), partition.upper());
+            }
+        }
+    }
+
+    private List<AuditLog> find(Condition condition, int offset, int limit) {
+        return dsl.select(ENTRY_FIELDS)
+            .from(IMA_AUDIT_LOG)
+            .where(condition)
+            .orderBy(IMA_AUDIT_LOG.TIMESTAMP.desc(), IMA_AUDIT_LOG.ID.desc())
+            .offset(Math.max(0, offset))
+            .limit(Math.max(0, limit))
+            .fetch(this::mapAuditLog);
+    }
+
+    private static Condition rollupsOf(AuditRollup.Granularity granularity, UUID realmId, AuditEventType eventType,
+                                       LocalDateTime from, LocalDateTime to) {
+        return IMA_AUDIT_ROLLUP.GRANULARITY.eq(granularity.name())
+            .and(IMA_AUDIT_ROLLUP.REALM_ID.eq(realmId != null ? realmId : NO_REALM))
+            .and(eventType != null ? IMA_AUDIT_ROLLUP.EVENT_TYPE.eq(eventType.name()) : DSL.noCondition())
+            .and(IMA_AUDIT_ROLLUP.BUCKET_START.ge(toOffset(from)))
+            .and(IMA_AUDIT_ROLLUP.BUCKET_START.lt(toOffset(to)));
+    }
+
+    private AuditRollup mapRollup(ImaAuditRollupRecord record) {
+        String ipAddress = record.getIpAddress();
+        return new AuditRollup(AuditRollup.Granularity.valueOf(record.getGranularity()),
+            record.getBucketStart().atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime(),
+            NO_REALM.equals(record.getRealmId()) ? null : record.getRealmId(),
+            AuditEventType.valueOf(record.getEventType()),
+            ALL_ADDRESSES.equals(ipAddress) ? null : ipAddress,
+            record.getEventCount());
+    }
+
+    private static Condition within(LocalDateTime from, LocalDateTime to) {
+        Condition condition = DSL.noCondition();
+        if (from != null) {
+            condition = condition.and(IMA_AUDIT_LOG.TIMESTAMP.ge(toOffset(from)));
+        }
+        if (to != null) {
+            condition = condition.and(IMA_AUDIT_LOG.TIMESTAMP.lt(toOffset(to)));
+        }
+        return condition;
+    }
+
+    /**
+     * The partitions of {@code ima_audit_log} with their upper bounds, read
+     * back from the catalog; {@code null} for MAXVALUE.
+     */
+    private List<Partition> partitions() {
+        return dsl.resultQuery("""
+                SELECT c.relname,
+                       (regexp_match(pg_get_expr(c.relpartbound, c.oid), 'TO \\(''([^'']+)''\\)'))[1]::timestamptz
+                FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = {0}::regclass
+                """, DSL.inline(IMA_AUDIT_LOG.getName()))
+            .fetch(record -> new Partition(record.get(0, String.class), record.get(1, OffsetDateTime.class)));
+    }
+
+    private OffsetDateTime periodStart(OffsetDateTime time) {
+        OffsetDateTime day = time.withOffsetSameInstant(ZoneOffset.UTC).truncatedTo(ChronoUnit.DAYS);
+        return partitionInterval == ChronoUnit.MONTHS ? day.withDayOfMonth(1) : day;
+    }
+
+    private record Partition(String name, OffsetDateTime upper) {
+    }
+
+    private String toJson(Map<String, Object> detail) {
+        try {
+            return objectMapper.writeValueAsString(detail != null ? detail : Map.of());
+        } catch (JacksonException ex) {
+            throw new IllegalArgumentException("Audit detail is not serializable as JSON", ex);
+        }
+    }
+
+    private static OffsetDateTime toOffset(AuditLog entry) {
+        return entry.getCreatedAt() != null ? toOffset(entry.getCreatedAt()) : OffsetDateTime.now();
+    }
+
+    private static OffsetDateTime toOffset(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toOffsetDateTime();
+    }
+
+    private AuditLog mapAuditLog(Record record) {
+        AuditLog entry = new AuditLog();
+        entry.setId(record.get(IMA_AUDIT_LOG.ID));
+        entry.setRealmId(record.get(IMA_AUDIT_LOG.REALM_ID));
+        entry.setEventType(record.get(IMA_AUDIT_LOG.EVENT_TYPE));
+        UUID userId = record.get(IMA_AUDIT_LOG.USER_ID);
+        String resourceType = record.get(IMA_AUDIT_LOG.RESOURCE_TYPE);
+        if (userId != null) {
+            entry.setSubjectType(AuditSubjectType.USER);
+            entry.setSubjectId(userId);
+        } else if (resourceType != null) {
+            entry.setSubjectType(AuditSubjectType.valueOf(resourceType));
+            entry.setSubjectId(UUID.fromString(record.get(IMA_AUDIT_LOG.RESOURCE_ID)));
+        }
+        entry.setIpAddress(record.get(IMA_AUDIT_LOG.IP_ADDRESS));
+        JSON detail = record.get(IMA_AUDIT_LOG.EVENT_DATA);
+        try {
+            entry.setDetail(detail != null ? objectMapper.readValue(detail.data(), DETAIL_TYPE) : Map.of());
+        } catch (JacksonException ex) {
+            throw new IllegalStateException("Malformed detail of audit entry " + entry.getId(), ex);
+        }
+        OffsetDateTime timestamp = record.get(IMA_AUDIT_LOG.TIMESTAMP);
+        entry.setCreatedAt(timestamp != null ? timestamp.atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime() : null);
+        return entry;
+    }
+}
@@ -60,6 +60,22 @@ public class JooqPermissionRepository implements PermissionRepository {
             .fetch(this::mapPermission);
     }
 
+    @Override
+    public List<Permission> findAll(UUID realmId, Permission after, int limit) {
+        Condition condition = realmId == null ? DSL.noCondition() : IMA_PERMISSION.REALM_ID.eq(realmId);
+        var ordered = dsl.select(IMA_PERMISSION.ID, IMA_PERMISSION.REALM_ID, IMA_PERMISSION.RESOURCE, IMA_PERMISSION.ACTION, IMA_PERMISSION.CREATED_AT)
+            .from(IMA_PERMISSION)
+            .where(condition)
+            .orderBy(IMA_PERMISSION.RESOURCE.asc(), IMA_PERMISSION.ACTION.asc(), IMA_PERMISSION.ID.asc());
+        if (after != null) {
+            return ordered.seek(after.getResource(), after.getAction(), after.getId())
+                .limit(Math.max(0, limit))
+                .fetch(this::mapPermission);
+        }
+        return ordered.limit(Math.max(0, limit))
+            .fetch(this::mapPermission);
+    }
+
     @Override
     public Permission create(Permission permission) {
         if (permission.getRealmId() == null) {
@@ -0,0 +1,128 @@
+package com.owiseman.core.jooq.repository.impl;
+
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.jooq.DSLContext;
+import org.jooq.Record;
+import org.jooq.impl.DSL;
+import org.jooq.impl.SQLDataType;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import com.owiseman.core.domain.Policy;
+import com.owiseman.core.domain.PolicyType;
+import com.owiseman.core.exception.ResourceNotFoundException;
+import com.owiseman.core.jooq.repository.PolicyRepository;
+
+import static com.owiseman.core.jooq.generated.tables.ImaPolicy.IMA_POLICY;
+
+@Repository
+@Profile("prod")
+public class JooqPolicyRepository implements PolicyRepository {
+    private final DSLContext dsl;
+
+    public JooqPolicyRepository(DSLContext dsl) {
+        this.dsl = dsl;
+    }
+
+    @Override
+    public Optional<Policy> findById(UUID id) {
+        return dsl.selectFrom(IMA_POLICY)
+            .where(IMA_POLICY.ID.eq(id))
+            .fetchOptional(this::mapPolicy);
+    }
+
+    @Override
+    public List<Policy> findByType(UUID realmId, PolicyType type) {
+        return dsl.selectFrom(IMA_POLICY)
+            .where(IMA_POLICY.REALM_ID.eq(realmId).and(IMA_POLICY.TYPE.eq(type.name())))
+            .orderBy(IMA_POLICY.NAME.asc())
+            .fetch(this::mapPolicy);
+    }
+
+    @Override
+    public List<Policy> findAll(UUID realmId, int offset, int limit) {
+        var condition = realmId == null ? DSL.noCondition() : IMA_POLICY.REALM_ID.eq(realmId);
+        return dsl.selectFrom(IMA_POLICY)
+            .where(condition)
+            .orderBy(IMA_POLICY.CREATED_AT.desc(), IMA_POLICY.ID.desc())
+            .offset(Math.max(0, offset))
+            .limit(Math.max(0, limit))
+            .fetch(this::mapPolicy);
+    }
+
+    @Override
+    public Policy create(Policy policy) {
+        Record record = dsl.insertInto(IMA_POLICY)
+            .set(IMA_POLICY.REALM_ID, policy.getRealmId())
+            .set(IMA_POLICY.NAME, policy.getName())
+            .set(IMA_POLICY.DESCRIPTION, policy.getDescription())
+            .set(IMA_POLICY.TYPE, policy.getType().name())
+            .set(IMA_POLICY.EXPRESSION, policy.getExpression())
+            .returning()
+            .fetchOne();
+
+        if (record == null) {
+            throw new IllegalStateException("Failed to create policy");
+        }
+
+        return mapPolicy(record);
+    }
+
+    @Override
+    public Policy update(Policy policy) {
+        // A new updated_at makes PolicyEngine recompile the policy; now() would repeat within a transaction
+        Record record = dsl.update(IMA_POLICY)
+            .set(IMA_POLICY.NAME, policy.getName())
+            .set(IMA_POLICY.DESCRIPTION, policy.getDescription())
+            .set(IMA_POLICY.TYPE, policy.getType().name())
+            .set(IMA_POLICY.EXPRESSION, policy.getExpression())
+            .set(IMA_POLICY.UPDATED_AT, DSL.field("clock_timestamp()", SQLDataType.TIMESTAMPWITHTIMEZONE))
+            .where(IMA_POLICY.ID.eq(policy.getId()))
+            .returning()
+            .fetchOne();
+
+        if (record == null) {
+            throw new ResourceNotFoundException("Policy", policy.getId());
+        }
+
+        return mapPolicy(record);
+    }
+
+    @Override
+    public void delete(UUID id) {
+        int deleted = dsl.deleteFrom(IMA_POLICY)
+            .where(IMA_POLICY.ID.eq(id))
+            .execute();
+        if (deleted == 0) {
+            throw new ResourceNotFoundException("Policy", id);
+        }
+    }
+
+    @Override
+    public long countByRealm(UUID realmId) {
+        return dsl.fetchCount(IMA_POLICY, IMA_POLICY.REALM_ID.eq(realmId));
+    }
+
+    private Policy mapPolicy(Record record) {
+        Policy policy = new Policy();
+        policy.setId(record.get(IMA_POLICY.ID));
+        policy.setRealmId(record.get(IMA_POLICY.REALM_ID));
+        policy.setName(record.get(IMA_POLICY.NAME));
+        policy.setDescription(record.get(IMA_POLICY.DESCRIPTION));
+        policy.setType(PolicyType.valueOf(record.get(IMA_POLICY.TYPE)));
+        policy.setExpression(record.get(IMA_POLICY.EXPRESSION));
+        policy.setCreatedAt(toLocal(record.get(IMA_POLICY.CREATED_AT)));
+        policy.setUpdatedAt(toLocal(record.get(IMA_POLICY.UPDATED_AT)));
+        return policy;
+    }
+
+    private static LocalDateTime toLocal(OffsetDateTime time) {
+        return time != null ? time.atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime() : null;
+    }
+}
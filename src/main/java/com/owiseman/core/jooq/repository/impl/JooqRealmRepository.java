@@ -11,6 +11,7 @@ import org.jooq.impl.DSL;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 
+import com.owiseman.core.domain.PageCursor;
 import com.owiseman.core.domain.Realm;
 import com.owiseman.core.exception.ResourceNotFoundException;
 import com.owiseman.core.jooq.repository.RealmRepository;
@@ -52,6 +53,20 @@ public class JooqRealmRepository implements RealmRepository {
             .fetch(this::mapRealm);
     }
 
+    @Override
+    public List<Realm> findAll(PageCursor after, int limit) {
+        var ordered = dsl.select(IMA_REALM.ID, IMA_REALM.NAME, IMA_REALM.ENABLED, IMA_REALM.CREATED_AT)
+            .from(IMA_REALM)
+            .orderBy(IMA_REALM.CREATED_AT.asc(), IMA_REALM.ID.asc());
+        if (after != null) {
+            return ordered.seek(KeysetPaging.createdAtAfter(IMA_REALM, IMA_REALM.ID, IMA_REALM.CREATED_AT, after), DSL.val(after.id()))
+                .limit(Math.max(0, limit))
+                .fetch(this::mapRealm);
+        }
+        return ordered.limit(Math.max(0, limit))
+            .fetch(this::mapRealm);
+    }
+
     @Override
     public Realm create(Realm realm) {
         Record record = dsl.insertInto(IMA_REALM)
@@ -11,11 +11,13 @@ import org.jooq.impl.DSL;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 
+import com.owiseman.core.domain.PageCursor;
 import com.owiseman.core.domain.Role;
 import com.owiseman.core.exception.ResourceNotFoundException;
 import com.owiseman.core.jooq.repository.RoleRepository;
 
 import static com.owiseman.core.jooq.generated.tables.ImaRole.IMA_ROLE;
+import static com.owiseman.core.jooq.generated.tables.ImaRoleComposite.IMA_ROLE_COMPOSITE;
 import static com.owiseman.core.jooq.generated.tables.ImaRolePermission.IMA_ROLE_PERMISSION;
 
 @Repository
@@ -55,6 +57,22 @@ public class JooqRoleRepository implements RoleRepository {
             .fetch(this::mapRole);
     }
 
+    @Override
+    public List<Role> findAll(UUID realmId, PageCursor after, int limit) {
+        var condition = realmId == null ? DSL.noCondition() : IMA_ROLE.REALM_ID.eq(realmId);
+        var ordered = dsl.select(IMA_ROLE.ID, IMA_ROLE.REALM_ID, IMA_ROLE.NAME, IMA_ROLE.DESCRIPTION, IMA_ROLE.CREATED_AT)
+            .from(IMA_ROLE)
+            .where(condition)
+            .orderBy(IMA_ROLE.CREATED_AT.asc(), IMA_ROLE.ID.asc());
+        if (after != null) {
+            return ordered.seek(KeysetPaging.createdAtAfter(IMA_ROLE, IMA_ROLE.ID, IMA_ROLE.CREATED_AT, after), DSL.val(after.id()))
+                .limit(Math.max(0, limit))
+                .fetch(this::mapRole);
+        }
+        return ordered.limit(Math.max(0, limit))
+            .fetch(this::mapRole);
+    }
+
     @Override
     public Role create(Role role) {
         Record record = dsl.insertInto(IMA_ROLE)
@@ -125,6 +143,34 @@ public class JooqRoleRepository implements RoleRepository {
             .execute();
     }
 
+    @Override
+    public List<String> findChildRoles(UUID roleId) {
+        return dsl.select(IMA_ROLE_COMPOSITE.CHILD_ROLE_ID)
+            .from(IMA_ROLE_COMPOSITE)
+            .where(IMA_ROLE_COMPOSITE.PARENT_ROLE_ID.eq(roleId))
+            .fetch(IMA_ROLE_COMPOSITE.CHILD_ROLE_ID)
+            .stream()
+            .map(UUID::toString)
+            .toList();
+    }
+
+    @Override
+    public void addChildRole(UUID roleId, UUID childRoleId) {
+        dsl.insertInto(IMA_ROLE_COMPOSITE)
+            .set(IMA_ROLE_COMPOSITE.PARENT_ROLE_ID, roleId)
+            .set(IMA_ROLE_COMPOSITE.CHILD_ROLE_ID, childRoleId)
+            .onConflict(IMA_ROLE_COMPOSITE.PARENT_ROLE_ID, IMA_ROLE_COMPOSITE.CHILD_ROLE_ID)
+            .doNothing()
+            .execute();
+    }
+
+    @Override
+    public void removeChildRole(UUID roleId, UUID childRoleId) {
+        dsl.deleteFrom(IMA_ROLE_COMPOSITE)
+            .where(IMA_ROLE_COMPOSITE.PARENT_ROLE_ID.eq(roleId).and(IMA_ROLE_COMPOSITE.CHILD_ROLE_ID.eq(childRoleId)))
+            .execute();
+    }
+
     @Override
     public long countByRealm(UUID realmId) {
         Long count = dsl.selectCount()
@@ -2,38 +2,58 @@ package com.owiseman.core.jooq.repository.impl;
 
 import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
 import org.jooq.Condition;
 import org.jooq.DSLContext;
 import org.jooq.Field;
+import org.jooq.JSON;
 import org.jooq.Record;
 import org.jooq.impl.DSL;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 
+import com.owiseman.core.domain.PageCursor;
 import com.owiseman.core.domain.User;
 import com.owiseman.core.exception.ResourceNotFoundException;
 import com.owiseman.core.jooq.repository.UserRepository;
 
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.ObjectMapper;
+
 import static com.owiseman.core.jooq.generated.tables.ImaPermission.IMA_PERMISSION;
 import static com.owiseman.core.jooq.generated.tables.ImaRolePermission.IMA_ROLE_PERMISSION;
 import static com.owiseman.core.jooq.generated.tables.ImaUser.IMA_USER;
 import static com.owiseman.core.jooq.generated.tables.ImaUserRole.IMA_USER_ROLE;
 
+/**
+ * jOOQ implementation of UserRepository.
+ * <p>
+ * {@code attributes} is JSONB and left out of the user finders; it is read by
+ * {@link #findAttributes} only. Attribute queries use JSONB containment
+ * ({@code @>}), which the {@code jsonb_path_ops} GIN index on the column serves.
+ */
 @Repository
 @Profile("prod")
 public class JooqUserRepository implements UserRepository {
+
+    private static final TypeReference<Map<String, Object>> ATTRIBUTES_TYPE = new TypeReference<>() {
+    };
+
     private final DSLContext dsl;
+    private final ObjectMapper objectMapper;
 
-    public JooqUserRepository(DSLContext dsl) {
+    public JooqUserRepository(DSLContext dsl, ObjectMapper objectMapper) {
         this.dsl = dsl;
+        this.objectMapper = objectMapper;
     }
 
     @Override
     public Optional<User> findById(UUID id) {
-        return dsl.select(IMA_USER.ID, IMA_USER.REALM_ID, IMA_USER.USERNAME, IMA_USER.EMAIL, IMA_USER.PASSWORD_HASH, IMA_USER.FIRST_NAME, IMA_USER.LAST_NAME, IMA_USER.ENABLED, IMA_USER.CREATED_AT)
+        return dsl.select(IMA_USER.ID, IMA_USER.REALM_ID, IMA_USER.USERNAME, IMA_USER.EMAIL, IMA_USER.PASSWORD_HASH, IMA_USER.FIRST_NAME, IMA_USER.LAST_NAME, IMA_USER.ENABLED, IMA_USER.CREATED_AT, IMA_USER.AUTHORITIES_VERSION)
             .from(IMA_USER)
             .where(IMA_USER.ID.eq(id))
             .fetchOptional(this::mapUser);
@@ -45,7 +65,7 @@ public class JooqUserRepository implements UserRepository {
         if (realmId != null) {
             condition = condition.and(IMA_USER.REALM_ID.eq(realmId));
         }
-        return dsl.select(IMA_USER.ID, IMA_USER.REALM_ID, IMA_USER.USERNAME, IMA_USER.EMAIL, IMA_USER.PASSWORD_HASH, IMA_USER.FIRST_NAME, IMA_USER.LAST_NAME, IMA_USER.ENABLED, IMA_USER.CREATED_AT)
+        return dsl.select(IMA_USER.ID, IMA_USER.REALM_ID, IMA_USER.USERNAME, IMA_USER.EMAIL, IMA_USER.PASSWORD_HASH, IMA_USER.FIRST_NAME, IMA_USER.LAST_NAME, IMA_USER.ENABLED, IMA_USER.CREATED_AT, IMA_USER.AUTHORITIES_VERSION)
             .from(IMA_USER)
             .where(condition)
             .orderBy(IMA_USER.CREATED_AT.desc())
@@ -58,7 +78,7 @@ public class JooqUserRepository implements UserRepository {
         if (realmId != null) {
             condition = condition.and(IMA_USER.REALM_ID.eq(realmId));
         }
-        return dsl.select(IMA_USER.ID, IMA_USER.REALM_ID, IMA_USER.USERNAME, IMA_USER.EMAIL, IMA_USER.PASSWORD_HASH, IMA_USER.FIRST_NAME, IMA_USER.LAST_NAME, IMA_USER.ENABLED, IMA_USER.CREATED_AT)
+        return dsl.select(IMA_USER.ID, IMA_USER.REALM_ID, IMA_USER.USERNAME, IMA_USER.EMAIL, IMA_USER.PASSWORD_HASH, IMA_USER.FIRST_NAME, IMA_USER.LAST_NAME, IMA_USER.ENABLED, IMA_USER.CREATED_AT, IMA_USER.AUTHORITIES_VERSION)
             .from(IMA_USER)
             .where(condition)
             .orderBy(IMA_USER.CREATED_AT.desc())
@@ -68,7 +88,7 @@ public class JooqUserRepository implements UserRepository {
     @Override
     public List<User> findAll(UUID realmId, int offset, int limit) {
         Condition condition = realmId == null ? DSL.noCondition() : IMA_USER.REALM_ID.eq(realmId);
-        return dsl.select(IMA_USER.ID, IMA_USER.REALM_ID, IMA_USER.USERNAME, IMA_USER.EMAIL, IMA_USER.PASSWORD_HASH, IMA_USER.FIRST_NAME, IMA_USER.LAST_NAME, IMA_USER.ENABLED, IMA_USER.CREATED_AT)
+        return dsl.select(IMA_USER.ID, IMA_USER.REALM_ID, IMA_USER.USERNAME, IMA_USER.EMAIL, IMA_USER.PASSWORD_HASH, IMA_USER.FIRST_NAME, IMA_USER.LAST_NAME, IMA_USER.ENABLED, IMA_USER.CREATED_AT, IMA_USER.AUTHORITIES_VERSION)
             .from(IMA_USER)
             .where(condition)
             .orderBy(IMA_USER.CREATED_AT.desc())
@@ -77,6 +97,41 @@ public class JooqUserRepository implements UserRepository {
             .fetch(this::mapUser);
     }
 
+    @Override
+    public List<User> findAll(UUID realmId, PageCursor after, int limit) {
+        Condition condition = realmId == null ? DSL.noCondition() : IMA_USER.REALM_ID.eq(realmId);
+        var ordered = dsl.select(IMA_USER.ID, IMA_USER.REALM_ID, IMA_USER.USERNAME, IMA_USER.EMAIL, IMA_USER.PASSWORD_HASH, IMA_USER.FIRST_NAME, IMA_USER.LAST_NAME, IMA_USER.ENABLED, IMA_USER.CREATED_AT, IMA_USER.AUTHORITIES_VERSION)
+            .from(IMA_USER)
+            .where(condition)
+            .orderBy(IMA_USER.CREATED_AT.asc(), IMA_USER.ID.asc());
+        if (after != null) {
+            return ordered.seek(KeysetPaging.createdAtAfter(IMA_USER, IMA_USER.ID, IMA_USER.CREATED_AT, after), DSL.val(after.id()))
+                .limit(Math.max(0, limit))
+                .fetch(this::mapUser);
+        }
+        return ordered.limit(Math.max(0, limit))
+            .fetch(this::mapUser);
+    }
+
+    @Override
+    public List<User> findByAttribute(UUID realmId, String name, String value, PageCursor after, int limit) {
+        Condition condition = DSL.condition("{0} @> cast({1} as jsonb)", IMA_USER.ATTRIBUTES, DSL.val(toJson(Map.of(name, value))));
+        if (realmId != null) {
+            condition = condition.and(IMA_USER.REALM_ID.eq(realmId));
+        }
+        var ordered = dsl.select(IMA_USER.ID, IMA_USER.REALM_ID, IMA_USER.USERNAME, IMA_USER.EMAIL, IMA_USER.PASSWORD_HASH, IMA_USER.FIRST_NAME, IMA_USER.LAST_NAME, IMA_USER.ENABLED, IMA_USER.CREATED_AT, IMA_USER.AUTHORITIES_VERSION)
+            .from(IMA_USER)
+            .where(condition)
+            .orderBy(IMA_USER.CREATED_AT.asc(), IMA_USER.ID.asc());
+        if (after != null) {
+            return ordered.seek(KeysetPaging.createdAtAfter(IMA_USER, IMA_USER.ID, IMA_USER.CREATED_AT, after), DSL.val(after.id()))
+                .limit(Math.max(0, limit))
+                .fetch(this::mapUser);
+        }
+        return ordered.limit(Math.max(0, limit))
+            .fetch(this::mapUser);
+    }
+
     @Override
     public User create(User user) {
         if (user.getRealmId() == null) {
@@ -94,7 +149,8 @@ public class JooqUserRepository implements UserRepository {
             .set(IMA_USER.FIRST_NAME, user.getFirstName())
             .set(IMA_USER.LAST_NAME, user.getLastName())
             .set(IMA_USER.ENABLED, user.getEnabled() != null ? user.getEnabled() : true)
-            .returning(IMA_USER.ID, IMA_USER.REALM_ID, IMA_USER.USERNAME, IMA_USER.EMAIL, IMA_USER.PASSWORD_HASH, IMA_USER.FIRST_NAME, IMA_USER.LAST_NAME, IMA_USER.ENABLED, IMA_USER.CREATED_AT)
+            .set(IMA_USER.ATTRIBUTES, jsonb(user.getAttributes() != null ? user.getAttributes() : Map.of()))
+            .returning(IMA_USER.ID, IMA_USER.REALM_ID, IMA_USER.USERNAME, IMA_USER.EMAIL, IMA_USER.PASSWORD_HASH, IMA_USER.FIRST_NAME, IMA_USER.LAST_NAME, IMA_USER.ENABLED, IMA_USER.CREATED_AT, IMA_USER.AUTHORITIES_VERSION)
             .fetchOne();
 
         if (record == null) {
@@ -114,7 +170,7 @@ public class JooqUserRepository implements UserRepository {
             .set(IMA_USER.ENABLED, user.getEnabled())
             .set(IMA_USER.PASSWORD_HASH, user.getPasswordHash())
             .where(IMA_USER.ID.eq(user.getId()))
-            .returning(IMA_USER.ID, IMA_USER.REALM_ID, IMA_USER.USERNAME, IMA_USER.EMAIL, IMA_USER.PASSWORD_HASH, IMA_USER.FIRST_NAME, IMA_USER.LAST_NAME, IMA_USER.ENABLED, IMA_USER.CREATED_AT)
+            .returning(IMA_USER.ID, IMA_USER.REALM_ID, IMA_USER.USERNAME, IMA_USER.EMAIL, IMA_USER.PASSWORD_HASH, IMA_USER.FIRST_NAME, IMA_USER.LAST_NAME, IMA_USER.ENABLED, IMA_USER.CREATED_AT, IMA_USER.AUTHORITIES_VERSION)
             .fetchOne();
 
         if (record == null) {
@@ -134,6 +190,60 @@ public class JooqUserRepository implements UserRepository {
         }
     }
 
+    @Override
+    public Map<String, Object> findAttributes(UUID userId) {
+        JSON attributes = dsl.select(IMA_USER.ATTRIBUTES)
+            .from(IMA_USER)
+            .where(IMA_USER.ID.eq(userId))
+            .fetchOptional(IMA_USER.ATTRIBUTES)
+            .orElseThrow(() -> new ResourceNotFoundException("User", userId));
+        if (attributes == null) {
+            return Map.of();
+        }
+        try {
+            return objectMapper.readValue(attributes.data(), ATTRIBUTES_TYPE);
+        } catch (JacksonException ex) {
+            throw new IllegalStateException("Malformed attributes of user " + userId, ex);
+        }
+    }
+
+    @Override
+    public void updateAttributes(UUID userId, Map<String, Object> attributes) {
+        int updated = dsl.update(IMA_USER)
+            .set(IMA_USER.ATTRIBUTES, jsonb(attributes))
+            .where(IMA_USER.ID.eq(userId))
+            .execute();
+        if (updated == 0) {
+            throw new ResourceNotFoundException("User", userId);
+        }
+    }
+
+    @Override
+    public boolean updatePasswordHash(UUID userId, String expectedHash, String newHash) {
+        return dsl.update(IMA_USER)
+            .set(IMA_USER.PASSWORD_HASH, newHash)
+            .where(IMA_USER.ID.eq(userId))
+            .and(IMA_USER.PASSWORD_HASH.eq(expectedHash))
+            .execute() > 0;
+    }
+
+    @Override
+    public Optional<Long> findAuthoritiesVersion(UUID userId) {
+        return dsl.select(IMA_USER.AUTHORITIES_VERSION)
+            .from(IMA_USER)
+            .where(IMA_USER.ID.eq(userId))
+            .fetchOptional(IMA_USER.AUTHORITIES_VERSION);
+    }
+
+    @Override
+    public Optional<Long> incrementAuthoritiesVersion(UUID userId) {
+        return dsl.update(IMA_USER)
+            .set(IMA_USER.AUTHORITIES_VERSION, IMA_USER.AUTHORITIES_VERSION.plus(1))
+            .where(IMA_USER.ID.eq(userId))
+            .returning(IMA_USER.AUTHORITIES_VERSION)
+            .fetchOptional(IMA_USER.AUTHORITIES_VERSION);
+    }
+
     @Override
     public List<String> findPermissions(UUID userId) {
         Field<String> identifier = DSL.concat(IMA_PERMISSION.RESOURCE, DSL.inline(":"), IMA_PERMISSION.ACTION);
@@ -182,6 +292,18 @@ public class JooqUserRepository implements UserRepository {
         return count != null ? count : 0L;
     }
 
+    private Field<JSON> jsonb(Map<String, Object> attributes) {
+        return DSL.field("cast({0} as jsonb)", JSON.class, DSL.val(toJson(attributes)));
+    }
+
+    private String toJson(Map<String, ?> attributes) {
+        try {
+            return objectMapper.writeValueAsString(attributes);
+        } catch (JacksonException ex) {
+            throw new IllegalArgumentException("Attributes are not serializable as JSON", ex);
+        }
+    }
+
     private User mapUser(Record record) {
         User user = new User();
         user.setId(record.get(IMA_USER.ID));
@@ -194,6 +316,7 @@ public class JooqUserRepository implements UserRepository {
         user.setEnabled(record.get(IMA_USER.ENABLED));
         OffsetDateTime createdAt = record.get(IMA_USER.CREATED_AT);
         user.setCreatedAt(createdAt != null ? createdAt.toLocalDateTime() : null);
+        user.setAuthoritiesVersion(record.get(IMA_USER.AUTHORITIES_VERSION));
         return user;
     }
 }
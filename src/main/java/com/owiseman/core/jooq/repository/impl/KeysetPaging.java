@@ -0,0 +1,44 @@
+package com.owiseman.core.jooq.repository.impl;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.UUID;
+
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.Table;
+import org.jooq.TableField;
+import org.jooq.impl.DSL;
+
+import com.owiseman.core.domain.PageCursor;
+
+/**
+ * Helpers for keyset (seek) pagination on (created_at, id).
+ */
+final class KeysetPaging {
+
+    private KeysetPaging() {
+    }
+
+    /**
+     * The {@code created_at} value to seek after.
+     * <p>
+     * Cursors carry the timestamp as a {@code LocalDateTime}, which loses the
+     * offset it was read with. The exact value is therefore re-read from the
+     * cursor row by primary key. The cursor's own timestamp is only used if that
+     * row has been deleted in the meantime.
+     */
+    static <R extends Record> Field<OffsetDateTime> createdAtAfter(Table<R> table,
+                                                                   TableField<R, UUID> id,
+                                                                   TableField<R, OffsetDateTime> createdAt,
+                                                                   PageCursor cursor) {
+        Table<R> cursorRow = table.as("cursor_row");
+        Field<OffsetDateTime> exact = DSL.field(DSL.select(cursorRow.field(createdAt))
+            .from(cursorRow)
+            .where(cursorRow.field(id).eq(cursor.id())));
+        OffsetDateTime fallback = cursor.createdAt() != null
+            ? cursor.createdAt().atZone(ZoneId.systemDefault()).toOffsetDateTime()
+            : null;
+        return DSL.coalesce(exact, DSL.val(fallback, createdAt.getDataType()));
+    }
+}
@@ -0,0 +1,13 @@
+package com.owiseman.core.policy;
+
+/**
+ * A policy expression compiled into an evaluator tree.
+ * <p>
+ * Evaluation walks pre-built nodes only, so it does not parse or allocate
+ * beyond what the {@link PolicyContext} does to produce attribute values.
+ */
+@FunctionalInterface
+public interface CompiledPolicy {
+
+    boolean evaluate(PolicyContext context);
+}
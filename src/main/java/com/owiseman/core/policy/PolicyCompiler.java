@@ -0,0 +1,370 @@
+package com.owiseman.core.policy;
+
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntPredicate;
+import java.util.regex.Pattern;
+
+/**
+ * Parses a policy expression once into a tree of {@link CompiledPolicy} closures.
+ * <p>
+ * Grammar, loosest binding first:
+ * <pre>
+ * or         := and ('||' and)*
+ * and        := unary ('&amp;&amp;' unary)*
+ * unary      := '!' unary | '(' or ')' | comparison
+ * comparison := operand (('==' | '!=' | '&lt;' | '&lt;=' | '&gt;' | '&gt;=' | 'in') operand)?
+ * operand    := path | 'string' | number | true | false | '[' operand (',' operand)* ']'
+ * </pre>
+ * A path such as {@code user.department} is looked up in the {@link PolicyContext};
+ * a bare operand is true only if it evaluates to {@link Boolean#TRUE}. String
+ * literals shaped like {@code HH:mm} or {@code HH:mm:ss} compile to a
+ * {@link LocalTime}, so {@code time.now < '18:00'} compares times of day.
+ * <p>
+ * Comparisons fail closed: a missing attribute or operands of unrelated types
+ * make every comparison false, including {@code !=}. Numbers compare by value
+ * regardless of their boxed type, and an enum equals the string of its name.
+ */
+final class PolicyCompiler {
+
+    private static final Pattern TIME_OF_DAY = Pattern.compile("\\d{2}:\\d{2}(:\\d{2})?");
+    private static final Set<String> COMPARATORS = Set.of("==", "!=", "<", "<=", ">", ">=");
+    private static final Set<String> TWO_CHAR_OPERATORS = Set.of("==", "!=", "<=", ">=", "&&", "||");
+    private static final String SINGLE_CHAR_OPERATORS = "<>!()[],";
+    /** Result of {@link #order} for values that cannot be ordered. */
+    private static final int UNORDERED = Integer.MIN_VALUE;
+
+    private final List<Token> tokens;
+    private final List<LocalTime> timesOfDay = new ArrayList<>();
+    private int position;
+
+    private PolicyCompiler(String expression) {
+        this.tokens = tokenize(expression);
+    }
+
+    /**
+     * Compile an expression.
+     *
+     * @throws IllegalArgumentException if the expression is empty or malformed
+     */
+    static CompiledPolicy compile(String expression) {
+        return parse(expression).policy();
+    }
+
+    /**
+     * Compile an expression, also reporting the times of day it compares against.
+     *
+     * @throws IllegalArgumentException if the expression is empty or malformed
+     */
+    static Compilation parse(String expression) {
+        if (expression == null || expression.isBlank()) {
+            throw new IllegalArgumentException("Policy expression is empty");
+        }
+        PolicyCompiler compiler = new PolicyCompiler(expression);
+        CompiledPolicy policy = compiler.or();
+        Token trailing = compiler.peek();
+        if (trailing.kind() != Kind.END) {
+            throw error(trailing.offset(), "unexpected '" + trailing.text() + "'");
+        }
+        return new Compilation(policy, compiler.timesOfDay.stream().distinct().sorted().toList());
+    }
+
+    private CompiledPolicy or() {
+        CompiledPolicy left = and();
+        while (accept("||")) {
+            CompiledPolicy first = left;
+            CompiledPolicy second = and();
+            left = context -> first.evaluate(context) || second.evaluate(context);
+        }
+        return left;
+    }
+
+    private CompiledPolicy and() {
+        CompiledPolicy left = unary();
+        while (accept("&&")) {
+            CompiledPolicy first = left;
+            CompiledPolicy second = unary();
+            left = context -> first.evaluate(context) && second.evaluate(context);
+        }
+        return left;
+    }
+
+    private CompiledPolicy unary() {
+        if (accept("!")) {
+            CompiledPolicy operand = unary();
+            return context -> !operand.evaluate(context);
+        }
+        if (accept("(")) {
+            CompiledPolicy inner = or();
+            expect(")");
+            return inner;
+        }
+        return comparison();
+    }
+
+    private CompiledPolicy comparison() {
+        Operand left = operand();
+        Token operator = peek();
+        if (operator.kind() == Kind.OPERATOR && COMPARATORS.contains(operator.text())) {
+            position++;
+            return compare(operator.text(), left, operand());
+        }
+        if (operator.kind() == Kind.IDENTIFIER && operator.text().equals("in")) {
+            position++;
+            Operand right = operand();
+            return context -> contains(right.value(context), left.value(context));
+        }
+        return context -> Boolean.TRUE.equals(left.value(context));
+    }
+
+    private static CompiledPolicy compare(String operator, Operand left, Operand right) {
+        if (operator.equals("==")) {
+            return context -> equal(left.value(context), right.value(context));
+        }
+        if (operator.equals("!=")) {
+            return context -> {
+                Object a = left.value(context);
+                Object b = right.value(context);
+                return a != null && b != null && !equal(a, b);
+            };
+        }
+        IntPredicate test = switch (operator) {
+            case "<" -> c -> c < 0;
+            case "<=" -> c -> c <= 0;
+            case ">" -> c -> c > 0;
+            default -> c -> c >= 0;
+        };
+        return context -> {
+            int order = order(left.value(context), right.value(context));
+            return order != UNORDERED && test.test(order);
+        };
+    }
+
+    private Operand operand() {
+        Token token = next();
+        switch (token.kind()) {
+            case STRING:
+                return new Constant(literal(token.text()));
+            case NUMBER:
+                try {
+                    return new Constant(token.text().contains(".")
+                        ? (Object) Double.valueOf(token.text())
+                        : (Object) Long.valueOf(token.text()));
+                } catch (NumberFormatException ex) {
+                    throw error(token.offset(), "invalid number '" + token.text() + "'");
+                }
+            case IDENTIFIER:
+                return identifier(token);
+            case OPERATOR:
+                if (token.text().equals("[")) {
+                    return list();
+                }
+                throw error(token.offset(), "unexpected '" + token.text() + "'");
+            default:
+                throw error(token.offset(), "unexpected end of expression");
+        }
+    }
+
+    private Operand identifier(Token token) {
+        String path = token.text();
+        switch (path) {
+            case "true":
+                return new Constant(Boolean.TRUE);
+            case "false":
+                return new Constant(Boolean.FALSE);
+            default:
+                if (path.startsWith(".") || path.endsWith(".") || path.contains("..")) {
+                    throw error(token.offset(), "invalid attribute path '" + path + "'");
+                }
+                return context -> context.attribute(path);
+        }
+    }
+
+    private Operand list() {
+        List<Object> values = new ArrayList<>();
+        do {
+            int offset = peek().offset();
+            if (!(operand() instanceof Constant constant)) {
+                throw error(offset, "list elements must be literals");
+            }
+            values.add(constant.value());
+        } while (accept(","));
+        expect("]");
+        return new Constant(List.copyOf(values));
+    }
+
+    private Object literal(String text) {
+        if (TIME_OF_DAY.matcher(text).matches()) {
+            try {
+                LocalTime time = LocalTime.parse(text);
+                timesOfDay.add(time);
+                return time;
+            } catch (DateTimeParseException ex) {
+                // Not a valid time of day, keep it as a string
+            }
+        }
+        return text;
+    }
+
+    private static boolean equal(Object a, Object b) {
+        if (a == null || b == null) {
+            return false;
+        }
+        if (a instanceof Number x && b instanceof Number y) {
+            return Double.compare(x.doubleValue(), y.doubleValue()) == 0;
+        }
+        if (a instanceof Enum<?> e && b instanceof String s) {
+            return e.name().equals(s);
+        }
+        if (a instanceof String s && b instanceof Enum<?> e) {
+            return e.name().equals(s);
+        }
+        return a.equals(b);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int order(Object a, Object b) {
+        if (a == null || b == null) {
+            return UNORDERED;
+        }
+        if (a instanceof Number x && b instanceof Number y) {
+            return Double.compare(x.doubleValue(), y.doubleValue());
+        }
+        if (a.getClass() == b.getClass() && a instanceof Comparable comparable) {
+            return Integer.signum(comparable.compareTo(b));
+        }
+        return UNORDERED;
+    }
+
+    private static boolean contains(Object container, Object element) {
+        if (element == null || !(container instanceof Collection<?> values)) {
+            return false;
+        }
+        for (Object value : values) {
+            if (equal(value, element)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Token peek() {
+        return tokens.get(position);
+    }
+
+    private Token next() {
+        Token token = tokens.get(position);
+        if (token.kind() != Kind.END) {
+            position++;
+        }
+        return token;
+    }
+
+    private boolean accept(String operator) {
+        Token token = peek();
+        if (token.kind() == Kind.OPERATOR && token.text().equals(operator)) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(String operator) {
+        if (!accept(operator)) {
+            Token token = peek();
+            throw error(token.offset(), "expected '" + operator + "'");
+        }
+    }
+
+    private static List<Token> tokenize(String source) {
+        List<Token> tokens = new ArrayList<>();
+        int length = source.length();
+        int i = 0;
+        while (i < length) {
+            char c = source.charAt(i);
+            int start = i;
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (Character.isLetter(c) || c == '_') {
+                while (i < length && isPathChar(source.charAt(i))) {
+                    i++;
+                }
+                tokens.add(new Token(Kind.IDENTIFIER, source.substring(start, i), start));
+            } else if (Character.isDigit(c) || (c == '-' && i + 1 < length && Character.isDigit(source.charAt(i + 1)))) {
+                i++;
+                while (i < length && (Character.isDigit(source.charAt(i)) || source.charAt(i) == '.')) {
+                    i++;
+                }
+                tokens.add(new Token(Kind.NUMBER, source.substring(start, i), start));
+            } else if (c == '\'' || c == '"') {
+                StringBuilder text = new StringBuilder();
+                i++;
+                while (true) {
+                    if (i >= length) {
+                        throw error(start, "unterminated string");
+                    }
+                    char d = source.charAt(i++);
+                    if (d == c) {
+                        break;
+                    }
+                    if (d == '\\' && i < length) {
+                        d = source.charAt(i++);
+                    }
+                    text.append(d);
+                }
+                tokens.add(new Token(Kind.STRING, text.toString(), start));
+            } else if (i + 1 < length && TWO_CHAR_OPERATORS.contains(source.substring(i, i + 2))) {
+                tokens.add(new Token(Kind.OPERATOR, source.substring(i, i + 2), start));
+                i += 2;
+            } else if (SINGLE_CHAR_OPERATORS.indexOf(c) >= 0) {
+                tokens.add(new Token(Kind.OPERATOR, String.valueOf(c), start));
+                i++;
+            } else {
+                throw error(start, "unexpected character '" + c + "'");
+            }
+        }
+        tokens.add(new Token(Kind.END, "", length));
+        return tokens;
+    }
+
+    private static boolean isPathChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '.';
+    }
+
+    private static IllegalArgumentException error(int offset, String message) {
+        return new IllegalArgumentException("Invalid policy expression at position " + offset + ": " + message);
+    }
+
+    /**
+     * A compiled expression and the distinct times of day among its literals, sorted.
+     */
+    record Compilation(CompiledPolicy policy, List<LocalTime> timesOfDay) {
+    }
+
+    private enum Kind {
+        IDENTIFIER,
+        STRING,
+        NUMBER,
+        OPERATOR,
+        END
+    }
+
+    private record Token(Kind kind, String text, int offset) {
+    }
+
+    @FunctionalInterface
+    private interface Operand {
+        Object value(PolicyContext context);
+    }
+
+    private record Constant(Object value) implements Operand {
+        @Override
+        public Object value(PolicyContext context) {
+            return value;
+        }
+    }
+}
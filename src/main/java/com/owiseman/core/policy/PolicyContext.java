@@ -0,0 +1,32 @@
+package com.owiseman.core.policy;
+
+import java.time.Clock;
+import java.time.LocalTime;
+import java.util.Map;
+
+/**
+ * Attribute values a policy expression is evaluated against, looked up by
+ * dotted path such as {@code user.department}.
+ */
+@FunctionalInterface
+public interface PolicyContext {
+
+    /** Path of the current local time of day. */
+    String TIME_NOW = "time.now";
+
+    /**
+     * The value at a path, or {@code null} if the attribute is not set.
+     */
+    Object attribute(String path);
+
+    /**
+     * A context over a map of attributes keyed by path, with {@value #TIME_NOW}
+     * taken from the clock unless the map sets it.
+     */
+    static PolicyContext of(Map<String, ?> attributes, Clock clock) {
+        return path -> {
+            Object value = attributes.get(path);
+            return value == null && TIME_NOW.equals(path) ? LocalTime.now(clock) : value;
+        };
+    }
+}
@@ -0,0 +1,209 @@
+package com.owiseman.core.policy;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+import com.owiseman.core.domain.Permission;
+import com.owiseman.core.domain.Policy;
+import com.owiseman.core.jooq.repository.PermissionRepository;
+
+/**
+ * Evaluates {@code ima_policy} expressions attached to permissions.
+ * <p>
+ * Each policy is compiled once per version ({@code updatedAt}, or the
+ * expression text for policies without one) and cached by ID. Registering a
+ * policy links it to its permissions through {@link PermissionRepository#findByPolicy};
+ * a permission ("resource:action" within a realm) is granted only if every
+ * policy linked to it holds. Register a policy again after changing it; in the
+ * prod profile {@link PolicyLoader} registers the stored policies at startup
+ * and periodically after. Registering an unchanged policy changes nothing.
+ * <p>
+ * Evaluation is lock-free; registration is serialized.
+ */
+@Component
+public class PolicyEngine {
+
+    private final PermissionRepository permissionRepository;
+    private final AtomicLong versions = new AtomicLong();
+
+    private final Map<UUID, Entry> compiled = new ConcurrentHashMap<>();
+    /** Published policies per permission; each value is immutable and replaced on change. */
+    private final Map<PermissionKey, PermissionPolicies> permissionPolicies = new ConcurrentHashMap<>();
+
+    // The maps below are guarded by this.
+    private final Map<PermissionKey, Set<UUID>> policyIdsByPermission = new HashMap<>();
+    private final Map<UUID, Set<PermissionKey>> permissionsByPolicy = new HashMap<>();
+
+    public PolicyEngine(PermissionRepository permissionRepository) {
+        this.permissionRepository = permissionRepository;
+    }
+
+    /**
+     * Get the compiled form of a policy, compiling it if it is new or changed.
+     *
+     * @throws IllegalArgumentException if the expression is malformed
+     */
+    public CompiledPolicy compile(Policy policy) {
+        return entry(policy).policy();
+    }
+
+    /**
+     * Evaluate a single policy.
+     */
+    public boolean evaluate(Policy policy, PolicyContext context) {
+        return compile(policy).evaluate(context);
+    }
+
+    /**
+     * Compile a policy and link it to the permissions it is attached to,
+     * replacing any links from an earlier registration.
+     */
+    public synchronized void register(Policy policy) {
+        entry(policy);
+        Set<PermissionKey> affected = unlink(policy.getId());
+        Set<PermissionKey> linked = new HashSet<>();
+        for (Permission permission : permissionRepository.findByPolicy(policy.getId())) {
+            PermissionKey key = PermissionKey.of(permission);
+            linked.add(key);
+            policyIdsByPermission.computeIfAbsent(key, k -> new HashSet<>()).add(policy.getId());
+        }
+        permissionsByPolicy.put(policy.getId(), linked);
+        affected.addAll(linked);
+        affected.forEach(this::publish);
+    }
+
+    /**
+     * Drop a policy and its permission links.
+     */
+    public synchronized void unregister(UUID policyId) {
+        unlink(policyId).forEach(this::publish);
+        compiled.remove(policyId);
+    }
+
+    /**
+     * Check the policies linked to a permission; a permission without policies is unconditional.
+     *
+     * @param permission the permission identifier ("resource:action")
+     */
+    public boolean isPermitted(UUID realmId, String permission, PolicyContext context) {
+        PermissionPolicies policies = policiesOf(realmId, permission);
+        return policies == null || policies.evaluate(context);
+    }
+
+    /**
+     * The policies currently linked to a permission, or {@code null} if there are none.
+     */
+    public PermissionPolicies policiesOf(UUID realmId, String permission) {
+        return permissionPolicies.get(new PermissionKey(realmId, permission));
+    }
+
+    private Entry entry(Policy policy) {
+        Entry entry = compiled.get(policy.getId());
+        if (entry != null && entry.isVersionOf(policy)) {
+            return entry;
+        }
+        PolicyCompiler.Compilation compilation = PolicyCompiler.parse(policy.getExpression());
+        Entry fresh = new Entry(policy.getUpdatedAt(), policy.getExpression(),
+            compilation.policy(), compilation.timesOfDay());
+        compiled.put(policy.getId(), fresh);
+        return fresh;
+    }
+
+    private Set<PermissionKey> unlink(UUID policyId) {
+        Set<PermissionKey> keys = permissionsByPolicy.remove(policyId);
+        if (keys == null) {
+            return new HashSet<>();
+        }
+        for (PermissionKey key : keys) {
+            Set<UUID> policyIds = policyIdsByPermission.get(key);
+            policyIds.remove(policyId);
+            if (policyIds.isEmpty()) {
+                policyIdsByPermission.remove(key);
+            }
+        }
+        return new HashSet<>(keys);
+    }
+
+    private void publish(PermissionKey key) {
+        Set<UUID> policyIds = policyIdsByPermission.get(key);
+        if (policyIds == null) {
+            permissionPolicies.remove(key);
+            return;
+        }
+        List<Entry> entries = policyIds.stream().map(compiled::get).toList();
+        PermissionPolicies published = permissionPolicies.get(key);
+        if (published != null && published.policies().size() == entries.size()
+            && entries.stream().allMatch(entry -> published.policies().contains(entry.policy()))) {
+            // Keep the version so that decisions cached for it stay valid
+            return;
+        }
+        permissionPolicies.put(key, new PermissionPolicies(versions.incrementAndGet(),
+            entries.stream().map(Entry::policy).toList(),
+            entries.stream().flatMap(entry -> entry.timesOfDay().stream()).distinct().sorted().toList()));
+    }
+
+    /**
+     * The policies linked to one permission, as published at one point in time.
+     *
+     * @param version changes whenever the set of policies or any of their expressions changes
+     * @param timesOfDay times of day the policies compare against, sorted; decisions may flip at each
+     */
+    public record PermissionPolicies(long version, List<CompiledPolicy> policies, List<LocalTime> timesOfDay) {
+
+        public boolean evaluate(PolicyContext context) {
+            for (CompiledPolicy policy : policies) {
+                if (!policy.evaluate(context)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * The first instant from {@code now} on at which a time-of-day comparison
+         * may change outcome, or {@code null} if the policies do not depend on time.
+         */
+        public Instant nextBoundary(Instant now, ZoneId zone) {
+            if (timesOfDay.isEmpty()) {
+                return null;
+            }
+            ZonedDateTime local = now.atZone(zone);
+            LocalTime time = local.toLocalTime();
+            for (LocalTime boundary : timesOfDay) {
+                if (!boundary.isBefore(time)) {
+                    return local.with(boundary).toInstant();
+                }
+            }
+            return local.toLocalDate().plusDays(1).atTime(timesOfDay.get(0)).atZone(zone).toInstant();
+        }
+    }
+
+    private record PermissionKey(UUID realmId, String permission) {
+
+        static PermissionKey of(Permission permission) {
+            return new PermissionKey(permission.getRealmId(), permission.getResource() + ":" + permission.getAction());
+        }
+    }
+
+    private record Entry(LocalDateTime version, String expression, CompiledPolicy policy, List<LocalTime> timesOfDay) {
+
+        boolean isVersionOf(Policy policy) {
+            return Objects.equals(version, policy.getUpdatedAt())
+                && (version != null || Objects.equals(expression, policy.getExpression()));
+        }
+    }
+}
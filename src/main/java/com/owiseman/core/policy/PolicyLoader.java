@@ -0,0 +1,78 @@
+package com.owiseman.core.policy;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.owiseman.core.domain.Policy;
+import com.owiseman.core.jooq.repository.PolicyRepository;
+
+/**
+ * Registers the policies stored in {@code ima_policy} with the {@link PolicyEngine}.
+ * <p>
+ * Every policy is loaded once the singletons are created, before the web
+ * server accepts requests, and reloaded every
+ * {@code app.security.policy.reload-interval} so that policies and permission
+ * links changed in the database take effect; deleted policies are
+ * unregistered. Unchanged policies keep their compiled form and published
+ * version, so a reload does not invalidate cached authorization decisions.
+ * <p>
+ * A policy whose expression does not compile is logged and skipped, leaving
+ * any earlier version of it in effect.
+ */
+@Component
+@Profile("prod")
+public class PolicyLoader implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(PolicyLoader.class);
+
+    private final PolicyRepository policyRepository;
+    private final PolicyEngine policyEngine;
+
+    /** The IDs of the policies found by the last load. Guarded by this. */
+    private Set<UUID> loaded = new HashSet<>();
+
+    public PolicyLoader(PolicyRepository policyRepository, PolicyEngine policyEngine) {
+        this.policyRepository = policyRepository;
+        this.policyEngine = policyEngine;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        int count = reload();
+        logger.info("Loaded {} authorization policies", count);
+    }
+
+    /**
+     * Register every stored policy and unregister those no longer stored.
+     *
+     * @return the number of policies stored
+     */
+    @Scheduled(fixedDelayString = "${app.security.policy.reload-interval:PT1M}",
+        initialDelayString = "${app.security.policy.reload-interval:PT1M}")
+    public synchronized int reload() {
+        Set<UUID> found = new HashSet<>();
+        for (Policy policy : policyRepository.findAll(null, 0, Integer.MAX_VALUE)) {
+            found.add(policy.getId());
+            try {
+                policyEngine.register(policy);
+            } catch (IllegalArgumentException ex) {
+                logger.error("Cannot compile policy {} ({}): {}", policy.getId(), policy.getName(), ex.getMessage());
+            }
+        }
+        for (UUID policyId : loaded) {
+            if (!found.contains(policyId)) {
+                policyEngine.unregister(policyId);
+            }
+        }
+        loaded = found;
+        return found.size();
+    }
+}
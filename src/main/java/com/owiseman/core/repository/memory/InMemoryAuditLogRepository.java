@@ -0,0 +1,177 @@
+package com.owiseman.core.repository.memory;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import com.owiseman.core.domain.AuditEventType;
+import com.owiseman.core.domain.AuditLog;
+import com.owiseman.core.domain.AuditRollup;
+import com.owiseman.core.domain.AuditSubjectType;
+import com.owiseman.core.jooq.repository.AuditLogRepository;
+
+/**
+ * In-memory implementation of AuditLogRepository for development and testing.
+ * Entries are kept in append order; appends are serialized, reads of entries
+ * are lock-free. Rollups are kept per key in a sorted map.
+ */
+@Repository
+@Profile("dev")
+public class InMemoryAuditLogRepository implements AuditLogRepository {
+
+    /** Bucket start first for range scans; null components sort first so range bounds need no other fields. */
+    private static final Comparator<AuditRollup> ROLLUP_ORDER = Comparator
+        .comparing(AuditRollup::bucketStart)
+        .thenComparing(AuditRollup::granularity, Comparator.nullsFirst(Comparator.naturalOrder()))
+        .thenComparing(AuditRollup::realmId, Comparator.nullsFirst(Comparator.naturalOrder()))
+        .thenComparing(AuditRollup::eventType, Comparator.nullsFirst(Comparator.naturalOrder()))
+        .thenComparing(AuditRollup::ipAddress, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final ConcurrentLinkedDeque<AuditLog> entries = new ConcurrentLinkedDeque<>();
+    /** Guarded by this. */
+    private final Set<SpoolKey> spooled = new HashSet<>();
+    /** Rollup key (count 0) to count. Guarded by this. */
+    private final NavigableMap<AuditRollup, Long> rollups = new TreeMap<>(ROLLUP_ORDER);
+    private long nextId = 1;
+
+    @Override
+    public synchronized void saveAll(List<AuditLog> batch) {
+        for (AuditLog entry : batch) {
+            entry.setId(nextId++);
+            entries.addLast(entry);
+        }
+        for (AuditRollup rollup : AuditRollup.of(batch)) {
+            rollups.merge(rollup.withCount(0L), rollup.count(), Long::sum);
+        }
+    }
+
+    @Override
+    public synchronized void saveAllOnce(UUID spoolSegment, long firstSequence, List<AuditLog> batch) {
+        long sequence = firstSequence;
+        for (AuditLog entry : batch) {
+            if (spooled.add(new SpoolKey(spoolSegment, sequence++))) {
+                saveAll(List.of(entry));
+            }
+        }
+    }
+
+    @Override
+    public List<AuditLog> findByRealm(UUID realmId, int offset, int limit) {
+        return findByRealm(realmId, null, null, offset, limit);
+    }
+
+    @Override
+    public List<AuditLog> findByRealm(UUID realmId, LocalDateTime from, LocalDateTime to, int offset, int limit) {
+        return find(entry -> realmId == null || Objects.equals(realmId, entry.getRealmId()), from, to, offset, limit);
+    }
+
+    @Override
+    public List<AuditLog> findBySubject(AuditSubjectType subjectType, UUID subjectId,
+                                        LocalDateTime from, LocalDateTime to, int offset, int limit) {
+        return find(entry -> subjectType == entry.getSubjectType() && Objects.equals(subjectId, entry.getSubjectId()),
+            from, to, offset, limit);
+    }
+
+    @Override
+    public void exportByRealm(UUID realmId, LocalDateTime from, LocalDateTime to, Consumer<AuditLog> sink) {
+        for (AuditLog entry : entries) {
+            if ((realmId == null || Objects.equals(realmId, entry.getRealmId())) && within(entry, from, to)) {
+                sink.accept(entry);
+            }
+        }
+    }
+
+    @Override
+    public synchronized List<AuditRollup> findRollups(AuditRollup.Granularity granularity, UUID realmId,
+                                                      AuditEventType eventType, LocalDateTime from, LocalDateTime to) {
+        return rollupsOf(granularity, realmId, eventType, from, to)
+            .filter(rollup -> rollup.ipAddress() == null)
+            .toList();
+    }
+
+    @Override
+    public synchronized List<AuditRollup> findAddressRollups(AuditRollup.Granularity granularity, UUID realmId,
+                                                             AuditEventType eventType, LocalDateTime from,
+                                                             LocalDateTime to, int limit) {
+        return rollupsOf(granularity, realmId, eventType, from, to)
+            .filter(rollup -> rollup.ipAddress() != null)
+            .sorted(Comparator.comparingLong(AuditRollup::count).reversed()
+                .thenComparing(AuditRollup::bucketStart, Comparator.reverseOrder()))
+            .limit(Math.max(0, limit))
+            .toList();
+    }
+
+    @Override
+    public void prepareUntil(LocalDateTime until) {
+        // Not partitioned
+    }
+
+    @Override
+    public synchronized void purgeBefore(LocalDateTime cutoff) {
+        entries.removeIf(entry -> entry.getCreatedAt() != null && entry.getCreatedAt().isBefore(cutoff));
+        rollups.keySet().removeIf(rollup -> rollup.bucketStart().isBefore(cutoff));
+    }
+
+    private static boolean within(AuditLog entry, LocalDateTime from, LocalDateTime to) {
+        LocalDateTime createdAt = entry.getCreatedAt();
+        return (from == null || (createdAt != null && !createdAt.isBefore(from)))
+            && (to == null || (createdAt != null && createdAt.isBefore(to)));
+    }
+
+    private Stream<AuditRollup> rollupsOf(AuditRollup.Granularity granularity, UUID realmId, AuditEventType eventType,
+                                          LocalDateTime from, LocalDateTime to) {
+        return rollups.subMap(new AuditRollup(null, from, null, null, null, 0L), true,
+                new AuditRollup(null, to, null, null, null, 0L), false)
+            .entrySet().stream()
+            .filter(entry -> entry.getKey().granularity() == granularity
+                && Objects.equals(entry.getKey().realmId(), realmId)
+                && (eventType == null || entry.getKey().eventType() == eventType))
+            .map(entry -> entry.getKey().withCount(entry.getValue()));
+    }
+
+    /**
+     * Newest first by append order, which is creation order except for entries replayed from a spool.
+     */
+    private List<AuditLog> find(Predicate<AuditLog> filter, LocalDateTime from, LocalDateTime to, int offset, int limit) {
+        List<AuditLog> page = new ArrayList<>();
+        int skipped = 0;
+        Iterator<AuditLog> newestFirst = entries.descendingIterator();
+        while (newestFirst.hasNext() && page.size() < limit) {
+            AuditLog entry = newestFirst.next();
+            if (!filter.test(entry) || !within(entry, from, to)) {
+                continue;
+            }
+            if (skipped++ >= offset) {
+                page.add(entry);
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Clear all entries (for testing).
+     */
+    public synchronized void clear() {
+        entries.clear();
+        spooled.clear();
+        rollups.clear();
+    }
+
+    private record SpoolKey(UUID segment, long sequence) {
+    }
+}
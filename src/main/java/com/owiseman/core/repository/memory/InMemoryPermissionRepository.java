@@ -4,10 +4,8 @@ import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
@@ -16,11 +14,16 @@ import com.owiseman.core.domain.Permission;
 import com.owiseman.core.exception.ResourceNotFoundException;
 import com.owiseman.core.jooq.repository.PermissionRepository;
 
+/**
+ * In-memory implementation of PermissionRepository for development and testing.
+ * Permissions are partitioned by realm and kept sorted by (resource, action);
+ * writes are serialized.
+ */
 @Repository
 @Profile("dev")
 public class InMemoryPermissionRepository implements PermissionRepository {
 
-    private final Map<UUID, Permission> permissions = new ConcurrentHashMap<>();
+    private final RealmPartitions<SortKey, Permission> permissions = new RealmPartitions<>(SortKey::of);
 
     @Override
     public Optional<Permission> findById(UUID id) {
@@ -35,25 +38,28 @@ public class InMemoryPermissionRepository implements PermissionRepository {
         if (resource == null || action == null) {
             throw new IllegalArgumentException("resource and action are required");
         }
-        return permissions.values().stream()
-            .filter(p -> realmId.equals(p.getRealmId()))
+        return permissions.values(realmId).stream()
             .filter(p -> resource.equals(p.getResource()) && action.equals(p.getAction()))
             .findFirst();
     }
 
     @Override
     public List<Permission> findAll(UUID realmId, int offset, int limit) {
-        return permissions.values().stream()
-            .filter(p -> realmId == null || realmId.equals(p.getRealmId()))
-            .sorted(Comparator.comparing(Permission::getResource, Comparator.nullsLast(String::compareTo))
-                .thenComparing(Permission::getAction, Comparator.nullsLast(String::compareTo)))
+        return permissions.values(realmId).stream()
             .skip(Math.max(0, offset))
             .limit(Math.max(0, limit))
             .toList();
     }
 
     @Override
-    public Permission create(Permission permission) {
+    public List<Permission> findAll(UUID realmId, Permission after, int limit) {
+        return permissions.valuesAfter(realmId, after != null ? SortKey.of(after) : null).stream()
+            .limit(Math.max(0, limit))
+            .toList();
+    }
+
+    @Override
+    public synchronized Permission create(Permission permission) {
         if (permission.getRealmId() == null) {
             throw new IllegalArgumentException("realmId is required");
         }
@@ -71,12 +77,12 @@ public class InMemoryPermissionRepository implements PermissionRepository {
             permission.setCreatedAt(LocalDateTime.now());
         }
 
-        permissions.put(permission.getId(), permission);
+        permissions.put(permission.getId(), permission.getRealmId(), permission);
         return permission;
     }
 
     @Override
-    public Permission update(Permission permission) {
+    public synchronized Permission update(Permission permission) {
         if (permission.getId() == null) {
             throw new IllegalArgumentException("id is required");
         }
@@ -106,13 +112,13 @@ public class InMemoryPermissionRepository implements PermissionRepository {
         updated.setAction(action);
         updated.setCreatedAt(existing.getCreatedAt());
 
-        permissions.put(updated.getId(), updated);
+        permissions.put(updated.getId(), updated.getRealmId(), updated);
         return updated;
     }
 
     @Override
-    public void delete(UUID id) {
-        if (!permissions.containsKey(id)) {
+    public synchronized void delete(UUID id) {
+        if (!permissions.contains(id)) {
             throw new ResourceNotFoundException("Permission", id.toString());
         }
         permissions.remove(id);
@@ -125,17 +131,30 @@ public class InMemoryPermissionRepository implements PermissionRepository {
 
     @Override
     public long countByRealm(UUID realmId) {
-        return permissions.values().stream()
-            .filter(p -> realmId != null && realmId.equals(p.getRealmId()))
-            .count();
+        return realmId != null ? permissions.count(realmId) : 0L;
     }
 
     private boolean exists(UUID realmId, String resource, String action, UUID excludingId) {
-        return permissions.values().stream()
+        return permissions.values(realmId).stream()
             .filter(p -> excludingId == null || !excludingId.equals(p.getId()))
-            .anyMatch(p -> realmId.equals(p.getRealmId())
-                && resource.equals(p.getResource())
+            .anyMatch(p -> resource.equals(p.getResource())
                 && action.equals(p.getAction()));
     }
-}
 
+    private record SortKey(String resource, String action, UUID id) implements Comparable<SortKey> {
+
+        private static final Comparator<SortKey> ORDER = Comparator
+            .comparing(SortKey::resource, Comparator.nullsLast(String::compareTo))
+            .thenComparing(SortKey::action, Comparator.nullsLast(String::compareTo))
+            .thenComparing(SortKey::id, Comparator.nullsLast(UUID::compareTo));
+
+        static SortKey of(Permission permission) {
+            return new SortKey(permission.getResource(), permission.getAction(), permission.getId());
+        }
+
+        @Override
+        public int compareTo(SortKey other) {
+            return ORDER.compare(this, other);
+        }
+    }
+}
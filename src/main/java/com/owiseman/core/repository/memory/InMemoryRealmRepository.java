@@ -1,5 +1,6 @@
 package com.owiseman.core.repository.memory;
 
+import com.owiseman.core.domain.PageCursor;
 import com.owiseman.core.domain.Realm;
 import com.owiseman.core.exception.ResourceNotFoundException;
 import com.owiseman.core.jooq.repository.RealmRepository;
@@ -8,18 +9,19 @@ import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
  * In-memory implementation of RealmRepository for development and testing.
  * Provides fast CRUD operations without database dependency.
+ * Realms are kept in (createdAt, id) order in a single partition; writes are serialized.
  */
 @Repository
 @Profile("dev")
 public class InMemoryRealmRepository implements RealmRepository {
     
-    private final Map<UUID, Realm> realms = new ConcurrentHashMap<>();
+    /** Realms are not scoped by another realm, so they all live in the partition for {@code null}. */
+    private final RealmPartitions<PageCursor, Realm> realms = new RealmPartitions<>(PageCursor::of);
 
     @Override
     public Optional<Realm> findById(UUID id) {
@@ -28,21 +30,28 @@ public class InMemoryRealmRepository implements RealmRepository {
 
     @Override
     public Optional<Realm> findByName(UUID realmId, String name) {
-        return realms.values().stream()
+        return realms.values(null).stream()
             .filter(r -> r.getName().equals(name))
             .findFirst();
     }
 
     @Override
     public List<Realm> findAll(UUID realmId, int offset, int limit) {
-        return realms.values().stream()
+        return realms.values(null).stream()
             .skip(offset)
             .limit(limit)
             .collect(Collectors.toList());
     }
 
     @Override
-    public Realm create(Realm realm) {
+    public List<Realm> findAll(PageCursor after, int limit) {
+        return realms.valuesAfter(null, after).stream()
+            .limit(limit)
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    public synchronized Realm create(Realm realm) {
         if (realm.getId() == null) {
             realm.setId(UUID.randomUUID());
         }
@@ -50,16 +59,16 @@ public class InMemoryRealmRepository implements RealmRepository {
         if (realm.getEnabled() == null) {
             realm.setEnabled(true);
         }
-        realms.put(realm.getId(), realm);
+        realms.put(realm.getId(), null, realm);
         return realm;
     }
 
     @Override
-    public Realm update(Realm realm) {
-        if (!realms.containsKey(realm.getId())) {
+    public synchronized Realm update(Realm realm) {
+        if (!realms.contains(realm.getId())) {
             throw new ResourceNotFoundException("Realm", realm.getId().toString());
         }
-        realms.put(realm.getId(), realm);
+        realms.put(realm.getId(), null, realm);
         return realm;
     }
 
@@ -84,8 +93,8 @@ public class InMemoryRealmRepository implements RealmRepository {
     }
 
     @Override
-    public void delete(UUID id) {
-        if (!realms.containsKey(id)) {
+    public synchronized void delete(UUID id) {
+        if (!realms.contains(id)) {
             throw new ResourceNotFoundException("Realm", id.toString());
         }
         realms.remove(id);
@@ -96,14 +105,14 @@ public class InMemoryRealmRepository implements RealmRepository {
      */
     @Override
     public long count() {
-        return realms.size();
+        return realms.count(null);
     }
 
     /**
      * Get count of enabled realms.
      */
     public long countEnabled() {
-        return realms.values().stream()
+        return realms.values(null).stream()
             .filter(r -> Boolean.TRUE.equals(r.getEnabled()))
             .count();
     }
@@ -111,7 +120,7 @@ public class InMemoryRealmRepository implements RealmRepository {
     /**
      * Clear all realms (for testing).
      */
-    public void clear() {
+    public synchronized void clear() {
         realms.clear();
     }
 
@@ -1,5 +1,6 @@
 package com.owiseman.core.repository.memory;
 
+import com.owiseman.core.domain.PageCursor;
 import com.owiseman.core.domain.Role;
 import com.owiseman.core.exception.ResourceNotFoundException;
 import com.owiseman.core.jooq.repository.RoleRepository;
@@ -13,13 +14,16 @@ import java.util.stream.Collectors;
 
 /**
  * In-memory implementation of RoleRepository for development and testing.
+ * Roles are partitioned by realm and listed in (createdAt, id) order; writes are serialized.
  */
 @Repository
 @Profile("dev")
 public class InMemoryRoleRepository implements RoleRepository {
     
-    private final Map<UUID, Role> roles = new ConcurrentHashMap<>();
+    private final RealmPartitions<PageCursor, Role> roles = new RealmPartitions<>(PageCursor::of);
     private final Map<UUID, Set<UUID>> rolePermissions = new ConcurrentHashMap<>();
+    /** parent role ID -> child role IDs */
+    private final Map<UUID, Set<UUID>> childRoles = new ConcurrentHashMap<>();
 
     @Override
     public Optional<Role> findById(UUID id) {
@@ -28,48 +32,55 @@ public class InMemoryRoleRepository implements RoleRepository {
 
     @Override
     public Optional<Role> findByName(UUID realmId, String name) {
-        return roles.values().stream()
-            .filter(r -> r.getName().equals(name))
-            .filter(r -> realmId == null || r.getRealmId().equals(realmId))
+        return roles.values(realmId).stream()
+            .filter(r -> name.equals(r.getName()))
             .findFirst();
     }
 
     @Override
     public List<Role> findAll(UUID realmId, int offset, int limit) {
-        return roles.values().stream()
-            .filter(r -> realmId == null || r.getRealmId().equals(realmId))
+        return roles.values(realmId).stream()
             .skip(offset)
             .limit(limit)
             .collect(Collectors.toList());
     }
 
     @Override
-    public Role create(Role role) {
+    public List<Role> findAll(UUID realmId, PageCursor after, int limit) {
+        return roles.valuesAfter(realmId, after).stream()
+            .limit(limit)
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    public synchronized Role create(Role role) {
         if (role.getId() == null) {
             role.setId(UUID.randomUUID());
         }
         role.setCreatedAt(LocalDateTime.now());
-        roles.put(role.getId(), role);
+        roles.put(role.getId(), role.getRealmId(), role);
         rolePermissions.put(role.getId(), new HashSet<>());
         return role;
     }
 
     @Override
-    public Role update(Role role) {
-        if (!roles.containsKey(role.getId())) {
+    public synchronized Role update(Role role) {
+        if (!roles.contains(role.getId())) {
             throw new ResourceNotFoundException("Role", role.getId().toString());
         }
-        roles.put(role.getId(), role);
+        roles.put(role.getId(), role.getRealmId(), role);
         return role;
     }
 
     @Override
-    public void delete(UUID id) {
-        if (!roles.containsKey(id)) {
+    public synchronized void delete(UUID id) {
+        if (!roles.contains(id)) {
             throw new ResourceNotFoundException("Role", id.toString());
         }
         roles.remove(id);
         rolePermissions.remove(id);
+        childRoles.remove(id);
+        childRoles.values().forEach(children -> children.remove(id));
     }
 
     @Override
@@ -85,7 +96,7 @@ public class InMemoryRoleRepository implements RoleRepository {
 
     @Override
     public void assignPermission(UUID roleId, UUID permissionId) {
-        if (!roles.containsKey(roleId)) {
+        if (!roles.contains(roleId)) {
             throw new ResourceNotFoundException("Role", roleId.toString());
         }
         rolePermissions.computeIfAbsent(roleId, k -> new HashSet<>()).add(permissionId);
@@ -98,21 +109,53 @@ public class InMemoryRoleRepository implements RoleRepository {
         }
     }
 
+    @Override
+    public List<String> findChildRoles(UUID roleId) {
+        Set<UUID> children = childRoles.get(roleId);
+        if (children == null) {
+            return Collections.emptyList();
+        }
+        return children.stream()
+            .map(UUID::toString)
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    public synchronized void addChildRole(UUID roleId, UUID childRoleId) {
+        if (!roles.contains(roleId)) {
+            throw new ResourceNotFoundException("Role", roleId.toString());
+        }
+        if (!roles.contains(childRoleId)) {
+            throw new ResourceNotFoundException("Role", childRoleId.toString());
+        }
+        if (roleId.equals(childRoleId)) {
+            throw new IllegalArgumentException("A role cannot include itself");
+        }
+        childRoles.computeIfAbsent(roleId, k -> ConcurrentHashMap.newKeySet()).add(childRoleId);
+    }
+
+    @Override
+    public synchronized void removeChildRole(UUID roleId, UUID childRoleId) {
+        Set<UUID> children = childRoles.get(roleId);
+        if (children != null) {
+            children.remove(childRoleId);
+        }
+    }
+
     /**
      * Get count of roles in a realm.
      */
     @Override
     public long countByRealm(UUID realmId) {
-        return roles.values().stream()
-            .filter(r -> r.getRealmId().equals(realmId))
-            .count();
+        return roles.count(realmId);
     }
 
     /**
      * Clear all roles (for testing).
      */
-    public void clear() {
+    public synchronized void clear() {
         roles.clear();
         rolePermissions.clear();
+        childRoles.clear();
     }
 }
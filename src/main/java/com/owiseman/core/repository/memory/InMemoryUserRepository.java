@@ -1,27 +1,54 @@
 package com.owiseman.core.repository.memory;
 
+import com.owiseman.core.domain.PageCursor;
 import com.owiseman.core.domain.User;
 import com.owiseman.core.exception.ResourceNotFoundException;
 import com.owiseman.core.jooq.repository.UserRepository;
 import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.stream.Collectors;
 
 /**
  * In-memory implementation of UserRepository for development and testing.
  * Provides fast CRUD operations without database dependency.
+ * <p>
+ * Usernames and emails are indexed per realm, mirroring the
+ * {@code UNIQUE(realm_id, username)} and {@code UNIQUE(realm_id, email)}
+ * constraints of {@code ima_user}. Writes are serialized so the indexes never
+ * disagree with the user store; reads are lock-free. Users are partitioned by
+ * realm and listed in (createdAt, id) order, so realm-scoped listing and
+ * counting ignore other realms and pages are stable.
+ * <p>
+ * String-valued attributes are kept in an inverted index from (realm, name,
+ * value) to the users holding them, in the same order, so attribute queries
+ * touch only the matching users.
  */
 @Repository
 @Profile("dev")
 public class InMemoryUserRepository implements UserRepository {
-    
-    private final Map<UUID, User> users = new ConcurrentHashMap<>();
+
+    private final RealmPartitions<PageCursor, User> users = new RealmPartitions<>(PageCursor::of);
     private final Map<UUID, Set<UUID>> userRoles = new ConcurrentHashMap<>();
 
+    /** username -> realmId -> userId */
+    private final Map<String, Map<UUID, UUID>> usernameIndex = new ConcurrentHashMap<>();
+    /** email -> realmId -> userId */
+    private final Map<String, Map<UUID, UUID>> emailIndex = new ConcurrentHashMap<>();
+    /** (realmId or null for all realms, name, value) -> users in (createdAt, id) order */
+    private final Map<AttributeKey, NavigableMap<PageCursor, User>> attributeIndex = new ConcurrentHashMap<>();
+    /**
+     * The key values each user is currently indexed under. Services update users
+     * in place before calling {@link #update}, so the old keys cannot be read
+     * back from the user itself. Guarded by {@code this}.
+     */
+    private final Map<UUID, IndexedKeys> indexedKeys = new HashMap<>();
+
     @Override
     public Optional<User> findById(UUID id) {
         return Optional.ofNullable(users.get(id));
@@ -29,61 +56,131 @@ public class InMemoryUserRepository implements UserRepository {
 
     @Override
     public Optional<User> findByUsername(UUID realmId, String username) {
-        return users.values().stream()
-            .filter(u -> u.getUsername().equals(username))
-            .filter(u -> realmId == null || u.getRealmId().equals(realmId))
-            .findFirst();
+        return lookup(usernameIndex, realmId, username);
     }
 
     @Override
     public Optional<User> findByEmail(UUID realmId, String email) {
-        return users.values().stream()
-            .filter(u -> u.getEmail() != null && u.getEmail().equals(email))
-            .filter(u -> realmId == null || u.getRealmId().equals(realmId))
-            .findFirst();
+        return lookup(emailIndex, realmId, email);
     }
 
     @Override
     public List<User> findAll(UUID realmId, int offset, int limit) {
-        return users.values().stream()
-            .filter(u -> realmId == null || u.getRealmId().equals(realmId))
+        return users.values(realmId).stream()
             .skip(offset)
             .limit(limit)
             .collect(Collectors.toList());
     }
 
     @Override
-    public User create(User user) {
+    public List<User> findAll(UUID realmId, PageCursor after, int limit) {
+        return users.valuesAfter(realmId, after).stream()
+            .limit(limit)
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<User> findByAttribute(UUID realmId, String name, String value, PageCursor after, int limit) {
+        NavigableMap<PageCursor, User> matching = attributeIndex.get(new AttributeKey(realmId, name, value));
+        if (matching == null) {
+            return Collections.emptyList();
+        }
+        return (after != null ? matching.tailMap(after, false) : matching).values().stream()
+            .limit(limit)
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    public synchronized User create(User user) {
         if (user.getId() == null) {
             user.setId(UUID.randomUUID());
         }
+        checkUnique(IndexedKeys.of(user), user.getId());
         user.setCreatedAt(LocalDateTime.now());
         if (user.getEnabled() == null) {
             user.setEnabled(true);
         }
-        users.put(user.getId(), user);
+        user.setAuthoritiesVersion(0L);
+        user.setAttributes(copyOf(user.getAttributes()));
+        IndexedKeys keys = IndexedKeys.of(user);
+        users.put(user.getId(), user.getRealmId(), user);
         userRoles.put(user.getId(), new HashSet<>());
+        index(user.getId(), keys);
         return user;
     }
 
     @Override
-    public User update(User user) {
-        if (!users.containsKey(user.getId())) {
+    public synchronized User update(User user) {
+        User existing = users.get(user.getId());
+        if (existing == null) {
             throw new ResourceNotFoundException("User", user.getId().toString());
         }
-        users.put(user.getId(), user);
+        // Attributes and the authorities version are only changed through their own methods
+        user.setAttributes(existing.getAttributes());
+        user.setAuthoritiesVersion(existing.getAuthoritiesVersion());
+        IndexedKeys keys = IndexedKeys.of(user);
+        checkUnique(keys, user.getId());
+        unindex(user.getId());
+        users.put(user.getId(), user.getRealmId(), user);
+        index(user.getId(), keys);
         return user;
     }
 
     @Override
-    public void delete(UUID id) {
-        if (!users.containsKey(id)) {
+    public synchronized void delete(UUID id) {
+        if (!users.contains(id)) {
             throw new ResourceNotFoundException("User", id.toString());
         }
+        unindex(id);
         users.remove(id);
         userRoles.remove(id);
     }
 
+    @Override
+    public Map<String, Object> findAttributes(UUID userId) {
+        User user = users.get(userId);
+        if (user == null) {
+            throw new ResourceNotFoundException("User", userId.toString());
+        }
+        return user.getAttributes() != null ? user.getAttributes() : Collections.emptyMap();
+    }
+
+    @Override
+    public synchronized void updateAttributes(UUID userId, Map<String, Object> attributes) {
+        User user = users.get(userId);
+        if (user == null) {
+            throw new ResourceNotFoundException("User", userId.toString());
+        }
+        user.setAttributes(copyOf(attributes));
+        unindex(userId);
+        index(userId, IndexedKeys.of(user));
+    }
+
+    @Override
+    public synchronized boolean updatePasswordHash(UUID userId, String expectedHash, String newHash) {
+        User user = users.get(userId);
+        if (user == null || !Objects.equals(user.getPasswordHash(), expectedHash)) {
+            return false;
+        }
+        user.setPasswordHash(newHash);
+        return true;
+    }
+
+    @Override
+    public Optional<Long> findAuthoritiesVersion(UUID userId) {
+        return findById(userId).map(User::getAuthoritiesVersion);
+    }
+
+    @Override
+    public synchronized Optional<Long> incrementAuthoritiesVersion(UUID userId) {
+        User user = users.get(userId);
+        if (user == null) {
+            return Optional.empty();
+        }
+        user.setAuthoritiesVersion(user.getAuthoritiesVersion() + 1);
+        return Optional.of(user.getAuthoritiesVersion());
+    }
+
     @Override
     public List<String> findPermissions(UUID userId) {
         // Simplified permission model - returns empty list for in-memory
@@ -93,7 +190,7 @@ public class InMemoryUserRepository implements UserRepository {
 
     @Override
     public void assignRole(UUID userId, UUID roleId) {
-        if (!users.containsKey(userId)) {
+        if (!users.contains(userId)) {
             throw new ResourceNotFoundException("User", userId.toString());
         }
         userRoles.computeIfAbsent(userId, k -> new HashSet<>()).add(roleId);
@@ -122,15 +219,17 @@ public class InMemoryUserRepository implements UserRepository {
      */
     @Override
     public long countByRealm(UUID realmId) {
-        return users.values().stream()
-            .filter(u -> u.getRealmId().equals(realmId))
-            .count();
+        return users.count(realmId);
     }
 
     /**
      * Clear all users (for testing).
      */
-    public void clear() {
+    public synchronized void clear() {
+        usernameIndex.clear();
+        emailIndex.clear();
+        attributeIndex.clear();
+        indexedKeys.clear();
         users.clear();
         userRoles.clear();
     }
@@ -145,4 +244,102 @@ public class InMemoryUserRepository implements UserRepository {
             return update(user);
         }
     }
+
+    private Optional<User> lookup(Map<String, Map<UUID, UUID>> index, UUID realmId, String value) {
+        if (value == null) {
+            return Optional.empty();
+        }
+        Map<UUID, UUID> byRealm = index.get(value);
+        if (byRealm == null) {
+            return Optional.empty();
+        }
+        UUID userId = realmId != null
+            ? byRealm.get(realmId)
+            : byRealm.values().stream().findFirst().orElse(null);
+        return userId != null ? Optional.ofNullable(users.get(userId)) : Optional.empty();
+    }
+
+    private void checkUnique(IndexedKeys keys, UUID userId) {
+        UUID usernameOwner = indexedUnder(usernameIndex, keys.realmId(), keys.username());
+        if (usernameOwner != null && !usernameOwner.equals(userId)) {
+            throw new DuplicateKeyException("Username already exists in realm: " + keys.username());
+        }
+        UUID emailOwner = indexedUnder(emailIndex, keys.realmId(), keys.email());
+        if (emailOwner != null && !emailOwner.equals(userId)) {
+            throw new DuplicateKeyException("Email already exists in realm: " + keys.email());
+        }
+    }
+
+    private void index(UUID userId, IndexedKeys keys) {
+        if (keys.username() != null) {
+            usernameIndex.computeIfAbsent(keys.username(), k -> new ConcurrentHashMap<>()).put(keys.realmId(), userId);
+        }
+        if (keys.email() != null) {
+            emailIndex.computeIfAbsent(keys.email(), k -> new ConcurrentHashMap<>()).put(keys.realmId(), userId);
+        }
+        User user = users.get(userId);
+        for (AttributeKey key : keys.attributes()) {
+            attributeIndex.computeIfAbsent(key, k -> new ConcurrentSkipListMap<>()).put(keys.position(), user);
+        }
+        indexedKeys.put(userId, keys);
+    }
+
+    private void unindex(UUID userId) {
+        IndexedKeys keys = indexedKeys.remove(userId);
+        if (keys == null) {
+            return;
+        }
+        removeEntry(usernameIndex, keys.realmId(), keys.username());
+        removeEntry(emailIndex, keys.realmId(), keys.email());
+        for (AttributeKey key : keys.attributes()) {
+            attributeIndex.computeIfPresent(key, (k, matching) -> {
+                matching.remove(keys.position());
+                return matching.isEmpty() ? null : matching;
+            });
+        }
+    }
+
+    private static Map<String, Object> copyOf(Map<String, Object> attributes) {
+        return attributes != null ? Collections.unmodifiableMap(new HashMap<>(attributes)) : Collections.emptyMap();
+    }
+
+    private static UUID indexedUnder(Map<String, Map<UUID, UUID>> index, UUID realmId, String value) {
+        if (value == null) {
+            return null;
+        }
+        Map<UUID, UUID> byRealm = index.get(value);
+        return byRealm != null ? byRealm.get(realmId) : null;
+    }
+
+    private static void removeEntry(Map<String, Map<UUID, UUID>> index, UUID realmId, String value) {
+        if (value == null) {
+            return;
+        }
+        index.computeIfPresent(value, (k, byRealm) -> {
+            byRealm.remove(realmId);
+            return byRealm.isEmpty() ? null : byRealm;
+        });
+    }
+
+    private record IndexedKeys(UUID realmId, String username, String email,
+                               PageCursor position, Set<AttributeKey> attributes) {
+
+        static IndexedKeys of(User user) {
+            UUID realmKey = RealmPartitions.partitionKey(user.getRealmId());
+            Set<AttributeKey> attributes = new HashSet<>();
+            if (user.getAttributes() != null) {
+                user.getAttributes().forEach((name, value) -> {
+                    if (value instanceof String text) {
+                        attributes.add(new AttributeKey(realmKey, name, text));
+                        attributes.add(new AttributeKey(null, name, text));
+                    }
+                });
+            }
+            return new IndexedKeys(realmKey, user.getUsername(), user.getEmail(),
+                PageCursor.of(user), attributes);
+        }
+    }
+
+    private record AttributeKey(UUID realmId, String name, String value) {
+    }
 }
@@ -0,0 +1,158 @@
+package com.owiseman.core.repository.memory;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Entity store for the in-memory repositories, partitioned by realm and kept
+ * in sort order.
+ * <p>
+ * Each realm has its own skip list ordered by the entity's sort key, plus a
+ * counter maintained on every write, so realm-scoped reads and counts do not
+ * slow down as other realms grow. Listings come out in a stable order, and
+ * {@link #valuesAfter} seeks to a key in O(log n).
+ * <p>
+ * Reads are lock-free. Writes must be serialized by the owning repository so
+ * an entity is never visible in two partitions at once.
+ *
+ * @param <K> the sort key type; must be unique per entity, e.g. by ending in the ID
+ * @param <T> the entity type
+ */
+final class RealmPartitions<K extends Comparable<K>, T> {
+
+    /** Partition key for entities without a realm (ConcurrentHashMap does not allow null keys). */
+    static final UUID NO_REALM = new UUID(0L, 0L);
+
+    private final Function<T, K> sortKey;
+
+    private final Map<UUID, T> byId = new ConcurrentHashMap<>();
+    /**
+     * Where each entity is currently stored. Kept separately because callers may
+     * mutate an entity in place before storing it again.
+     */
+    private final Map<UUID, Location<K>> locations = new ConcurrentHashMap<>();
+    private final Map<UUID, Partition<K, T>> partitions = new ConcurrentHashMap<>();
+    private final NavigableMap<K, T> all = new ConcurrentSkipListMap<>();
+
+    RealmPartitions(Function<T, K> sortKey) {
+        this.sortKey = sortKey;
+    }
+
+    static UUID partitionKey(UUID realmId) {
+        return realmId != null ? realmId : NO_REALM;
+    }
+
+    T get(UUID id) {
+        return byId.get(id);
+    }
+
+    boolean contains(UUID id) {
+        return byId.containsKey(id);
+    }
+
+    /**
+     * Store an entity, moving it if its realm or sort key changed.
+     */
+    void put(UUID id, UUID realmId, T entity) {
+        Location<K> location = new Location<>(partitionKey(realmId), sortKey.apply(entity));
+        Location<K> previous = locations.put(id, location);
+        if (previous != null) {
+            unlink(previous);
+        }
+        partitions.computeIfAbsent(location.realmKey(), k -> new Partition<>()).add(location.sortKey(), entity);
+        all.put(location.sortKey(), entity);
+        byId.put(id, entity);
+    }
+
+    /**
+     * Remove an entity.
+     *
+     * @return the removed entity, or {@code null} if there was none
+     */
+    T remove(UUID id) {
+        Location<K> location = locations.remove(id);
+        if (location != null) {
+            unlink(location);
+        }
+        return byId.remove(id);
+    }
+
+    /**
+     * The entities of a realm, or of all realms if {@code realmId} is {@code null}, in sort order.
+     */
+    Collection<T> values(UUID realmId) {
+        NavigableMap<K, T> sorted = sorted(realmId);
+        return sorted != null ? Collections.unmodifiableCollection(sorted.values()) : Collections.emptyList();
+    }
+
+    /**
+     * The entities sorting strictly after {@code after}, in sort order.
+     *
+     * @param after the sort key to resume after, or {@code null} to start from the beginning
+     */
+    Collection<T> valuesAfter(UUID realmId, K after) {
+        if (after == null) {
+            return values(realmId);
+        }
+        NavigableMap<K, T> sorted = sorted(realmId);
+        return sorted != null
+            ? Collections.unmodifiableCollection(sorted.tailMap(after, false).values())
+            : Collections.emptyList();
+    }
+
+    long count(UUID realmId) {
+        Partition<K, T> partition = partitions.get(partitionKey(realmId));
+        return partition != null ? partition.size.get() : 0L;
+    }
+
+    void clear() {
+        partitions.clear();
+        all.clear();
+        locations.clear();
+        byId.clear();
+    }
+
+    private NavigableMap<K, T> sorted(UUID realmId) {
+        if (realmId == null) {
+            return all;
+        }
+        Partition<K, T> partition = partitions.get(realmId);
+        return partition != null ? partition.entries : null;
+    }
+
+    private void unlink(Location<K> location) {
+        all.remove(location.sortKey());
+        partitions.computeIfPresent(location.realmKey(), (k, partition) -> {
+            partition.remove(location.sortKey());
+            return partition.size.get() == 0 ? null : partition;
+        });
+    }
+
+    private record Location<K>(UUID realmKey, K sortKey) {
+    }
+
+    private static final class Partition<K extends Comparable<K>, T> {
+
+        final ConcurrentSkipListMap<K, T> entries = new ConcurrentSkipListMap<>();
+        final AtomicLong size = new AtomicLong();
+
+        void add(K key, T entity) {
+            if (entries.put(key, entity) == null) {
+                size.incrementAndGet();
+            }
+        }
+
+        void remove(K key) {
+            if (entries.remove(key) != null) {
+                size.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.owiseman.core.security;
+
+import java.util.Collection;
+import java.util.UUID;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+/**
+ * Spring Security principal that also carries the user and realm IDs, and the
+ * authorities version of the user state it was built from.
+ */
+public class AuthenticatedUser extends User {
+
+    private final UUID userId;
+    private final UUID realmId;
+    private final long authoritiesVersion;
+
+    public AuthenticatedUser(UUID userId, UUID realmId, String username, String password, boolean enabled,
+                             Collection<? extends GrantedAuthority> authorities) {
+        this(userId, realmId, username, password, enabled, authorities, 0L);
+    }
+
+    public AuthenticatedUser(UUID userId, UUID realmId, String username, String password, boolean enabled,
+                             Collection<? extends GrantedAuthority> authorities, long authoritiesVersion) {
+        super(username, password, enabled, true, true, true, authorities);
+        this.userId = userId;
+        this.realmId = realmId;
+        this.authoritiesVersion = authoritiesVersion;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public UUID getRealmId() {
+        return realmId;
+    }
+
+    /**
+     * @see AuthoritiesVersionRegistry
+     */
+    public long getAuthoritiesVersion() {
+        return authoritiesVersion;
+    }
+}
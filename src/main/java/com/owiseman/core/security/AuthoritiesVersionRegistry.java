@@ -0,0 +1,77 @@
+package com.owiseman.core.security;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.owiseman.core.domain.TokenClaims;
+import com.owiseman.core.event.UserChangedEvent;
+import com.owiseman.core.jooq.repository.UserRepository;
+
+/**
+ * Tracks a version number per user that changes whenever the user's account
+ * state or effective roles change. Self-contained tokens and cached user
+ * details carry the version they were built from; once it is no longer
+ * current they must be re-checked against the user store.
+ * <p>
+ * Versions are kept in {@code ima_user.authorities_version} and shared by all
+ * nodes. Each node caches them for {@code app.cache.authorities-versions.ttl},
+ * so a change made on another node is seen here within that time; changes
+ * made on this node are seen immediately.
+ */
+@Component
+public class AuthoritiesVersionRegistry {
+
+    /** Version of users that do not exist; never matches a token or cached details. */
+    static final long NO_USER = -1L;
+
+    private final UserRepository userRepository;
+    private final Cache<UUID, Long> versions;
+
+    public AuthoritiesVersionRegistry(UserRepository userRepository,
+                                      @Value("${app.cache.authorities-versions.maximum-size:100000}") long maximumSize,
+                                      @Value("${app.cache.authorities-versions.ttl:5s}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.versions = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(ttl)
+            .build();
+    }
+
+    /**
+     * Get the current authorities version of a user, or {@link #NO_USER} if the user does not exist.
+     */
+    public long currentVersion(UUID userId) {
+        return versions.get(userId, id -> userRepository.findAuthoritiesVersion(id).orElse(NO_USER));
+    }
+
+    /**
+     * Invalidate all self-contained tokens and cached details of a user so far.
+     *
+     * @return the new version, or {@link #NO_USER} if the user does not exist
+     */
+    public long bump(UUID userId) {
+        long version = userRepository.incrementAuthoritiesVersion(userId).orElse(NO_USER);
+        versions.put(userId, version);
+        return version;
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        bump(event.getUserId());
+    }
+
+    /**
+     * Check whether the claims of a self-contained token still reflect the user's authorities.
+     */
+    public boolean isCurrent(TokenClaims claims) {
+        return claims.getUserId() != null
+            && claims.getAuthoritiesVersion() != null
+            && currentVersion(claims.getUserId()) == claims.getAuthoritiesVersion();
+    }
+}
@@ -0,0 +1,165 @@
+package com.owiseman.core.security;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.owiseman.core.policy.PolicyContext;
+import com.owiseman.core.policy.PolicyEngine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Size-bounded cache of authorization decisions in front of
+ * {@link EffectivePermissionStore} and {@link PolicyEngine}, keyed by
+ * (userId, permission, policy context).
+ * <p>
+ * Each decision records the version of the user's grants and of the
+ * permission's policies it was made with; a lookup whose versions no longer
+ * match is treated as a miss. Role assignments, role permission changes and
+ * policy registrations therefore take effect on the next request without
+ * scanning the cache. Decisions that depend on a time of day expire at the
+ * next time the policies compare against, e.g. 18:00.
+ * <p>
+ * Published meters: {@code authz.decision.cache.requests} tagged
+ * {@code result=hit|miss|stale} (hit ratio is hit over the total, stale
+ * entries are those invalidated by a version change), the
+ * {@code authz.decision.cache.size} gauge, and the
+ * {@code authz.decision.cache.age} timer of how old served decisions are.
+ */
+@Component
+public class AuthorizationDecisionCache {
+
+    private final EffectivePermissionStore permissionStore;
+    private final PolicyEngine policyEngine;
+    private final Clock clock;
+    private final long ttlMillis;
+    private final Cache<Key, Decision> cache;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter stale;
+    private final Timer age;
+
+    @Autowired
+    public AuthorizationDecisionCache(EffectivePermissionStore permissionStore,
+                                      PolicyEngine policyEngine,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${app.cache.authz-decisions.maximum-size:100000}") long maximumSize,
+                                      @Value("${app.cache.authz-decisions.ttl:10m}") Duration ttl) {
+        this(permissionStore, policyEngine, meterRegistry, maximumSize, ttl, Clock.systemDefaultZone());
+    }
+
+    AuthorizationDecisionCache(EffectivePermissionStore permissionStore,
+                               PolicyEngine policyEngine,
+                               MeterRegistry meterRegistry,
+                               long maximumSize,
+                               Duration ttl,
+                               Clock clock) {
+        this.permissionStore = permissionStore;
+        this.policyEngine = policyEngine;
+        this.clock = clock;
+        this.ttlMillis = ttl.toMillis();
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfter(new DecisionExpiry())
+            .build();
+
+        this.hits = requests(meterRegistry, "hit");
+        this.misses = requests(meterRegistry, "miss");
+        this.stale = requests(meterRegistry, "stale");
+        this.age = Timer.builder("authz.decision.cache.age")
+            .description("Age of authorization decisions served from the cache")
+            .register(meterRegistry);
+        Gauge.builder("authz.decision.cache.size", cache, Cache::estimatedSize)
+            .description("Number of cached authorization decisions")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Decide whether a user holds a permission and the policies attached to it
+     * pass in the given context.
+     *
+     * @param permission the permission identifier ("resource:action")
+     * @param context the attributes the policies are evaluated against
+     * @param contextKey identifies the attributes of {@code context} other than
+     *                   the time of day, e.g. the attribute map itself; ignored
+     *                   for permissions without policies
+     */
+    public boolean isPermitted(UUID userId, String permission, PolicyContext context, Object contextKey) {
+        EffectivePermissionStore.Grants grants = permissionStore.grants(userId);
+        if (grants == null) {
+            return false;
+        }
+        PolicyEngine.PermissionPolicies policies = policyEngine.policiesOf(grants.realmId(), permission);
+        long policyVersion = policies != null ? policies.version() : 0L;
+        Key key = new Key(userId, permission, policies != null ? contextKey : null);
+
+        Decision cached = cache.getIfPresent(key);
+        long now = clock.millis();
+        if (cached == null || now >= cached.expiresAt()) {
+            // Expiry is also checked here since the cache's own clock may lag the boundary
+            misses.increment();
+        } else if (cached.grantsVersion() != grants.version() || cached.policyVersion() != policyVersion) {
+            stale.increment();
+        } else {
+            hits.increment();
+            age.record(now - cached.decidedAt(), TimeUnit.MILLISECONDS);
+            return cached.permitted();
+        }
+
+        boolean permitted = grants.has(permission) && (policies == null || policies.evaluate(context));
+        long expiresAt = now + ttlMillis;
+        if (policies != null) {
+            Instant boundary = policies.nextBoundary(Instant.ofEpochMilli(now), clock.getZone());
+            if (boundary != null) {
+                expiresAt = Math.min(expiresAt, boundary.toEpochMilli());
+            }
+        }
+        cache.put(key, new Decision(permitted, grants.version(), policyVersion, now, expiresAt));
+        return permitted;
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("authz.decision.cache.requests")
+            .description("Authorization decision cache lookups")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    private record Key(UUID userId, String permission, Object contextKey) {
+    }
+
+    private record Decision(boolean permitted, long grantsVersion, long policyVersion, long decidedAt, long expiresAt) {
+    }
+
+    private final class DecisionExpiry implements Expiry<Key, Decision> {
+
+        @Override
+        public long expireAfterCreate(Key key, Decision decision, long currentTime) {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0L, decision.expiresAt() - clock.millis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(Key key, Decision decision, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, decision, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Key key, Decision decision, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -1,37 +1,81 @@
 package com.owiseman.core.security;
 
+import com.owiseman.core.domain.TokenClaims;
 import com.owiseman.core.jooq.repository.UserRepository;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.userdetails.User;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
 
 /**
  * Custom user details service for loading user from in-memory repository.
+ * <p>
+ * Every user holds {@code ROLE_USER}, plus {@code ROLE_<NAME>} for each of
+ * their effective roles, e.g. {@code ROLE_ADMIN} for a role named "admin".
  */
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
 
+    private static final List<SimpleGrantedAuthority> DEFAULT_AUTHORITIES =
+        Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER"));
+
     private final UserRepository userRepository;
+    private final EffectivePermissionStore permissionStore;
 
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(UserRepository userRepository, EffectivePermissionStore permissionStore) {
         this.userRepository = userRepository;
+        this.permissionStore = permissionStore;
     }
 
     @Override
-    public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        return userRepository.findByUsername(null, username)
-            .map(user -> new User(
+    public AuthenticatedUser loadUserByUsername(String username) throws UsernameNotFoundException {
+        return loadUserByUsername(null, username);
+    }
+
+    /**
+     * Load a user by username, optionally scoped to a realm.
+     *
+     * @param realmId the realm ID scope, or {@code null} for any realm
+     * @param username the username
+     * @return the user details
+     * @throws UsernameNotFoundException if no such user exists
+     */
+    public AuthenticatedUser loadUserByUsername(UUID realmId, String username) throws UsernameNotFoundException {
+        return userRepository.findByUsername(realmId, username)
+            .map(user -> new AuthenticatedUser(
+                user.getId(),
+                user.getRealmId(),
                 user.getUsername(),
                 user.getPasswordHash() != null ? user.getPasswordHash() : "",
                 user.getEnabled() != null && user.getEnabled(),
-                true, true, true,
-                Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER"))
+                authoritiesOf(user.getId()),
+                user.getAuthoritiesVersion() != null ? user.getAuthoritiesVersion() : 0L
             ))
             .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
     }
+
+    /**
+     * Rebuild user details from the claims of a verified self-contained token,
+     * without a repository lookup. Only valid while the token's authorities
+     * version is current.
+     */
+    public AuthenticatedUser loadUserFromClaims(TokenClaims claims) {
+        return new AuthenticatedUser(claims.getUserId(), claims.getRealmId(), claims.getUsername(), "", true,
+            authoritiesOf(claims.getUserId()), claims.getAuthoritiesVersion());
+    }
+
+    private List<GrantedAuthority> authoritiesOf(UUID userId) {
+        List<GrantedAuthority> authorities = new ArrayList<>(DEFAULT_AUTHORITIES);
+        for (String roleName : permissionStore.findRoleNames(userId)) {
+            authorities.add(new SimpleGrantedAuthority("ROLE_" + roleName.toUpperCase(Locale.ROOT)));
+        }
+        return authorities;
+    }
 }
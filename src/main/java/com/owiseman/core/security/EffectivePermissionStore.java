@@ -0,0 +1,460 @@
+package com.owiseman.core.security;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.owiseman.core.domain.Permission;
+import com.owiseman.core.domain.Role;
+import com.owiseman.core.domain.User;
+import com.owiseman.core.event.RoleChangedEvent;
+import com.owiseman.core.event.UserChangedEvent;
+import com.owiseman.core.jooq.repository.PermissionRepository;
+import com.owiseman.core.jooq.repository.RoleRepository;
+import com.owiseman.core.jooq.repository.UserRepository;
+
+/**
+ * Materialized effective permissions ("resource:action") per user.
+ * <p>
+ * Permissions are numbered per realm by a {@link PermissionDictionary}, and
+ * roles and users hold bitsets of those ordinals. A user's effective roles are
+ * their assigned roles expanded through the {@link RoleHierarchy}, and their
+ * grants are the OR of those roles' bitsets; a permission check is one
+ * dictionary lookup and one bit test, without SQL.
+ * <p>
+ * A user's grants are loaded from the repositories on first use and from then
+ * on recomputed from {@link UserChangedEvent} role assignments and
+ * {@link RoleChangedEvent} permission and child role changes. Only roles and
+ * permissions of the user's own realm count towards their grants. When a
+ * user's effective roles or their names change without a
+ * {@link UserChangedEvent}, e.g. through a composite role, one of type
+ * {@code EFFECTIVE_ROLES_CHANGED} is published so that their cached details
+ * and self-contained tokens are invalidated.
+ * <p>
+ * Changes made on other nodes publish no events here. A user's assigned roles
+ * and a role's permissions are therefore re-read from the repositories once
+ * they are {@code app.cache.grants.ttl} old, as is the role graph (see
+ * {@link RoleHierarchy}): a role or permission revoked elsewhere stops
+ * granting on this node within that time.
+ * <p>
+ * Reads are lock-free; loads and updates are serialized. Permissions are
+ * treated as immutable once assigned; renaming or deleting an
+ * {@code ima_permission} row directly is not tracked.
+ */
+@Component
+public class EffectivePermissionStore {
+
+    /** Dictionary key for entities without a realm (ConcurrentHashMap does not allow null keys). */
+    private static final UUID NO_REALM = new UUID(0L, 0L);
+
+    private final UserRepository userRepository;
+    private final RoleRepository roleRepository;
+    private final PermissionRepository permissionRepository;
+    private final RoleHierarchy roleHierarchy;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Clock clock;
+    private final long ttlMillis;
+    private final AtomicLong versions = new AtomicLong();
+
+    private final Map<UUID, PermissionDictionary> dictionaries = new ConcurrentHashMap<>();
+    /** Published grants per user; each value is immutable and replaced on change. */
+    private final Map<UUID, Grants> grants = new ConcurrentHashMap<>();
+
+    // The maps below are guarded by this and only cover materialized users and their roles.
+    private final Map<UUID, UserRoles> userRoles = new HashMap<>();
+    /** effective role -> users whose effective roles include it */
+    private final Map<UUID, Set<UUID>> roleUsers = new HashMap<>();
+    private final Map<UUID, RoleGrants> roleGrants = new HashMap<>();
+
+    @Autowired
+    public EffectivePermissionStore(UserRepository userRepository,
+                                    RoleRepository roleRepository,
+                                    PermissionRepository permissionRepository,
+                                    RoleHierarchy roleHierarchy,
+                                    ApplicationEventPublisher eventPublisher,
+                                    @Value("${app.cache.grants.ttl:1m}") Duration ttl) {
+        this(userRepository, roleRepository, permissionRepository, roleHierarchy, eventPublisher,
+            ttl, Clock.systemDefaultZone());
+    }
+
+    EffectivePermissionStore(UserRepository userRepository,
+                             RoleRepository roleRepository,
+                             PermissionRepository permissionRepository,
+                             RoleHierarchy roleHierarchy,
+                             ApplicationEventPublisher eventPublisher,
+                             Duration ttl,
+                             Clock clock) {
+        this.userRepository = userRepository;
+        this.roleRepository = roleRepository;
+        this.permissionRepository = permissionRepository;
+        this.roleHierarchy = roleHierarchy;
+        this.eventPublisher = eventPublisher;
+        this.clock = clock;
+        this.ttlMillis = ttl.toMillis();
+    }
+
+    /**
+     * Check whether any of the user's roles grants a permission.
+     *
+     * @param permission the permission identifier ("resource:action")
+     */
+    public boolean hasPermission(UUID userId, String permission) {
+        Grants userGrants = grantsOf(userId);
+        return userGrants != null && userGrants.has(permission);
+    }
+
+    /**
+     * Check several permissions against one read of the user's grants.
+     *
+     * @return one decision per permission, in the same order
+     */
+    public boolean[] hasPermissions(UUID userId, List<String> permissions) {
+        boolean[] decisions = new boolean[permissions.size()];
+        Grants userGrants = grantsOf(userId);
+        if (userGrants == null) {
+            return decisions;
+        }
+        for (int i = 0; i < decisions.length; i++) {
+            decisions[i] = userGrants.has(permissions.get(i));
+        }
+        return decisions;
+    }
+
+    /**
+     * Get the user's current grants, or {@code null} if the user does not exist.
+     */
+    public Grants grants(UUID userId) {
+        return grantsOf(userId);
+    }
+
+    /**
+     * Get the user's effective permissions, sorted.
+     */
+    public List<String> findPermissions(UUID userId) {
+        Grants userGrants = grantsOf(userId);
+        if (userGrants == null) {
+            return List.of();
+        }
+        return userGrants.bits().stream()
+            .mapToObj(userGrants.dictionary()::name)
+            .sorted()
+            .toList();
+    }
+
+    /**
+     * Get the user's effective role IDs, including roles inherited through composite roles, sorted.
+     */
+    public List<String> findEffectiveRoles(UUID userId) {
+        Grants userGrants = grantsOf(userId);
+        if (userGrants == null) {
+            return List.of();
+        }
+        return userGrants.roles().stream()
+            .map(UUID::toString)
+            .sorted()
+            .toList();
+    }
+
+    /**
+     * Get the names of the user's effective roles, sorted.
+     */
+    public List<String> findRoleNames(UUID userId) {
+        Grants userGrants = grantsOf(userId);
+        if (userGrants == null) {
+            return List.of();
+        }
+        return userGrants.roleNames().stream()
+            .sorted()
+            .toList();
+    }
+
+    @EventListener
+    public synchronized void onUserChanged(UserChangedEvent event) {
+        UUID userId = event.getUserId();
+        UserRoles roles = userRoles.get(userId);
+        switch (event.getType()) {
+            case ROLE_ASSIGNED -> {
+                if (roles != null && roles.assigned().add(event.getRoleId())) {
+                    recompute(userId);
+                }
+            }
+            case ROLE_REMOVED -> {
+                if (roles != null && roles.assigned().remove(event.getRoleId())) {
+                    recompute(userId);
+                }
+            }
+            case DELETED -> evict(userId);
+            default -> {
+                // Account state changes do not affect grants, and derived changes come from here
+            }
+        }
+    }
+
+    @EventListener
+    public synchronized void onRoleChanged(RoleChangedEvent event) {
+        UUID roleId = event.getRoleId();
+        Set<UUID> users = Set.copyOf(roleUsers.getOrDefault(roleId, Set.of()));
+        RoleGrants role = roleGrants.get(roleId);
+        switch (event.getType()) {
+            case PERMISSION_ASSIGNED -> {
+                int ordinal = role != null ? intern(role.realmId(), event.getPermissionId()) : -1;
+                if (ordinal >= 0) {
+                    role.bits().set(ordinal);
+                }
+            }
+            case PERMISSION_REMOVED -> {
+                int ordinal = role != null ? dictionary(role.realmId()).ordinal(event.getPermissionId()) : -1;
+                if (ordinal >= 0) {
+                    role.bits().clear(ordinal);
+                }
+            }
+            case CHILD_ADDED, CHILD_REMOVED -> {
+                // RoleHierarchy has already updated the closures; users of the role re-expand them
+            }
+            case UPDATED -> roleGrants.remove(roleId);
+            case DELETED -> {
+                roleGrants.remove(roleId);
+                users.forEach(userId -> userRoles.get(userId).assigned().remove(roleId));
+            }
+        }
+        users.forEach(userId -> {
+            Grants before = grants.get(userId);
+            publishIfRolesChanged(userId, before, recompute(userId));
+        });
+    }
+
+    private Grants grantsOf(UUID userId) {
+        Grants userGrants = grants.get(userId);
+        return userGrants != null && clock.millis() < userGrants.expiresAt() ? userGrants : load(userId);
+    }
+
+    /**
+     * Load a user's grants, or refresh them once anything they were computed
+     * from is older than the TTL.
+     */
+    private synchronized Grants load(UUID userId) {
+        long now = clock.millis();
+        Grants current = grants.get(userId);
+        if (current != null && now < current.expiresAt()) {
+            return current;
+        }
+        UserRoles roles = userRoles.get(userId);
+        if (roles == null || now >= roles.expiresAt()) {
+            User user = userRepository.findById(userId).orElse(null);
+            if (user == null) {
+                evict(userId);
+                return null;
+            }
+            if (current == null) {
+                grants.put(userId, new Grants(user.getRealmId(), 0L, dictionary(user.getRealmId()), Set.of(),
+                    Set.of(), new BitSet(), 0L));
+            }
+            Set<UUID> assigned = new HashSet<>();
+            for (String roleId : userRepository.findUserRoles(userId)) {
+                assigned.add(UUID.fromString(roleId));
+            }
+            userRoles.put(userId, new UserRoles(assigned, now + ttlMillis));
+        }
+        Grants updated = recompute(userId);
+        if (current != null) {
+            publishIfRolesChanged(userId, current, updated);
+        }
+        return updated;
+    }
+
+    private void publishIfRolesChanged(UUID userId, Grants before, Grants after) {
+        if (!after.roles().equals(before.roles()) || !after.roleNames().equals(before.roleNames())) {
+            eventPublisher.publishEvent(new UserChangedEvent(userId, UserChangedEvent.Type.EFFECTIVE_ROLES_CHANGED));
+        }
+    }
+
+    /**
+     * Re-expand a user's effective roles, rebuild their bitset as the OR of
+     * those roles' bitsets and publish both. The grants expire with the
+     * oldest of the role assignments, role graph and role bitsets used.
+     */
+    private Grants recompute(UUID userId) {
+        Grants current = grants.get(userId);
+        UserRoles roles = userRoles.get(userId);
+        // Read before expanding: the graph may be dropped midway, leaving closures of the old one in use
+        long expiresAt = Math.min(roles.expiresAt(), roleHierarchy.expiresAt());
+        Set<UUID> effective = new HashSet<>();
+        for (UUID roleId : roles.assigned()) {
+            effective.addAll(roleHierarchy.closure(roleId));
+        }
+        Set<String> names = new HashSet<>();
+        BitSet bits = new BitSet();
+        for (UUID roleId : effective) {
+            RoleGrants role = roleGrantsOf(roleId);
+            if (role != null && Objects.equals(role.realmId(), current.realmId())) {
+                names.add(role.name());
+                bits.or(role.bits());
+                expiresAt = Math.min(expiresAt, role.expiresAt());
+            }
+        }
+        current.roles().stream().filter(roleId -> !effective.contains(roleId)).forEach(roleId -> unlink(userId, roleId));
+        effective.forEach(roleId -> roleUsers.computeIfAbsent(roleId, k -> new HashSet<>()).add(userId));
+        // Unchanged grants keep their version so that cached authorization decisions stay valid
+        long version = effective.equals(current.roles()) && bits.equals(current.bits())
+            ? current.version() : versions.incrementAndGet();
+        Grants updated = new Grants(current.realmId(), version, current.dictionary(), Set.copyOf(effective),
+            Set.copyOf(names), bits, expiresAt);
+        grants.put(userId, updated);
+        return updated;
+    }
+
+    private void evict(UUID userId) {
+        Grants removed = grants.remove(userId);
+        userRoles.remove(userId);
+        if (removed != null) {
+            removed.roles().forEach(roleId -> unlink(userId, roleId));
+        }
+    }
+
+    private void unlink(UUID userId, UUID roleId) {
+        Set<UUID> users = roleUsers.get(roleId);
+        if (users != null) {
+            users.remove(userId);
+            if (users.isEmpty()) {
+                roleUsers.remove(roleId);
+            }
+        }
+    }
+
+    private RoleGrants roleGrantsOf(UUID roleId) {
+        long now = clock.millis();
+        RoleGrants loaded = roleGrants.get(roleId);
+        if (loaded != null && now < loaded.expiresAt()) {
+            return loaded;
+        }
+        Role role = roleRepository.findById(roleId).orElse(null);
+        if (role == null) {
+            roleGrants.remove(roleId);
+            return null;
+        }
+        BitSet bits = new BitSet();
+        for (String permissionId : roleRepository.findPermissions(roleId)) {
+            int ordinal = intern(role.getRealmId(), UUID.fromString(permissionId));
+            if (ordinal >= 0) {
+                bits.set(ordinal);
+            }
+        }
+        RoleGrants grantsOfRole = new RoleGrants(role.getRealmId(), role.getName(), bits, now + ttlMillis);
+        roleGrants.put(roleId, grantsOfRole);
+        return grantsOfRole;
+    }
+
+    /**
+     * The ordinal of a permission in a realm's dictionary, interning it on first
+     * sight; {@code -1} if the permission does not exist or belongs to another realm.
+     */
+    private int intern(UUID realmId, UUID permissionId) {
+        PermissionDictionary dictionary = dictionary(realmId);
+        int ordinal = dictionary.ordinal(permissionId);
+        if (ordinal >= 0) {
+            return ordinal;
+        }
+        Permission permission = permissionRepository.findById(permissionId).orElse(null);
+        if (permission == null || !Objects.equals(permission.getRealmId(), realmId)) {
+            return -1;
+        }
+        return dictionary.intern(permissionId, permission.getResource() + ":" + permission.getAction());
+    }
+
+    private PermissionDictionary dictionary(UUID realmId) {
+        return dictionaries.computeIfAbsent(realmId != null ? realmId : NO_REALM, k -> new PermissionDictionary());
+    }
+
+    /**
+     * A user's grants as published at one point in time. Any change to the
+     * user's grants publishes a new instance with a new version.
+     */
+    public static final class Grants {
+
+        private final UUID realmId;
+        private final long version;
+        private final PermissionDictionary dictionary;
+        private final Set<UUID> roles;
+        private final Set<String> roleNames;
+        /** Never mutated after publication. */
+        private final BitSet bits;
+        private final long expiresAt;
+
+        Grants(UUID realmId, long version, PermissionDictionary dictionary, Set<UUID> roles, Set<String> roleNames,
+               BitSet bits, long expiresAt) {
+            this.realmId = realmId;
+            this.version = version;
+            this.dictionary = dictionary;
+            this.roles = roles;
+            this.roleNames = roleNames;
+            this.bits = bits;
+            this.expiresAt = expiresAt;
+        }
+
+        public UUID realmId() {
+            return realmId;
+        }
+
+        public long version() {
+            return version;
+        }
+
+        /**
+         * The user's effective roles, including inherited ones.
+         */
+        public Set<UUID> roles() {
+            return roles;
+        }
+
+        /**
+         * The names of the user's effective roles in their realm.
+         */
+        public Set<String> roleNames() {
+            return roleNames;
+        }
+
+        /**
+         * @param permission the permission identifier ("resource:action")
+         */
+        public boolean has(String permission) {
+            int ordinal = dictionary.ordinal(permission);
+            return ordinal >= 0 && bits.get(ordinal);
+        }
+
+        PermissionDictionary dictionary() {
+            return dictionary;
+        }
+
+        BitSet bits() {
+            return bits;
+        }
+
+        /** The time in epoch milliseconds from which these grants are reloaded. */
+        long expiresAt() {
+            return expiresAt;
+        }
+    }
+
+    /** A user's assigned roles; {@code assigned} is mutated in place under the store's lock. */
+    private record UserRoles(Set<UUID> assigned, long expiresAt) {
+    }
+
+    /** A role's grants; {@code bits} is mutated in place under the store's lock. */
+    private record RoleGrants(UUID realmId, String name, BitSet bits, long expiresAt) {
+    }
+}
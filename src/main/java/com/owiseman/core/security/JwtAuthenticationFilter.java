@@ -1,5 +1,6 @@
 package com.owiseman.core.security;
 
+import com.owiseman.core.domain.TokenClaims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -22,11 +23,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider jwtTokenProvider;
     private final CustomUserDetailsService userDetailsService;
+    private final UserDetailsCache userDetailsCache;
+    private final AuthoritiesVersionRegistry authoritiesVersionRegistry;
 
     public JwtAuthenticationFilter(JwtTokenProvider jwtTokenProvider,
-                                  CustomUserDetailsService userDetailsService) {
+                                  CustomUserDetailsService userDetailsService,
+                                  UserDetailsCache userDetailsCache,
+                                  AuthoritiesVersionRegistry authoritiesVersionRegistry) {
         this.jwtTokenProvider = jwtTokenProvider;
         this.userDetailsService = userDetailsService;
+        this.userDetailsCache = userDetailsCache;
+        this.authoritiesVersionRegistry = authoritiesVersionRegistry;
     }
 
     @Override
@@ -36,19 +43,27 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
             
-            if (StringUtils.hasText(jwt) && jwtTokenProvider.validateToken(jwt)) {
-                String username = jwtTokenProvider.getUsernameFromToken(jwt);
-                
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                UsernamePasswordAuthenticationToken authentication = 
-                    new UsernamePasswordAuthenticationToken(
-                        userDetails, 
-                        null, 
-                        userDetails.getAuthorities()
-                    );
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+            TokenVerification verification = StringUtils.hasText(jwt) ? jwtTokenProvider.verifyToken(jwt) : null;
+
+            if (verification != null && verification.isValid()) {
+                TokenClaims claims = verification.getClaims();
+
+                // Self-contained tokens skip the user lookup until the user's authorities change
+                UserDetails userDetails = jwtTokenProvider.isSelfContained() && authoritiesVersionRegistry.isCurrent(claims)
+                    ? userDetailsService.loadUserFromClaims(claims)
+                    : userDetailsCache.get(claims.getRealmId(), claims.getSubject());
+
+                if (userDetails.isEnabled()) {
+                    UsernamePasswordAuthenticationToken authentication = 
+                        new UsernamePasswordAuthenticationToken(
+                            userDetails, 
+                            null, 
+                            userDetails.getAuthorities()
+                        );
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                }
             }
         } catch (Exception ex) {
             logger.error("Could not set user authentication in security context", ex);
@@ -1,7 +1,10 @@
 package com.owiseman.core.security;
 
+import com.owiseman.core.domain.TokenClaims;
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.InvalidKeyException;
+import io.jsonwebtoken.security.SecureDigestAlgorithm;
+import io.jsonwebtoken.security.SecurityException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -9,9 +12,10 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.SecretKey;
-import java.nio.charset.StandardCharsets;
+import java.security.Key;
 import java.util.Date;
+import java.util.List;
+import java.util.UUID;
 
 /**
  * Utility class for JWT token generation and validation.
@@ -21,15 +25,40 @@ public class JwtTokenProvider {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtTokenProvider.class);
 
-    @Value("${jwt.secret}")
-    private String jwtSecret;
+    private static final String CLAIM_USER_ID = "uid";
+    private static final String CLAIM_REALM_ID = "rid";
+    private static final String CLAIM_ROLES = "roles";
+    private static final String CLAIM_PERMISSIONS = "perms";
+    private static final String CLAIM_AUTHORITIES_VERSION = "av";
 
-    @Value("${jwt.expiration}")
-    private long jwtExpiration;
+    private final SigningKeyManager signingKeyManager;
+    private final long jwtExpiration;
+    private final boolean selfContained;
 
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = jwtSecret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+    /**
+     * Built once; the verification key is looked up per token by its {@code kid}
+     * header, so key rotation needs no new parser.
+     */
+    private final JwtParser parser;
+
+    public JwtTokenProvider(SigningKeyManager signingKeyManager,
+                            @Value("${jwt.expiration}") long jwtExpiration,
+                            @Value("${jwt.self-contained:false}") boolean selfContained) {
+        this.signingKeyManager = signingKeyManager;
+        this.jwtExpiration = jwtExpiration;
+        this.selfContained = selfContained;
+        this.parser = Jwts.parser()
+            .keyLocator(new LocatorAdapter<Key>() {
+                @Override
+                protected Key locate(JwsHeader header) {
+                    Key key = signingKeyManager.findVerificationKey(header.getKeyId());
+                    if (key == null) {
+                        throw new InvalidKeyException("Unknown JWT signing key: " + header.getKeyId());
+                    }
+                    return key;
+                }
+            })
+            .build();
     }
 
     /**
@@ -47,21 +76,60 @@ public class JwtTokenProvider {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpiration);
 
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
             .subject(username)
             .issuedAt(now)
-            .expiration(expiryDate)
-            .signWith(getSigningKey())
-            .compact();
+            .expiration(expiryDate);
+        return sign(builder);
+    }
+
+    /**
+     * Generate JWT token from prepared claims.
+     * In self-contained mode the user ID, realm ID, roles, permissions and authorities version
+     * are embedded so requests can be authenticated without a user lookup.
+     */
+    public String generateToken(TokenClaims tokenClaims) {
+        Date now = new Date();
+        Date expiryDate = new Date(now.getTime() + jwtExpiration);
+
+        JwtBuilder builder = Jwts.builder()
+            .subject(tokenClaims.getUsername())
+            .issuedAt(now)
+            .expiration(expiryDate);
+        if (selfContained) {
+            builder.claim(CLAIM_USER_ID, tokenClaims.getUserId() != null ? tokenClaims.getUserId().toString() : null)
+                .claim(CLAIM_REALM_ID, tokenClaims.getRealmId() != null ? tokenClaims.getRealmId().toString() : null)
+                .claim(CLAIM_ROLES, tokenClaims.getRoles())
+                .claim(CLAIM_PERMISSIONS, tokenClaims.getPermissions())
+                .claim(CLAIM_AUTHORITIES_VERSION, tokenClaims.getAuthoritiesVersion());
+        }
+        return sign(builder);
+    }
+
+    @SuppressWarnings("unchecked")
+    private String sign(JwtBuilder builder) {
+        SigningKeyManager.SigningKey key = signingKeyManager.getActiveKey();
+        if (key.kid() != null) {
+            builder.header().keyId(key.kid());
+        }
+        if (key.algorithm() == null) {
+            return builder.signWith(key.signingKey()).compact();
+        }
+        return builder.signWith(key.signingKey(), (SecureDigestAlgorithm<Key, ?>) key.algorithm()).compact();
+    }
+
+    /**
+     * Whether tokens carry enough claims to authenticate without a user lookup.
+     */
+    public boolean isSelfContained() {
+        return selfContained;
     }
 
     /**
      * Extract username from JWT token.
      */
     public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parser()
-            .verifyWith(getSigningKey())
-            .build()
+        Claims claims = parser
             .parseSignedClaims(token)
             .getPayload();
 
@@ -72,21 +140,57 @@ public class JwtTokenProvider {
      * Validate JWT token.
      */
     public boolean validateToken(String authToken) {
+        return verifyToken(authToken).isValid();
+    }
+
+    /**
+     * Verify the signature and decode the claims of a JWT token in one pass.
+     *
+     * @param token the compact JWT string
+     * @return the parsed claims, or the reason the token was rejected
+     */
+    public TokenVerification verifyToken(String token) {
         try {
-            Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(authToken);
-            return true;
+            Claims claims = parser
+                .parseSignedClaims(token)
+                .getPayload();
+            return TokenVerification.valid(toTokenClaims(claims));
         } catch (MalformedJwtException ex) {
             logger.error("Invalid JWT token");
+            return TokenVerification.failed(TokenVerification.Failure.MALFORMED);
         } catch (ExpiredJwtException ex) {
             logger.error("Expired JWT token");
+            return TokenVerification.failed(TokenVerification.Failure.EXPIRED);
         } catch (UnsupportedJwtException ex) {
             logger.error("Unsupported JWT token");
+            return TokenVerification.failed(TokenVerification.Failure.UNSUPPORTED);
+        } catch (SecurityException ex) {
+            logger.error("Invalid JWT signature");
+            return TokenVerification.failed(TokenVerification.Failure.INVALID_SIGNATURE);
         } catch (IllegalArgumentException ex) {
             logger.error("JWT claims string is empty");
+            return TokenVerification.failed(TokenVerification.Failure.EMPTY);
         }
-        return false;
+    }
+
+    private TokenClaims toTokenClaims(Claims claims) {
+        TokenClaims tokenClaims = new TokenClaims();
+        tokenClaims.setSubject(claims.getSubject());
+        tokenClaims.setUsername(claims.getSubject());
+        Date issuedAt = claims.getIssuedAt();
+        tokenClaims.setIssuedAt(issuedAt != null ? issuedAt.toInstant() : null);
+        Date expiration = claims.getExpiration();
+        tokenClaims.setExpiresAt(expiration != null ? expiration.toInstant() : null);
+
+        String userId = claims.get(CLAIM_USER_ID, String.class);
+        tokenClaims.setUserId(userId != null ? UUID.fromString(userId) : null);
+        String realmId = claims.get(CLAIM_REALM_ID, String.class);
+        tokenClaims.setRealmId(realmId != null ? UUID.fromString(realmId) : null);
+        List<?> roles = claims.get(CLAIM_ROLES, List.class);
+        tokenClaims.setRoles(roles != null ? roles.stream().map(String::valueOf).toList() : null);
+        List<?> permissions = claims.get(CLAIM_PERMISSIONS, List.class);
+        tokenClaims.setPermissions(permissions != null ? permissions.stream().map(String::valueOf).toList() : null);
+        tokenClaims.setAuthoritiesVersion(claims.get(CLAIM_AUTHORITIES_VERSION, Long.class));
+        return tokenClaims;
     }
 }
@@ -0,0 +1,265 @@
+package com.owiseman.core.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.owiseman.core.exception.TooManyAttemptsException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Counts failed logins per (realm, username) and per client address over a
+ * sliding window, so brute-force and credential-stuffing attempts are rejected
+ * before any user lookup or password hashing.
+ * <p>
+ * Counts live in count-min sketches, fixed-size arrays of atomic counters
+ * indexed by several independent hashes of the key; the estimate for a key is
+ * the smallest of its counters. Memory is bounded however many keys attackers
+ * make up, and counting takes no locks. Collisions can only overestimate,
+ * which with the default width takes far more distinct failing keys per window
+ * than a single node sees. The hashes are keyed with a random seed, so which
+ * keys collide with a victim's cannot be worked out in advance.
+ * <p>
+ * The sliding window is approximated from two fixed windows: failures in the
+ * previous window are weighted by how much of it still overlaps the sliding
+ * one. With {@code app.security.login-throttle.progressive-delay} set, a
+ * username is also locked out for that long after a failure, doubling with
+ * every further failure up to {@code max-delay}. Attempts during the lockout
+ * are rejected like throttled ones rather than delayed, so they hold no
+ * request thread. The time of the last failure is kept in a sketch of the
+ * same shape holding the latest time per counter, so collisions can only
+ * lengthen a lockout.
+ * <p>
+ * Published meters: {@code auth.login.throttled} tagged {@code key=user|address}.
+ */
+@Component
+public class LoginThrottle {
+
+    private static final int DEPTH = 4;
+    private static final int WIDTH = 1 << 16;
+
+    private final long windowMillis;
+    private final int maxFailuresPerUser;
+    private final int maxFailuresPerAddress;
+    private final long progressiveDelayMillis;
+    private final long maxDelayMillis;
+    private final Clock clock;
+    private final long seed = new SecureRandom().nextLong();
+    private final AtomicReference<Window> window;
+    /** The latest failure time per counter, or {@code null} without progressive delay. */
+    private final AtomicLongArray lastFailures;
+
+    private final Counter throttledUsers;
+    private final Counter throttledAddresses;
+
+    /**
+     * Failure counts of the fixed window {@code index} and the one before it.
+     * Replaced, never cleared, when the clock moves into a later window.
+     */
+    private record Window(long index, AtomicIntegerArray current, AtomicIntegerArray previous) {
+    }
+
+    @Autowired
+    public LoginThrottle(MeterRegistry meterRegistry,
+                         @Value("${app.security.login-throttle.window:15m}") Duration window,
+                         @Value("${app.security.login-throttle.max-failures-per-user:10}") int maxFailuresPerUser,
+                         @Value("${app.security.login-throttle.max-failures-per-address:100}") int maxFailuresPerAddress,
+                         @Value("${app.security.login-throttle.progressive-delay:0ms}") Duration progressiveDelay,
+                         @Value("${app.security.login-throttle.max-delay:2s}") Duration maxDelay) {
+        this(meterRegistry, window, maxFailuresPerUser, maxFailuresPerAddress, progressiveDelay, maxDelay,
+            Clock.systemUTC());
+    }
+
+    LoginThrottle(MeterRegistry meterRegistry, Duration window, int maxFailuresPerUser, int maxFailuresPerAddress,
+                  Duration progressiveDelay, Duration maxDelay, Clock clock) {
+        if (!window.isPositive()) {
+            throw new IllegalArgumentException("window must be positive: " + window);
+        }
+        this.windowMillis = window.toMillis();
+        this.maxFailuresPerUser = maxFailuresPerUser;
+        this.maxFailuresPerAddress = maxFailuresPerAddress;
+        this.progressiveDelayMillis = progressiveDelay.toMillis();
+        this.maxDelayMillis = maxDelay.toMillis();
+        this.clock = clock;
+        this.window = new AtomicReference<>(new Window(clock.millis() / windowMillis,
+            new AtomicIntegerArray(DEPTH * WIDTH), new AtomicIntegerArray(DEPTH * WIDTH)));
+        this.lastFailures = progressiveDelayMillis > 0 ? new AtomicLongArray(DEPTH * WIDTH) : null;
+
+        this.throttledUsers = throttled(meterRegistry, "user");
+        this.throttledAddresses = throttled(meterRegistry, "address");
+    }
+
+    /**
+     * Reject an attempt if its username or client address has failed too often
+     * within the window, or if the username is still locked out after its last
+     * failure.
+     *
+     * @param realmId the realm the username is looked up in, or {@code null}
+     * @param clientAddress the IP address of the client, or {@code null} if unknown
+     * @throws TooManyAttemptsException if the attempt must not be evaluated
+     */
+    public void check(UUID realmId, String username, String clientAddress) {
+        long now = clock.millis();
+        Window current = window(now);
+        long userKey = userKey(realmId, username);
+        long failures = estimate(current, userKey, now);
+        if (failures >= maxFailuresPerUser) {
+            throttledUsers.increment();
+            throw new TooManyAttemptsException("Too many failed logins for this user", retryAfter(now));
+        }
+        if (clientAddress != null && estimate(current, addressKey(clientAddress), now) >= maxFailuresPerAddress) {
+            throttledAddresses.increment();
+            throw new TooManyAttemptsException("Too many failed logins from this address", retryAfter(now));
+        }
+        if (lastFailures != null && failures > 0) {
+            long lockedUntil = lastFailure(userKey) + delayAfter(failures);
+            if (lockedUntil > now) {
+                throttledUsers.increment();
+                throw new TooManyAttemptsException("Too many failed logins for this user",
+                    Duration.ofMillis(lockedUntil - now));
+            }
+        }
+    }
+
+    /**
+     * Count a failed attempt and, with progressive delay enabled, start the
+     * username's lockout.
+     *
+     * @param realmId the realm the username is looked up in, or {@code null}
+     * @param clientAddress the IP address of the client, or {@code null} if unknown
+     */
+    public void recordFailure(UUID realmId, String username, String clientAddress) {
+        long now = clock.millis();
+        Window current = window(now);
+        long userKey = userKey(realmId, username);
+        increment(current, userKey);
+        if (clientAddress != null) {
+            increment(current, addressKey(clientAddress));
+        }
+        if (lastFailures != null) {
+            for (int row = 0; row < DEPTH; row++) {
+                lastFailures.accumulateAndGet(cell(userKey, row), now, Math::max);
+            }
+        }
+    }
+
+    /**
+     * The lockout after a username's {@code failures}-th recent failure: the
+     * progressive delay, doubled for every further failure, at most the maximum.
+     */
+    long delayAfter(long failures) {
+        if (progressiveDelayMillis <= 0 || failures < 1) {
+            return 0;
+        }
+        int doublings = (int) Math.min(failures - 1, 30);
+        return Math.min(maxDelayMillis, progressiveDelayMillis << doublings);
+    }
+
+    /**
+     * The estimated number of failures of a username within the sliding window ending now.
+     */
+    long estimate(UUID realmId, String username) {
+        long now = clock.millis();
+        return estimate(window(now), userKey(realmId, username), now);
+    }
+
+    private long estimate(Window window, long key, long now) {
+        double overlap = 1.0 - (double) (now % windowMillis) / windowMillis;
+        return Math.round(count(window.current(), key) + overlap * count(window.previous(), key));
+    }
+
+    private Window window(long now) {
+        long index = now / windowMillis;
+        Window current = window.get();
+        while (current.index() < index) {
+            AtomicIntegerArray previous = current.index() == index - 1
+                ? current.current()
+                : new AtomicIntegerArray(DEPTH * WIDTH);
+            Window next = new Window(index, new AtomicIntegerArray(DEPTH * WIDTH), previous);
+            if (window.compareAndSet(current, next)) {
+                return next;
+            }
+            current = window.get();
+        }
+        return current;
+    }
+
+    /** The latest failure of a key; the smallest of its counters' latest times. */
+    private long lastFailure(long key) {
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            min = Math.min(min, lastFailures.get(cell(key, row)));
+        }
+        return min;
+    }
+
+    private static int count(AtomicIntegerArray counters, long key) {
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            min = Math.min(min, counters.get(cell(key, row)));
+        }
+        return min;
+    }
+
+    private static void increment(Window window, long key) {
+        AtomicIntegerArray counters = window.current();
+        for (int row = 0; row < DEPTH; row++) {
+            int cell = cell(key, row);
+            // Saturate rather than wrap around for keys under sustained attack
+            counters.getAndUpdate(cell, count -> count < Integer.MAX_VALUE ? count + 1 : count);
+        }
+    }
+
+    /** The counter of a key in a row, by double hashing the two halves of the key. */
+    private static int cell(long key, int row) {
+        int h1 = (int) key;
+        int h2 = (int) (key >>> 32) | 1;
+        return row * WIDTH + ((h1 + row * h2) & (WIDTH - 1));
+    }
+
+    /** Until the current window ends, when the weight of its failures starts to decline. */
+    private Duration retryAfter(long now) {
+        return Duration.ofMillis(windowMillis - now % windowMillis);
+    }
+
+    private long userKey(UUID realmId, String username) {
+        return hash("u:" + (realmId != null ? realmId : "") + ":" + username);
+    }
+
+    private long addressKey(String clientAddress) {
+        return hash("a:" + clientAddress);
+    }
+
+    /** Seeded 64-bit FNV-1a over the UTF-8 bytes, finished with the MurmurHash3 mixer. */
+    private long hash(String key) {
+        long h = seed ^ 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static Counter throttled(MeterRegistry meterRegistry, String key) {
+        return Counter.builder("auth.login.throttled")
+            .description("Login attempts rejected for too many recent failures")
+            .tag("key", key)
+            .register(meterRegistry);
+    }
+}
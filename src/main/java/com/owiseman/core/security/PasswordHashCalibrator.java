@@ -0,0 +1,142 @@
+package com.owiseman.core.security;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+/**
+ * Builds the password encoder, sizing the work factor to this node's hardware.
+ * <p>
+ * New hashes use one algorithm, {@code bcrypt}, {@code argon2} or {@code pbkdf2},
+ * prefixed with its id, e.g. {@code {bcrypt}$2a$12$...}; hashes of the other supported
+ * algorithms, and BCrypt hashes stored without a prefix, still verify. The work
+ * factor is calibrated once so that hashing one password takes about the target
+ * latency, but never less than the floors below. Because BCrypt and Argon2
+ * hashes record their own parameters, nodes calibrated differently verify each
+ * other's hashes, and a faster node upgrades weaker hashes on login (see
+ * {@link PasswordEncoder#upgradeEncoding}) while a slower one never downgrades them.
+ * <p>
+ * {@code pbkdf2} hashes do not record their iteration count, so it is configured
+ * rather than calibrated, must be the same on every node, and PBKDF2 hashes are
+ * never upgraded.
+ */
+public final class PasswordHashCalibrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHashCalibrator.class);
+
+    /** Below these costs a hash is too cheap to brute-force, whatever the hardware. */
+    static final int BCRYPT_MIN_STRENGTH = 10;
+    static final int BCRYPT_MAX_STRENGTH = 16;
+    static final int ARGON2_MIN_ITERATIONS = 2;
+    static final int ARGON2_MAX_ITERATIONS = 32;
+    /** Argon2id with 19 MiB and one lane, as recommended by OWASP; iterations scale the cost. */
+    private static final int ARGON2_MEMORY_KIB = 19 * 1024;
+    private static final int ARGON2_PARALLELISM = 1;
+    private static final int SALT_LENGTH = 16;
+    private static final int HASH_LENGTH = 32;
+
+    private final Duration targetLatency;
+    private final int pbkdf2Iterations;
+    /** Nanoseconds one encode takes with a given encoder. */
+    private final ToLongFunction<PasswordEncoder> timer;
+
+    /**
+     * @param targetLatency how long hashing one password should take; zero uses the floors
+     */
+    public PasswordHashCalibrator(Duration targetLatency, int pbkdf2Iterations) {
+        this(targetLatency, pbkdf2Iterations, PasswordHashCalibrator::time);
+    }
+
+    PasswordHashCalibrator(Duration targetLatency, int pbkdf2Iterations, ToLongFunction<PasswordEncoder> timer) {
+        this.targetLatency = targetLatency;
+        this.pbkdf2Iterations = pbkdf2Iterations;
+        this.timer = timer;
+    }
+
+    /**
+     * A delegating encoder hashing with {@code algorithm} at the calibrated cost.
+     *
+     * @param algorithm {@code bcrypt}, {@code argon2} or {@code pbkdf2}
+     */
+    public DelegatingPasswordEncoder create(String algorithm) {
+        String id = algorithm.toLowerCase(Locale.ROOT);
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put("bcrypt", new BCryptPasswordEncoder());
+        encoders.put("argon2", Argon2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+        encoders.put("pbkdf2", new Pbkdf2PasswordEncoder("", SALT_LENGTH, pbkdf2Iterations,
+            Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256));
+        switch (id) {
+            case "bcrypt" -> encoders.put(id, bcrypt());
+            case "argon2" -> encoders.put(id, argon2());
+            case "pbkdf2" -> logger.info("Hashing passwords with PBKDF2 at {} iterations", pbkdf2Iterations);
+            default -> throw new IllegalArgumentException("Unsupported password hashing algorithm: " + algorithm);
+        }
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(id, encoders);
+        // Hashes stored before ids were recorded are BCrypt
+        encoder.setDefaultPasswordEncoderForMatches(encoders.get("bcrypt"));
+        return encoder;
+    }
+
+    /**
+     * BCrypt at the strength closest to the target latency without exceeding
+     * it; each step of strength doubles the cost.
+     */
+    BCryptPasswordEncoder bcrypt() {
+        int strength = BCRYPT_MIN_STRENGTH;
+        if (calibrated()) {
+            double ratio = (double) targetLatency.toNanos() / timer.applyAsLong(new BCryptPasswordEncoder(strength));
+            strength = clamp(strength + (int) Math.floor(Math.log(ratio) / Math.log(2)),
+                BCRYPT_MIN_STRENGTH, BCRYPT_MAX_STRENGTH);
+        }
+        logger.info("Hashing passwords with BCrypt at strength {}", strength);
+        return new BCryptPasswordEncoder(strength);
+    }
+
+    /**
+     * Argon2id with as many iterations as fit the target latency; the cost
+     * grows linearly with iterations.
+     */
+    Argon2PasswordEncoder argon2() {
+        int iterations = ARGON2_MIN_ITERATIONS;
+        if (calibrated()) {
+            double ratio = (double) targetLatency.toNanos() / timer.applyAsLong(argon2(iterations));
+            iterations = clamp((int) Math.floor(iterations * ratio), ARGON2_MIN_ITERATIONS, ARGON2_MAX_ITERATIONS);
+        }
+        logger.info("Hashing passwords with Argon2id at {} KiB and {} iterations", ARGON2_MEMORY_KIB, iterations);
+        return argon2(iterations);
+    }
+
+    private boolean calibrated() {
+        return targetLatency.isPositive();
+    }
+
+    private static Argon2PasswordEncoder argon2(int iterations) {
+        return new Argon2PasswordEncoder(SALT_LENGTH, HASH_LENGTH, ARGON2_PARALLELISM, ARGON2_MEMORY_KIB, iterations);
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    /** The fastest of a few encodes after a warm-up, to discount JIT compilation and noise. */
+    private static long time(PasswordEncoder encoder) {
+        encoder.encode("calibration");
+        long fastest = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            encoder.encode("calibration");
+            fastest = Math.min(fastest, System.nanoTime() - start);
+        }
+        return Math.max(1, fastest);
+    }
+}
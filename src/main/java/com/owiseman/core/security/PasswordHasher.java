@@ -0,0 +1,231 @@
+package com.owiseman.core.security;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import com.owiseman.core.exception.ServiceOverloadedException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Runs password hashing and verification on a dedicated, bounded executor.
+ * <p>
+ * Password hashes are deliberately slow. Running them on request threads lets a
+ * burst of logins occupy every servlet worker, starving cheap requests such as
+ * health checks and token-authenticated API calls. Here at most
+ * {@code app.security.password-hashing.threads} hashes run at once, by default
+ * one per processor, and up to {@code queue-capacity} more wait for a thread.
+ * A request finding the queue full, or still waiting after {@code max-wait},
+ * fails fast with {@link ServiceOverloadedException} rather than queueing
+ * behind work that cannot finish in time.
+ * <p>
+ * Hashes stored with weaker settings than the current ones are re-hashed by
+ * {@link #upgradeLater} once the password is known, on a hashing thread left
+ * idle by logins.
+ * <p>
+ * Published meters: the {@code password.hashing} timer tagged
+ * {@code operation=encode|matches}, the {@code password.hashing.wait} timer of
+ * time spent queued, the {@code password.hashing.queue} and
+ * {@code password.hashing.active} gauges and {@code password.hashing.rejected}
+ * tagged {@code reason=queue-full|timeout}, and {@code password.hashing.upgrades}
+ * tagged {@code result=upgraded|skipped|failed}.
+ */
+@Component
+public class PasswordHasher implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHasher.class);
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final long maxWaitNanos;
+    private final Duration retryAfter;
+
+    private final Timer encodes;
+    private final Timer matches;
+    private final Timer waits;
+    private final Counter queueFull;
+    private final Counter timedOut;
+    private final Counter upgraded;
+    private final Counter upgradesSkipped;
+    private final Counter upgradesFailed;
+
+    /**
+     * @param threads the number of hashing threads, or 0 for one per processor
+     */
+    @Autowired
+    public PasswordHasher(PasswordEncoder passwordEncoder,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.security.password-hashing.threads:0}") int threads,
+                          @Value("${app.security.password-hashing.queue-capacity:100}") int queueCapacity,
+                          @Value("${app.security.password-hashing.max-wait:2s}") Duration maxWait,
+                          @Value("${app.security.password-hashing.retry-after:1s}") Duration retryAfter) {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("queueCapacity must be positive: " + queueCapacity);
+        }
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.passwordEncoder = passwordEncoder;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.retryAfter = retryAfter;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "password-hasher-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+
+        this.encodes = hashing(meterRegistry, "encode");
+        this.matches = hashing(meterRegistry, "matches");
+        this.waits = Timer.builder("password.hashing.wait")
+            .description("Time password hashing requests wait for a thread")
+            .register(meterRegistry);
+        this.queueFull = rejected(meterRegistry, "queue-full");
+        this.timedOut = rejected(meterRegistry, "timeout");
+        this.upgraded = upgrades(meterRegistry, "upgraded");
+        this.upgradesSkipped = upgrades(meterRegistry, "skipped");
+        this.upgradesFailed = upgrades(meterRegistry, "failed");
+        Gauge.builder("password.hashing.queue", executor, pool -> pool.getQueue().size())
+            .description("Password hashing requests waiting for a thread")
+            .register(meterRegistry);
+        Gauge.builder("password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+            .description("Password hashing threads busy")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Hash a raw password for storage.
+     *
+     * @throws ServiceOverloadedException if the hashing executor is saturated
+     */
+    public String encode(CharSequence rawPassword) {
+        return run(encodes, () -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * Verify a raw password against a stored hash.
+     *
+     * @throws ServiceOverloadedException if the hashing executor is saturated
+     */
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(matches, () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Re-hash a verified password in the background if its stored hash is
+     * weaker than the current settings. Skipped while logins are queued for a
+     * hashing thread; the next login tries again.
+     *
+     * @param rawPassword the password, already verified against {@code encodedPassword}
+     * @param store called on a hashing thread with the new hash
+     */
+    public void upgradeLater(CharSequence rawPassword, String encodedPassword, Consumer<String> store) {
+        if (encodedPassword == null || !passwordEncoder.upgradeEncoding(encodedPassword)) {
+            return;
+        }
+        if (!executor.getQueue().isEmpty()) {
+            upgradesSkipped.increment();
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                long started = System.nanoTime();
+                try {
+                    String upgradedHash = passwordEncoder.encode(rawPassword);
+                    encodes.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                    store.accept(upgradedHash);
+                    upgraded.increment();
+                } catch (RuntimeException ex) {
+                    upgradesFailed.increment();
+                    logger.warn("Cannot upgrade password hash: {}", ex.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            upgradesSkipped.increment();
+        }
+    }
+
+    private <T> T run(Timer timer, Callable<T> task) {
+        long submitted = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long started = System.nanoTime();
+                waits.record(started - submitted, TimeUnit.NANOSECONDS);
+                try {
+                    return task.call();
+                } finally {
+                    timer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            queueFull.increment();
+            throw new ServiceOverloadedException("Password hashing is saturated", retryAfter);
+        }
+        try {
+            return future.get(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            // Free the queue slot if the hash has not started; a running hash is left to finish
+            future.cancel(false);
+            executor.remove((Runnable) future);
+            timedOut.increment();
+            throw new ServiceOverloadedException("Password hashing timed out", retryAfter);
+        } catch (InterruptedException ex) {
+            future.cancel(false);
+            executor.remove((Runnable) future);
+            Thread.currentThread().interrupt();
+            throw new ServiceOverloadedException("Interrupted while waiting for password hashing", retryAfter);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Password hashing failed", ex.getCause());
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private static Timer hashing(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("password.hashing")
+            .description("Password hashing and verification time")
+            .tag("operation", operation)
+            .register(meterRegistry);
+    }
+
+    private static Counter upgrades(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("password.hashing.upgrades")
+            .description("Password hashes re-hashed to the current settings on login")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    private static Counter rejected(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("password.hashing.rejected")
+            .description("Password hashing requests shed because the executor is saturated")
+            .tag("reason", reason)
+            .register(meterRegistry);
+    }
+}
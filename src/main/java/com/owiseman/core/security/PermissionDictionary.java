@@ -0,0 +1,69 @@
+package com.owiseman.core.security;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dense ordinals for the permissions of one realm.
+ * <p>
+ * Each permission row gets the next free ordinal the first time it is seen,
+ * and its "resource:action" identifier is interned alongside, so grants can be
+ * held as bitsets of ordinals. Ordinals are never reused; a deleted permission
+ * keeps its slot until restart.
+ * <p>
+ * Lookups are lock-free; interning is serialized.
+ */
+final class PermissionDictionary {
+
+    private final Map<String, Integer> ordinalsByName = new ConcurrentHashMap<>();
+    private final Map<UUID, Integer> ordinalsById = new ConcurrentHashMap<>();
+    /** Indexed by ordinal; entries up to {@code size} are published by the volatile write in {@link #intern}. */
+    private volatile String[] names = new String[16];
+    private int size;
+
+    /**
+     * The ordinal of a permission identifier, or {@code -1} if it is unknown.
+     */
+    int ordinal(String name) {
+        Integer ordinal = ordinalsByName.get(name);
+        return ordinal != null ? ordinal : -1;
+    }
+
+    /**
+     * The ordinal of a permission row, or {@code -1} if it has not been interned.
+     */
+    int ordinal(UUID permissionId) {
+        Integer ordinal = ordinalsById.get(permissionId);
+        return ordinal != null ? ordinal : -1;
+    }
+
+    String name(int ordinal) {
+        return names[ordinal];
+    }
+
+    /**
+     * Assign an ordinal to a permission row, or return the one it already has.
+     * A row re-created under the same identifier shares the old row's ordinal.
+     */
+    synchronized int intern(UUID permissionId, String name) {
+        Integer existing = ordinalsById.get(permissionId);
+        if (existing != null) {
+            return existing;
+        }
+        Integer ordinal = ordinalsByName.get(name);
+        if (ordinal == null) {
+            String[] current = names;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, size * 2);
+            }
+            ordinal = size;
+            current[size++] = name;
+            names = current;
+            ordinalsByName.put(current[ordinal], ordinal);
+        }
+        ordinalsById.put(permissionId, ordinal);
+        return ordinal;
+    }
+}
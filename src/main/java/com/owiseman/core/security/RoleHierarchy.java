@@ -0,0 +1,197 @@
+package com.owiseman.core.security;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import com.owiseman.core.event.RoleChangedEvent;
+import com.owiseman.core.jooq.repository.RoleRepository;
+
+/**
+ * Transitive closure of the composite role graph.
+ * <p>
+ * A role's closure is the role itself plus every role reachable through child
+ * edges; holding a role grants the permissions of its whole closure. Edges are
+ * loaded from {@link RoleRepository#findChildRoles} on first use. Closures are
+ * cached per role and maintained from {@link RoleChangedEvent}: an added edge
+ * is merged into the closures of the parent and its loaded ancestors, a removed
+ * edge or deleted role drops those closures for recomputation.
+ * <p>
+ * Listens before other {@link RoleChangedEvent} listeners so they observe the
+ * updated graph. Edges changed on other nodes are not published as events, so
+ * the loaded graph is dropped {@code app.cache.grants.ttl} after it was
+ * started and reloaded on demand; {@link #expiresAt()} tells callers until
+ * when the closures served so far may be relied on.
+ */
+@Component
+public class RoleHierarchy {
+
+    private final RoleRepository roleRepository;
+    private final Clock clock;
+    private final long ttlMillis;
+
+    // Guarded by this. Only roles reached so far are present.
+    private final Map<UUID, Set<UUID>> children = new HashMap<>();
+    private final Map<UUID, Set<UUID>> parents = new HashMap<>();
+    private final Map<UUID, Set<UUID>> closures = new HashMap<>();
+    /** When the loaded graph is dropped; 0 until it is first used. */
+    private long expiresAt;
+
+    @Autowired
+    public RoleHierarchy(RoleRepository roleRepository,
+                         @Value("${app.cache.grants.ttl:1m}") Duration ttl) {
+        this(roleRepository, ttl, Clock.systemDefaultZone());
+    }
+
+    RoleHierarchy(RoleRepository roleRepository, Duration ttl, Clock clock) {
+        this.roleRepository = roleRepository;
+        this.clock = clock;
+        this.ttlMillis = ttl.toMillis();
+    }
+
+    /**
+     * The role and every role it transitively includes.
+     */
+    public synchronized Set<UUID> closure(UUID roleId) {
+        expireIfDue();
+        Set<UUID> closure = closures.get(roleId);
+        if (closure != null) {
+            return closure;
+        }
+        Set<UUID> reached = new HashSet<>();
+        Deque<UUID> pending = new ArrayDeque<>();
+        pending.push(roleId);
+        while (!pending.isEmpty()) {
+            UUID current = pending.pop();
+            if (!reached.add(current)) {
+                continue;
+            }
+            Set<UUID> cached = closures.get(current);
+            if (cached != null) {
+                reached.addAll(cached);
+            } else {
+                childrenOf(current).forEach(pending::push);
+            }
+        }
+        closure = Set.copyOf(reached);
+        closures.put(roleId, closure);
+        return closure;
+    }
+
+    /**
+     * The time in epoch milliseconds after which closures served so far may
+     * miss edge changes made on other nodes.
+     */
+    public synchronized long expiresAt() {
+        expireIfDue();
+        return expiresAt;
+    }
+
+    /**
+     * Check whether including {@code childRoleId} in {@code roleId} would form a cycle.
+     */
+    public synchronized boolean wouldCycle(UUID roleId, UUID childRoleId) {
+        return closure(childRoleId).contains(roleId);
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public synchronized void onRoleChanged(RoleChangedEvent event) {
+        UUID roleId = event.getRoleId();
+        switch (event.getType()) {
+            case CHILD_ADDED -> {
+                Set<UUID> roleChildren = children.get(roleId);
+                if (roleChildren != null && roleChildren.add(event.getChildRoleId())) {
+                    parents.computeIfAbsent(event.getChildRoleId(), k -> new HashSet<>()).add(roleId);
+                    Set<UUID> added = closure(event.getChildRoleId());
+                    for (UUID ancestor : ancestorsOf(roleId)) {
+                        Set<UUID> closure = closures.get(ancestor);
+                        if (closure != null && !closure.containsAll(added)) {
+                            Set<UUID> merged = new HashSet<>(closure);
+                            merged.addAll(added);
+                            closures.put(ancestor, Set.copyOf(merged));
+                        }
+                    }
+                }
+            }
+            case CHILD_REMOVED -> {
+                Set<UUID> roleChildren = children.get(roleId);
+                if (roleChildren != null && roleChildren.remove(event.getChildRoleId())) {
+                    Set<UUID> childParents = parents.get(event.getChildRoleId());
+                    if (childParents != null) {
+                        childParents.remove(roleId);
+                    }
+                    ancestorsOf(roleId).forEach(closures::remove);
+                }
+            }
+            case DELETED -> {
+                ancestorsOf(roleId).forEach(closures::remove);
+                Set<UUID> roleParents = parents.remove(roleId);
+                if (roleParents != null) {
+                    roleParents.forEach(parent -> children.get(parent).remove(roleId));
+                }
+                Set<UUID> roleChildren = children.remove(roleId);
+                if (roleChildren != null) {
+                    roleChildren.forEach(child -> parents.getOrDefault(child, new HashSet<>()).remove(roleId));
+                }
+            }
+            default -> {
+                // Permission and name changes do not affect the graph
+            }
+        }
+    }
+
+    private void expireIfDue() {
+        long now = clock.millis();
+        if (now >= expiresAt) {
+            children.clear();
+            parents.clear();
+            closures.clear();
+            expiresAt = now + ttlMillis;
+        }
+    }
+
+    /**
+     * The role and its ancestors among the roles loaded so far.
+     */
+    private Set<UUID> ancestorsOf(UUID roleId) {
+        Set<UUID> reached = new HashSet<>();
+        Deque<UUID> pending = new ArrayDeque<>();
+        pending.push(roleId);
+        while (!pending.isEmpty()) {
+            UUID current = pending.pop();
+            if (reached.add(current)) {
+                parents.getOrDefault(current, Set.of()).forEach(pending::push);
+            }
+        }
+        return reached;
+    }
+
+    private Set<UUID> childrenOf(UUID roleId) {
+        Set<UUID> loaded = children.get(roleId);
+        if (loaded != null) {
+            return loaded;
+        }
+        Set<UUID> roleChildren = new HashSet<>();
+        for (String childId : roleRepository.findChildRoles(roleId)) {
+            UUID child = UUID.fromString(childId);
+            roleChildren.add(child);
+            parents.computeIfAbsent(child, k -> new HashSet<>()).add(roleId);
+        }
+        children.put(roleId, roleChildren);
+        return roleChildren;
+    }
+}
@@ -1,13 +1,22 @@
 package com.owiseman.core.security;
 
+import java.time.Duration;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.authorization.AuthorityAuthorizationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManagers;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 /**
@@ -38,7 +47,15 @@ public class SecurityConfig {
                 // Public endpoints
                 .requestMatchers("/api/auth/**").permitAll()
                 .requestMatchers("/api/health").permitAll()
-                .requestMatchers("/actuator/**").permitAll()
+                .requestMatchers("/.well-known/**").permitAll()
+                .requestMatchers("/actuator/health/**", "/actuator/info").permitAll()
+                // Meters and other operational endpoints are for holders of a role named "admin"
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
+                // Audit logs hold client addresses and attempted usernames: admins of the realm only
+                .requestMatchers("/api/audit/realm/{realmId}/**").access(AuthorizationManagers.allOf(
+                    AuthorityAuthorizationManager.<RequestAuthorizationContext>hasRole("ADMIN"),
+                    SecurityConfig::ownRealm))
+                .requestMatchers("/api/audit/**").denyAll()
                 // All other endpoints require authentication
                 .anyRequest().authenticated())
             .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
@@ -46,8 +63,32 @@ public class SecurityConfig {
         return http.build();
     }
 
+    /**
+     * Grant access to paths whose {@code {realmId}} is the caller's own realm.
+     */
+    private static AuthorizationDecision ownRealm(Supplier<? extends Authentication> authentication,
+                                                  RequestAuthorizationContext context) {
+        String realmId = context.getVariables().get("realmId");
+        if (!(authentication.get().getPrincipal() instanceof AuthenticatedUser user)
+                || user.getRealmId() == null || realmId == null) {
+            return new AuthorizationDecision(false);
+        }
+        try {
+            return new AuthorizationDecision(user.getRealmId().equals(UUID.fromString(realmId)));
+        } catch (IllegalArgumentException ex) {
+            return new AuthorizationDecision(false);
+        }
+    }
+
+    /**
+     * Password encoder with its work factor calibrated to this node at startup.
+     * @see PasswordHashCalibrator
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            @Value("${app.security.password-hashing.algorithm:bcrypt}") String algorithm,
+            @Value("${app.security.password-hashing.target-latency:250ms}") Duration targetLatency,
+            @Value("${app.security.password-hashing.pbkdf2-iterations:600000}") int pbkdf2Iterations) {
+        return new PasswordHashCalibrator(targetLatency, pbkdf2Iterations).create(algorithm);
     }
 }
@@ -0,0 +1,267 @@
+package com.owiseman.core.security;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.cert.Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import javax.crypto.SecretKey;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.MacAlgorithm;
+import io.jsonwebtoken.security.SecureDigestAlgorithm;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+
+/**
+ * Holds the keys used to sign and verify access tokens.
+ * <p>
+ * With an HMAC algorithm (the default) there is a single key derived from
+ * {@code jwt.secret}, read once at startup; a new secret takes effect on
+ * restart. With an asymmetric algorithm (RS256, ES256, EdDSA, ...)
+ * key pairs are identified by their JWK thumbprint ({@code kid}) and the
+ * public keys are published through {@link #getJwksJson()}. They come from
+ * one of two sources:
+ * <ul>
+ * <li>{@code jwt.key-store}, a PKCS12 key store shared by every node. The
+ * entry named {@code jwt.key-alias} signs; all other key entries are published
+ * and verify. Rotation is up to the operator and takes effect on restart: add
+ * the new key, restart, switch the alias, restart, and remove the old key once
+ * its tokens have expired.</li>
+ * <li>Otherwise key pairs are generated in memory and rotated every
+ * {@code jwt.rotation-interval}: the pre-published next key becomes active, a
+ * new next key is generated, and the retired key verifies until the last
+ * token it signed has expired. These keys are local to the node and lost on
+ * restart, invalidating every token they signed, so this suits a single node
+ * only.</li>
+ * </ul>
+ */
+@Component
+public class SigningKeyManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(SigningKeyManager.class);
+
+    private static final String EDDSA = "EdDSA";
+
+    private final SecureDigestAlgorithm<?, ?> algorithm;
+    private final Duration verificationWindow;
+    private final boolean keysFromStore;
+
+    private volatile KeyRing keyRing;
+
+    /**
+     * @param keyStore the location of a PKCS12 key store, e.g. {@code file:/etc/ima/jwt.p12}; empty to generate keys
+     */
+    @Autowired
+    public SigningKeyManager(@Value("${jwt.secret}") String jwtSecret,
+                             @Value("${jwt.algorithm:}") String algorithm,
+                             @Value("${jwt.expiration}") long jwtExpiration,
+                             @Value("${jwt.key-store:}") String keyStore,
+                             @Value("${jwt.key-store-password:}") String keyStorePassword,
+                             @Value("${jwt.key-alias:}") String keyAlias) {
+        this.algorithm = StringUtils.hasText(algorithm) ? Jwts.SIG.get().forKey(algorithm) : null;
+        this.verificationWindow = Duration.ofMillis(jwtExpiration);
+        this.keysFromStore = StringUtils.hasText(keyStore);
+        if (keysFromStore && !isAsymmetric()) {
+            throw new IllegalStateException("jwt.key-store requires an asymmetric jwt.algorithm, not " + algorithm);
+        }
+        if (keysFromStore) {
+            this.keyRing = loadKeyStore(keyStore, keyStorePassword.toCharArray(), keyAlias);
+        } else {
+            this.keyRing = isAsymmetric()
+                ? KeyRing.of(generateKey(), generateKey(), List.of())
+                : KeyRing.of(hmacKey(jwtSecret), null, List.of());
+        }
+        logger.info("JWT signing algorithm {} with key {}", keyRing.active().algorithmId(), keyRing.active().kid());
+        if (isAsymmetric() && !keysFromStore) {
+            logger.warn("JWT signing keys are generated per node and lost on restart; set jwt.key-store to share them");
+        }
+    }
+
+    public SigningKeyManager(String jwtSecret, String algorithm, long jwtExpiration) {
+        this(jwtSecret, algorithm, jwtExpiration, "", "", "");
+    }
+
+    /**
+     * Whether tokens are signed with generated key pairs rather than the shared secret.
+     */
+    public boolean isAsymmetric() {
+        return algorithm instanceof SignatureAlgorithm;
+    }
+
+    /**
+     * The key new tokens are signed with.
+     */
+    public SigningKey getActiveKey() {
+        return keyRing.active();
+    }
+
+    /**
+     * Find the key to verify a token with.
+     *
+     * @param kid the {@code kid} header of the token, may be {@code null} for tokens signed with the shared secret
+     * @return the verification key, or {@code null} if the key is unknown or already retired
+     */
+    public Key findVerificationKey(String kid) {
+        KeyRing ring = keyRing;
+        if (kid == null) {
+            return isAsymmetric() ? null : ring.active().verificationKey();
+        }
+        SigningKey key = ring.verificationKeys().get(kid);
+        return key != null ? key.verificationKey() : null;
+    }
+
+    /**
+     * The public keys as a JSON Web Key Set. Empty for HMAC algorithms.
+     */
+    public String getJwksJson() {
+        return keyRing.jwksJson();
+    }
+
+    /**
+     * Activate the pre-published next key and retire the current one. Keys
+     * from a key store are not rotated here.
+     */
+    @Scheduled(fixedDelayString = "${jwt.rotation-interval:PT24H}", initialDelayString = "${jwt.rotation-interval:PT24H}")
+    public synchronized void rotate() {
+        if (!isAsymmetric() || keysFromStore) {
+            return;
+        }
+        KeyRing ring = keyRing;
+        Instant now = Instant.now();
+        List<SigningKey> retired = new ArrayList<>();
+        retired.add(ring.active().retire(now));
+        for (SigningKey key : ring.retired()) {
+            if (key.retiredAt().plus(verificationWindow).isAfter(now)) {
+                retired.add(key);
+            }
+        }
+        keyRing = KeyRing.of(ring.next(), generateKey(), retired);
+        logger.info("Rotated JWT signing key to {}, {} retired key(s) still verifiable", ring.next().kid(), retired.size());
+    }
+
+    private SigningKey generateKey() {
+        KeyPair keyPair = EDDSA.equals(algorithm.getId())
+            ? Jwks.CRV.Ed25519.keyPair().build()
+            : ((SignatureAlgorithm) algorithm).keyPair().build();
+        return signingKey(keyPair.getPrivate(), keyPair.getPublic());
+    }
+
+    private SigningKey signingKey(PrivateKey privateKey, PublicKey publicKey) {
+        String jwk = Jwks.json(Jwks.builder().key(publicKey).idFromThumbprint().algorithm(algorithm.getId()).build());
+        String kid = Jwks.builder().key(publicKey).idFromThumbprint().build().getId();
+        return new SigningKey(kid, algorithm, privateKey, publicKey, jwk, Instant.now(), null);
+    }
+
+    private KeyRing loadKeyStore(String location, char[] password, String activeAlias) {
+        Resource resource = new DefaultResourceLoader().getResource(location);
+        SigningKey active = null;
+        List<SigningKey> others = new ArrayList<>();
+        try (InputStream in = resource.getInputStream()) {
+            KeyStore store = KeyStore.getInstance("PKCS12");
+            store.load(in, password);
+            for (String alias : Collections.list(store.aliases())) {
+                Certificate certificate = store.getCertificate(alias);
+                if (!store.isKeyEntry(alias) || certificate == null
+                    || !(store.getKey(alias, password) instanceof PrivateKey privateKey)) {
+                    continue;
+                }
+                SigningKey key = signingKey(privateKey, certificate.getPublicKey());
+                if (alias.equals(activeAlias)) {
+                    active = key;
+                } else {
+                    others.add(key);
+                }
+            }
+        } catch (IOException | GeneralSecurityException ex) {
+            throw new IllegalStateException("Cannot read JWT key store " + location, ex);
+        }
+        if (active == null) {
+            throw new IllegalStateException("JWT key store " + location + " has no private key named jwt.key-alias '"
+                + activeAlias + "'");
+        }
+        // Fail at startup rather than on the first login if the key does not suit the algorithm
+        @SuppressWarnings("unchecked")
+        SecureDigestAlgorithm<PrivateKey, ?> signature = (SecureDigestAlgorithm<PrivateKey, ?>) algorithm;
+        Jwts.builder().subject("probe").signWith((PrivateKey) active.signingKey(), signature).compact();
+        logger.info("Loaded JWT signing key {} and {} further verification key(s) from {}",
+            activeAlias, others.size(), location);
+        return KeyRing.of(active, null, others);
+    }
+
+    private SigningKey hmacKey(String jwtSecret) {
+        SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        MacAlgorithm macAlgorithm = algorithm instanceof MacAlgorithm mac ? mac : null;
+        return new SigningKey(null, macAlgorithm, key, key, null, Instant.now(), null);
+    }
+
+    /**
+     * A signing key and its verification counterpart.
+     *
+     * @param kid the key ID placed in the token header, {@code null} for the shared secret
+     * @param algorithm the signature algorithm, {@code null} to pick the strongest HMAC the secret allows
+     * @param jwk the public JWK as JSON, {@code null} for the shared secret
+     */
+    public record SigningKey(String kid, SecureDigestAlgorithm<?, ?> algorithm, Key signingKey, Key verificationKey,
+                             String jwk, Instant createdAt, Instant retiredAt) {
+
+        String algorithmId() {
+            return algorithm != null ? algorithm.getId() : "HMAC (derived from secret length)";
+        }
+
+        SigningKey retire(Instant when) {
+            return new SigningKey(kid, algorithm, signingKey, verificationKey, jwk, createdAt, when);
+        }
+    }
+
+    /**
+     * Immutable snapshot of the active, next and retired keys.
+     */
+    private record KeyRing(SigningKey active, SigningKey next, List<SigningKey> retired,
+                           Map<String, SigningKey> verificationKeys, String jwksJson) {
+
+        static KeyRing of(SigningKey active, SigningKey next, List<SigningKey> retired) {
+            Map<String, SigningKey> byKid = new LinkedHashMap<>();
+            if (active.kid() != null) {
+                byKid.put(active.kid(), active);
+            }
+            for (SigningKey key : retired) {
+                byKid.put(key.kid(), key);
+            }
+            List<SigningKey> published = new ArrayList<>();
+            if (next != null) {
+                published.add(next);
+            }
+            published.addAll(byKid.values());
+            String jwks = published.stream()
+                .map(SigningKey::jwk)
+                .collect(Collectors.joining(",", "{\"keys\":[", "]}"));
+            return new KeyRing(active, next, List.copyOf(retired), Collections.unmodifiableMap(byKid), jwks);
+        }
+    }
+}
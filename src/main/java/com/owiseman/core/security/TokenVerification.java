@@ -0,0 +1,55 @@
+package com.owiseman.core.security;
+
+import com.owiseman.core.domain.TokenClaims;
+
+/**
+ * Outcome of a single-pass JWT verification: either the parsed claims
+ * or the reason the token was rejected.
+ */
+public final class TokenVerification {
+
+    /**
+     * Reasons a token can be rejected.
+     */
+    public enum Failure {
+        EMPTY,
+        MALFORMED,
+        EXPIRED,
+        UNSUPPORTED,
+        INVALID_SIGNATURE
+    }
+
+    private final TokenClaims claims;
+    private final Failure failure;
+
+    private TokenVerification(TokenClaims claims, Failure failure) {
+        this.claims = claims;
+        this.failure = failure;
+    }
+
+    public static TokenVerification valid(TokenClaims claims) {
+        return new TokenVerification(claims, null);
+    }
+
+    public static TokenVerification failed(Failure failure) {
+        return new TokenVerification(null, failure);
+    }
+
+    public boolean isValid() {
+        return failure == null;
+    }
+
+    /**
+     * Parsed claims, or {@code null} if the token was rejected.
+     */
+    public TokenClaims getClaims() {
+        return claims;
+    }
+
+    /**
+     * Rejection reason, or {@code null} if the token is valid.
+     */
+    public Failure getFailure() {
+        return failure;
+    }
+}
@@ -0,0 +1,98 @@
+package com.owiseman.core.security;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.owiseman.core.event.UserChangedEvent;
+import com.owiseman.core.exception.ResourceNotFoundException;
+import com.owiseman.core.jooq.repository.UserRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Size-bounded, TTL-based cache of user attributes as policy paths, keyed by
+ * user ID.
+ * <p>
+ * Attributes are read with {@link UserRepository#findAttributes} on a miss and
+ * flattened once into an immutable map from path to value: {@code region}
+ * becomes {@code user.region} and nested objects continue the path, e.g.
+ * {@code user.address.country}. Policy checks are then map lookups; the JSON
+ * is not deserialized per check. Entries of a user are dropped as soon as a
+ * {@link UserChangedEvent} for that user is published. Hit, miss and eviction
+ * counts are published as {@code cache.*} meters tagged {@code cache=userAttributes}.
+ */
+@Component
+public class UserAttributeCache {
+
+    /** Path prefix of user attributes in a policy context. */
+    public static final String PREFIX = "user.";
+
+    private final UserRepository userRepository;
+    private final Cache<UUID, Map<String, Object>> cache;
+
+    public UserAttributeCache(UserRepository userRepository,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.cache.user-attributes.maximum-size:100000}") long maximumSize,
+                              @Value("${app.cache.user-attributes.ttl:10m}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(ttl)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "userAttributes");
+    }
+
+    /**
+     * Get a user's attributes keyed by policy path, loading them on a miss.
+     *
+     * @return the attributes, empty if the user has none or does not exist
+     */
+    public Map<String, Object> get(UUID userId) {
+        Map<String, Object> attributes = cache.get(userId, this::load);
+        return attributes != null ? attributes : Collections.emptyMap();
+    }
+
+    public void invalidate(UUID userId) {
+        cache.invalidate(userId);
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        invalidate(event.getUserId());
+    }
+
+    private Map<String, Object> load(UUID userId) {
+        Map<String, Object> attributes;
+        try {
+            attributes = userRepository.findAttributes(userId);
+        } catch (ResourceNotFoundException ex) {
+            // Not cached, so a user created later is seen
+            return null;
+        }
+        Map<String, Object> paths = new HashMap<>();
+        flatten(PREFIX, attributes, paths);
+        return Collections.unmodifiableMap(paths);
+    }
+
+    private static void flatten(String prefix, Map<?, ?> attributes, Map<String, Object> paths) {
+        attributes.forEach((name, value) -> {
+            String path = prefix + name;
+            if (value instanceof Map<?, ?> nested) {
+                flatten(path + ".", nested, paths);
+            } else if (value != null) {
+                paths.put(path, value);
+            }
+        });
+    }
+}
@@ -0,0 +1,94 @@
+package com.owiseman.core.security;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.owiseman.core.event.UserChangedEvent;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Size-bounded, TTL-based cache in front of {@link CustomUserDetailsService},
+ * keyed by (realmId, username).
+ * <p>
+ * Entries of a user are dropped as soon as a {@link UserChangedEvent} for that
+ * user is published, so disabling or deleting a user takes effect on the next
+ * request. Changes made on other nodes are caught by comparing an entry's
+ * authorities version with the {@link AuthoritiesVersionRegistry} on every
+ * lookup; an older entry is reloaded. Hit, miss and eviction counts are
+ * published as {@code cache.*} meters tagged {@code cache=userDetails}.
+ */
+@Component
+public class UserDetailsCache {
+
+    private final CustomUserDetailsService userDetailsService;
+    private final AuthoritiesVersionRegistry authoritiesVersionRegistry;
+    private final Cache<Key, AuthenticatedUser> cache;
+
+    public UserDetailsCache(CustomUserDetailsService userDetailsService,
+                            AuthoritiesVersionRegistry authoritiesVersionRegistry,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.cache.user-details.maximum-size:10000}") long maximumSize,
+                            @Value("${app.cache.user-details.ttl:5m}") Duration ttl) {
+        this.userDetailsService = userDetailsService;
+        this.authoritiesVersionRegistry = authoritiesVersionRegistry;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(ttl)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "userDetails");
+    }
+
+    /**
+     * Get user details, loading them on a miss.
+     *
+     * @param realmId the realm ID scope, or {@code null} for any realm
+     * @param username the username
+     * @throws org.springframework.security.core.userdetails.UsernameNotFoundException if no such user exists
+     */
+    public AuthenticatedUser get(UUID realmId, String username) {
+        Key key = new Key(realmId, username);
+        AuthenticatedUser user = cache.get(key, this::load);
+        long current = authoritiesVersionRegistry.currentVersion(user.getUserId());
+        if (current == AuthoritiesVersionRegistry.NO_USER || user.getAuthoritiesVersion() < current) {
+            // Changed or deleted on another node since it was loaded
+            cache.invalidate(key);
+            user = cache.get(key, this::load);
+        }
+        return user;
+    }
+
+    /**
+     * Drop all cached entries of a user.
+     */
+    public void invalidate(UUID userId) {
+        // User changes are rare admin operations; scanning the bounded cache is
+        // cheaper than maintaining a userId -> key index on every load.
+        cache.asMap().values().removeIf(user -> userId.equals(user.getUserId()));
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        invalidate(event.getUserId());
+    }
+
+    private AuthenticatedUser load(Key key) {
+        return userDetailsService.loadUserByUsername(key.realmId(), key.username());
+    }
+
+    private record Key(UUID realmId, String username) {
+    }
+}
@@ -0,0 +1,70 @@
+package com.owiseman.core.service;
+
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import com.owiseman.core.domain.AuditEventType;
+import com.owiseman.core.domain.AuditRollup;
+
+/**
+ * Service interface for reading audit analytics and exporting the audit log.
+ * Counts come from the pre-aggregated rollups, never from the raw audit log,
+ * and lag behind events by up to one audit flush interval.
+ */
+public interface AuditService {
+
+    /**
+     * Export formats, one entry per line.
+     */
+    enum ExportFormat {
+        /** One JSON object per line. */
+        NDJSON,
+        /** RFC 4180 CSV with a header row; the detail column holds JSON. */
+        CSV
+    }
+
+    /**
+     * Write the entries of a realm created within a time range to {@code out},
+     * oldest first, as they are read. Memory use does not depend on the number
+     * of entries. {@code out} is flushed but not closed.
+     *
+     * @param from inclusive start of the time range, or {@code null} for no bound
+     * @param to exclusive end of the time range, or {@code null} for no bound
+     * @return the number of entries written
+     * @throws UncheckedIOException if writing to {@code out} fails
+     */
+    long export(UUID realmId, LocalDateTime from, LocalDateTime to, ExportFormat format, OutputStream out);
+
+    /**
+     * Count events of a realm per bucket.
+     *
+     * @param realmId the realm ID
+     * @param granularity the bucket size
+     * @param eventType the event type, or {@code null} for all types
+     * @param from inclusive start of the time range
+     * @param to exclusive end of the time range
+     * @return the non-empty buckets, oldest first
+     * @throws IllegalArgumentException if the range is empty or spans too many buckets
+     */
+    List<AuditRollup> findRollups(UUID realmId, AuditRollup.Granularity granularity, AuditEventType eventType,
+                                  LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Find the busiest client addresses of a realm per bucket.
+     *
+     * @param realmId the realm ID
+     * @param granularity the bucket size
+     * @param eventType an event type counted per address, see {@link AuditRollup#PER_ADDRESS}
+     * @param from inclusive start of the time range
+     * @param to exclusive end of the time range
+     * @param limit maximum number of rollups to return
+     * @return per-address buckets, highest count first
+     * @throws IllegalArgumentException if the range is empty or spans too many buckets,
+     *                                  or the event type is not counted per address
+     */
+    List<AuditRollup> findAddressRollups(UUID realmId, AuditRollup.Granularity granularity, AuditEventType eventType,
+                                         LocalDateTime from, LocalDateTime to, int limit);
+}
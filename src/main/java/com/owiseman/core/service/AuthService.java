@@ -18,6 +18,15 @@ public interface AuthService {
      */
     AuthResponse login(LoginRequest loginRequest);
 
+    /**
+     * Authenticate a user and return JWT token, recording where the attempt came from.
+     *
+     * @param loginRequest the login credentials
+     * @param clientAddress the IP address of the client, or {@code null} if unknown
+     * @return authentication response with JWT token
+     */
+    AuthResponse login(LoginRequest loginRequest, String clientAddress);
+
     /**
      * Register a new user and return JWT token.
      *
@@ -0,0 +1,23 @@
+package com.owiseman.core.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Service interface for authorization decisions combining role grants and policies.
+ */
+public interface AuthorizationService {
+
+    /**
+     * Decide a batch of permissions for a user.
+     *
+     * @param userId the user ID
+     * @param permissions the permission identifiers (e.g., "users:read")
+     * @param attributes attributes the permissions' policies are evaluated against, keyed by path
+     *                   (e.g., "resource.owner"); the user's stored attributes are available as
+     *                   {@code user.*} and {@code time.now} defaults to the current time
+     * @return one decision per permission, in the same order
+     */
+    boolean[] decide(UUID userId, List<String> permissions, Map<String, Object> attributes);
+}
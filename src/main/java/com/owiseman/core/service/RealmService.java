@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import com.owiseman.core.domain.PageCursor;
 import com.owiseman.core.web.dto.RealmDTO;
 
 /**
@@ -45,6 +46,15 @@ public interface RealmService {
      */
     List<RealmDTO> findAll(int page, int size);
 
+    /**
+     * Get realms after a seek position, oldest first.
+     *
+     * @param after the position of the last realm of the previous page, or {@code null} for the first page
+     * @param size page size
+     * @return list of realm DTOs
+     */
+    List<RealmDTO> findAll(PageCursor after, int size);
+
     /**
      * Update a realm.
      *
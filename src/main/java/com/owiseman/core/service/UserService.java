@@ -1,9 +1,11 @@
 package com.owiseman.core.service;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
+import com.owiseman.core.domain.PageCursor;
 import com.owiseman.core.web.dto.UserDTO;
 
 /**
@@ -53,6 +55,28 @@ public interface UserService {
      */
     List<UserDTO> findByRealm(UUID realmId, int page, int size);
 
+    /**
+     * Get users in a realm after a seek position, oldest first.
+     *
+     * @param realmId the realm ID, or {@code null} for all realms
+     * @param after the position of the last user of the previous page, or {@code null} for the first page
+     * @param size page size
+     * @return list of user DTOs
+     */
+    List<UserDTO> findByRealm(UUID realmId, PageCursor after, int size);
+
+    /**
+     * Get users in a realm whose attribute has a string value, oldest first.
+     *
+     * @param realmId the realm ID, or {@code null} for all realms
+     * @param name the attribute name (e.g., "region")
+     * @param value the attribute value (e.g., "EU")
+     * @param after the position of the last user of the previous page, or {@code null} for the first page
+     * @param size page size
+     * @return list of user DTOs
+     */
+    List<UserDTO> findByAttribute(UUID realmId, String name, String value, PageCursor after, int size);
+
     /**
      * Get all users with pagination.
      *
@@ -93,6 +117,22 @@ public interface UserService {
      */
     void delete(UUID id);
 
+    /**
+     * Get a user's attributes.
+     *
+     * @param userId the user ID
+     * @return the attributes (e.g., department, region)
+     */
+    Map<String, Object> findAttributes(UUID userId);
+
+    /**
+     * Replace a user's attributes.
+     *
+     * @param userId the user ID
+     * @param attributes the new attributes
+     */
+    void updateAttributes(UUID userId, Map<String, Object> attributes);
+
     /**
      * Assign a role to a user.
      *
@@ -134,6 +174,15 @@ public interface UserService {
      */
     boolean hasPermission(UUID userId, String permission);
 
+    /**
+     * Check several permissions for a user, resolving the user's grants once.
+     *
+     * @param userId the user ID
+     * @param permissions the permission identifiers
+     * @return one decision per permission, in the same order
+     */
+    boolean[] hasPermissions(UUID userId, List<String> permissions);
+
     /**
      * Check if user exists and is enabled.
      *
@@ -0,0 +1,131 @@
+package com.owiseman.core.service.impl;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.owiseman.core.domain.AuditEventType;
+import com.owiseman.core.domain.AuditLog;
+import com.owiseman.core.domain.AuditRollup;
+import com.owiseman.core.jooq.repository.AuditLogRepository;
+import com.owiseman.core.service.AuditService;
+
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Implementation of AuditService over the audit log repository.
+ * Rollup ranges are limited to {@value #MAX_BUCKETS} buckets so that every
+ * query reads a bounded number of rows. Exports write each entry as the
+ * repository streams it through a buffered writer.
+ */
+@Service
+public class AuditServiceImpl implements AuditService {
+
+    static final int MAX_BUCKETS = 10_080;
+    static final int MAX_LIMIT = 1000;
+    private static final String CSV_HEADER = "id,created_at,realm_id,event_type,subject_type,subject_id,ip_address,detail";
+
+    private final AuditLogRepository auditLogRepository;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public AuditServiceImpl(AuditLogRepository auditLogRepository, ObjectMapper objectMapper) {
+        this.auditLogRepository = auditLogRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public long export(UUID realmId, LocalDateTime from, LocalDateTime to, ExportFormat format, OutputStream out) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        long[] count = {0};
+        try {
+            if (format == ExportFormat.CSV) {
+                writer.write(CSV_HEADER);
+                writer.write("\r\n");
+            }
+            auditLogRepository.exportByRealm(realmId, from, to, entry -> {
+                try {
+                    if (format == ExportFormat.CSV) {
+                        writeCsv(writer, entry);
+                    } else {
+                        writer.write(objectMapper.writeValueAsString(entry));
+                        writer.write('\n');
+                    }
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+                count[0]++;
+            });
+            writer.flush();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return count[0];
+    }
+
+    @Override
+    public List<AuditRollup> findRollups(UUID realmId, AuditRollup.Granularity granularity, AuditEventType eventType,
+                                         LocalDateTime from, LocalDateTime to) {
+        checkRange(granularity, from, to);
+        return auditLogRepository.findRollups(granularity, realmId, eventType, from, to);
+    }
+
+    @Override
+    public List<AuditRollup> findAddressRollups(UUID realmId, AuditRollup.Granularity granularity,
+                                                AuditEventType eventType, LocalDateTime from, LocalDateTime to,
+                                                int limit) {
+        checkRange(granularity, from, to);
+        if (!AuditRollup.PER_ADDRESS.contains(eventType)) {
+            throw new IllegalArgumentException("Event type " + eventType + " is not counted per address");
+        }
+        return auditLogRepository.findAddressRollups(granularity, realmId, eventType, from, to,
+            Math.min(limit, MAX_LIMIT));
+    }
+
+    private void writeCsv(Writer writer, AuditLog entry) throws IOException {
+        Map<String, Object> detail = entry.getDetail();
+        Object[] cells = {entry.getId(), entry.getCreatedAt(), entry.getRealmId(), entry.getEventType(),
+            entry.getSubjectType(), entry.getSubjectId(), entry.getIpAddress(),
+            detail != null && !detail.isEmpty() ? objectMapper.writeValueAsString(detail) : null};
+        for (int i = 0; i < cells.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (cells[i] != null) {
+                writer.write(csvCell(cells[i].toString()));
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    /**
+     * Quote a cell if it contains a separator, quote or line break, doubling embedded quotes.
+     */
+    private static String csvCell(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static void checkRange(AuditRollup.Granularity granularity, LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("Time range is empty: " + from + " to " + to);
+        }
+        if (granularity.unit().between(from, to) > MAX_BUCKETS) {
+            throw new IllegalArgumentException("Time range spans more than " + MAX_BUCKETS + " "
+                + granularity.name().toLowerCase() + " buckets");
+        }
+    }
+}
@@ -1,16 +1,24 @@
 package com.owiseman.core.service.impl;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import com.owiseman.core.audit.AuditTrail;
+import com.owiseman.core.domain.AuditEventType;
+import com.owiseman.core.domain.TokenClaims;
 import com.owiseman.core.domain.User;
+import com.owiseman.core.exception.TooManyAttemptsException;
 import com.owiseman.core.jooq.repository.UserRepository;
+import com.owiseman.core.security.EffectivePermissionStore;
+import com.owiseman.core.security.PasswordHasher;
 import com.owiseman.core.security.JwtTokenProvider;
+import com.owiseman.core.security.LoginThrottle;
 import com.owiseman.core.service.AuthService;
 import com.owiseman.core.web.dto.AuthResponse;
 import com.owiseman.core.web.dto.LoginRequest;
@@ -25,44 +33,80 @@ public class AuthServiceImpl implements AuthService {
 
     private final UserRepository userRepository;
     private final JwtTokenProvider jwtTokenProvider;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
+    private final EffectivePermissionStore permissionStore;
+    private final AuditTrail auditTrail;
+    private final LoginThrottle loginThrottle;
 
     @Value("${jwt.expiration}")
     private long jwtExpiration;
 
     @Autowired
-    public AuthServiceImpl(UserRepository userRepository, JwtTokenProvider jwtTokenProvider, PasswordEncoder passwordEncoder) {
+    public AuthServiceImpl(UserRepository userRepository, JwtTokenProvider jwtTokenProvider, PasswordHasher passwordHasher,
+                           EffectivePermissionStore permissionStore, AuditTrail auditTrail, LoginThrottle loginThrottle) {
         this.userRepository = userRepository;
         this.jwtTokenProvider = jwtTokenProvider;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHasher = passwordHasher;
+        this.permissionStore = permissionStore;
+        this.auditTrail = auditTrail;
+        this.loginThrottle = loginThrottle;
     }
 
     @Override
     public AuthResponse login(LoginRequest loginRequest) {
+        return login(loginRequest, null);
+    }
+
+    @Override
+    public AuthResponse login(LoginRequest loginRequest, String clientAddress) {
+        // Reject usernames and addresses with too many recent failures before any lookup or hashing
+        UUID realmId = loginRequest.getRealmId();
+        try {
+            loginThrottle.check(realmId, loginRequest.getUsername(), clientAddress);
+        } catch (TooManyAttemptsException ex) {
+            auditTrail.record(AuditEventType.USER_LOGIN_FAILED, realmId, null, clientAddress,
+                Map.of("username", loginRequest.getUsername(), "reason", "throttled"));
+            throw ex;
+        }
+        
         // Find user by username
-        Optional<User> userOpt = userRepository.findByUsername(null, loginRequest.getUsername());
+        Optional<User> userOpt = userRepository.findByUsername(realmId, loginRequest.getUsername());
         
         if (userOpt.isEmpty()) {
+            auditTrail.record(AuditEventType.USER_LOGIN_FAILED, realmId, null, clientAddress,
+                Map.of("username", loginRequest.getUsername(), "reason", "unknown user"));
+            loginThrottle.recordFailure(realmId, loginRequest.getUsername(), clientAddress);
             throw new RuntimeException("Invalid username or password");
         }
         
         User user = userOpt.get();
         
-        // Verify password using BCrypt
-        if (!passwordEncoder.matches(loginRequest.getPassword(), user.getPasswordHash())) {
+        // Verify password on the bounded hashing executor
+        if (!passwordHasher.matches(loginRequest.getPassword(), user.getPasswordHash())) {
+            auditTrail.record(AuditEventType.USER_LOGIN_FAILED, user.getRealmId(), user.getId(), clientAddress,
+                Map.of("reason", "bad credentials"));
+            loginThrottle.recordFailure(realmId, loginRequest.getUsername(), clientAddress);
             throw new RuntimeException("Invalid username or password");
         }
         
         // Check if user is enabled
         if (user.getEnabled() == null || !user.getEnabled()) {
+            auditTrail.record(AuditEventType.USER_LOGIN_FAILED, user.getRealmId(), user.getId(), clientAddress,
+                Map.of("reason", "disabled"));
             throw new RuntimeException("User account is disabled");
         }
         
-        // Generate JWT token
-        String token = jwtTokenProvider.generateToken(user.getUsername());
+        // Re-hash in the background if the stored hash is weaker than the current settings
+        String storedHash = user.getPasswordHash();
+        passwordHasher.upgradeLater(loginRequest.getPassword(), storedHash,
+            upgradedHash -> userRepository.updatePasswordHash(user.getId(), storedHash, upgradedHash));
         
-        // Get user roles
-        List<String> roles = userRepository.findUserRoles(user.getId());
+        // Get user roles, including those inherited through composite roles
+        List<String> roles = permissionStore.findEffectiveRoles(user.getId());
+        
+        // Generate JWT token
+        String token = issueToken(user, roles);
+        auditTrail.record(AuditEventType.USER_LOGIN, user.getRealmId(), user.getId(), clientAddress, null);
         
         return new AuthResponse(
             token,
@@ -92,16 +136,18 @@ public class AuthServiceImpl implements AuthService {
         User user = new User();
         user.setUsername(registerRequest.getUsername());
         user.setEmail(registerRequest.getEmail());
-        user.setPasswordHash(passwordEncoder.encode(registerRequest.getPassword())); // Encode password
+        user.setPasswordHash(passwordHasher.encode(registerRequest.getPassword())); // Encode password
         user.setFirstName(registerRequest.getFirstName());
         user.setLastName(registerRequest.getLastName());
         user.setRealmId(registerRequest.getRealmId());
         user.setEnabled(true);
         
         User createdUser = userRepository.create(user);
+        auditTrail.record(AuditEventType.USER_CREATED, createdUser.getRealmId(), createdUser.getId(),
+            Map.of("source", "registration"));
         
         // Generate JWT token
-        String token = jwtTokenProvider.generateToken(createdUser.getUsername());
+        String token = issueToken(createdUser, List.of());
         
         return new AuthResponse(
             token,
@@ -123,11 +169,11 @@ public class AuthServiceImpl implements AuthService {
         
         User user = userOpt.get();
         
-        // Generate new JWT token
-        String token = jwtTokenProvider.generateToken(user.getUsername());
+        // Get user roles, including those inherited through composite roles
+        List<String> roles = permissionStore.findEffectiveRoles(user.getId());
         
-        // Get user roles
-        List<String> roles = userRepository.findUserRoles(user.getId());
+        // Generate new JWT token
+        String token = issueToken(user, roles);
         
         return new AuthResponse(
             token,
@@ -138,4 +184,20 @@ public class AuthServiceImpl implements AuthService {
             roles
         );
     }
+
+    /**
+     * Issue an access token for a user.
+     * Identity, realm, roles and the authorities version are embedded when
+     * self-contained tokens are enabled. The version is the one read with the
+     * user, so the token is stale if the user changed after the checks made on it.
+     */
+    private String issueToken(User user, List<String> roles) {
+        TokenClaims claims = new TokenClaims();
+        claims.setUserId(user.getId());
+        claims.setRealmId(user.getRealmId());
+        claims.setUsername(user.getUsername());
+        claims.setRoles(roles);
+        claims.setAuthoritiesVersion(user.getAuthoritiesVersion());
+        return jwtTokenProvider.generateToken(claims);
+    }
 }
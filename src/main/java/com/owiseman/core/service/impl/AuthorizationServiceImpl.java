@@ -0,0 +1,54 @@
+package com.owiseman.core.service.impl;
+
+import java.time.Clock;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.owiseman.core.policy.PolicyContext;
+import com.owiseman.core.security.AuthorizationDecisionCache;
+import com.owiseman.core.security.UserAttributeCache;
+import com.owiseman.core.service.AuthorizationService;
+
+/**
+ * Implementation of AuthorizationService backed by the decision cache.
+ * <p>
+ * Policies see the user's stored attributes under {@code user.*}, which take
+ * precedence over request attributes of the same path.
+ */
+@Service
+public class AuthorizationServiceImpl implements AuthorizationService {
+
+    private final AuthorizationDecisionCache decisionCache;
+    private final UserAttributeCache attributeCache;
+    private final Clock clock = Clock.systemDefaultZone();
+
+    @Autowired
+    public AuthorizationServiceImpl(AuthorizationDecisionCache decisionCache, UserAttributeCache attributeCache) {
+        this.decisionCache = decisionCache;
+        this.attributeCache = attributeCache;
+    }
+
+    @Override
+    public boolean[] decide(UUID userId, List<String> permissions, Map<String, Object> attributes) {
+        Map<String, Object> requestAttributes = attributes != null ? attributes : Map.of();
+        Map<String, Object> userAttributes = attributeCache.get(userId);
+        PolicyContext request = PolicyContext.of(requestAttributes, clock);
+        PolicyContext context = path -> {
+            Object value = userAttributes.get(path);
+            return value != null ? value : request.attribute(path);
+        };
+        ContextKey contextKey = new ContextKey(requestAttributes, userAttributes);
+        boolean[] decisions = new boolean[permissions.size()];
+        for (int i = 0; i < decisions.length; i++) {
+            decisions[i] = decisionCache.isPermitted(userId, permissions.get(i), context, contextKey);
+        }
+        return decisions;
+    }
+
+    private record ContextKey(Map<String, Object> requestAttributes, Map<String, Object> userAttributes) {
+    }
+}
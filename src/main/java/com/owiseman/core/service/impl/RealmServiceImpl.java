@@ -2,6 +2,7 @@ package com.owiseman.core.service.impl;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -9,6 +10,9 @@ import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.owiseman.core.audit.AuditTrail;
+import com.owiseman.core.domain.AuditEventType;
+import com.owiseman.core.domain.PageCursor;
 import com.owiseman.core.domain.Realm;
 import com.owiseman.core.exception.ResourceNotFoundException;
 import com.owiseman.core.jooq.repository.RealmRepository;
@@ -22,10 +26,12 @@ import com.owiseman.core.web.dto.RealmDTO;
 public class RealmServiceImpl implements RealmService {
 
     private final RealmRepository realmRepository;
+    private final AuditTrail auditTrail;
 
     @Autowired
-    public RealmServiceImpl(RealmRepository realmRepository) {
+    public RealmServiceImpl(RealmRepository realmRepository, AuditTrail auditTrail) {
         this.realmRepository = realmRepository;
+        this.auditTrail = auditTrail;
     }
 
     @Override
@@ -35,6 +41,7 @@ public class RealmServiceImpl implements RealmService {
         realm.setEnabled(realmDTO.getEnabled() != null ? realmDTO.getEnabled() : true);
         
         Realm created = realmRepository.create(realm);
+        auditTrail.record(AuditEventType.REALM_CREATED, created.getId(), null, Map.of("name", created.getName()));
         return mapToDTO(created);
     }
 
@@ -56,6 +63,14 @@ public class RealmServiceImpl implements RealmService {
             .collect(Collectors.toList());
     }
 
+    @Override
+    public List<RealmDTO> findAll(PageCursor after, int size) {
+        return realmRepository.findAll(after, size)
+            .stream()
+            .map(this::mapToDTO)
+            .collect(Collectors.toList());
+    }
+
     @Override
     public RealmDTO update(RealmDTO realmDTO) {
         Realm existingRealm = realmRepository.findById(realmDTO.getId())
@@ -65,24 +80,28 @@ public class RealmServiceImpl implements RealmService {
         existingRealm.setEnabled(realmDTO.getEnabled());
         
         Realm updated = realmRepository.update(existingRealm);
+        auditTrail.record(AuditEventType.REALM_UPDATED, updated.getId(), null, null);
         return mapToDTO(updated);
     }
 
     @Override
     public RealmDTO enable(RealmDTO realmDTO) {
         Realm realm = realmRepository.enable(realmDTO.getId());
+        auditTrail.record(AuditEventType.REALM_ENABLED, realm.getId(), null, null);
         return mapToDTO(realm);
     }
 
     @Override
     public RealmDTO disable(RealmDTO realmDTO) {
         Realm realm = realmRepository.disable(realmDTO.getId());
+        auditTrail.record(AuditEventType.REALM_DISABLED, realm.getId(), null, null);
         return mapToDTO(realm);
     }
 
     @Override
     public void delete(UUID id) {
         realmRepository.delete(id);
+        auditTrail.record(AuditEventType.REALM_DELETED, id, null, null);
     }
 
     @Override
@@ -2,18 +2,25 @@ package com.owiseman.core.service.impl;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import com.owiseman.core.audit.AuditTrail;
+import com.owiseman.core.domain.AuditEventType;
+import com.owiseman.core.domain.PageCursor;
 import com.owiseman.core.domain.User;
+import com.owiseman.core.event.UserChangedEvent;
 import com.owiseman.core.exception.ResourceNotFoundException;
 import com.owiseman.core.jooq.repository.UserRepository;
+import com.owiseman.core.security.EffectivePermissionStore;
+import com.owiseman.core.security.PasswordHasher;
 import com.owiseman.core.service.UserService;
 import com.owiseman.core.web.dto.UserDTO;
 
@@ -24,12 +31,20 @@ import com.owiseman.core.web.dto.UserDTO;
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EffectivePermissionStore permissionStore;
+    private final AuditTrail auditTrail;
 
     @Autowired
-    public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserServiceImpl(UserRepository userRepository, PasswordHasher passwordHasher,
+                           ApplicationEventPublisher eventPublisher, EffectivePermissionStore permissionStore,
+                           AuditTrail auditTrail) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHasher = passwordHasher;
+        this.eventPublisher = eventPublisher;
+        this.permissionStore = permissionStore;
+        this.auditTrail = auditTrail;
     }
 
     @Override
@@ -38,12 +53,13 @@ public class UserServiceImpl implements UserService {
         user.setRealmId(userDTO.getRealmId());
         user.setUsername(userDTO.getUsername());
         user.setEmail(userDTO.getEmail());
-        user.setPasswordHash(passwordEncoder.encode(userDTO.getPassword()));
+        user.setPasswordHash(passwordHasher.encode(userDTO.getPassword()));
         user.setFirstName(userDTO.getFirstName());
         user.setLastName(userDTO.getLastName());
         user.setEnabled(userDTO.getEnabled() != null ? userDTO.getEnabled() : true);
         
         User created = userRepository.create(user);
+        auditTrail.record(AuditEventType.USER_CREATED, created.getRealmId(), created.getId(), null);
         return mapToDTO(created);
     }
 
@@ -70,6 +86,14 @@ public class UserServiceImpl implements UserService {
             .collect(Collectors.toList());
     }
 
+    @Override
+    public List<UserDTO> findByRealm(UUID realmId, PageCursor after, int size) {
+        return userRepository.findAll(realmId, after, size)
+            .stream()
+            .map(this::mapToDTO)
+            .collect(Collectors.toList());
+    }
+
     @Override
     public List<UserDTO> findAll(int page, int size) {
         return userRepository.findAll(null, page * size, size)
@@ -78,6 +102,13 @@ public class UserServiceImpl implements UserService {
             .collect(Collectors.toList());
     }
 
+    @Override
+    public List<UserDTO> findByAttribute(UUID realmId, String name, String value, PageCursor after, int size) {
+        return userRepository.findByAttribute(realmId, name, value, after, size).stream()
+            .map(this::mapToDTO)
+            .collect(Collectors.toList());
+    }
+
     @Override
     public UserDTO update(UserDTO userDTO) {
         User existingUser = userRepository.findById(userDTO.getId())
@@ -90,6 +121,8 @@ public class UserServiceImpl implements UserService {
         existingUser.setEnabled(userDTO.getEnabled());
         
         User updated = userRepository.update(existingUser);
+        eventPublisher.publishEvent(new UserChangedEvent(updated.getId(), UserChangedEvent.Type.UPDATED));
+        auditTrail.record(AuditEventType.USER_UPDATED, updated.getRealmId(), updated.getId(), null);
         return mapToDTO(updated);
     }
 
@@ -99,6 +132,8 @@ public class UserServiceImpl implements UserService {
             .orElseThrow(() -> new ResourceNotFoundException("User", userDTO.getId().toString()));
         user.setEnabled(true);
         User updated = userRepository.update(user);
+        eventPublisher.publishEvent(new UserChangedEvent(updated.getId(), UserChangedEvent.Type.ENABLED));
+        auditTrail.record(AuditEventType.USER_UPDATED, updated.getRealmId(), updated.getId(), Map.of("enabled", true));
         return mapToDTO(updated);
     }
 
@@ -108,22 +143,43 @@ public class UserServiceImpl implements UserService {
             .orElseThrow(() -> new ResourceNotFoundException("User", userDTO.getId().toString()));
         user.setEnabled(false);
         User updated = userRepository.update(user);
+        eventPublisher.publishEvent(new UserChangedEvent(updated.getId(), UserChangedEvent.Type.DISABLED));
+        auditTrail.record(AuditEventType.USER_UPDATED, updated.getRealmId(), updated.getId(), Map.of("enabled", false));
         return mapToDTO(updated);
     }
 
     @Override
     public void delete(UUID id) {
+        UUID realmId = realmOf(id);
         userRepository.delete(id);
+        eventPublisher.publishEvent(new UserChangedEvent(id, UserChangedEvent.Type.DELETED));
+        auditTrail.record(AuditEventType.USER_DELETED, realmId, id, null);
+    }
+
+    @Override
+    public Map<String, Object> findAttributes(UUID userId) {
+        return userRepository.findAttributes(userId);
+    }
+
+    @Override
+    public void updateAttributes(UUID userId, Map<String, Object> attributes) {
+        userRepository.updateAttributes(userId, attributes);
+        eventPublisher.publishEvent(new UserChangedEvent(userId, UserChangedEvent.Type.ATTRIBUTES_UPDATED));
+        auditTrail.record(AuditEventType.USER_UPDATED, realmOf(userId), userId, Map.of("attributes", List.copyOf(attributes.keySet())));
     }
 
     @Override
     public void assignRole(UUID userId, UUID roleId) {
         userRepository.assignRole(userId, roleId);
+        eventPublisher.publishEvent(new UserChangedEvent(userId, UserChangedEvent.Type.ROLE_ASSIGNED, roleId));
+        auditTrail.record(AuditEventType.USER_ROLE_ASSIGNED, realmOf(userId), userId, Map.of("roleId", roleId.toString()));
     }
 
     @Override
     public void removeRole(UUID userId, UUID roleId) {
         userRepository.removeRole(userId, roleId);
+        eventPublisher.publishEvent(new UserChangedEvent(userId, UserChangedEvent.Type.ROLE_REMOVED, roleId));
+        auditTrail.record(AuditEventType.USER_ROLE_REMOVED, realmOf(userId), userId, Map.of("roleId", roleId.toString()));
     }
 
     @Override
@@ -133,12 +189,17 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public List<String> findPermissions(UUID userId) {
-        return userRepository.findPermissions(userId);
+        return permissionStore.findPermissions(userId);
     }
 
     @Override
     public boolean hasPermission(UUID userId, String permission) {
-        return findPermissions(userId).contains(permission);
+        return permissionStore.hasPermission(userId, permission);
+    }
+
+    @Override
+    public boolean[] hasPermissions(UUID userId, List<String> permissions) {
+        return permissionStore.hasPermissions(userId, permissions);
     }
 
     @Override
@@ -153,6 +214,10 @@ public class UserServiceImpl implements UserService {
         return userRepository.countByRealm(realmId);
     }
 
+    private UUID realmOf(UUID userId) {
+        return userRepository.findById(userId).map(User::getRealmId).orElse(null);
+    }
+
     /**
      * Map domain entity to DTO.
      */
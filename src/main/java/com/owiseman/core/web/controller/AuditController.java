@@ -0,0 +1,103 @@
+package com.owiseman.core.web.controller;
+
+import com.owiseman.core.domain.AuditEventType;
+import com.owiseman.core.domain.AuditRollup;
+import com.owiseman.core.service.AuditService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * REST Controller for audit analytics and exports.
+ * <p>
+ * Time ranges are given as ISO local date-times. For rollups {@code to}
+ * defaults to now and {@code from} to 60 buckets before {@code to}; exports
+ * are unbounded on either side by default. Only holders of {@code ROLE_ADMIN}
+ * in the requested realm may call these endpoints (see SecurityConfig).
+ */
+@RestController
+@RequestMapping("/api/audit")
+public class AuditController {
+
+    private static final int DEFAULT_BUCKETS = 60;
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv;charset=UTF-8");
+    private static final MediaType GZIP = MediaType.parseMediaType("application/gzip");
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    private final AuditService auditService;
+
+    public AuditController(AuditService auditService) {
+        this.auditService = auditService;
+    }
+
+    /**
+     * Count a realm's events per bucket, e.g. logins per minute.
+     * GET /api/audit/realm/{realmId}/rollups?granularity=&eventType=&from=&to=
+     */
+    @GetMapping("/realm/{realmId}/rollups")
+    public ResponseEntity<List<AuditRollup>> getRollups(
+            @PathVariable UUID realmId,
+            @RequestParam(defaultValue = "MINUTE") AuditRollup.Granularity granularity,
+            @RequestParam(required = false) AuditEventType eventType,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minus(DEFAULT_BUCKETS, granularity.unit());
+        return ResponseEntity.ok(auditService.findRollups(realmId, granularity, eventType, start, end));
+    }
+
+    /**
+     * Find a realm's busiest client addresses per bucket, e.g. failed-login spikes.
+     * GET /api/audit/realm/{realmId}/rollups/addresses?granularity=&eventType=&from=&to=&limit=
+     */
+    @GetMapping("/realm/{realmId}/rollups/addresses")
+    public ResponseEntity<List<AuditRollup>> getAddressRollups(
+            @PathVariable UUID realmId,
+            @RequestParam(defaultValue = "MINUTE") AuditRollup.Granularity granularity,
+            @RequestParam(defaultValue = "USER_LOGIN_FAILED") AuditEventType eventType,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "20") int limit) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minus(DEFAULT_BUCKETS, granularity.unit());
+        return ResponseEntity.ok(auditService.findAddressRollups(realmId, granularity, eventType, start, end, limit));
+    }
+
+    /**
+     * Export a realm's audit log, streamed row by row, optionally gzipped.
+     * GET /api/audit/realm/{realmId}/export?format=NDJSON|CSV&from=&to=&gzip=
+     */
+    @GetMapping("/realm/{realmId}/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @PathVariable UUID realmId,
+            @RequestParam(defaultValue = "NDJSON") AuditService.ExportFormat format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        String filename = "audit-" + realmId + (format == AuditService.ExportFormat.CSV ? ".csv" : ".ndjson")
+            + (gzip ? ".gz" : "");
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                try (GZIPOutputStream compressed = new GZIPOutputStream(out, GZIP_BUFFER_SIZE)) {
+                    auditService.export(realmId, from, to, format, compressed);
+                }
+            } else {
+                auditService.export(realmId, from, to, format, out);
+            }
+        };
+        return ResponseEntity.ok()
+            .contentType(gzip ? GZIP : format == AuditService.ExportFormat.CSV ? CSV : NDJSON)
+            .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+            .body(body);
+    }
+}
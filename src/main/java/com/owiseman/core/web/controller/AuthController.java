@@ -1,9 +1,12 @@
 package com.owiseman.core.web.controller;
 
+import com.owiseman.core.exception.ServiceOverloadedException;
+import com.owiseman.core.exception.TooManyAttemptsException;
 import com.owiseman.core.service.AuthService;
 import com.owiseman.core.web.dto.AuthResponse;
 import com.owiseman.core.web.dto.LoginRequest;
 import com.owiseman.core.web.dto.RegisterRequest;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -27,12 +30,19 @@ public class AuthController {
     /**
      * Authenticate user and return JWT token.
      * POST /api/auth/login
+     * <p>
+     * The remote address is the client's, not a reverse proxy's: with
+     * {@code server.forward-headers-strategy=native} Tomcat takes it from
+     * {@code X-Forwarded-For} when the request comes from a trusted proxy.
      */
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest loginRequest) {
+    public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest loginRequest,
+                                              HttpServletRequest request) {
         try {
-            AuthResponse response = authService.login(loginRequest);
+            AuthResponse response = authService.login(loginRequest, request.getRemoteAddr());
             return ResponseEntity.ok(response);
+        } catch (ServiceOverloadedException | TooManyAttemptsException e) {
+            throw e;
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
@@ -47,6 +57,8 @@ public class AuthController {
         try {
             AuthResponse response = authService.register(registerRequest);
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        } catch (ServiceOverloadedException e) {
+            throw e;
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
@@ -0,0 +1,33 @@
+package com.owiseman.core.web.controller;
+
+import com.owiseman.core.service.AuthorizationService;
+import com.owiseman.core.web.dto.AuthzDecisionRequest;
+import com.owiseman.core.web.dto.AuthzDecisionResponse;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST Controller for authorization decisions.
+ */
+@RestController
+@RequestMapping("/api/authz")
+public class AuthzController {
+
+    private final AuthorizationService authorizationService;
+
+    public AuthzController(AuthorizationService authorizationService) {
+        this.authorizationService = authorizationService;
+    }
+
+    /**
+     * Check a batch of permissions for one user.
+     * POST /api/authz/decisions
+     */
+    @PostMapping("/decisions")
+    public ResponseEntity<AuthzDecisionResponse> decide(@Valid @RequestBody AuthzDecisionRequest request) {
+        boolean[] decisions = authorizationService.decide(
+            request.getUserId(), request.getPermissions(), request.getAttributes());
+        return ResponseEntity.ok(new AuthzDecisionResponse(request.getUserId(), decisions));
+    }
+}
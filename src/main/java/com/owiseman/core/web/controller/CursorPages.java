@@ -0,0 +1,41 @@
+package com.owiseman.core.web.controller;
+
+import com.owiseman.core.domain.PageCursor;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Response helpers for cursor-paginated listings.
+ * <p>
+ * Listing endpoints switch from offset to keyset pagination when a
+ * {@code cursor} parameter is present; an empty value requests the first page.
+ * The body stays a plain JSON array. While more rows may follow, the cursor of
+ * the next page is returned in the {@value #NEXT_CURSOR_HEADER} header.
+ */
+final class CursorPages {
+
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private CursorPages() {
+    }
+
+    /**
+     * Decode the {@code cursor} request parameter.
+     *
+     * @return the seek position, or {@code null} for the first page
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    static PageCursor decode(String cursor) {
+        return cursor.isEmpty() ? null : PageCursor.decode(cursor);
+    }
+
+    static <T> ResponseEntity<List<T>> respond(List<T> items, int size, Function<T, PageCursor> position) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (size > 0 && items.size() == size) {
+            response.header(NEXT_CURSOR_HEADER, position.apply(items.get(items.size() - 1)).encode());
+        }
+        return response.body(items);
+    }
+}
@@ -0,0 +1,48 @@
+package com.owiseman.core.web.controller;
+
+import com.owiseman.core.security.SigningKeyManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Duration;
+
+/**
+ * REST Controller publishing the token verification keys as a JSON Web Key Set.
+ * <p>
+ * The key set is rendered once per rotation by {@link SigningKeyManager}; the
+ * response is cacheable and carries an ETag so clients can revalidate cheaply.
+ * The next key is published before it becomes active, so a client caching the
+ * set for up to {@code jwt.jwks-max-age} never sees an unknown {@code kid} as
+ * long as that is shorter than {@code jwt.rotation-interval}.
+ */
+@RestController
+public class JwksController {
+
+    private final SigningKeyManager signingKeyManager;
+    private final CacheControl cacheControl;
+
+    public JwksController(SigningKeyManager signingKeyManager,
+                         @Value("${jwt.jwks-max-age:PT1H}") Duration maxAge) {
+        this.signingKeyManager = signingKeyManager;
+        this.cacheControl = CacheControl.maxAge(maxAge).cachePublic();
+    }
+
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<String> jwks(WebRequest request) {
+        String jwks = signingKeyManager.getJwksJson();
+        String etag = "\"" + Integer.toHexString(jwks.hashCode()) + "\"";
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .cacheControl(cacheControl)
+            .eTag(etag)
+            .body(jwks);
+    }
+}
@@ -1,5 +1,6 @@
 package com.owiseman.core.web.controller;
 
+import com.owiseman.core.domain.PageCursor;
 import com.owiseman.core.service.RealmService;
 import com.owiseman.core.web.dto.RealmDTO;
 import com.owiseman.core.web.exception.ResourceNotFoundException;
@@ -58,12 +59,17 @@ public class RealmController {
 
     /**
      * Get all realms.
-     * GET /api/realms
+     * GET /api/realms?page=&size= or ?cursor=&size=
      */
     @GetMapping
     public ResponseEntity<List<RealmDTO>> getAllRealms(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String cursor) {
+        if (cursor != null) {
+            return CursorPages.respond(realmService.findAll(CursorPages.decode(cursor), size), size,
+                realm -> new PageCursor(realm.getCreatedAt(), realm.getId()));
+        }
         List<RealmDTO> realms = realmService.findAll(page, size);
         return ResponseEntity.ok(realms);
     }
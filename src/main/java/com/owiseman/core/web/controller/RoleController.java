@@ -1,17 +1,22 @@
 package com.owiseman.core.web.controller;
 
+import com.owiseman.core.domain.PageCursor;
 import com.owiseman.core.domain.Role;
+import com.owiseman.core.event.RoleChangedEvent;
 import com.owiseman.core.exception.ResourceNotFoundException;
 import com.owiseman.core.jooq.repository.RoleRepository;
+import com.owiseman.core.security.RoleHierarchy;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -23,9 +28,14 @@ import java.util.stream.Collectors;
 public class RoleController {
 
     private final RoleRepository roleRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RoleHierarchy roleHierarchy;
 
-    public RoleController(RoleRepository roleRepository) {
+    public RoleController(RoleRepository roleRepository, ApplicationEventPublisher eventPublisher,
+                          RoleHierarchy roleHierarchy) {
         this.roleRepository = roleRepository;
+        this.eventPublisher = eventPublisher;
+        this.roleHierarchy = roleHierarchy;
     }
 
     /**
@@ -69,13 +79,17 @@ public class RoleController {
 
     /**
      * Get all roles in a realm.
-     * GET /api/roles/realm/{realmId}
+     * GET /api/roles/realm/{realmId}?page=&size= or ?cursor=&size=
      */
     @GetMapping("/realm/{realmId}")
     public ResponseEntity<List<RoleDTO>> getRolesByRealm(
             @PathVariable UUID realmId,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String cursor) {
+        if (cursor != null) {
+            return rolePage(realmId, cursor, size);
+        }
         List<RoleDTO> roles = roleRepository.findAll(realmId, page * size, size)
             .stream()
             .map(this::mapToDTO)
@@ -85,12 +99,16 @@ public class RoleController {
 
     /**
      * Get all roles.
-     * GET /api/roles
+     * GET /api/roles?page=&size= or ?cursor=&size=
      */
     @GetMapping
     public ResponseEntity<List<RoleDTO>> getAllRoles(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String cursor) {
+        if (cursor != null) {
+            return rolePage(null, cursor, size);
+        }
         List<RoleDTO> roles = roleRepository.findAll(null, page * size, size)
             .stream()
             .map(this::mapToDTO)
@@ -113,6 +131,7 @@ public class RoleController {
         existingRole.setDescription(roleDTO.getDescription());
         
         Role updated = roleRepository.update(existingRole);
+        eventPublisher.publishEvent(new RoleChangedEvent(id, RoleChangedEvent.Type.UPDATED));
         return ResponseEntity.ok(mapToDTO(updated));
     }
 
@@ -125,6 +144,7 @@ public class RoleController {
         roleRepository.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException("Role", id.toString()));
         roleRepository.delete(id);
+        eventPublisher.publishEvent(new RoleChangedEvent(id, RoleChangedEvent.Type.DELETED));
         return ResponseEntity.noContent().build();
     }
 
@@ -147,6 +167,8 @@ public class RoleController {
             @PathVariable UUID roleId, 
             @PathVariable UUID permissionId) {
         roleRepository.assignPermission(roleId, permissionId);
+        eventPublisher.publishEvent(new RoleChangedEvent(roleId,
+            RoleChangedEvent.Type.PERMISSION_ASSIGNED, permissionId));
         return ResponseEntity.ok().build();
     }
 
@@ -159,6 +181,55 @@ public class RoleController {
             @PathVariable UUID roleId, 
             @PathVariable UUID permissionId) {
         roleRepository.removePermission(roleId, permissionId);
+        eventPublisher.publishEvent(new RoleChangedEvent(roleId,
+            RoleChangedEvent.Type.PERMISSION_REMOVED, permissionId));
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Get the roles directly included in a composite role.
+     * GET /api/roles/{id}/children
+     */
+    @GetMapping("/{id}/children")
+    public ResponseEntity<List<String>> getChildRoles(@PathVariable UUID id) {
+        return ResponseEntity.ok(roleRepository.findChildRoles(id));
+    }
+
+    /**
+     * Include a role in a composite role; the parent inherits the child's permissions.
+     * POST /api/roles/{roleId}/children/{childRoleId}
+     */
+    @PostMapping("/{roleId}/children/{childRoleId}")
+    public ResponseEntity<Void> addChildRole(
+            @PathVariable UUID roleId,
+            @PathVariable UUID childRoleId) {
+        Role role = roleRepository.findById(roleId)
+            .orElseThrow(() -> new ResourceNotFoundException("Role", roleId.toString()));
+        Role child = roleRepository.findById(childRoleId)
+            .orElseThrow(() -> new ResourceNotFoundException("Role", childRoleId.toString()));
+        if (!Objects.equals(role.getRealmId(), child.getRealmId())) {
+            throw new IllegalArgumentException("Composite roles must belong to the same realm");
+        }
+        if (roleHierarchy.wouldCycle(roleId, childRoleId)) {
+            throw new IllegalArgumentException("Role " + childRoleId + " already includes role " + roleId);
+        }
+        roleRepository.addChildRole(roleId, childRoleId);
+        eventPublisher.publishEvent(new RoleChangedEvent(roleId,
+            RoleChangedEvent.Type.CHILD_ADDED, null, childRoleId));
+        return ResponseEntity.ok().build();
+    }
+
+    /**
+     * Remove a role from a composite role.
+     * DELETE /api/roles/{roleId}/children/{childRoleId}
+     */
+    @DeleteMapping("/{roleId}/children/{childRoleId}")
+    public ResponseEntity<Void> removeChildRole(
+            @PathVariable UUID roleId,
+            @PathVariable UUID childRoleId) {
+        roleRepository.removeChildRole(roleId, childRoleId);
+        eventPublisher.publishEvent(new RoleChangedEvent(roleId,
+            RoleChangedEvent.Type.CHILD_REMOVED, null, childRoleId));
         return ResponseEntity.noContent().build();
     }
 
@@ -172,6 +243,14 @@ public class RoleController {
         return ResponseEntity.ok(count);
     }
 
+    private ResponseEntity<List<RoleDTO>> rolePage(UUID realmId, String cursor, int size) {
+        List<RoleDTO> roles = roleRepository.findAll(realmId, CursorPages.decode(cursor), size)
+            .stream()
+            .map(this::mapToDTO)
+            .collect(Collectors.toList());
+        return CursorPages.respond(roles, size, role -> new PageCursor(role.getCreatedAt(), role.getId()));
+    }
+
     /**
      * Map domain entity to DTO.
      */
@@ -1,5 +1,6 @@
 package com.owiseman.core.web.controller;
 
+import com.owiseman.core.domain.PageCursor;
 import com.owiseman.core.service.UserService;
 import com.owiseman.core.web.dto.UserDTO;
 import com.owiseman.core.web.exception.ResourceNotFoundException;
@@ -9,6 +10,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -69,25 +71,51 @@ public class UserController {
 
     /**
      * Get all users in a realm.
-     * GET /api/users/realm/{realmId}
+     * GET /api/users/realm/{realmId}?page=&size= or ?cursor=&size=
      */
     @GetMapping("/realm/{realmId}")
     public ResponseEntity<List<UserDTO>> getUsersByRealm(
             @PathVariable UUID realmId,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String cursor) {
+        if (cursor != null) {
+            return CursorPages.respond(userService.findByRealm(realmId, CursorPages.decode(cursor), size), size,
+                user -> new PageCursor(user.getCreatedAt(), user.getId()));
+        }
         List<UserDTO> users = userService.findByRealm(realmId, page, size);
         return ResponseEntity.ok(users);
     }
 
+    /**
+     * Get users in a realm by attribute value, oldest first.
+     * GET /api/users/realm/{realmId}/attributes/{name}/{value}?cursor=&size=
+     */
+    @GetMapping("/realm/{realmId}/attributes/{name}/{value}")
+    public ResponseEntity<List<UserDTO>> getUsersByAttribute(
+            @PathVariable UUID realmId,
+            @PathVariable String name,
+            @PathVariable String value,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String cursor) {
+        PageCursor after = cursor != null ? CursorPages.decode(cursor) : null;
+        return CursorPages.respond(userService.findByAttribute(realmId, name, value, after, size), size,
+            user -> new PageCursor(user.getCreatedAt(), user.getId()));
+    }
+
     /**
      * Get all users.
-     * GET /api/users
+     * GET /api/users?page=&size= or ?cursor=&size=
      */
     @GetMapping
     public ResponseEntity<List<UserDTO>> getAllUsers(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String cursor) {
+        if (cursor != null) {
+            return CursorPages.respond(userService.findByRealm(null, CursorPages.decode(cursor), size), size,
+                user -> new PageCursor(user.getCreatedAt(), user.getId()));
+        }
         List<UserDTO> users = userService.findAll(page, size);
         return ResponseEntity.ok(users);
     }
@@ -177,6 +205,27 @@ public class UserController {
         return ResponseEntity.ok(roles);
     }
 
+    /**
+     * Get user's attributes.
+     * GET /api/users/{userId}/attributes
+     */
+    @GetMapping("/{userId}/attributes")
+    public ResponseEntity<Map<String, Object>> getUserAttributes(@PathVariable UUID userId) {
+        return ResponseEntity.ok(userService.findAttributes(userId));
+    }
+
+    /**
+     * Replace user's attributes.
+     * PUT /api/users/{userId}/attributes
+     */
+    @PutMapping("/{userId}/attributes")
+    public ResponseEntity<Map<String, Object>> updateUserAttributes(
+            @PathVariable UUID userId,
+            @RequestBody Map<String, Object> attributes) {
+        userService.updateAttributes(userId, attributes);
+        return ResponseEntity.ok(userService.findAttributes(userId));
+    }
+
     /**
      * Get user's permissions.
      * GET /api/users/{userId}/permissions
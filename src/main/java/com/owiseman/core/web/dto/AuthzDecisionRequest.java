@@ -0,0 +1,62 @@
+package com.owiseman.core.web.dto;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+/**
+ * DTO for a batch authorization decision request.
+ */
+public class AuthzDecisionRequest {
+
+    @NotNull(message = "User ID is required")
+    private UUID userId;
+
+    @NotEmpty(message = "At least one permission is required")
+    @Size(max = 256, message = "At most 256 permissions can be checked at once")
+    private List<@NotBlank(message = "Permission must not be blank") String> permissions;
+
+    private Map<String, Object> attributes;
+
+    public AuthzDecisionRequest() {}
+
+    public AuthzDecisionRequest(UUID userId, List<String> permissions) {
+        this.userId = userId;
+        this.permissions = permissions;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public void setUserId(UUID userId) {
+        this.userId = userId;
+    }
+
+    /**
+     * Permission identifiers ("resource:action") to check.
+     */
+    public List<String> getPermissions() {
+        return permissions;
+    }
+
+    public void setPermissions(List<String> permissions) {
+        this.permissions = permissions;
+    }
+
+    /**
+     * Attributes for policy evaluation keyed by path (e.g., "user.department"); optional.
+     */
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+
+    public void setAttributes(Map<String, Object> attributes) {
+        this.attributes = attributes;
+    }
+}
@@ -0,0 +1,38 @@
+package com.owiseman.core.web.dto;
+
+import java.util.UUID;
+
+/**
+ * DTO for a batch authorization decision response.
+ */
+public class AuthzDecisionResponse {
+
+    private UUID userId;
+    private boolean[] decisions;
+
+    public AuthzDecisionResponse() {}
+
+    public AuthzDecisionResponse(UUID userId, boolean[] decisions) {
+        this.userId = userId;
+        this.decisions = decisions;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public void setUserId(UUID userId) {
+        this.userId = userId;
+    }
+
+    /**
+     * One decision per requested permission, in request order.
+     */
+    public boolean[] getDecisions() {
+        return decisions;
+    }
+
+    public void setDecisions(boolean[] decisions) {
+        this.decisions = decisions;
+    }
+}
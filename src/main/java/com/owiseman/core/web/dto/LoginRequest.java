@@ -1,6 +1,7 @@
 package com.owiseman.core.web.dto;
 
 import jakarta.validation.constraints.NotBlank;
+import java.util.UUID;
 
 /**
  * DTO for login request.
@@ -13,6 +14,9 @@ public class LoginRequest {
     @NotBlank(message = "Password is required")
     private String password;
 
+    /** The realm to log in to; without one the username is looked up in every realm. */
+    private UUID realmId;
+
     public LoginRequest() {}
 
     public LoginRequest(String username, String password) {
@@ -35,4 +39,12 @@ public class LoginRequest {
     public void setPassword(String password) {
         this.password = password;
     }
+
+    public UUID getRealmId() {
+        return realmId;
+    }
+
+    public void setRealmId(UUID realmId) {
+        this.realmId = realmId;
+    }
 }
@@ -0,0 +1,12 @@
+-- Composite indexes backing keyset (seek) pagination on (created_at, id)
+
+CREATE INDEX IF NOT EXISTS idx_ima_realm_created_id ON ima_realm(created_at, id);
+
+CREATE INDEX IF NOT EXISTS idx_ima_user_realm_created_id ON ima_user(realm_id, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_ima_user_created_id ON ima_user(created_at, id);
+
+CREATE INDEX IF NOT EXISTS idx_ima_role_realm_created_id ON ima_role(realm_id, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_ima_role_created_id ON ima_role(created_at, id);
+
+-- Permissions page by (resource, action, id); UNIQUE(realm_id, resource, action) covers the realm-scoped case
+CREATE INDEX IF NOT EXISTS idx_ima_permission_resource_action_id ON ima_permission(resource, action, id);
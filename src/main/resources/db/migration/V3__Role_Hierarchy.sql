@@ -0,0 +1,13 @@
+-- Composite roles: a parent role inherits every permission of its child roles, transitively
+
+CREATE TABLE IF NOT EXISTS ima_role_composite (
+    parent_role_id UUID NOT NULL REFERENCES ima_role(id) ON DELETE CASCADE,
+    child_role_id UUID NOT NULL REFERENCES ima_role(id) ON DELETE CASCADE,
+    PRIMARY KEY (parent_role_id, child_role_id),
+    CHECK (parent_role_id <> child_role_id)
+);
+
+-- Reverse lookups (which roles include this one) and the cascade on child deletion
+CREATE INDEX IF NOT EXISTS idx_ima_role_composite_child ON ima_role_composite(child_role_id);
+
+COMMENT ON TABLE ima_role_composite IS 'Role hierarchy edges; cycles are rejected by the application';
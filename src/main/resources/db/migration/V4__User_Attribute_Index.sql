@@ -0,0 +1,7 @@
+-- Attribute queries ("all users in region=EU") use JSONB containment: attributes @> '{"region":"EU"}'
+-- jsonb_path_ops indexes containment only, and is smaller and faster for it than the default operator class
+
+-- The jOOQ code generator cannot parse operator classes and does not need indexes
+-- [jooq ignore start]
+CREATE INDEX IF NOT EXISTS idx_ima_user_attributes ON ima_user USING GIN (attributes jsonb_path_ops);
+-- [jooq ignore stop]
@@ -0,0 +1,14 @@
+-- Audit rows are written asynchronously in batches and must outlive their subjects:
+-- a user or realm deleted before the batch is flushed must not fail the batch,
+-- and ON DELETE SET NULL would erase whom a historic event was about
+
+-- The jOOQ code generator does not need these and cannot resolve the generated constraint names
+-- [jooq ignore start]
+ALTER TABLE ima_audit_log DROP CONSTRAINT IF EXISTS ima_audit_log_realm_id_fkey;
+ALTER TABLE ima_audit_log DROP CONSTRAINT IF EXISTS ima_audit_log_user_id_fkey;
+
+ALTER TYPE audit_event_type ADD VALUE IF NOT EXISTS 'USER_LOGIN_FAILED';
+ALTER TYPE audit_event_type ADD VALUE IF NOT EXISTS 'USER_ROLE_ASSIGNED';
+ALTER TYPE audit_event_type ADD VALUE IF NOT EXISTS 'USER_ROLE_REMOVED';
+ALTER TYPE audit_event_type ADD VALUE IF NOT EXISTS 'PASSWORD_CHANGED';
+-- [jooq ignore stop]
@@ -0,0 +1,8 @@
+-- Audit entries replayed from a node's local spool carry the spool segment and their sequence number in it.
+-- Replays insert with ON CONFLICT DO NOTHING on these, so a segment replayed again after a crash is applied once
+
+ALTER TABLE ima_audit_log ADD COLUMN spool_segment UUID;
+ALTER TABLE ima_audit_log ADD COLUMN spool_sequence BIGINT;
+
+-- Rows written directly leave both NULL, which never conflict
+CREATE UNIQUE INDEX IF NOT EXISTS idx_ima_audit_log_spool ON ima_audit_log(spool_segment, spool_sequence);
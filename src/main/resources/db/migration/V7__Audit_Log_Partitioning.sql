@@ -0,0 +1,52 @@
+-- Range-partition ima_audit_log by timestamp so retention drops whole partitions
+-- and queries bounded in time only scan the partitions they overlap.
+--
+-- The existing table becomes the first partition, covering everything before the
+-- day after the migration; a CHECK constraint proving that lets ATTACH skip the scan.
+-- Later partitions are created ahead of time by the application (see
+-- AuditLogRepository#prepareUntil). There is no default partition: a row outside
+-- every partition fails its batch, which the audit writer spools and retries.
+-- Primary and unique keys of a partitioned table must include the partition key.
+
+-- The jOOQ code generator cannot parse partitioning DDL; the columns are unchanged
+-- [jooq ignore start]
+DO $$
+DECLARE
+    boundary TIMESTAMPTZ := date_trunc('day', now() AT TIME ZONE 'UTC') AT TIME ZONE 'UTC' + INTERVAL '1 day';
+BEGIN
+    ALTER TABLE ima_audit_log RENAME TO ima_audit_log_legacy;
+    ALTER TABLE ima_audit_log_legacy RENAME CONSTRAINT ima_audit_log_pkey TO ima_audit_log_legacy_pkey;
+    DROP INDEX IF EXISTS idx_ima_audit_log_realm;
+    DROP INDEX IF EXISTS idx_ima_audit_log_user;
+    DROP INDEX IF EXISTS idx_ima_audit_log_event;
+    DROP INDEX IF EXISTS idx_ima_audit_log_timestamp;
+    DROP INDEX IF EXISTS idx_ima_audit_log_spool;
+
+    CREATE TABLE ima_audit_log (
+        LIKE ima_audit_log_legacy INCLUDING DEFAULTS,
+        PRIMARY KEY (id, timestamp)
+    ) PARTITION BY RANGE (timestamp);
+    -- The legacy partition is dropped by retention like any other; the sequence must outlive it
+    ALTER SEQUENCE ima_audit_log_id_seq OWNED BY ima_audit_log.id;
+
+    CREATE INDEX idx_ima_audit_log_realm ON ima_audit_log(realm_id, timestamp);
+    CREATE INDEX idx_ima_audit_log_user ON ima_audit_log(user_id, timestamp);
+    CREATE INDEX idx_ima_audit_log_resource ON ima_audit_log(resource_type, resource_id, timestamp);
+    CREATE INDEX idx_ima_audit_log_event ON ima_audit_log(event_type);
+    CREATE INDEX idx_ima_audit_log_timestamp ON ima_audit_log(timestamp);
+    -- Replayed entries keep their timestamp, so including it does not weaken the replay key
+    CREATE UNIQUE INDEX idx_ima_audit_log_spool ON ima_audit_log(spool_segment, spool_sequence, timestamp);
+
+    EXECUTE format('ALTER TABLE ima_audit_log_legacy ADD CONSTRAINT ima_audit_log_legacy_range '
+        'CHECK (timestamp IS NOT NULL AND timestamp < %L)', boundary);
+    EXECUTE format('ALTER TABLE ima_audit_log ATTACH PARTITION ima_audit_log_legacy '
+        'FOR VALUES FROM (MINVALUE) TO (%L)', boundary);
+    ALTER TABLE ima_audit_log_legacy DROP CONSTRAINT ima_audit_log_legacy_range;
+
+    EXECUTE format('CREATE TABLE %I PARTITION OF ima_audit_log FOR VALUES FROM (%L) TO (%L)',
+        'ima_audit_log_p' || to_char(boundary AT TIME ZONE 'UTC', 'YYYYMMDD'), boundary, boundary + INTERVAL '1 month');
+END
+$$;
+
+COMMENT ON TABLE ima_audit_log IS 'Audit trail for security and compliance, range-partitioned by timestamp';
+-- [jooq ignore stop]
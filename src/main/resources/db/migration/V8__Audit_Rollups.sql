@@ -0,0 +1,20 @@
+-- Audit event counts per time bucket, realm and event type, maintained in the
+-- transaction that appends the entries. Dashboards read these instead of
+-- aggregating ima_audit_log, so their cost does not grow with the log.
+
+CREATE TABLE IF NOT EXISTS ima_audit_rollup (
+    granularity VARCHAR(10) NOT NULL,
+    bucket_start TIMESTAMP WITH TIME ZONE NOT NULL,
+    -- Key columns cannot be NULL: events outside any realm use the nil UUID,
+    -- totals over all client addresses the empty string
+    realm_id UUID NOT NULL,
+    event_type VARCHAR(50) NOT NULL,
+    ip_address VARCHAR(45) NOT NULL DEFAULT '',
+    event_count BIGINT NOT NULL,
+    PRIMARY KEY (granularity, realm_id, event_type, ip_address, bucket_start)
+);
+
+-- Per-address rollups of a realm ranked within a time range
+CREATE INDEX IF NOT EXISTS idx_ima_audit_rollup_bucket ON ima_audit_rollup(granularity, realm_id, event_type, bucket_start);
+
+COMMENT ON TABLE ima_audit_rollup IS 'Pre-aggregated audit event counts per minute, hour and day';
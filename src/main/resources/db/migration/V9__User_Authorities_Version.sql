@@ -0,0 +1,3 @@
+-- Incremented whenever a user's account state or effective roles change. Self-contained tokens and
+-- cached user details carry the version they were built from, so every node can tell they are stale
+ALTER TABLE ima_user ADD COLUMN authorities_version BIGINT NOT NULL DEFAULT 0;
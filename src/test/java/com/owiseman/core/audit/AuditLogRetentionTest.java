@@ -0,0 +1,67 @@
+package com.owiseman.core.audit;
+
+import com.owiseman.core.domain.AuditEventType;
+import com.owiseman.core.domain.AuditLog;
+import com.owiseman.core.repository.memory.InMemoryAuditLogRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AuditLogRetention.
+ */
+class AuditLogRetentionTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 1, 10, 12, 0);
+
+    private final Clock clock = Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+    private final UUID realmId = UUID.randomUUID();
+
+    @Test
+    void testPreparesAheadAndPurgesOlderThanRetention() {
+        List<LocalDateTime> prepared = new ArrayList<>();
+        InMemoryAuditLogRepository repository = new InMemoryAuditLogRepository() {
+            @Override
+            public void prepareUntil(LocalDateTime until) {
+                prepared.add(until);
+            }
+        };
+        repository.saveAll(entries(10));
+
+        new AuditLogRetention(repository, Duration.ofDays(7), Duration.ofDays(3), clock).maintain();
+
+        assertEquals(List.of(NOW.plusDays(7)), prepared);
+        assertEquals(List.of(NOW.minusDays(1), NOW.minusDays(2), NOW.minusDays(3)),
+            repository.findByRealm(realmId, 0, 10).stream().map(AuditLog::getCreatedAt).toList());
+    }
+
+    @Test
+    void testZeroRetentionKeepsEverything() {
+        InMemoryAuditLogRepository repository = new InMemoryAuditLogRepository();
+        repository.saveAll(entries(10));
+
+        new AuditLogRetention(repository, Duration.ofDays(7), Duration.ZERO, clock).maintain();
+
+        assertEquals(10, repository.findByRealm(realmId, 0, 20).size());
+    }
+
+    private List<AuditLog> entries(int days) {
+        List<AuditLog> entries = new ArrayList<>();
+        for (int day = days; day > 0; day--) {
+            AuditLog entry = new AuditLog();
+            entry.setRealmId(realmId);
+            entry.setEventType(AuditEventType.USER_LOGIN);
+            entry.setCreatedAt(NOW.minusDays(day));
+            entries.add(entry);
+        }
+        return entries;
+    }
+}
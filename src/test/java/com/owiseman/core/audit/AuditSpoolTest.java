@@ -0,0 +1,222 @@
+package com.owiseman.core.audit;
+
+import com.owiseman.core.domain.AuditEventType;
+import com.owiseman.core.domain.AuditLog;
+import com.owiseman.core.domain.AuditSubjectType;
+import com.owiseman.core.repository.memory.InMemoryAuditLogRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.CRC32C;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AuditSpool.
+ */
+class AuditSpoolTest {
+
+    @TempDir
+    Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private InMemoryAuditLogRepository repository;
+    private UUID realmId;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryAuditLogRepository();
+        realmId = UUID.randomUUID();
+    }
+
+    @Test
+    void testReplayRoundTripsEntriesInOrder() {
+        AuditSpool spool = new AuditSpool(directory, 4096, objectMapper);
+        UUID userId = UUID.randomUUID();
+        spool.append(entries(0, 3, userId));
+        spool.append(entries(3, 2, userId));
+        assertTrue(spool.hasPending());
+
+        assertEquals(5, spool.replay(repository::saveAllOnce, 2));
+
+        List<AuditLog> newestFirst = repository.findByRealm(realmId, 0, 10);
+        assertEquals(5, newestFirst.size());
+        AuditLog last = newestFirst.get(0);
+        assertEquals(4, last.getDetail().get("attempt"));
+        assertEquals(AuditEventType.USER_LOGIN, last.getEventType());
+        assertEquals(AuditSubjectType.USER, last.getSubjectType());
+        assertEquals(userId, last.getSubjectId());
+        assertEquals(LocalDateTime.of(2026, 1, 5, 9, 30, 4), last.getCreatedAt());
+        assertFalse(spool.hasPending());
+        assertEquals(0, segmentFiles().size());
+    }
+
+    @Test
+    void testRollsOverToNewSegmentsWhenFull() {
+        AuditSpool spool = new AuditSpool(directory, 1024, objectMapper);
+        for (int i = 0; i < 20; i++) {
+            spool.append(entries(i, 1, null));
+        }
+
+        assertTrue(segmentFiles().size() > 1);
+        assertEquals(segmentFiles().size(), spool.pendingSegments());
+        assertEquals(20, spool.replay(repository::saveAllOnce, 100));
+        List<AuditLog> newestFirst = repository.findByRealm(realmId, 0, 100);
+        assertEquals(IntStream.range(0, 20).boxed().toList().reversed(),
+            newestFirst.stream().map(entry -> entry.getDetail().get("attempt")).toList());
+    }
+
+    @Test
+    void testReplayAfterFailureSavesEachEntryOnce() {
+        AuditSpool spool = new AuditSpool(directory, 4096, objectMapper);
+        spool.append(entries(0, 6, null));
+        List<Long> firstSequences = new ArrayList<>();
+
+        assertThrows(IllegalStateException.class, () -> spool.replay((segment, firstSequence, batch) -> {
+            firstSequences.add(firstSequence);
+            repository.saveAllOnce(segment, firstSequence, batch);
+            if (firstSequence > 0) {
+                throw new IllegalStateException("connection lost");
+            }
+        }, 4));
+        assertTrue(spool.hasPending());
+
+        assertEquals(6, spool.replay(repository::saveAllOnce, 4));
+        assertEquals(List.of(0L, 4L), firstSequences);
+        assertEquals(6, repository.findByRealm(realmId, 0, 10).size());
+        assertFalse(spool.hasPending());
+    }
+
+    @Test
+    void testRestartReplaysEarlierSegmentsAndIgnoresTornTail() throws IOException {
+        AuditSpool before = new AuditSpool(directory, 4096, objectMapper);
+        before.append(entries(0, 3, null));
+        Path segment = segmentFiles().get(0);
+        // Tear the last record as a crash in the middle of a write would
+        int lastRecord = lastRecordOffset(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {'x', 'x'}), lastRecord + 20);
+        }
+
+        AuditSpool after = new AuditSpool(directory, 4096, objectMapper);
+        assertEquals(1, after.pendingSegments());
+        after.append(entries(3, 1, null));
+        assertEquals(2, after.pendingSegments());
+
+        assertEquals(3, after.replay(repository::saveAllOnce, 10));
+        assertEquals(List.of(3, 1, 0), repository.findByRealm(realmId, 0, 10).stream()
+            .map(entry -> entry.getDetail().get("attempt"))
+            .toList());
+        assertEquals(0, segmentFiles().size());
+    }
+
+    @Test
+    void testQuarantinesUndecodableSegmentsAndReplaysTheRest() throws IOException {
+        Files.write(directory.resolve("00000000000000000000.seg"), new byte[64]);
+        byte[] payload = "{\"eventType\":\"NO_SUCH_EVENT\"}".getBytes(StandardCharsets.UTF_8);
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        ByteBuffer undecodable = ByteBuffer.allocate(24 + 16 + payload.length)
+            .putLong(0x494d415355444954L).putLong(1L).putLong(2L)
+            .putInt(payload.length).putLong(0L).putInt((int) crc.getValue()).put(payload);
+        Files.write(directory.resolve("00000000000000000001.seg"), undecodable.array());
+
+        AuditSpool spool = new AuditSpool(directory, 4096, objectMapper);
+        spool.append(entries(0, 2, null));
+        assertEquals(3, spool.pendingSegments());
+
+        assertEquals(2, spool.replay(repository::saveAllOnce, 10));
+        assertEquals(2, repository.findByRealm(realmId, 0, 10).size());
+        assertEquals(2, spool.quarantinedSegments());
+        assertFalse(spool.hasPending());
+        assertEquals(0, segmentFiles().size());
+        try (Stream<Path> files = Files.list(directory.resolve("quarantine"))) {
+            assertEquals(List.of("00000000000000000000.seg", "00000000000000000001.seg"),
+                files.map(path -> path.getFileName().toString()).sorted().toList());
+        }
+
+        // Quarantined segments are not picked up again after a restart
+        assertFalse(new AuditSpool(directory, 4096, objectMapper).hasPending());
+    }
+
+    @Test
+    void testStrikesQuarantineSegmentRejectedRepeatedly() {
+        AuditSpool spool = new AuditSpool(directory, 4096, objectMapper);
+        spool.append(entries(0, 2, null));
+        AuditSpool.Target rejecting = (segment, firstSequence, batch) -> {
+            throw new IllegalArgumentException("value out of range");
+        };
+        assertFalse(spool.strike(2));
+
+        assertThrows(IllegalArgumentException.class, () -> spool.replay(rejecting, 10));
+        assertFalse(spool.strike(2));
+        assertTrue(spool.hasPending());
+        assertThrows(IllegalArgumentException.class, () -> spool.replay(rejecting, 10));
+        assertTrue(spool.strike(2));
+
+        assertFalse(spool.hasPending());
+        assertFalse(spool.strike(2));
+        assertEquals(1, spool.quarantinedSegments());
+        assertEquals(0, spool.replay(repository::saveAllOnce, 10));
+    }
+
+    @Test
+    void testRejectsEntriesLargerThanSegment() {
+        AuditSpool spool = new AuditSpool(directory, 256, objectMapper);
+        AuditLog entry = entries(0, 1, null).get(0);
+        entry.setDetail(Map.of("payload", "x".repeat(512)));
+
+        assertThrows(IllegalArgumentException.class, () -> spool.append(List.of(entry)));
+    }
+
+    private List<AuditLog> entries(int first, int count, UUID userId) {
+        List<AuditLog> entries = new ArrayList<>();
+        for (int i = first; i < first + count; i++) {
+            AuditLog entry = new AuditLog();
+            entry.setRealmId(realmId);
+            entry.setEventType(AuditEventType.USER_LOGIN);
+            entry.setSubjectType(AuditSubjectType.USER);
+            entry.setSubjectId(userId);
+            entry.setDetail(Map.of("attempt", i));
+            entry.setCreatedAt(LocalDateTime.of(2026, 1, 5, 9, 30, i % 60));
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    private List<Path> segmentFiles() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(Files::isRegularFile).sorted().toList();
+        } catch (IOException ex) {
+            throw new AssertionError(ex);
+        }
+    }
+
+    /** Walk the records of a segment and return the offset of the last one. */
+    private static int lastRecordOffset(Path segment) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(segment));
+        int offset = 24;
+        int last = -1;
+        while (buffer.getInt(offset) > 0) {
+            last = offset;
+            offset += 16 + buffer.getInt(offset);
+        }
+        return last;
+    }
+}
@@ -0,0 +1,300 @@
+package com.owiseman.core.audit;
+
+import com.owiseman.core.domain.AuditEventType;
+import com.owiseman.core.domain.AuditLog;
+import com.owiseman.core.domain.AuditSubjectType;
+import com.owiseman.core.jooq.repository.AuditLogRepository;
+import com.owiseman.core.repository.memory.InMemoryAuditLogRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.jackson.databind.ObjectMapper;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AuditTrail and its ring buffer.
+ */
+class AuditTrailTest {
+
+    private static final Duration RETRY = Duration.ofSeconds(10);
+
+    private final Clock clock = Clock.fixed(Instant.parse("2026-01-05T09:30:00Z"), ZoneOffset.UTC);
+    private InMemoryAuditLogRepository repository;
+    private SimpleMeterRegistry meterRegistry;
+    private UUID realmId;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryAuditLogRepository();
+        meterRegistry = new SimpleMeterRegistry();
+        realmId = UUID.randomUUID();
+    }
+
+    @Test
+    void testFlushWritesInBatchesInOrder() {
+        List<Integer> batchSizes = new ArrayList<>();
+        AuditLogRepository recording = new InMemoryAuditLogRepository() {
+            @Override
+            public void saveAll(List<AuditLog> entries) {
+                batchSizes.add(entries.size());
+                repository.saveAll(entries);
+            }
+
+            @Override
+            public void saveAllOnce(UUID spoolSegment, long firstSequence, List<AuditLog> entries) {
+                repository.saveAllOnce(spoolSegment, firstSequence, entries);
+            }
+        };
+        AuditTrail trail = new AuditTrail(recording, null, meterRegistry, 16, 4, Duration.ofSeconds(1), RETRY, 3, clock);
+        UUID userId = UUID.randomUUID();
+        for (int i = 0; i < 10; i++) {
+            assertTrue(trail.record(AuditEventType.USER_LOGIN, realmId, userId, Map.of("attempt", i)));
+        }
+
+        assertEquals(10, trail.flush());
+
+        assertEquals(List.of(4, 4, 2), batchSizes);
+        List<AuditLog> newestFirst = repository.findByRealm(realmId, 0, 20);
+        assertEquals(10, newestFirst.size());
+        assertEquals(9, newestFirst.get(0).getDetail().get("attempt"));
+        assertEquals(AuditSubjectType.USER, newestFirst.get(0).getSubjectType());
+        assertEquals(userId, newestFirst.get(0).getSubjectId());
+        assertEquals(clock.instant(), newestFirst.get(0).getCreatedAt().toInstant(ZoneOffset.UTC));
+        assertEquals(10.0, meterRegistry.get("audit.events").tag("result", "written").counter().count());
+        assertEquals(0, trail.flush());
+    }
+
+    @Test
+    void testFullBufferDropsInsteadOfBlocking() {
+        AuditTrail trail = new AuditTrail(repository, null, meterRegistry, 4, 100, Duration.ofSeconds(1), RETRY, 3, clock);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(trail.record(AuditEventType.REALM_UPDATED, realmId, null, null));
+        }
+
+        assertFalse(trail.record(AuditEventType.REALM_UPDATED, realmId, null, null));
+        assertEquals(1.0, meterRegistry.get("audit.events").tag("result", "dropped").counter().count());
+        assertEquals(4.0, meterRegistry.get("audit.buffer.size").gauge().value());
+
+        trail.flush();
+        assertTrue(trail.record(AuditEventType.REALM_UPDATED, realmId, null, null));
+        assertEquals(0.0, meterRegistry.get("audit.events").tag("result", "failed").counter().count());
+    }
+
+    @Test
+    void testFailedBatchIsCountedAndDropped() {
+        AuditLogRepository failing = new InMemoryAuditLogRepository() {
+            @Override
+            public void saveAll(List<AuditLog> entries) {
+                throw new IllegalStateException("database unavailable");
+            }
+
+            @Override
+            public void saveAllOnce(UUID spoolSegment, long firstSequence, List<AuditLog> entries) {
+                throw new IllegalStateException("database unavailable");
+            }
+        };
+        AuditTrail trail = new AuditTrail(failing, null, meterRegistry, 8, 8, Duration.ofSeconds(1), RETRY, 3, clock);
+        trail.record(AuditEventType.USER_LOGIN_FAILED, realmId, null, null);
+        trail.record(AuditEventType.USER_LOGIN_FAILED, realmId, null, null);
+
+        assertEquals(2, trail.flush());
+        assertEquals(2.0, meterRegistry.get("audit.events").tag("result", "failed").counter().count());
+        assertEquals(0.0, meterRegistry.get("audit.buffer.size").gauge().value());
+    }
+
+    @Test
+    void testFailedBatchesAreSpooledAndReplayedOnRecovery(@TempDir Path spoolDirectory) {
+        AtomicBoolean available = new AtomicBoolean(false);
+        AtomicInteger attempts = new AtomicInteger();
+        AuditLogRepository flaky = new InMemoryAuditLogRepository() {
+            @Override
+            public void saveAll(List<AuditLog> entries) {
+                attempts.incrementAndGet();
+                if (!available.get()) {
+                    throw new IllegalStateException("database unavailable");
+                }
+                repository.saveAll(entries);
+            }
+
+            @Override
+            public void saveAllOnce(UUID spoolSegment, long firstSequence, List<AuditLog> entries) {
+                repository.saveAllOnce(spoolSegment, firstSequence, entries);
+            }
+        };
+        MutableClock mutableClock = new MutableClock(clock.instant());
+        AuditSpool spool = new AuditSpool(spoolDirectory, 4096, new ObjectMapper());
+        AuditTrail trail = new AuditTrail(flaky, spool, meterRegistry, 16, 4, Duration.ofSeconds(1), RETRY, 3,
+            mutableClock);
+        for (int i = 0; i < 6; i++) {
+            trail.record(AuditEventType.USER_LOGIN, realmId, null, Map.of("attempt", i));
+        }
+
+        trail.flush();
+        // Only the first batch tries the database, the second goes straight to the spool
+        assertEquals(1, attempts.get());
+        assertEquals(6.0, meterRegistry.get("audit.events").tag("result", "spooled").counter().count());
+        assertEquals(1.0, meterRegistry.get("audit.spool.segments").gauge().value());
+        assertTrue(repository.findByRealm(realmId, 0, 10).isEmpty());
+
+        available.set(true);
+        trail.record(AuditEventType.USER_LOGIN, realmId, null, Map.of("attempt", 6));
+        trail.flush();
+        assertEquals(1, attempts.get());
+
+        mutableClock.advance(RETRY);
+        trail.record(AuditEventType.USER_LOGIN, realmId, null, Map.of("attempt", 7));
+        trail.flush();
+        assertEquals(2, attempts.get());
+        assertEquals(7.0, meterRegistry.get("audit.events").tag("result", "replayed").counter().count());
+        assertEquals(1.0, meterRegistry.get("audit.events").tag("result", "written").counter().count());
+        assertEquals(0.0, meterRegistry.get("audit.spool.segments").gauge().value());
+        assertFalse(spool.hasPending());
+        List<AuditLog> newestFirst = repository.findByRealm(realmId, 0, 10);
+        assertEquals(8, newestFirst.size());
+        assertEquals(7, newestFirst.get(0).getDetail().get("attempt"));
+        assertEquals(0, newestFirst.get(7).getDetail().get("attempt"));
+        assertEquals(clock.instant(), newestFirst.get(1).getCreatedAt().toInstant(ZoneOffset.UTC));
+        assertEquals(0.0, meterRegistry.get("audit.events").tag("result", "failed").counter().count());
+    }
+
+    @Test
+    void testSegmentRejectedWhileRepositoryIsHealthyIsQuarantined(@TempDir Path spoolDirectory) {
+        AtomicInteger replays = new AtomicInteger();
+        AuditLogRepository rejecting = new InMemoryAuditLogRepository() {
+            @Override
+            public void saveAll(List<AuditLog> entries) {
+                repository.saveAll(entries);
+            }
+
+            @Override
+            public void saveAllOnce(UUID spoolSegment, long firstSequence, List<AuditLog> entries) {
+                replays.incrementAndGet();
+                throw new IllegalArgumentException("no partition of audit_log for the row");
+            }
+        };
+        MutableClock mutableClock = new MutableClock(clock.instant());
+        AuditSpool spool = new AuditSpool(spoolDirectory, 4096, new ObjectMapper());
+        AuditLog spooled = new AuditLog();
+        spooled.setRealmId(realmId);
+        spooled.setEventType(AuditEventType.USER_LOGIN);
+        spool.append(List.of(spooled));
+        AuditTrail trail = new AuditTrail(rejecting, spool, meterRegistry, 16, 4, Duration.ofSeconds(1), RETRY, 3,
+            mutableClock);
+
+        for (int i = 0; i < 3; i++) {
+            trail.record(AuditEventType.USER_LOGIN, realmId, null, Map.of("attempt", i));
+            trail.flush();
+            // Until the retry interval has passed new entries are written without replaying
+            trail.record(AuditEventType.USER_LOGIN, realmId, null, Map.of("attempt", i));
+            trail.flush();
+            mutableClock.advance(RETRY);
+        }
+
+        assertEquals(3, replays.get());
+        assertFalse(spool.hasPending());
+        assertEquals(1.0, meterRegistry.get("audit.spool.quarantined").functionCounter().count());
+        assertEquals(6.0, meterRegistry.get("audit.events").tag("result", "written").counter().count());
+        assertEquals(0.0, meterRegistry.get("audit.events").tag("result", "spooled").counter().count());
+        assertEquals(6, repository.findByRealm(realmId, 0, 10).size());
+    }
+
+    @Test
+    void testWriterFlushesOnStop() {
+        AuditTrail trail = new AuditTrail(repository, null, meterRegistry, 64, 8, Duration.ofHours(1), RETRY, 3, clock);
+        trail.start();
+        trail.record(AuditEventType.USER_CREATED, realmId, UUID.randomUUID(), null);
+        trail.stop();
+
+        assertFalse(trail.isRunning());
+        assertEquals(1, repository.findByRealm(realmId, 0, 10).size());
+    }
+
+    @Test
+    void testRingBufferKeepsEveryElementUnderConcurrentProducers() throws InterruptedException {
+        AuditRingBuffer<Integer> buffer = new AuditRingBuffer<>(1 << 12);
+        int producers = 4;
+        int perProducer = 1000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException ex) {
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    assertTrue(buffer.offer(base + i));
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        List<Integer> drained = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (drained.size() < producers * perProducer && System.nanoTime() < deadline) {
+            buffer.drainTo(drained, 128);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(producers * perProducer, drained.size());
+        assertEquals(producers * perProducer, drained.stream().distinct().count());
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void testRingBufferRoundsCapacityUpToPowerOfTwo() {
+        assertEquals(1, new AuditRingBuffer<>(1).capacity());
+        assertEquals(8, new AuditRingBuffer<>(5).capacity());
+        assertEquals(8, new AuditRingBuffer<>(8).capacity());
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
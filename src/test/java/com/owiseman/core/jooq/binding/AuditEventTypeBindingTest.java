@@ -0,0 +1,63 @@
+package com.owiseman.core.jooq.binding;
+
+import com.owiseman.core.domain.AuditEventType;
+import org.jooq.DSLContext;
+import org.jooq.Record1;
+import org.jooq.Result;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.jooq.tools.jdbc.MockConnection;
+import org.jooq.tools.jdbc.MockDataProvider;
+import org.jooq.tools.jdbc.MockResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.owiseman.core.jooq.generated.tables.ImaAuditLog.IMA_AUDIT_LOG;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AuditEventTypeBinding.
+ */
+class AuditEventTypeBindingTest {
+
+    private final DSLContext dsl = DSL.using(SQLDialect.POSTGRES);
+
+    @Test
+    void testCastsBindVariablesToEnumType() {
+        var query = dsl.selectFrom(IMA_AUDIT_LOG).where(IMA_AUDIT_LOG.EVENT_TYPE.eq(AuditEventType.USER_LOGIN));
+
+        assertTrue(query.getSQL().endsWith("\"ima_audit_log\".\"event_type\" = ?::audit_event_type"), query.getSQL());
+        assertTrue(dsl.renderInlined(query).endsWith("= 'USER_LOGIN'::audit_event_type"));
+    }
+
+    @Test
+    void testBindsAndReadsTextOverJdbc() {
+        List<Object> bound = new ArrayList<>();
+        MockDataProvider provider = ctx -> {
+            bound.addAll(List.of(ctx.bindings()));
+            Result<Record1<String>> result = dsl.newResult(DSL.field("event_type", String.class));
+            result.add(dsl.newRecord(DSL.field("event_type", String.class)).values("USER_LOGIN_FAILED"));
+            return new MockResult[] {new MockResult(1, result)};
+        };
+        DSLContext mocked = DSL.using(new MockConnection(provider), SQLDialect.POSTGRES);
+
+        AuditEventType read = mocked.select(IMA_AUDIT_LOG.EVENT_TYPE)
+            .from(IMA_AUDIT_LOG)
+            .where(IMA_AUDIT_LOG.EVENT_TYPE.ne(AuditEventType.USER_LOGIN))
+            .fetchOne(IMA_AUDIT_LOG.EVENT_TYPE);
+
+        assertEquals(List.of("USER_LOGIN"), bound);
+        assertEquals(AuditEventType.USER_LOGIN_FAILED, read);
+    }
+
+    @Test
+    void testConvertsDatabaseValues() {
+        AuditEventTypeBinding binding = new AuditEventTypeBinding();
+
+        assertEquals(AuditEventType.PASSWORD_CHANGED, binding.converter().from("PASSWORD_CHANGED"));
+        assertEquals("USER_LOGOUT", binding.converter().to(AuditEventType.USER_LOGOUT));
+        assertNull(binding.converter().from(null));
+    }
+}
@@ -1,12 +1,19 @@
 package com.owiseman.core.jooq.repository.impl;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 import org.jooq.DSLContext;
+import org.jooq.impl.DSL;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -18,11 +25,20 @@ import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import com.owiseman.core.domain.AuditEventType;
+import com.owiseman.core.domain.AuditLog;
+import com.owiseman.core.domain.AuditRollup;
+import com.owiseman.core.domain.AuditSubjectType;
+import com.owiseman.core.domain.PageCursor;
 import com.owiseman.core.domain.Realm;
 import com.owiseman.core.domain.Role;
 import com.owiseman.core.domain.User;
 import com.owiseman.core.domain.Permission;
+import com.owiseman.core.domain.Policy;
+import com.owiseman.core.domain.PolicyType;
+import com.owiseman.core.jooq.repository.AuditLogRepository;
 import com.owiseman.core.jooq.repository.PermissionRepository;
+import com.owiseman.core.jooq.repository.PolicyRepository;
 import com.owiseman.core.jooq.repository.RealmRepository;
 import com.owiseman.core.jooq.repository.RoleRepository;
 import com.owiseman.core.jooq.repository.UserRepository;
@@ -63,6 +79,12 @@ class JooqRepositoriesTest {
     @Autowired
     PermissionRepository permissionRepository;
 
+    @Autowired
+    PolicyRepository policyRepository;
+
+    @Autowired
+    AuditLogRepository auditLogRepository;
+
     @Autowired
     DSLContext dsl;
 
@@ -78,6 +100,68 @@ class JooqRepositoriesTest {
         assertTrue(realmRepository.count() >= 1);
     }
 
+    @Test
+    void userKeysetPagination() {
+        Realm realm = new Realm();
+        realm.setName("realm-" + UUID.randomUUID());
+        realm.setEnabled(true);
+        realm = realmRepository.create(realm);
+
+        // Rows inserted in one transaction share created_at, so the id tie-breaker decides the order
+        for (int i = 0; i < 5; i++) {
+            User user = new User();
+            user.setRealmId(realm.getId());
+            user.setUsername("seek-" + i);
+            user.setEmail("seek-" + i + "@example.com");
+            user.setPasswordHash("hash");
+            userRepository.create(user);
+        }
+
+        List<User> seen = new ArrayList<>();
+        PageCursor cursor = null;
+        List<User> page;
+        do {
+            page = userRepository.findAll(realm.getId(), cursor, 2);
+            seen.addAll(page);
+            cursor = page.isEmpty() ? null : PageCursor.of(page.get(page.size() - 1));
+        } while (page.size() == 2);
+
+        assertEquals(5, seen.size());
+        assertEquals(userRepository.findAll(realm.getId(), (PageCursor) null, 10).stream().map(User::getId).toList(),
+            seen.stream().map(User::getId).toList());
+    }
+
+    @Test
+    void passwordHashUpgradeComparesAndSets() {
+        User user = new User();
+        user.setUsername("rehash-" + UUID.randomUUID());
+        user.setEmail(user.getUsername() + "@example.com");
+        user.setPasswordHash("old");
+        user = userRepository.create(user);
+
+        assertTrue(userRepository.updatePasswordHash(user.getId(), "old", "upgraded"));
+        assertFalse(userRepository.updatePasswordHash(user.getId(), "old", "stale"));
+        assertEquals("upgraded", userRepository.findById(user.getId()).orElseThrow().getPasswordHash());
+    }
+
+    @Test
+    void authoritiesVersionIncrementsAndSurvivesUpdates() {
+        User user = new User();
+        user.setUsername("versioned-" + UUID.randomUUID());
+        user.setEmail(user.getUsername() + "@example.com");
+        user.setPasswordHash("hash");
+        user = userRepository.create(user);
+        assertEquals(0L, user.getAuthoritiesVersion());
+
+        assertEquals(Optional.of(1L), userRepository.incrementAuthoritiesVersion(user.getId()));
+        user.setEnabled(false);
+        userRepository.update(user);
+
+        assertEquals(Optional.of(1L), userRepository.findAuthoritiesVersion(user.getId()));
+        assertEquals(1L, userRepository.findById(user.getId()).orElseThrow().getAuthoritiesVersion());
+        assertEquals(Optional.empty(), userRepository.incrementAuthoritiesVersion(UUID.randomUUID()));
+    }
+
     @Test
     void permissionCrudAndCountByRealm() {
         Realm realm = new Realm();
@@ -125,6 +209,221 @@ class JooqRepositoriesTest {
         assertEquals(1L, roleRepository.countByRealm(realm.getId()));
     }
 
+    @Test
+    void userAttributesAreQueryable() {
+        Realm realm = new Realm();
+        realm.setName("realm-" + UUID.randomUUID());
+        realm.setEnabled(true);
+        realm = realmRepository.create(realm);
+
+        User user = new User();
+        user.setRealmId(realm.getId());
+        user.setUsername("user-" + UUID.randomUUID());
+        user.setEmail(UUID.randomUUID() + "@example.com");
+        user.setPasswordHash("hash");
+        user.setAttributes(Map.of("region", "EU", "employeeNumber", 42));
+        user = userRepository.create(user);
+
+        assertEquals(Map.of("region", "EU", "employeeNumber", 42), userRepository.findAttributes(user.getId()));
+        assertEquals(List.of(user.getId()),
+            userRepository.findByAttribute(realm.getId(), "region", "EU", null, 10).stream().map(User::getId).toList());
+
+        userRepository.updateAttributes(user.getId(), Map.of("region", "US"));
+        assertTrue(userRepository.findByAttribute(realm.getId(), "region", "EU", null, 10).isEmpty());
+    }
+
+    @Test
+    void policyCrudAndVersioning() {
+        Realm realm = new Realm();
+        realm.setName("realm-" + UUID.randomUUID());
+        realm.setEnabled(true);
+        realm = realmRepository.create(realm);
+
+        Policy policy = new Policy();
+        policy.setRealmId(realm.getId());
+        policy.setName("office-hours");
+        policy.setType(PolicyType.TIME);
+        policy.setExpression("time.now < '18:00'");
+        Policy created = policyRepository.create(policy);
+        assertNotNull(created.getUpdatedAt());
+        assertEquals(List.of(created.getId()),
+            policyRepository.findByType(realm.getId(), PolicyType.TIME).stream().map(Policy::getId).toList());
+        assertTrue(policyRepository.findAll(null, 0, Integer.MAX_VALUE).stream()
+            .anyMatch(found -> found.getId().equals(created.getId())));
+
+        // Updates in the same transaction still get a new version
+        created.setExpression("time.now < '17:00'");
+        Policy updated = policyRepository.update(created);
+        assertEquals("time.now < '17:00'", updated.getExpression());
+        assertTrue(updated.getUpdatedAt().isAfter(created.getUpdatedAt()));
+        assertEquals(1, policyRepository.countByRealm(realm.getId()));
+
+        policyRepository.delete(created.getId());
+        assertFalse(policyRepository.findById(created.getId()).isPresent());
+    }
+
+    @Test
+    void auditLogBatchAppend() {
+        Realm realm = new Realm();
+        realm.setName("realm-" + UUID.randomUUID());
+        realm.setEnabled(true);
+        realm = realmRepository.create(realm);
+
+        UUID subjectId = UUID.randomUUID();
+        List<AuditLog> batch = new ArrayList<>();
+        for (AuditEventType type : List.of(AuditEventType.USER_LOGIN, AuditEventType.USER_LOGIN_FAILED)) {
+            AuditLog entry = new AuditLog();
+            entry.setRealmId(realm.getId());
+            entry.setEventType(type);
+            entry.setSubjectId(subjectId);
+            entry.setSubjectType(AuditSubjectType.USER);
+            entry.setDetail(Map.of("reason", type.name()));
+            entry.setCreatedAt(LocalDateTime.now());
+            batch.add(entry);
+        }
+        auditLogRepository.saveAll(batch);
+
+        List<AuditLog> found = auditLogRepository.findByRealm(realm.getId(), 0, 10);
+        assertEquals(2, found.size());
+        assertEquals(subjectId, found.get(0).getSubjectId());
+        assertTrue(found.stream().anyMatch(entry -> entry.getEventType() == AuditEventType.USER_LOGIN_FAILED
+            && "USER_LOGIN_FAILED".equals(entry.getDetail().get("reason"))));
+    }
+
+    @Test
+    void auditLogPartitionsAndRangeQueries() {
+        Realm realm = new Realm();
+        realm.setName("realm-" + UUID.randomUUID());
+        realm.setEnabled(true);
+        realm = realmRepository.create(realm);
+
+        LocalDateTime now = LocalDateTime.now();
+        auditLogRepository.prepareUntil(now.plusDays(70));
+        UUID userId = UUID.randomUUID();
+        List<AuditLog> batch = new ArrayList<>();
+        for (int days : List.of(-1, 0, 40, 65)) {
+            AuditLog entry = new AuditLog();
+            entry.setRealmId(realm.getId());
+            entry.setEventType(AuditEventType.USER_LOGIN);
+            entry.setSubjectId(userId);
+            entry.setSubjectType(AuditSubjectType.USER);
+            entry.setCreatedAt(now.plusDays(days));
+            batch.add(entry);
+        }
+        auditLogRepository.saveAll(batch);
+
+        int partitions = dsl.fetchCount(DSL.table("pg_inherits"),
+            DSL.field("inhparent").eq(DSL.field("'ima_audit_log'::regclass")));
+        assertTrue(partitions >= 3);
+        assertEquals(2, auditLogRepository.findByRealm(realm.getId(), now.plusDays(30), null, 0, 10).size());
+        List<AuditLog> recent = auditLogRepository.findBySubject(AuditSubjectType.USER, userId,
+            now.minusDays(2), now.plusDays(1), 0, 10);
+        assertEquals(2, recent.size());
+        assertTrue(recent.get(0).getCreatedAt().isAfter(recent.get(1).getCreatedAt()));
+    }
+
+    @Test
+    void auditLogExportStreamsOldestFirst() {
+        Realm realm = new Realm();
+        realm.setName("realm-" + UUID.randomUUID());
+        realm.setEnabled(true);
+        realm = realmRepository.create(realm);
+
+        LocalDateTime start = LocalDateTime.now().withNano(0);
+        List<AuditLog> batch = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            AuditLog entry = new AuditLog();
+            entry.setRealmId(realm.getId());
+            entry.setEventType(AuditEventType.USER_LOGIN);
+            entry.setDetail(Map.of("attempt", i));
+            entry.setCreatedAt(start.plusSeconds(i));
+            batch.add(entry);
+        }
+        auditLogRepository.saveAll(batch);
+
+        List<Object> exported = new ArrayList<>();
+        auditLogRepository.exportByRealm(realm.getId(), start.plusSeconds(1), null,
+            entry -> exported.add(entry.getDetail().get("attempt")));
+        assertEquals(List.of(1, 2, 3, 4), exported);
+    }
+
+    @Test
+    void auditRollupsFollowAppends() {
+        Realm realm = new Realm();
+        realm.setName("realm-" + UUID.randomUUID());
+        realm.setEnabled(true);
+        realm = realmRepository.create(realm);
+
+        LocalDateTime minute = LocalDateTime.now().withSecond(0).withNano(0);
+        List<AuditLog> batch = new ArrayList<>();
+        for (String ipAddress : List.of("10.0.0.1", "10.0.0.1", "10.0.0.2")) {
+            AuditLog entry = new AuditLog();
+            entry.setRealmId(realm.getId());
+            entry.setEventType(AuditEventType.USER_LOGIN_FAILED);
+            entry.setIpAddress(ipAddress);
+            entry.setCreatedAt(minute.plusSeconds(batch.size()));
+            batch.add(entry);
+        }
+        auditLogRepository.saveAll(batch);
+        auditLogRepository.saveAllOnce(UUID.randomUUID(), 0, batch.subList(0, 1));
+
+        List<AuditRollup> totals = auditLogRepository.findRollups(AuditRollup.Granularity.MINUTE, realm.getId(),
+            AuditEventType.USER_LOGIN_FAILED, minute, minute.plusMinutes(1));
+        assertEquals(1, totals.size());
+        assertEquals(4, totals.get(0).count());
+        assertEquals(minute, totals.get(0).bucketStart());
+        List<AuditRollup> addresses = auditLogRepository.findAddressRollups(AuditRollup.Granularity.HOUR,
+            realm.getId(), AuditEventType.USER_LOGIN_FAILED, minute.minusHours(1), minute.plusHours(1), 10);
+        assertEquals("10.0.0.1", addresses.get(0).ipAddress());
+        assertEquals(3, addresses.get(0).count());
+    }
+
+    @Test
+    void auditLogSpoolReplayIsIdempotent() {
+        Realm realm = new Realm();
+        realm.setName("realm-" + UUID.randomUUID());
+        realm.setEnabled(true);
+        realm = realmRepository.create(realm);
+
+        List<AuditLog> batch = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            AuditLog entry = new AuditLog();
+            entry.setRealmId(realm.getId());
+            entry.setEventType(AuditEventType.REALM_UPDATED);
+            entry.setCreatedAt(LocalDateTime.now());
+            batch.add(entry);
+        }
+        UUID segment = UUID.randomUUID();
+        auditLogRepository.saveAllOnce(segment, 0, batch.subList(0, 2));
+        auditLogRepository.saveAllOnce(segment, 0, batch);
+
+        assertEquals(3, auditLogRepository.findByRealm(realm.getId(), 0, 10).size());
+    }
+
+    @Test
+    void compositeRoleEdges() {
+        Realm realm = new Realm();
+        realm.setName("realm-" + UUID.randomUUID());
+        realm.setEnabled(true);
+        realm = realmRepository.create(realm);
+
+        Role parent = new Role();
+        parent.setRealmId(realm.getId());
+        parent.setName("role-" + UUID.randomUUID());
+        parent = roleRepository.create(parent);
+        Role child = new Role();
+        child.setRealmId(realm.getId());
+        child.setName("role-" + UUID.randomUUID());
+        child = roleRepository.create(child);
+
+        roleRepository.addChildRole(parent.getId(), child.getId());
+        roleRepository.addChildRole(parent.getId(), child.getId());
+        assertEquals(List.of(child.getId().toString()), roleRepository.findChildRoles(parent.getId()));
+
+        roleRepository.delete(child.getId());
+        assertTrue(roleRepository.findChildRoles(parent.getId()).isEmpty());
+    }
+
     @Test
     void userRoleAndPermissionResolution() {
         Realm realm = new Realm();
@@ -0,0 +1,166 @@
+package com.owiseman.core.policy;
+
+import com.owiseman.core.domain.Permission;
+import com.owiseman.core.domain.Policy;
+import com.owiseman.core.domain.PolicyType;
+import com.owiseman.core.repository.memory.InMemoryPermissionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for PolicyEngine and the expressions it compiles.
+ */
+class PolicyEngineTest {
+
+    private static final Clock MORNING = Clock.fixed(Instant.parse("2026-01-05T09:30:00Z"), ZoneOffset.UTC);
+    private static final Clock EVENING = Clock.fixed(Instant.parse("2026-01-05T19:00:00Z"), ZoneOffset.UTC);
+
+    private final Map<UUID, List<Permission>> policyLinks = new HashMap<>();
+    private PolicyEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new PolicyEngine(new InMemoryPermissionRepository() {
+            @Override
+            public List<Permission> findByPolicy(UUID policyId) {
+                return policyLinks.getOrDefault(policyId, List.of());
+            }
+        });
+    }
+
+    @Test
+    void testAttributeAndTimeExpression() {
+        Policy policy = policy("user.department == 'IT' && time.now < '18:00'");
+
+        assertTrue(engine.evaluate(policy, context(Map.of("user.department", "IT"), MORNING)));
+        assertFalse(engine.evaluate(policy, context(Map.of("user.department", "IT"), EVENING)));
+        assertFalse(engine.evaluate(policy, context(Map.of("user.department", "HR"), MORNING)));
+    }
+
+    @Test
+    void testOperatorsAndPrecedence() {
+        Map<String, Object> attributes = Map.of(
+            "user.level", 3,
+            "user.roles", List.of("admin", "auditor"),
+            "user.verified", true);
+
+        assertTrue(evaluate("user.level >= 3 && user.level < 5.5", attributes));
+        assertTrue(evaluate("user.level == 1 || user.level == 2 || user.verified", attributes));
+        assertFalse(evaluate("user.level == 1 || user.level == 2 && user.verified", attributes));
+        assertTrue(evaluate("!(user.level > 3) && 'admin' in user.roles", attributes));
+        assertTrue(evaluate("user.level in [1, 2, 3]", attributes));
+        assertTrue(evaluate("user.status == 'ACTIVE'", Map.of("user.status", Status.ACTIVE)));
+    }
+
+    @Test
+    void testMissingAttributesFailClosed() {
+        assertFalse(evaluate("user.department == 'IT'", Map.of()));
+        assertFalse(evaluate("user.department != 'IT'", Map.of()));
+        assertFalse(evaluate("user.level < 10", Map.of()));
+        assertFalse(evaluate("user.level < 10", Map.of("user.level", "low")));
+    }
+
+    @Test
+    void testMalformedExpressionsAreRejected() {
+        for (String expression : List.of("", "user.a ==", "(user.a == 1", "user.a == 1 1", "user..a", "'open", "a # b")) {
+            assertThrows(IllegalArgumentException.class, () -> engine.compile(policy(expression)), expression);
+        }
+    }
+
+    @Test
+    void testCompiledPolicyIsCachedPerVersion() {
+        Policy policy = policy("user.level > 1");
+        CompiledPolicy first = engine.compile(policy);
+        assertSame(first, engine.compile(policy));
+
+        policy.setExpression("user.level > 5");
+        policy.setUpdatedAt(policy.getUpdatedAt().plusSeconds(1));
+        CompiledPolicy second = engine.compile(policy);
+
+        assertNotSame(first, second);
+        assertFalse(second.evaluate(context(Map.of("user.level", 3), MORNING)));
+    }
+
+    @Test
+    void testPermissionRequiresAllLinkedPolicies() {
+        UUID realmId = UUID.randomUUID();
+        Policy department = policy("user.department == 'IT'");
+        Policy office = policy("time.now < '18:00'");
+        link(department, realmId, "report", "read");
+        link(office, realmId, "report", "read");
+        engine.register(department);
+        engine.register(office);
+
+        assertTrue(engine.isPermitted(realmId, "report:read", context(Map.of("user.department", "IT"), MORNING)));
+        assertFalse(engine.isPermitted(realmId, "report:read", context(Map.of("user.department", "IT"), EVENING)));
+        assertTrue(engine.isPermitted(realmId, "report:write", context(Map.of(), EVENING)));
+        assertTrue(engine.isPermitted(UUID.randomUUID(), "report:read", context(Map.of(), EVENING)));
+
+        engine.unregister(office.getId());
+        assertTrue(engine.isPermitted(realmId, "report:read", context(Map.of("user.department", "IT"), EVENING)));
+    }
+
+    @Test
+    void testNextBoundaryFollowsTimeLiterals() {
+        UUID realmId = UUID.randomUUID();
+        Policy office = policy("time.now >= '08:00' && time.now < '18:00'");
+        link(office, realmId, "report", "read");
+        engine.register(office);
+        PolicyEngine.PermissionPolicies policies = engine.policiesOf(realmId, "report:read");
+
+        assertEquals(Instant.parse("2026-01-05T18:00:00Z"), policies.nextBoundary(MORNING.instant(), ZoneOffset.UTC));
+        assertEquals(Instant.parse("2026-01-06T08:00:00Z"), policies.nextBoundary(EVENING.instant(), ZoneOffset.UTC));
+
+        long version = policies.version();
+        engine.register(office);
+        assertEquals(version, engine.policiesOf(realmId, "report:read").version());
+
+        office.setExpression("time.now < '17:00'");
+        office.setUpdatedAt(office.getUpdatedAt().plusSeconds(1));
+        engine.register(office);
+        assertNotEquals(version, engine.policiesOf(realmId, "report:read").version());
+    }
+
+    private enum Status {
+        ACTIVE
+    }
+
+    private boolean evaluate(String expression, Map<String, ?> attributes) {
+        return engine.evaluate(policy(expression), context(attributes, MORNING));
+    }
+
+    private static PolicyContext context(Map<String, ?> attributes, Clock clock) {
+        return PolicyContext.of(attributes, clock);
+    }
+
+    private void link(Policy policy, UUID realmId, String resource, String action) {
+        Permission permission = new Permission();
+        permission.setId(UUID.randomUUID());
+        permission.setRealmId(realmId);
+        permission.setResource(resource);
+        permission.setAction(action);
+        policyLinks.computeIfAbsent(policy.getId(), k -> new ArrayList<>()).add(permission);
+    }
+
+    private static Policy policy(String expression) {
+        Policy policy = new Policy();
+        policy.setId(UUID.randomUUID());
+        policy.setRealmId(UUID.randomUUID());
+        policy.setType(PolicyType.ATTRIBUTE);
+        policy.setExpression(expression);
+        policy.setUpdatedAt(LocalDateTime.of(2026, 1, 1, 0, 0));
+        return policy;
+    }
+}
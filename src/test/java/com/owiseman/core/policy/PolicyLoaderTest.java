@@ -0,0 +1,150 @@
+package com.owiseman.core.policy;
+
+import com.owiseman.core.domain.Permission;
+import com.owiseman.core.domain.Policy;
+import com.owiseman.core.domain.PolicyType;
+import com.owiseman.core.jooq.repository.PolicyRepository;
+import com.owiseman.core.repository.memory.InMemoryPermissionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for PolicyLoader.
+ */
+class PolicyLoaderTest {
+
+    private final Map<UUID, List<Permission>> policyLinks = new HashMap<>();
+    private final List<Policy> stored = new ArrayList<>();
+    private final UUID realmId = UUID.randomUUID();
+    private PolicyEngine engine;
+    private PolicyLoader loader;
+
+    @BeforeEach
+    void setUp() {
+        engine = new PolicyEngine(new InMemoryPermissionRepository() {
+            @Override
+            public List<Permission> findByPolicy(UUID policyId) {
+                return policyLinks.getOrDefault(policyId, List.of());
+            }
+        });
+        loader = new PolicyLoader(new StoredPolicies(), engine);
+    }
+
+    @Test
+    void testLoadsStoredPoliciesAtStartup() {
+        Policy policy = store("user.department == 'IT'");
+        link(policy, "report", "read");
+
+        loader.afterSingletonsInstantiated();
+
+        assertNotNull(engine.policiesOf(realmId, "report:read"));
+        assertFalse(engine.isPermitted(realmId, "report:read", Map.of("user.department", "HR")::get));
+        assertTrue(engine.isPermitted(realmId, "report:read", Map.of("user.department", "IT")::get));
+    }
+
+    @Test
+    void testReloadPicksUpChangesAndDeletions() {
+        Policy department = store("user.department == 'IT'");
+        Policy level = store("user.level > 1");
+        link(department, "report", "read");
+        link(level, "report", "write");
+        assertEquals(2, loader.reload());
+        long version = engine.policiesOf(realmId, "report:read").version();
+
+        assertEquals(2, loader.reload());
+        assertEquals(version, engine.policiesOf(realmId, "report:read").version());
+
+        department.setExpression("user.department == 'HR'");
+        department.setUpdatedAt(department.getUpdatedAt().plusSeconds(1));
+        stored.remove(level);
+        assertEquals(1, loader.reload());
+
+        assertTrue(engine.isPermitted(realmId, "report:read", Map.of("user.department", "HR")::get));
+        assertNull(engine.policiesOf(realmId, "report:write"));
+    }
+
+    @Test
+    void testMalformedPolicyKeepsEarlierVersion() {
+        Policy department = store("user.department == 'IT'");
+        link(department, "report", "read");
+        loader.reload();
+
+        department.setExpression("user.department ==");
+        department.setUpdatedAt(department.getUpdatedAt().plusSeconds(1));
+        Policy other = store("user.level > 1");
+        link(other, "report", "write");
+        loader.reload();
+
+        assertTrue(engine.isPermitted(realmId, "report:read", Map.of("user.department", "IT")::get));
+        assertNotNull(engine.policiesOf(realmId, "report:write"));
+    }
+
+    private Policy store(String expression) {
+        Policy policy = new Policy();
+        policy.setId(UUID.randomUUID());
+        policy.setRealmId(realmId);
+        policy.setName("policy-" + stored.size());
+        policy.setType(PolicyType.ATTRIBUTE);
+        policy.setExpression(expression);
+        policy.setUpdatedAt(LocalDateTime.of(2026, 1, 1, 0, 0));
+        stored.add(policy);
+        return policy;
+    }
+
+    private void link(Policy policy, String resource, String action) {
+        Permission permission = new Permission();
+        permission.setId(UUID.randomUUID());
+        permission.setRealmId(realmId);
+        permission.setResource(resource);
+        permission.setAction(action);
+        policyLinks.computeIfAbsent(policy.getId(), k -> new ArrayList<>()).add(permission);
+    }
+
+    private final class StoredPolicies implements PolicyRepository {
+
+        @Override
+        public Optional<Policy> findById(UUID id) {
+            return stored.stream().filter(policy -> policy.getId().equals(id)).findFirst();
+        }
+
+        @Override
+        public List<Policy> findByType(UUID realmId, PolicyType type) {
+            return stored.stream().filter(policy -> policy.getType() == type).toList();
+        }
+
+        @Override
+        public List<Policy> findAll(UUID realmId, int offset, int limit) {
+            return List.copyOf(stored);
+        }
+
+        @Override
+        public Policy create(Policy policy) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Policy update(Policy policy) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void delete(UUID id) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long countByRealm(UUID realmId) {
+            return stored.size();
+        }
+    }
+}
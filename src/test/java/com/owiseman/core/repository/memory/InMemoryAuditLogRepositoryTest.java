@@ -0,0 +1,144 @@
+package com.owiseman.core.repository.memory;
+
+import com.owiseman.core.domain.AuditEventType;
+import com.owiseman.core.domain.AuditLog;
+import com.owiseman.core.domain.AuditRollup;
+import com.owiseman.core.domain.AuditSubjectType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for InMemoryAuditLogRepository.
+ */
+class InMemoryAuditLogRepositoryTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+    private InMemoryAuditLogRepository repository;
+    private UUID realmId;
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryAuditLogRepository();
+        realmId = UUID.randomUUID();
+        userId = UUID.randomUUID();
+        for (int day = 0; day < 10; day++) {
+            repository.saveAll(List.of(
+                entry(realmId, AuditSubjectType.USER, userId, START.plusDays(day)),
+                entry(UUID.randomUUID(), AuditSubjectType.CLIENT, UUID.randomUUID(), START.plusDays(day))));
+        }
+    }
+
+    @Test
+    void testFindByRealmWithinRange() {
+        List<AuditLog> found = repository.findByRealm(realmId, START.plusDays(2), START.plusDays(5), 0, 10);
+
+        assertEquals(List.of(START.plusDays(4), START.plusDays(3), START.plusDays(2)),
+            found.stream().map(AuditLog::getCreatedAt).toList());
+        assertEquals(2, repository.findByRealm(realmId, START.plusDays(2), START.plusDays(5), 1, 10).size());
+        assertEquals(20, repository.findByRealm(null, null, null, 0, 100).size());
+    }
+
+    @Test
+    void testFindBySubjectWithinRange() {
+        List<AuditLog> found = repository.findBySubject(AuditSubjectType.USER, userId, START.plusDays(8), null, 0, 10);
+
+        assertEquals(2, found.size());
+        assertTrue(found.stream().allMatch(entry -> userId.equals(entry.getSubjectId())));
+        assertTrue(repository.findBySubject(AuditSubjectType.CLIENT, userId, null, null, 0, 10).isEmpty());
+    }
+
+    @Test
+    void testExportByRealmStreamsOldestFirst() {
+        List<LocalDateTime> exported = new ArrayList<>();
+        repository.exportByRealm(realmId, START.plusDays(7), null, entry -> exported.add(entry.getCreatedAt()));
+
+        assertEquals(List.of(START.plusDays(7), START.plusDays(8), START.plusDays(9)), exported);
+    }
+
+    @Test
+    void testPurgeBefore() {
+        repository.purgeBefore(START.plusDays(7));
+
+        assertEquals(List.of(START.plusDays(9), START.plusDays(8), START.plusDays(7)),
+            repository.findByRealm(realmId, 0, 10).stream().map(AuditLog::getCreatedAt).toList());
+        assertEquals(3, repository.findRollups(AuditRollup.Granularity.DAY, realmId, null,
+            START, START.plusDays(10)).size());
+    }
+
+    @Test
+    void testRollupsCountEveryGranularity() {
+        List<AuditRollup> days = repository.findRollups(AuditRollup.Granularity.DAY, realmId, null,
+            START.plusDays(2), START.plusDays(4));
+        assertEquals(List.of(START.plusDays(2), START.plusDays(3)), days.stream().map(AuditRollup::bucketStart).toList());
+        assertTrue(days.stream().allMatch(rollup -> rollup.count() == 1 && rollup.ipAddress() == null));
+
+        repository.saveAll(List.of(
+            entry(realmId, AuditSubjectType.USER, userId, START.plusMinutes(1).plusSeconds(10)),
+            entry(realmId, AuditSubjectType.USER, userId, START.plusMinutes(1).plusSeconds(50))));
+        List<AuditRollup> minutes = repository.findRollups(AuditRollup.Granularity.MINUTE, realmId,
+            AuditEventType.USER_LOGIN, START, START.plusHours(1));
+        assertEquals(List.of(1L, 2L), minutes.stream().map(AuditRollup::count).toList());
+        assertEquals(3, repository.findRollups(AuditRollup.Granularity.HOUR, realmId, null, START, START.plusHours(1))
+            .get(0).count());
+        assertTrue(repository.findRollups(AuditRollup.Granularity.HOUR, realmId, AuditEventType.USER_LOGOUT,
+            START, START.plusHours(1)).isEmpty());
+    }
+
+    @Test
+    void testAddressRollupsRankFailedLogins() {
+        List<AuditLog> failures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            failures.add(failedLogin("10.0.0.1", START.plusMinutes(3)));
+        }
+        failures.add(failedLogin("10.0.0.2", START.plusMinutes(3)));
+        failures.add(failedLogin("10.0.0.2", START.plusMinutes(4)));
+        repository.saveAll(failures);
+
+        List<AuditRollup> top = repository.findAddressRollups(AuditRollup.Granularity.MINUTE, realmId,
+            AuditEventType.USER_LOGIN_FAILED, START, START.plusHours(1), 2);
+        assertEquals(2, top.size());
+        assertEquals("10.0.0.1", top.get(0).ipAddress());
+        assertEquals(5, top.get(0).count());
+        assertEquals(START.plusMinutes(4), top.get(1).bucketStart());
+        assertEquals(7, repository.findRollups(AuditRollup.Granularity.HOUR, realmId,
+            AuditEventType.USER_LOGIN_FAILED, START, START.plusHours(1)).get(0).count());
+    }
+
+    @Test
+    void testReplayedEntriesAreCountedOnce() {
+        UUID segment = UUID.randomUUID();
+        List<AuditLog> batch = List.of(failedLogin("10.0.0.3", START.plusMinutes(5)),
+            failedLogin("10.0.0.3", START.plusMinutes(5)));
+        repository.saveAllOnce(segment, 0, batch.subList(0, 1));
+        repository.saveAllOnce(segment, 0, batch);
+
+        assertEquals(2, repository.findRollups(AuditRollup.Granularity.MINUTE, realmId,
+            AuditEventType.USER_LOGIN_FAILED, START, START.plusHours(1)).get(0).count());
+    }
+
+    private AuditLog failedLogin(String ipAddress, LocalDateTime createdAt) {
+        AuditLog entry = entry(realmId, AuditSubjectType.USER, userId, createdAt);
+        entry.setEventType(AuditEventType.USER_LOGIN_FAILED);
+        entry.setIpAddress(ipAddress);
+        return entry;
+    }
+
+    private static AuditLog entry(UUID realmId, AuditSubjectType subjectType, UUID subjectId, LocalDateTime createdAt) {
+        AuditLog entry = new AuditLog();
+        entry.setRealmId(realmId);
+        entry.setEventType(AuditEventType.USER_LOGIN);
+        entry.setSubjectType(subjectType);
+        entry.setSubjectId(subjectId);
+        entry.setCreatedAt(createdAt);
+        return entry;
+    }
+}
@@ -85,6 +85,22 @@ class InMemoryPermissionRepositoryTest {
         assertEquals(2, firstTwo.size());
     }
 
+    @Test
+    void testFindAllIsSortedAndSeeksAfterPermission() {
+        UUID realmId = UUID.randomUUID();
+        repository.create(newPermission(realmId, "users", "write"));
+        repository.create(newPermission(realmId, "roles", "read"));
+        repository.create(newPermission(realmId, "users", "read"));
+
+        List<Permission> firstPage = repository.findAll(realmId, null, 2);
+        assertEquals(List.of("roles:read", "users:read"), firstPage.stream()
+            .map(p -> p.getResource() + ":" + p.getAction()).toList());
+
+        List<Permission> nextPage = repository.findAll(realmId, firstPage.get(1), 2);
+        assertEquals(1, nextPage.size());
+        assertEquals("write", nextPage.get(0).getAction());
+    }
+
     @Test
     void testUpdate() {
         UUID realmId = UUID.randomUUID();
@@ -144,6 +144,43 @@ class InMemoryRoleRepositoryTest {
         assertEquals(2, repository.countByRealm(otherRealmId));
     }
     
+    @Test
+    void testCountFollowsDeleteAndRealmChange() {
+        UUID otherRealmId = UUID.randomUUID();
+        Role moved = new Role();
+        moved.setRealmId(testRealmId);
+        repository.create(moved);
+        Role deleted = new Role();
+        deleted.setRealmId(testRealmId);
+        repository.create(deleted);
+        
+        repository.delete(deleted.getId());
+        moved.setRealmId(otherRealmId);
+        repository.update(moved);
+        
+        assertEquals(0, repository.countByRealm(testRealmId));
+        assertEquals(1, repository.countByRealm(otherRealmId));
+        assertTrue(repository.findAll(testRealmId, 0, 10).isEmpty());
+        assertEquals(moved.getId(), repository.findAll(otherRealmId, 0, 10).get(0).getId());
+    }
+    
+    @Test
+    void testChildRolesFollowDelete() {
+        Role parent = new Role();
+        parent.setRealmId(testRealmId);
+        repository.create(parent);
+        Role child = new Role();
+        child.setRealmId(testRealmId);
+        repository.create(child);
+        
+        repository.addChildRole(parent.getId(), child.getId());
+        assertEquals(List.of(child.getId().toString()), repository.findChildRoles(parent.getId()));
+        assertThrows(IllegalArgumentException.class, () -> repository.addChildRole(parent.getId(), parent.getId()));
+        
+        repository.delete(child.getId());
+        assertTrue(repository.findChildRoles(parent.getId()).isEmpty());
+    }
+    
     @Test
     void testClear() {
         repository.create(new Role());
@@ -1,10 +1,14 @@
 package com.owiseman.core.repository.memory;
 
+import com.owiseman.core.domain.PageCursor;
 import com.owiseman.core.domain.User;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -41,6 +45,25 @@ class InMemoryUserRepositoryTest {
         assertNotNull(created.getCreatedAt());
     }
     
+    @Test
+    void testAuthoritiesVersionSurvivesUpdates() {
+        User user = new User();
+        user.setRealmId(testRealmId);
+        user.setUsername("testuser");
+        User created = repository.create(user);
+        assertEquals(0L, created.getAuthoritiesVersion());
+
+        assertEquals(Optional.of(1L), repository.incrementAuthoritiesVersion(created.getId()));
+        User replacement = new User();
+        replacement.setId(created.getId());
+        replacement.setRealmId(testRealmId);
+        replacement.setUsername("renamed");
+        repository.update(replacement);
+
+        assertEquals(Optional.of(1L), repository.findAuthoritiesVersion(created.getId()));
+        assertEquals(Optional.empty(), repository.incrementAuthoritiesVersion(UUID.randomUUID()));
+    }
+    
     @Test
     void testFindById() {
         User user = repository.create(new User());
@@ -78,6 +101,70 @@ class InMemoryUserRepositoryTest {
         assertEquals("unique@example.com", found.get().getEmail());
     }
     
+    @Test
+    void testFindByUsernameIsScopedToRealm() {
+        UUID otherRealmId = UUID.randomUUID();
+        User user = new User();
+        user.setRealmId(testRealmId);
+        user.setUsername("shared");
+        repository.create(user);
+        User other = new User();
+        other.setRealmId(otherRealmId);
+        other.setUsername("shared");
+        repository.create(other);
+        
+        assertEquals(user.getId(), repository.findByUsername(testRealmId, "shared").get().getId());
+        assertEquals(other.getId(), repository.findByUsername(otherRealmId, "shared").get().getId());
+        assertTrue(repository.findByUsername(null, "shared").isPresent());
+        assertFalse(repository.findByUsername(UUID.randomUUID(), "shared").isPresent());
+    }
+    
+    @Test
+    void testUpdateReindexesUsernameAndEmail() {
+        User user = new User();
+        user.setRealmId(testRealmId);
+        user.setUsername("before");
+        user.setEmail("before@example.com");
+        repository.create(user);
+        
+        user.setUsername("after");
+        user.setEmail("after@example.com");
+        repository.update(user);
+        
+        assertFalse(repository.findByUsername(testRealmId, "before").isPresent());
+        assertFalse(repository.findByEmail(testRealmId, "before@example.com").isPresent());
+        assertTrue(repository.findByUsername(testRealmId, "after").isPresent());
+        assertTrue(repository.findByEmail(testRealmId, "after@example.com").isPresent());
+    }
+    
+    @Test
+    void testDeleteRemovesFromIndexes() {
+        User user = new User();
+        user.setRealmId(testRealmId);
+        user.setUsername("gone");
+        user.setEmail("gone@example.com");
+        repository.create(user);
+        
+        repository.delete(user.getId());
+        
+        assertFalse(repository.findByUsername(testRealmId, "gone").isPresent());
+        assertFalse(repository.findByEmail(testRealmId, "gone@example.com").isPresent());
+    }
+    
+    @Test
+    void testDuplicateUsernameInRealmRejected() {
+        User user = new User();
+        user.setRealmId(testRealmId);
+        user.setUsername("taken");
+        repository.create(user);
+        User duplicate = new User();
+        duplicate.setRealmId(testRealmId);
+        duplicate.setUsername("taken");
+        
+        assertThrows(DuplicateKeyException.class, () -> repository.create(duplicate));
+        assertEquals(1, repository.countByRealm(testRealmId));
+    }
+    
     @Test
     void testFindAllByRealm() {
         for (int i = 0; i < 5; i++) {
@@ -100,6 +187,62 @@ class InMemoryUserRepositoryTest {
         assertEquals(5, realmUsers.size());
     }
     
+    @Test
+    void testCursorPagingVisitsEveryUserOnceInOrder() {
+        for (int i = 0; i < 7; i++) {
+            User user = new User();
+            user.setRealmId(testRealmId);
+            user.setUsername("user-" + i);
+            repository.create(user);
+        }
+        
+        List<User> seen = new ArrayList<>();
+        PageCursor cursor = null;
+        List<User> page;
+        do {
+            page = repository.findAll(testRealmId, cursor, 3);
+            seen.addAll(page);
+            cursor = page.isEmpty() ? null : PageCursor.of(page.get(page.size() - 1));
+        } while (page.size() == 3);
+        
+        assertEquals(7, seen.size());
+        assertEquals(repository.findAll(testRealmId, 0, 10), seen);
+        for (int i = 1; i < seen.size(); i++) {
+            assertTrue(PageCursor.of(seen.get(i - 1)).compareTo(PageCursor.of(seen.get(i))) < 0);
+        }
+    }
+    
+    @Test
+    void testFindByAttributeFollowsAttributeUpdates() {
+        User eu = new User();
+        eu.setRealmId(testRealmId);
+        eu.setUsername("eu");
+        eu.setAttributes(Map.of("region", "EU", "employeeNumber", 42));
+        repository.create(eu);
+        User us = new User();
+        us.setRealmId(testRealmId);
+        us.setUsername("us");
+        us.setAttributes(Map.of("region", "US"));
+        repository.create(us);
+        User otherRealm = new User();
+        otherRealm.setRealmId(UUID.randomUUID());
+        otherRealm.setUsername("eu");
+        otherRealm.setAttributes(Map.of("region", "EU"));
+        repository.create(otherRealm);
+        
+        assertEquals(List.of(eu), repository.findByAttribute(testRealmId, "region", "EU", null, 10));
+        assertEquals(2, repository.findByAttribute(null, "region", "EU", null, 10).size());
+        assertEquals(42, repository.findAttributes(eu.getId()).get("employeeNumber"));
+        
+        repository.updateAttributes(us.getId(), Map.of("region", "EU"));
+        assertEquals(List.of(eu, us), repository.findByAttribute(testRealmId, "region", "EU", null, 10));
+        assertEquals(List.of(us), repository.findByAttribute(testRealmId, "region", "EU", PageCursor.of(eu), 10));
+        assertTrue(repository.findByAttribute(testRealmId, "region", "US", null, 10).isEmpty());
+        
+        repository.delete(eu.getId());
+        assertEquals(List.of(us), repository.findByAttribute(testRealmId, "region", "EU", null, 10));
+    }
+    
     @Test
     void testUpdate() {
         User user = repository.create(new User());
@@ -165,6 +308,19 @@ class InMemoryUserRepositoryTest {
         assertEquals(2, repository.countByRealm(otherRealmId));
     }
     
+    @Test
+    void testUpdatePasswordHashOnlyReplacesExpectedHash() {
+        User user = new User();
+        user.setPasswordHash("old");
+        user = repository.create(user);
+        
+        assertTrue(repository.updatePasswordHash(user.getId(), "old", "upgraded"));
+        assertFalse(repository.updatePasswordHash(user.getId(), "old", "stale"));
+        assertFalse(repository.updatePasswordHash(UUID.randomUUID(), "upgraded", "other"));
+        
+        assertEquals("upgraded", repository.findById(user.getId()).get().getPasswordHash());
+    }
+    
     @Test
     void testClear() {
         repository.create(new User());
@@ -0,0 +1,63 @@
+package com.owiseman.core.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that the security settings in application.yml sit under the keys the components read.
+ */
+class ApplicationYamlTest {
+
+    private Binder binder;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        List<PropertySource<?>> documents = new YamlPropertySourceLoader()
+            .load("application.yml", new ClassPathResource("application.yml"));
+        StandardEnvironment environment = new StandardEnvironment();
+        documents.forEach(environment.getPropertySources()::addLast);
+        binder = new Binder(ConfigurationPropertySources.get(environment));
+    }
+
+    @Test
+    void testPasswordHashingSettings() {
+        assertEquals(Set.of("algorithm", "target-latency", "pbkdf2-iterations", "threads", "queue-capacity",
+            "max-wait", "retry-after"), keys("app.security.password-hashing"));
+        assertEquals(100, binder.bind("app.security.password-hashing.queue-capacity", Integer.class).get());
+        assertEquals(Duration.ofSeconds(2),
+            binder.bind("app.security.password-hashing.max-wait", Duration.class).get());
+    }
+
+    @Test
+    void testLoginThrottleSettings() {
+        assertEquals(Set.of("window", "max-failures-per-user", "max-failures-per-address", "progressive-delay",
+            "max-delay"), keys("app.security.login-throttle"));
+        assertEquals(Duration.ofMinutes(15), binder.bind("app.security.login-throttle.window", Duration.class).get());
+    }
+
+    @Test
+    void testClientAddressComesFromTrustedProxies() {
+        assertEquals("native", binder.bind("server.forward-headers-strategy", String.class).get());
+    }
+
+    private Set<String> keys(String prefix) {
+        return binder.bind(prefix, Bindable.mapOf(String.class, Object.class))
+            .map(Map::keySet)
+            .orElseThrow(() -> new AssertionError("missing " + prefix));
+    }
+}
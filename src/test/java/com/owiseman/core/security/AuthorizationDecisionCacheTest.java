@@ -0,0 +1,197 @@
+package com.owiseman.core.security;
+
+import com.owiseman.core.domain.Permission;
+import com.owiseman.core.domain.Policy;
+import com.owiseman.core.domain.PolicyType;
+import com.owiseman.core.domain.Role;
+import com.owiseman.core.domain.User;
+import com.owiseman.core.event.UserChangedEvent;
+import com.owiseman.core.policy.PolicyContext;
+import com.owiseman.core.policy.PolicyEngine;
+import com.owiseman.core.repository.memory.InMemoryPermissionRepository;
+import com.owiseman.core.repository.memory.InMemoryRoleRepository;
+import com.owiseman.core.repository.memory.InMemoryUserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AuthorizationDecisionCache.
+ */
+class AuthorizationDecisionCacheTest {
+
+    private final Map<UUID, List<Permission>> policyLinks = new HashMap<>();
+    private final MutableClock clock = new MutableClock(Instant.parse("2026-01-05T09:30:00Z"));
+    private InMemoryUserRepository userRepository;
+    private InMemoryRoleRepository roleRepository;
+    private InMemoryPermissionRepository permissionRepository;
+    private EffectivePermissionStore store;
+    private PolicyEngine engine;
+    private SimpleMeterRegistry meterRegistry;
+    private AuthorizationDecisionCache cache;
+    private UUID realmId;
+    private UUID userId;
+    private Permission read;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = new InMemoryUserRepository();
+        roleRepository = new InMemoryRoleRepository();
+        permissionRepository = new InMemoryPermissionRepository() {
+            @Override
+            public List<Permission> findByPolicy(UUID policyId) {
+                return policyLinks.getOrDefault(policyId, List.of());
+            }
+        };
+        store = new EffectivePermissionStore(userRepository, roleRepository, permissionRepository,
+            new RoleHierarchy(roleRepository, Duration.ofMinutes(1)), event -> { }, Duration.ofMinutes(1));
+        engine = new PolicyEngine(permissionRepository);
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new AuthorizationDecisionCache(store, engine, meterRegistry, 1000, Duration.ofMinutes(10), clock);
+        realmId = UUID.randomUUID();
+
+        User user = new User();
+        user.setRealmId(realmId);
+        user.setUsername("alice");
+        user.setEmail("alice@example.com");
+        userId = userRepository.create(user).getId();
+
+        read = new Permission();
+        read.setRealmId(realmId);
+        read.setResource("report");
+        read.setAction("read");
+        permissionRepository.create(read);
+    }
+
+    @Test
+    void testRepeatedDecisionIsServedFromCache() {
+        grantRead();
+
+        assertTrue(isPermitted(Map.of()));
+        assertTrue(isPermitted(Map.of()));
+
+        assertEquals(1.0, requests("miss"));
+        assertEquals(1.0, requests("hit"));
+    }
+
+    @Test
+    void testRoleRemovalInvalidatesDecision() {
+        UUID role = grantRead();
+        assertTrue(isPermitted(Map.of()));
+
+        userRepository.removeRole(userId, role);
+        store.onUserChanged(new UserChangedEvent(userId, UserChangedEvent.Type.ROLE_REMOVED, role));
+
+        assertFalse(isPermitted(Map.of()));
+        assertEquals(1.0, requests("stale"));
+    }
+
+    @Test
+    void testTimeDecisionExpiresAtBoundary() {
+        grantRead();
+        register(policy("time.now < '18:00'"));
+
+        clock.set(Instant.parse("2026-01-05T17:55:00Z"));
+        assertTrue(isPermitted(Map.of()));
+        clock.set(Instant.parse("2026-01-05T17:59:59Z"));
+        assertTrue(isPermitted(Map.of()));
+        clock.set(Instant.parse("2026-01-05T18:00:00Z"));
+        assertFalse(isPermitted(Map.of()));
+
+        assertEquals(1.0, requests("hit"));
+        assertEquals(2.0, requests("miss"));
+    }
+
+    @Test
+    void testPolicyChangeAndContextAreHonoured() {
+        grantRead();
+        Policy policy = policy("user.department == 'IT'");
+        register(policy);
+
+        assertTrue(isPermitted(Map.of("user.department", "IT")));
+        assertFalse(isPermitted(Map.of("user.department", "HR")));
+
+        policy.setExpression("user.department == 'HR'");
+        policy.setUpdatedAt(policy.getUpdatedAt().plusSeconds(1));
+        engine.register(policy);
+
+        assertFalse(isPermitted(Map.of("user.department", "IT")));
+        assertTrue(isPermitted(Map.of("user.department", "HR")));
+        assertEquals(2.0, requests("stale"));
+    }
+
+    private boolean isPermitted(Map<String, Object> attributes) {
+        return cache.isPermitted(userId, "report:read", PolicyContext.of(attributes, clock), attributes);
+    }
+
+    private double requests(String result) {
+        return meterRegistry.get("authz.decision.cache.requests").tag("result", result).counter().count();
+    }
+
+    private UUID grantRead() {
+        Role role = new Role();
+        role.setRealmId(realmId);
+        role.setName("reader");
+        UUID roleId = roleRepository.create(role).getId();
+        roleRepository.assignPermission(roleId, read.getId());
+        userRepository.assignRole(userId, roleId);
+        return roleId;
+    }
+
+    private void register(Policy policy) {
+        policyLinks.computeIfAbsent(policy.getId(), k -> new ArrayList<>()).add(read);
+        engine.register(policy);
+    }
+
+    private Policy policy(String expression) {
+        Policy policy = new Policy();
+        policy.setId(UUID.randomUUID());
+        policy.setRealmId(realmId);
+        policy.setType(PolicyType.ATTRIBUTE);
+        policy.setExpression(expression);
+        policy.setUpdatedAt(LocalDateTime.of(2026, 1, 1, 0, 0));
+        return policy;
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void set(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
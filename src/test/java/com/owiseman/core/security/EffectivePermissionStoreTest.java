@@ -0,0 +1,321 @@
+package com.owiseman.core.security;
+
+import com.owiseman.core.domain.Permission;
+import com.owiseman.core.domain.Role;
+import com.owiseman.core.domain.User;
+import com.owiseman.core.event.RoleChangedEvent;
+import com.owiseman.core.event.UserChangedEvent;
+import com.owiseman.core.repository.memory.InMemoryPermissionRepository;
+import com.owiseman.core.repository.memory.InMemoryRoleRepository;
+import com.owiseman.core.repository.memory.InMemoryUserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for EffectivePermissionStore.
+ */
+class EffectivePermissionStoreTest {
+
+    private static final Duration TTL = Duration.ofMinutes(1);
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2026-01-05T09:30:00Z"));
+    private InMemoryUserRepository userRepository;
+    private InMemoryRoleRepository roleRepository;
+    private InMemoryPermissionRepository permissionRepository;
+    private RoleHierarchy hierarchy;
+    private final List<Object> events = new ArrayList<>();
+    private EffectivePermissionStore store;
+    private UUID realmId;
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = new InMemoryUserRepository();
+        roleRepository = new InMemoryRoleRepository();
+        permissionRepository = new InMemoryPermissionRepository();
+        hierarchy = new RoleHierarchy(roleRepository, TTL, clock);
+        store = new EffectivePermissionStore(userRepository, roleRepository, permissionRepository,
+            hierarchy, events::add, TTL, clock);
+        realmId = UUID.randomUUID();
+
+        User user = new User();
+        user.setRealmId(realmId);
+        user.setUsername("alice");
+        user.setEmail("alice@example.com");
+        userId = userRepository.create(user).getId();
+    }
+
+    @Test
+    void testLoadsGrantsFromRoles() {
+        UUID role = role("reader");
+        UUID read = permission("document", "read");
+        roleRepository.assignPermission(role, read);
+        userRepository.assignRole(userId, role);
+
+        assertTrue(store.hasPermission(userId, "document:read"));
+        assertFalse(store.hasPermission(userId, "document:write"));
+        assertEquals(List.of("document:read"), store.findPermissions(userId));
+    }
+
+    @Test
+    void testFollowsRoleAssignments() {
+        UUID role = role("reader");
+        roleRepository.assignPermission(role, permission("document", "read"));
+        assertFalse(store.hasPermission(userId, "document:read"));
+
+        userRepository.assignRole(userId, role);
+        store.onUserChanged(new UserChangedEvent(userId, UserChangedEvent.Type.ROLE_ASSIGNED, role));
+        assertTrue(store.hasPermission(userId, "document:read"));
+
+        userRepository.removeRole(userId, role);
+        store.onUserChanged(new UserChangedEvent(userId, UserChangedEvent.Type.ROLE_REMOVED, role));
+        assertFalse(store.hasPermission(userId, "document:read"));
+    }
+
+    @Test
+    void testFollowsRolePermissionChanges() {
+        UUID role = role("editor");
+        userRepository.assignRole(userId, role);
+        assertFalse(store.hasPermission(userId, "document:write"));
+
+        UUID write = permission("document", "write");
+        roleRepository.assignPermission(role, write);
+        store.onRoleChanged(new RoleChangedEvent(role, RoleChangedEvent.Type.PERMISSION_ASSIGNED, write));
+        assertTrue(store.hasPermission(userId, "document:write"));
+
+        roleRepository.removePermission(role, write);
+        store.onRoleChanged(new RoleChangedEvent(role, RoleChangedEvent.Type.PERMISSION_REMOVED, write));
+        assertFalse(store.hasPermission(userId, "document:write"));
+    }
+
+    @Test
+    void testGrantSharedByTwoRolesSurvivesRemovingOne() {
+        UUID read = permission("document", "read");
+        UUID reader = role("reader");
+        UUID editor = role("editor");
+        roleRepository.assignPermission(reader, read);
+        roleRepository.assignPermission(editor, read);
+        userRepository.assignRole(userId, reader);
+        userRepository.assignRole(userId, editor);
+        assertTrue(store.hasPermission(userId, "document:read"));
+
+        roleRepository.delete(editor);
+        publish(new RoleChangedEvent(editor, RoleChangedEvent.Type.DELETED));
+        assertTrue(store.hasPermission(userId, "document:read"));
+
+        userRepository.removeRole(userId, reader);
+        store.onUserChanged(new UserChangedEvent(userId, UserChangedEvent.Type.ROLE_REMOVED, reader));
+        assertFalse(store.hasPermission(userId, "document:read"));
+    }
+
+    @Test
+    void testIgnoresPermissionsOfOtherRealms() {
+        UUID role = role("reader");
+        roleRepository.assignPermission(role, permission("document", "read"));
+        Permission foreign = new Permission();
+        foreign.setRealmId(UUID.randomUUID());
+        foreign.setResource("invoice");
+        foreign.setAction("read");
+        roleRepository.assignPermission(role, permissionRepository.create(foreign).getId());
+        userRepository.assignRole(userId, role);
+
+        assertEquals(List.of("document:read"), store.findPermissions(userId));
+        assertFalse(store.hasPermission(userId, "invoice:read"));
+    }
+
+    @Test
+    void testBatchDecisionsFollowRequestOrder() {
+        UUID role = role("editor");
+        roleRepository.assignPermission(role, permission("document", "read"));
+        roleRepository.assignPermission(role, permission("document", "write"));
+        permission("document", "delete");
+        userRepository.assignRole(userId, role);
+
+        boolean[] decisions = store.hasPermissions(userId,
+            List.of("document:write", "document:delete", "invoice:read", "document:read"));
+
+        assertArrayEquals(new boolean[] {true, false, false, true}, decisions);
+    }
+
+    @Test
+    void testCompositeRolesInheritTransitively() {
+        UUID admin = role("admin");
+        UUID editor = role("editor");
+        UUID viewer = role("viewer");
+        roleRepository.assignPermission(viewer, permission("document", "read"));
+        roleRepository.assignPermission(editor, permission("document", "write"));
+        roleRepository.addChildRole(admin, editor);
+        roleRepository.addChildRole(editor, viewer);
+        userRepository.assignRole(userId, admin);
+
+        assertEquals(List.of("document:read", "document:write"), store.findPermissions(userId));
+        assertEquals(3, store.findEffectiveRoles(userId).size());
+        assertTrue(hierarchy.wouldCycle(viewer, admin));
+        assertFalse(hierarchy.wouldCycle(admin, viewer));
+    }
+
+    @Test
+    void testCompositeEdgeChangesReachHolders() {
+        UUID editor = role("editor");
+        UUID viewer = role("viewer");
+        roleRepository.assignPermission(viewer, permission("document", "read"));
+        userRepository.assignRole(userId, editor);
+        assertFalse(store.hasPermission(userId, "document:read"));
+
+        roleRepository.addChildRole(editor, viewer);
+        publish(new RoleChangedEvent(editor, RoleChangedEvent.Type.CHILD_ADDED, null, viewer));
+        assertTrue(store.hasPermission(userId, "document:read"));
+        assertTrue(effectiveRolesChanged());
+
+        UUID audit = permission("document", "audit");
+        roleRepository.assignPermission(viewer, audit);
+        publish(new RoleChangedEvent(viewer, RoleChangedEvent.Type.PERMISSION_ASSIGNED, audit));
+        assertTrue(store.hasPermission(userId, "document:audit"));
+
+        roleRepository.removeChildRole(editor, viewer);
+        publish(new RoleChangedEvent(editor, RoleChangedEvent.Type.CHILD_REMOVED, null, viewer));
+        assertFalse(store.hasPermission(userId, "document:read"));
+        assertEquals(List.of(editor.toString()), store.findEffectiveRoles(userId));
+    }
+
+    @Test
+    void testRevocationsMadeElsewhereAreSeenAfterTtl() {
+        UUID reader = role("reader");
+        UUID editor = role("editor");
+        UUID viewer = role("viewer");
+        UUID read = permission("document", "read");
+        UUID write = permission("document", "write");
+        UUID audit = permission("document", "audit");
+        roleRepository.assignPermission(reader, read);
+        roleRepository.assignPermission(editor, write);
+        roleRepository.assignPermission(viewer, audit);
+        roleRepository.addChildRole(editor, viewer);
+        userRepository.assignRole(userId, reader);
+        userRepository.assignRole(userId, editor);
+        assertEquals(List.of("document:audit", "document:read", "document:write"), store.findPermissions(userId));
+
+        // Changed directly in the repositories, as another node would, without events
+        userRepository.removeRole(userId, reader);
+        roleRepository.removePermission(editor, write);
+        roleRepository.removeChildRole(editor, viewer);
+        clock.advance(TTL.minusSeconds(1));
+        assertEquals(List.of("document:audit", "document:read", "document:write"), store.findPermissions(userId));
+
+        clock.advance(Duration.ofSeconds(1));
+        assertEquals(List.of(), store.findPermissions(userId));
+        assertEquals(List.of(editor.toString()), store.findEffectiveRoles(userId));
+        assertTrue(effectiveRolesChanged());
+    }
+
+    @Test
+    void testUserDeletedElsewhereLosesGrantsAfterTtl() {
+        UUID role = role("reader");
+        roleRepository.assignPermission(role, permission("document", "read"));
+        userRepository.assignRole(userId, role);
+        assertTrue(store.hasPermission(userId, "document:read"));
+
+        userRepository.delete(userId);
+        clock.advance(TTL);
+
+        assertFalse(store.hasPermission(userId, "document:read"));
+        assertNull(store.grants(userId));
+    }
+
+    @Test
+    void testReloadKeepsVersionOfUnchangedGrants() {
+        UUID role = role("reader");
+        roleRepository.assignPermission(role, permission("document", "read"));
+        userRepository.assignRole(userId, role);
+        long version = store.grants(userId).version();
+
+        clock.advance(TTL);
+
+        assertEquals(version, store.grants(userId).version());
+    }
+
+    @Test
+    void testUnknownUserHasNoPermissions() {
+        assertFalse(store.hasPermission(UUID.randomUUID(), "document:read"));
+        assertArrayEquals(new boolean[] {false}, store.hasPermissions(UUID.randomUUID(), List.of("document:read")));
+    }
+
+    @Test
+    void testRenamedRolesChangeRoleNames() {
+        UUID role = role("editor");
+        userRepository.assignRole(userId, role);
+        assertEquals(List.of("editor"), store.findRoleNames(userId));
+
+        Role renamed = roleRepository.findById(role).orElseThrow();
+        renamed.setName("admin");
+        roleRepository.update(renamed);
+        publish(new RoleChangedEvent(role, RoleChangedEvent.Type.UPDATED));
+
+        assertEquals(List.of("admin"), store.findRoleNames(userId));
+        assertTrue(effectiveRolesChanged());
+    }
+
+    private boolean effectiveRolesChanged() {
+        return events.stream().anyMatch(event -> event instanceof UserChangedEvent changed
+            && changed.getUserId().equals(userId)
+            && changed.getType() == UserChangedEvent.Type.EFFECTIVE_ROLES_CHANGED);
+    }
+
+    private void publish(RoleChangedEvent event) {
+        hierarchy.onRoleChanged(event);
+        store.onRoleChanged(event);
+    }
+
+    private UUID role(String name) {
+        Role role = new Role();
+        role.setRealmId(realmId);
+        role.setName(name);
+        return roleRepository.create(role).getId();
+    }
+
+    private UUID permission(String resource, String action) {
+        Permission permission = new Permission();
+        permission.setRealmId(realmId);
+        permission.setResource(resource);
+        permission.setAction(action);
+        return permissionRepository.create(permission).getId();
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            this.instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.owiseman.core.security;
+
+import com.owiseman.core.domain.Role;
+import com.owiseman.core.domain.TokenClaims;
+import com.owiseman.core.domain.User;
+import com.owiseman.core.event.UserChangedEvent;
+import com.owiseman.core.repository.memory.InMemoryPermissionRepository;
+import com.owiseman.core.repository.memory.InMemoryRoleRepository;
+import com.owiseman.core.repository.memory.InMemoryUserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for JwtAuthenticationFilter with self-contained tokens, run as two
+ * nodes sharing one user repository.
+ */
+class JwtAuthenticationFilterTest {
+
+    private static final String SECRET = "mySecretKeyForJWTTokenGenerationMustBeAtLeast256BitsLong";
+
+    private final InMemoryUserRepository userRepository = new InMemoryUserRepository();
+    private final InMemoryRoleRepository roleRepository = new InMemoryRoleRepository();
+    private final JwtTokenProvider tokenProvider =
+        new JwtTokenProvider(new SigningKeyManager(SECRET, "", 3_600_000L), 3_600_000L, true);
+    private Node node;
+    private Node otherNode;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        node = new Node(Duration.ofMinutes(1));
+        // Re-reads shared versions on every request, as if its cache had just expired
+        otherNode = new Node(Duration.ZERO);
+
+        user = new User();
+        user.setRealmId(UUID.randomUUID());
+        user.setUsername("alice");
+        user.setEmail("alice@example.com");
+        user.setPasswordHash("hash");
+        userRepository.create(user);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testCurrentTokenSkipsLookup() throws Exception {
+        String token = issueToken();
+
+        Authentication authentication = node.authenticate(token);
+
+        assertNotNull(authentication);
+        assertEquals("alice", authentication.getName());
+        assertEquals(0, node.lookups.get());
+    }
+
+    @Test
+    void testStaleVersionFallsBackToLookup() throws Exception {
+        String token = issueToken();
+        UUID roleId = role("admin");
+        userRepository.assignRole(user.getId(), roleId);
+        node.publish(new UserChangedEvent(user.getId(), UserChangedEvent.Type.ROLE_ASSIGNED, roleId));
+
+        Authentication authentication = node.authenticate(token);
+
+        assertNotNull(authentication);
+        assertEquals(1, node.lookups.get());
+        assertTrue(authentication.getAuthorities().stream()
+            .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority())));
+        AuthenticatedUser principal = (AuthenticatedUser) authentication.getPrincipal();
+        assertEquals(userRepository.findAuthoritiesVersion(user.getId()).orElseThrow(),
+            principal.getAuthoritiesVersion());
+    }
+
+    @Test
+    void testDisabledUserIsRejected() throws Exception {
+        String token = issueToken();
+        assertNotNull(node.authenticate(token));
+
+        disable(node);
+
+        assertNull(node.authenticate(token));
+    }
+
+    @Test
+    void testUserDisabledOnAnotherNodeIsRejected() throws Exception {
+        String token = issueToken();
+        assertNotNull(otherNode.authenticate(token));
+        // Cache the enabled user details on the other node too
+        otherNode.userDetailsCache.get(user.getRealmId(), "alice");
+
+        disable(node);
+
+        assertNull(otherNode.authenticate(token));
+        assertFalse(otherNode.userDetailsCache.get(user.getRealmId(), "alice").isEnabled());
+    }
+
+    @Test
+    void testUserDetailsCacheIsInvalidatedOnUserChangedEvent() {
+        assertTrue(node.userDetailsCache.get(user.getRealmId(), "alice").isEnabled());
+        node.userDetailsCache.get(user.getRealmId(), "alice");
+        assertEquals(1, node.lookups.get());
+
+        user.setEnabled(false);
+        userRepository.update(user);
+        node.userDetailsCache.onUserChanged(new UserChangedEvent(user.getId(), UserChangedEvent.Type.DISABLED));
+
+        assertFalse(node.userDetailsCache.get(user.getRealmId(), "alice").isEnabled());
+        assertEquals(2, node.lookups.get());
+    }
+
+    private String issueToken() {
+        TokenClaims claims = new TokenClaims();
+        claims.setUserId(user.getId());
+        claims.setRealmId(user.getRealmId());
+        claims.setUsername(user.getUsername());
+        claims.setAuthoritiesVersion(userRepository.findById(user.getId()).orElseThrow().getAuthoritiesVersion());
+        return tokenProvider.generateToken(claims);
+    }
+
+    /** What UserServiceImpl does to disable a user on the given node. */
+    private void disable(Node on) {
+        user.setEnabled(false);
+        userRepository.update(user);
+        on.publish(new UserChangedEvent(user.getId(), UserChangedEvent.Type.DISABLED));
+    }
+
+    private UUID role(String name) {
+        Role role = new Role();
+        role.setRealmId(user.getRealmId());
+        role.setName(name);
+        return roleRepository.create(role).getId();
+    }
+
+    /** One node's caches and filter over the shared repositories. */
+    private final class Node {
+
+        final AtomicInteger lookups = new AtomicInteger();
+        final EffectivePermissionStore permissionStore;
+        final AuthoritiesVersionRegistry versionRegistry;
+        final UserDetailsCache userDetailsCache;
+        final JwtAuthenticationFilter filter;
+
+        Node(Duration versionTtl) {
+            permissionStore = new EffectivePermissionStore(userRepository, roleRepository,
+                new InMemoryPermissionRepository(), new RoleHierarchy(roleRepository, Duration.ofMinutes(1)),
+                event -> publish((UserChangedEvent) event), Duration.ofMinutes(1));
+            CustomUserDetailsService userDetailsService = new CustomUserDetailsService(userRepository, permissionStore) {
+                @Override
+                public AuthenticatedUser loadUserByUsername(UUID realmId, String username) {
+                    lookups.incrementAndGet();
+                    return super.loadUserByUsername(realmId, username);
+                }
+            };
+            versionRegistry = new AuthoritiesVersionRegistry(userRepository, 1000, versionTtl);
+            userDetailsCache = new UserDetailsCache(userDetailsService, versionRegistry, new SimpleMeterRegistry(),
+                1000, Duration.ofMinutes(5));
+            filter = new JwtAuthenticationFilter(tokenProvider, userDetailsService, userDetailsCache,
+                versionRegistry);
+        }
+
+        void publish(UserChangedEvent event) {
+            permissionStore.onUserChanged(event);
+            versionRegistry.onUserChanged(event);
+            userDetailsCache.onUserChanged(event);
+        }
+
+        Authentication authenticate(String token) throws Exception {
+            SecurityContextHolder.clearContext();
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users");
+            request.addHeader("Authorization", "Bearer " + token);
+            filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+            return SecurityContextHolder.getContext().getAuthentication();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.owiseman.core.security;
+
+import com.owiseman.core.exception.TooManyAttemptsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for LoginThrottle.
+ */
+class LoginThrottleTest {
+
+    /** The start of a 15 minute window. */
+    private static final Instant START = Instant.parse("2026-01-05T09:30:00Z");
+
+    private final MutableClock clock = new MutableClock(START);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UUID realmId = UUID.randomUUID();
+
+    @Test
+    void testThrottlesUserAfterMaxFailures() {
+        LoginThrottle throttle = throttle(3, 100, Duration.ZERO);
+        for (int i = 0; i < 3; i++) {
+            throttle.check(realmId, "alice", "10.0.0.1");
+            throttle.recordFailure(realmId, "alice", "10.0.0.1");
+        }
+        clock.set(START.plusSeconds(60));
+
+        TooManyAttemptsException ex = assertThrows(TooManyAttemptsException.class,
+            () -> throttle.check(realmId, "alice", "10.0.0.2"));
+        assertEquals(Duration.ofMinutes(14), ex.getRetryAfter());
+        assertDoesNotThrow(() -> throttle.check(realmId, "bob", "10.0.0.1"));
+        assertDoesNotThrow(() -> throttle.check(UUID.randomUUID(), "alice", "10.0.0.1"));
+        assertDoesNotThrow(() -> throttle.check(null, "alice", null));
+        assertEquals(1, meterRegistry.get("auth.login.throttled").tag("key", "user").counter().count());
+    }
+
+    @Test
+    void testThrottlesAddressAcrossUsernames() {
+        LoginThrottle throttle = throttle(3, 5, Duration.ZERO);
+        for (int i = 0; i < 5; i++) {
+            throttle.recordFailure(null, "user-" + i, "10.0.0.1");
+        }
+
+        assertThrows(TooManyAttemptsException.class, () -> throttle.check(null, "someone", "10.0.0.1"));
+        assertDoesNotThrow(() -> throttle.check(null, "someone", "10.0.0.2"));
+        assertDoesNotThrow(() -> throttle.check(null, "someone", null));
+        assertEquals(1, meterRegistry.get("auth.login.throttled").tag("key", "address").counter().count());
+    }
+
+    @Test
+    void testPreviousWindowFadesOut() {
+        LoginThrottle throttle = throttle(4, 100, Duration.ZERO);
+        for (int i = 0; i < 4; i++) {
+            throttle.recordFailure(realmId, "alice", null);
+        }
+
+        // A third into the next window two thirds of the previous one still count
+        clock.set(START.plus(Duration.ofMinutes(20)));
+        assertEquals(3, throttle.estimate(realmId, "alice"));
+        assertDoesNotThrow(() -> throttle.check(realmId, "alice", null));
+        throttle.recordFailure(realmId, "alice", null);
+        assertThrows(TooManyAttemptsException.class, () -> throttle.check(realmId, "alice", null));
+
+        clock.set(START.plus(Duration.ofMinutes(45)));
+        assertEquals(0, throttle.estimate(realmId, "alice"));
+    }
+
+    @Test
+    void testProgressiveDelayDoublesUpToMaximum() {
+        LoginThrottle throttle = throttle(10, 100, Duration.ofMillis(100));
+
+        assertEquals(0, throttle.delayAfter(0));
+        assertEquals(100, throttle.delayAfter(1));
+        assertEquals(400, throttle.delayAfter(3));
+        assertEquals(2000, throttle.delayAfter(6));
+        assertEquals(2000, throttle.delayAfter(Long.MAX_VALUE));
+        assertEquals(0, throttle(10, 100, Duration.ZERO).delayAfter(5));
+    }
+
+    @Test
+    void testProgressiveDelayRejectsAttemptsUntilLockoutEnds() {
+        LoginThrottle throttle = throttle(10, 100, Duration.ofMillis(100));
+        throttle.recordFailure(realmId, "alice", "10.0.0.1");
+
+        TooManyAttemptsException ex = assertThrows(TooManyAttemptsException.class,
+            () -> throttle.check(realmId, "alice", "10.0.0.2"));
+        assertEquals(Duration.ofMillis(100), ex.getRetryAfter());
+        assertDoesNotThrow(() -> throttle.check(realmId, "bob", "10.0.0.1"));
+
+        clock.set(START.plusMillis(100));
+        assertDoesNotThrow(() -> throttle.check(realmId, "alice", "10.0.0.2"));
+        throttle.recordFailure(realmId, "alice", "10.0.0.2");
+        clock.set(START.plusMillis(250));
+        ex = assertThrows(TooManyAttemptsException.class, () -> throttle.check(realmId, "alice", null));
+        assertEquals(Duration.ofMillis(50), ex.getRetryAfter());
+        assertEquals(2, meterRegistry.get("auth.login.throttled").tag("key", "user").counter().count());
+
+        clock.set(START.plusMillis(300));
+        assertDoesNotThrow(() -> throttle.check(realmId, "alice", null));
+    }
+
+    private LoginThrottle throttle(int maxFailuresPerUser, int maxFailuresPerAddress, Duration progressiveDelay) {
+        return new LoginThrottle(meterRegistry, Duration.ofMinutes(15), maxFailuresPerUser, maxFailuresPerAddress,
+            progressiveDelay, Duration.ofSeconds(2), clock);
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void set(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
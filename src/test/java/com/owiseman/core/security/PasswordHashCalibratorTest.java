@@ -0,0 +1,65 @@
+package com.owiseman.core.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for PasswordHashCalibrator.
+ */
+class PasswordHashCalibratorTest {
+
+    @Test
+    void testBcryptStrengthFitsTargetLatency() {
+        // 60ms at the minimum strength: 120ms, 240ms fit in 250ms, 480ms does not
+        PasswordHashCalibrator calibrator = new PasswordHashCalibrator(Duration.ofMillis(250), 1000,
+            encoder -> Duration.ofMillis(60).toNanos());
+
+        assertTrue(calibrator.bcrypt().encode("secret").startsWith("$2a$12$"));
+    }
+
+    @Test
+    void testCostNeverDropsBelowFloor() {
+        PasswordHashCalibrator slow = new PasswordHashCalibrator(Duration.ofMillis(250), 1000,
+            encoder -> Duration.ofSeconds(2).toNanos());
+        PasswordHashCalibrator uncalibrated = new PasswordHashCalibrator(Duration.ZERO, 1000,
+            encoder -> fail("calibrated with zero target"));
+
+        assertTrue(slow.bcrypt().encode("secret").startsWith("$2a$10$"));
+        assertTrue(uncalibrated.bcrypt().encode("secret").startsWith("$2a$10$"));
+    }
+
+    @Test
+    void testArgon2IterationsScaleWithTargetLatency() {
+        PasswordHashCalibrator calibrator = new PasswordHashCalibrator(Duration.ofMillis(100), 1000,
+            encoder -> Duration.ofMillis(20).toNanos());
+
+        assertTrue(calibrator.argon2().encode("secret").startsWith("$argon2id$v=19$m=19456,t=10,p=1$"));
+    }
+
+    @Test
+    void testVerifiesEveryAlgorithmAndUpgradesOthers() {
+        PasswordHashCalibrator calibrator = new PasswordHashCalibrator(Duration.ZERO, 1000);
+        PasswordEncoder bcrypt = calibrator.create("bcrypt");
+        PasswordEncoder pbkdf2 = calibrator.create("PBKDF2");
+        String legacy = new BCryptPasswordEncoder(4).encode("secret");
+        String current = bcrypt.encode("secret");
+        String pbkdf2Hash = pbkdf2.encode("secret");
+
+        assertTrue(current.startsWith("{bcrypt}$2a$10$"));
+        assertTrue(pbkdf2Hash.startsWith("{pbkdf2}"));
+        assertTrue(bcrypt.matches("secret", legacy));
+        assertTrue(bcrypt.matches("secret", pbkdf2Hash));
+        assertFalse(bcrypt.matches("wrong", pbkdf2Hash));
+        assertTrue(pbkdf2.matches("secret", current));
+
+        assertTrue(bcrypt.upgradeEncoding(legacy));
+        assertTrue(bcrypt.upgradeEncoding(pbkdf2Hash));
+        assertFalse(bcrypt.upgradeEncoding(current));
+        assertThrows(IllegalArgumentException.class, () -> calibrator.create("md5"));
+    }
+}
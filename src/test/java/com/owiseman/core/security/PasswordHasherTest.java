@@ -0,0 +1,119 @@
+package com.owiseman.core.security;
+
+import com.owiseman.core.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for PasswordHasher.
+ */
+class PasswordHasherTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private PasswordHasher hasher;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (hasher != null) {
+            hasher.close();
+        }
+    }
+
+    @Test
+    void testEncodesAndMatchesOnExecutor() {
+        hasher = new PasswordHasher(new BCryptPasswordEncoder(4), meterRegistry, 2, 4,
+            Duration.ofSeconds(5), Duration.ofSeconds(1));
+
+        String hash = hasher.encode("secret");
+        assertTrue(hasher.matches("secret", hash));
+        assertFalse(hasher.matches("wrong", hash));
+        assertEquals(1, meterRegistry.get("password.hashing").tag("operation", "encode").timer().count());
+        assertEquals(2, meterRegistry.get("password.hashing").tag("operation", "matches").timer().count());
+    }
+
+    @Test
+    void testShedsRequestsWhenQueueIsFull() throws Exception {
+        hasher = new PasswordHasher(blockingEncoder(), meterRegistry, 1, 1,
+            Duration.ofSeconds(5), Duration.ofMillis(1500));
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> hasher.encode("first"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> hasher.encode("second"));
+        while (meterRegistry.get("password.hashing.queue").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+
+        ServiceOverloadedException ex = assertThrows(ServiceOverloadedException.class, () -> hasher.encode("third"));
+        assertEquals(Duration.ofMillis(1500), ex.getRetryAfter());
+        assertEquals(1, meterRegistry.get("password.hashing.rejected").tag("reason", "queue-full").counter().count());
+
+        release.countDown();
+        assertEquals("hash:first", running.get(5, TimeUnit.SECONDS));
+        assertEquals("hash:second", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testGivesUpAfterMaxWaitAndFreesQueueSlot() throws Exception {
+        hasher = new PasswordHasher(blockingEncoder(), meterRegistry, 1, 1,
+            Duration.ofMillis(50), Duration.ofSeconds(1));
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> hasher.encode("first"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertThrows(ServiceOverloadedException.class, () -> hasher.matches("second", "hash:second"));
+        assertEquals(0, meterRegistry.get("password.hashing.queue").gauge().value());
+        CompletionException ex = assertThrows(CompletionException.class, running::join);
+        assertInstanceOf(ServiceOverloadedException.class, ex.getCause());
+        assertEquals(2, meterRegistry.get("password.hashing.rejected").tag("reason", "timeout").counter().count());
+    }
+
+    @Test
+    void testUpgradesWeakerHashesInBackground() throws Exception {
+        hasher = new PasswordHasher(new BCryptPasswordEncoder(5), meterRegistry, 1, 4,
+            Duration.ofSeconds(5), Duration.ofSeconds(1));
+        String weak = new BCryptPasswordEncoder(4).encode("secret");
+        CompletableFuture<String> stored = new CompletableFuture<>();
+
+        hasher.upgradeLater("secret", hasher.encode("secret"), stored::complete);
+        hasher.upgradeLater("secret", weak, stored::complete);
+
+        String upgraded = stored.get(5, TimeUnit.SECONDS);
+        assertTrue(upgraded.startsWith("$2a$05$"));
+        assertTrue(hasher.matches("secret", upgraded));
+        // One encode for the current hash and one for the upgrade of the weak one, on the only thread
+        assertEquals(2, meterRegistry.get("password.hashing").tag("operation", "encode").timer().count());
+    }
+
+    /** Hashes as {@code hash:<raw>} once released; the first call signals it has started. */
+    private PasswordEncoder blockingEncoder() {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return "hash:" + rawPassword;
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return encode(rawPassword).equals(encodedPassword);
+            }
+        };
+    }
+}
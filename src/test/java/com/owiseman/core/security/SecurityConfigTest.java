@@ -0,0 +1,148 @@
+package com.owiseman.core.security;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+
+import java.util.UUID;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.owiseman.App;
+import com.owiseman.core.domain.Realm;
+import com.owiseman.core.domain.Role;
+import com.owiseman.core.jooq.repository.RealmRepository;
+import com.owiseman.core.jooq.repository.RoleRepository;
+import com.owiseman.core.service.UserService;
+import com.owiseman.core.web.dto.RegisterRequest;
+
+/**
+ * Checks the access rules of SecurityConfig against the dev profile, with the
+ * JWT and actuator settings application.yml only sets for prod.
+ */
+@SpringBootTest(classes = App.class, properties = {
+    "spring.autoconfigure.exclude="
+        + "org.springframework.boot.jdbc.autoconfigure.DataSourceAutoConfiguration,"
+        + "org.springframework.boot.jooq.autoconfigure.JooqAutoConfiguration,"
+        + "org.springframework.boot.liquibase.autoconfigure.LiquibaseAutoConfiguration",
+    "jwt.secret=mySecretKeyForJWTTokenGenerationMustBeAtLeast256BitsLong",
+    "jwt.expiration=600000",
+    "management.endpoints.web.exposure.include=health,info,metrics",
+    "app.audit.spool.directory=target/security-config-test-spool",
+    "app.security.password-hashing.target-latency=0ms"
+})
+@ActiveProfiles("dev")
+class SecurityConfigTest {
+
+    @Autowired
+    WebApplicationContext webApplicationContext;
+
+    @Autowired
+    RealmRepository realmRepository;
+
+    @Autowired
+    RoleRepository roleRepository;
+
+    @Autowired
+    UserService userService;
+
+    final ObjectMapper objectMapper = new ObjectMapper();
+
+    MockMvc mockMvc;
+    UUID realmId;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext)
+            .apply(springSecurity())
+            .build();
+        Realm realm = new Realm();
+        realm.setName("realm-" + UUID.randomUUID());
+        realm.setEnabled(true);
+        realmId = realmRepository.create(realm).getId();
+    }
+
+    @Test
+    void testAdminCanReadMetrics() throws Exception {
+        JsonNode admin = register();
+        userService.assignRole(UUID.fromString(admin.get("userId").asText()), role("admin"));
+
+        mockMvc.perform(get("/actuator/metrics").header("Authorization", bearer(admin)))
+            .andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/metrics/{name}", "authz.decision.cache.requests")
+                .header("Authorization", bearer(admin)))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    void testOtherUsersCannotReadMetrics() throws Exception {
+        JsonNode user = register();
+        userService.assignRole(UUID.fromString(user.get("userId").asText()), role("editor"));
+
+        mockMvc.perform(get("/actuator/metrics").header("Authorization", bearer(user)))
+            .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/metrics"))
+            .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/health"))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    void testAuditLogsAreForAdminsOfTheRealm() throws Exception {
+        JsonNode admin = register();
+        userService.assignRole(UUID.fromString(admin.get("userId").asText()), role("admin"));
+        JsonNode user = register();
+
+        mockMvc.perform(get("/api/audit/realm/{realmId}/rollups", realmId).header("Authorization", bearer(admin)))
+            .andExpect(status().isOk());
+        mockMvc.perform(get("/api/audit/realm/{realmId}/rollups", realmId).header("Authorization", bearer(user)))
+            .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/audit/realm/{realmId}/export", realmId).header("Authorization", bearer(user)))
+            .andExpect(status().isForbidden());
+
+        UUID otherRealm = UUID.randomUUID();
+        mockMvc.perform(get("/api/audit/realm/{realmId}/rollups/addresses", otherRealm)
+                .header("Authorization", bearer(admin)))
+            .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/audit/realm/{realmId}/export", otherRealm).header("Authorization", bearer(admin)))
+            .andExpect(status().isForbidden());
+    }
+
+    private JsonNode register() throws Exception {
+        RegisterRequest request = new RegisterRequest();
+        String name = "user_" + UUID.randomUUID().toString().replace("-", "");
+        request.setUsername(name);
+        request.setEmail(name + "@example.com");
+        request.setPassword("password123");
+        request.setRealmId(realmId);
+        String response = mockMvc.perform(post("/api/auth/register")
+                .contentType("application/json")
+                .content(objectMapper.writeValueAsString(request)))
+            .andExpect(status().isCreated())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+        return objectMapper.readTree(response);
+    }
+
+    private UUID role(String name) {
+        Role role = new Role();
+        role.setRealmId(realmId);
+        role.setName(name);
+        return roleRepository.create(role).getId();
+    }
+
+    private static String bearer(JsonNode auth) {
+        return "Bearer " + auth.get("accessToken").asText();
+    }
+}
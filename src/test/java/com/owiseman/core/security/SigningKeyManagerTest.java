@@ -0,0 +1,84 @@
+package com.owiseman.core.security;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SigningKeyManager.
+ */
+class SigningKeyManagerTest {
+
+    private static final String SECRET = "mySecretKeyForJWTTokenGenerationMustBeAtLeast256BitsLong";
+    private static final String PASSWORD = "changeit";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testNodesSharingKeyStoreVerifyEachOthersKeys() throws Exception {
+        Path keyStore = directory.resolve("jwt.p12");
+        generateKeyPair(keyStore, "2026-01");
+        generateKeyPair(keyStore, "2026-02");
+        String location = keyStore.toUri().toString();
+
+        SigningKeyManager first = new SigningKeyManager(SECRET, "ES256", 3_600_000L, location, PASSWORD, "2026-01");
+        SigningKeyManager restarted = new SigningKeyManager(SECRET, "ES256", 3_600_000L, location, PASSWORD, "2026-01");
+        SigningKeyManager switched = new SigningKeyManager(SECRET, "ES256", 3_600_000L, location, PASSWORD, "2026-02");
+
+        String kid = first.getActiveKey().kid();
+        assertEquals(kid, restarted.getActiveKey().kid());
+        assertEquals(first.getActiveKey().verificationKey(), restarted.findVerificationKey(kid));
+        assertNotEquals(kid, switched.getActiveKey().kid());
+        assertNotNull(switched.findVerificationKey(kid));
+        assertTrue(first.getJwksJson().contains(switched.getActiveKey().kid()));
+
+        first.rotate();
+        assertEquals(kid, first.getActiveKey().kid());
+    }
+
+    @Test
+    void testRejectsMissingAliasAndSymmetricAlgorithm() throws Exception {
+        Path keyStore = directory.resolve("jwt.p12");
+        generateKeyPair(keyStore, "2026-01");
+        String location = keyStore.toUri().toString();
+
+        assertThrows(IllegalStateException.class,
+            () -> new SigningKeyManager(SECRET, "ES256", 3_600_000L, location, PASSWORD, "2025-12"));
+        assertThrows(IllegalStateException.class,
+            () -> new SigningKeyManager(SECRET, "", 3_600_000L, location, PASSWORD, "2026-01"));
+        assertThrows(IllegalStateException.class,
+            () -> new SigningKeyManager(SECRET, "ES256", 3_600_000L, location, "wrong", "2026-01"));
+    }
+
+    @Test
+    void testGeneratedKeysRotate() {
+        SigningKeyManager manager = new SigningKeyManager(SECRET, "ES256", 3_600_000L);
+        String kid = manager.getActiveKey().kid();
+
+        manager.rotate();
+
+        assertNotEquals(kid, manager.getActiveKey().kid());
+        assertNotNull(manager.findVerificationKey(kid));
+    }
+
+    /** Add an EC P-256 key pair with a self-signed certificate, as an operator would. */
+    private static void generateKeyPair(Path keyStore, String alias) throws IOException, InterruptedException {
+        Path keytool = Path.of(System.getProperty("java.home"), "bin", "keytool");
+        Process process = new ProcessBuilder(List.of(keytool.toString(), "-genkeypair", "-keyalg", "EC",
+            "-groupname", "secp256r1", "-sigalg", "SHA256withECDSA", "-alias", alias, "-dname", "CN=my-ima",
+            "-validity", "365", "-storetype", "PKCS12", "-keystore", keyStore.toString(),
+            "-storepass", PASSWORD, "-keypass", PASSWORD))
+            .redirectErrorStream(true)
+            .start();
+        String output = new String(process.getInputStream().readAllBytes());
+        assertTrue(process.waitFor(60, TimeUnit.SECONDS));
+        assertEquals(0, process.exitValue(), output);
+    }
+}
@@ -0,0 +1,103 @@
+package com.owiseman.core.web.controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+
+import java.util.UUID;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.owiseman.App;
+import com.owiseman.core.domain.Realm;
+import com.owiseman.core.jooq.repository.RealmRepository;
+import com.owiseman.core.web.dto.RegisterRequest;
+
+/**
+ * Checks how UserController reports unknown users, against the dev profile.
+ */
+@SpringBootTest(classes = App.class, properties = {
+    "spring.autoconfigure.exclude="
+        + "org.springframework.boot.jdbc.autoconfigure.DataSourceAutoConfiguration,"
+        + "org.springframework.boot.jooq.autoconfigure.JooqAutoConfiguration,"
+        + "org.springframework.boot.liquibase.autoconfigure.LiquibaseAutoConfiguration",
+    "jwt.secret=mySecretKeyForJWTTokenGenerationMustBeAtLeast256BitsLong",
+    "jwt.expiration=600000",
+    "app.audit.spool.directory=target/user-controller-test-spool",
+    "app.security.password-hashing.target-latency=0ms"
+})
+@ActiveProfiles("dev")
+class UserControllerTest {
+
+    @Autowired
+    WebApplicationContext webApplicationContext;
+
+    @Autowired
+    RealmRepository realmRepository;
+
+    final ObjectMapper objectMapper = new ObjectMapper();
+
+    MockMvc mockMvc;
+    String bearer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext)
+            .apply(springSecurity())
+            .build();
+        Realm realm = new Realm();
+        realm.setName("realm-" + UUID.randomUUID());
+        realm.setEnabled(true);
+        UUID realmId = realmRepository.create(realm).getId();
+
+        RegisterRequest request = new RegisterRequest();
+        String name = "user_" + UUID.randomUUID().toString().replace("-", "");
+        request.setUsername(name);
+        request.setEmail(name + "@example.com");
+        request.setPassword("password123");
+        request.setRealmId(realmId);
+        String response = mockMvc.perform(post("/api/auth/register")
+                .contentType("application/json")
+                .content(objectMapper.writeValueAsString(request)))
+            .andExpect(status().isCreated())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+        JsonNode auth = objectMapper.readTree(response);
+        bearer = "Bearer " + auth.get("accessToken").asText();
+    }
+
+    @Test
+    void testGetAttributesOfUnknownUserIsNotFound() throws Exception {
+        UUID unknown = UUID.randomUUID();
+
+        mockMvc.perform(get("/api/users/{userId}/attributes", unknown).header("Authorization", bearer))
+            .andExpect(status().isNotFound())
+            .andExpect(jsonPath("$.status").value(404))
+            .andExpect(jsonPath("$.path").value("/api/users/" + unknown + "/attributes"));
+    }
+
+    @Test
+    void testUpdateAttributesOfUnknownUserIsNotFound() throws Exception {
+        UUID unknown = UUID.randomUUID();
+
+        mockMvc.perform(put("/api/users/{userId}/attributes", unknown)
+                .header("Authorization", bearer)
+                .contentType("application/json")
+                .content("{\"department\":\"engineering\"}"))
+            .andExpect(status().isNotFound())
+            .andExpect(jsonPath("$.status").value(404));
+    }
+}